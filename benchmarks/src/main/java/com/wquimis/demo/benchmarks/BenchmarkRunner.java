@@ -0,0 +1,27 @@
+package com.wquimis.demo.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ejecuta las suites con el perfilador GC activo, de modo que cada resultado incluya
+ * gc.alloc.rate.norm (bytes asignados por operación) junto al tiempo.
+ * Uso: java -jar target/benchmarks.jar [regex de benchmarks]
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder opciones = new OptionsBuilder();
+        opciones.include(args.length > 0 ? args[0] : BenchmarkRunner.class.getPackageName() + ".*");
+        Options options = opciones
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,65 @@
+package com.wquimis.demo.benchmarks;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aritmética de saldo de la entidad Cuenta (BigDecimal con escala 4), usada por el lote y la escritura coordinada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CuentaSaldoBenchmark {
+
+    private final BigDecimal monto = new BigDecimal("25.7500");
+    private Cuenta cuenta;
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        // Saldo alto para que los débitos repetidos no lo agoten durante la iteración
+        cuenta = Datos.cuenta();
+        cuenta.setSaldodisponible(new BigDecimal("1000000000.0000"));
+    }
+
+    @Benchmark
+    public BigDecimal debitar() {
+        cuenta.debitar(monto);
+        return cuenta.getSaldodisponible();
+    }
+
+    @Benchmark
+    public BigDecimal acreditar() {
+        cuenta.acreditar(monto);
+        return cuenta.getSaldodisponible();
+    }
+
+    @Benchmark
+    public boolean tieneSaldoSuficiente() {
+        return cuenta.tieneSaldoSuficiente(monto);
+    }
+
+    /** Camino de un retiro en el lote: validar y debitar. */
+    @Benchmark
+    public BigDecimal validarYDebitar() {
+        if (cuenta.tieneSaldoSuficiente(monto)) {
+            cuenta.debitar(monto);
+        }
+        return cuenta.getSaldodisponible();
+    }
+}
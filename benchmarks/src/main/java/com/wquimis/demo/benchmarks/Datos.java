@@ -0,0 +1,80 @@
+package com.wquimis.demo.benchmarks;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.personasclientes.entities.Cliente;
+import com.wquimis.demo.personasclientes.entities.Persona;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos de prueba con la forma de los registros reales (montos con 4 decimales, descripciones típicas).
+ */
+final class Datos {
+
+    private Datos() {
+    }
+
+    static Cuenta cuenta() {
+        Cuenta cuenta = new Cuenta();
+        cuenta.setNumerocuenta(478758);
+        cuenta.setIdcliente(1L);
+        cuenta.setTipocuenta(Cuenta.TipoCuenta.AHORROS);
+        cuenta.setSaldoinicial(new BigDecimal("2000.0000"));
+        cuenta.setSaldodisponible(new BigDecimal("1425.5000"));
+        cuenta.setEstado(true);
+        cuenta.setFechacreacion(LocalDateTime.of(2024, 1, 15, 9, 30));
+        return cuenta;
+    }
+
+    static List<Movimiento> movimientos(Cuenta cuenta, int cantidad) {
+        List<Movimiento> movimientos = new ArrayList<>(cantidad);
+        BigDecimal saldo = cuenta.getSaldoinicial();
+        LocalDate fecha = LocalDate.of(2024, 2, 1);
+        for (int i = 0; i < cantidad; i++) {
+            boolean retiro = i % 3 == 0;
+            BigDecimal monto = new BigDecimal("25.7500").add(BigDecimal.valueOf(i % 50));
+            saldo = retiro ? saldo.subtract(monto) : saldo.add(monto);
+            Movimiento movimiento = new Movimiento();
+            movimiento.setIdmovimiento((long) i + 1);
+            movimiento.setCuenta(cuenta);
+            movimiento.setEstado(i % 20 != 0);
+            movimiento.setFechamovimiento(fecha.plusDays(i / 10));
+            movimiento.setHoramovimiento(LocalTime.of(8, 0).plusMinutes(i % 600));
+            movimiento.setTipomovimiento(retiro ? Movimiento.TipoMovimiento.RETIRO : Movimiento.TipoMovimiento.DEPOSITO);
+            movimiento.setMontomovimiento(monto);
+            movimiento.setSaldodisponible(saldo);
+            movimiento.setMovimientodescripcion(retiro ? "Retiro en cajero automático" : "Depósito en ventanilla");
+            movimientos.add(movimiento);
+        }
+        return movimientos;
+    }
+
+    static Persona persona() {
+        Persona persona = new Persona();
+        persona.setIdpersona(1L);
+        persona.setIdentificacionpersona("0912345678");
+        persona.setNombres("Jose Lema");
+        persona.setGenero("M");
+        persona.setEdad(35);
+        persona.setDireccion("Otavalo sn y principal");
+        persona.setTelefono("098254785");
+        persona.setEstado(true);
+        return persona;
+    }
+
+    static Cliente cliente(Persona persona) {
+        Cliente cliente = new Cliente();
+        cliente.setIdcliente(1L);
+        cliente.setPersona(persona);
+        cliente.setNombreusuario("jlema");
+        cliente.setContrasena("1234");
+        cliente.setEstado(true);
+        return cliente;
+    }
+}
@@ -0,0 +1,63 @@
+package com.wquimis.demo.benchmarks;
+
+import com.wquimis.demo.cuentasmovimientos.dto.CuentaDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.MovimientoDTO;
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.utils.DtoConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversión entidad → DTO de cuentas-movimientos (mapeo manual, sin reflexión).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoConverterCuentasBenchmark {
+
+    private DtoConverter dtoConverter;
+    private Cuenta cuenta;
+    private Movimiento movimiento;
+    private List<Movimiento> pagina;
+
+    @Setup
+    public void preparar() {
+        dtoConverter = new DtoConverter();
+        cuenta = Datos.cuenta();
+        pagina = Datos.movimientos(cuenta, 50);
+        movimiento = pagina.get(1);
+    }
+
+    @Benchmark
+    public MovimientoDTO movimientoToDto() {
+        return dtoConverter.toDto(movimiento);
+    }
+
+    @Benchmark
+    public CuentaDTO cuentaToDto() {
+        return dtoConverter.toDto(cuenta);
+    }
+
+    /** Página típica del listado paginado de movimientos. */
+    @Benchmark
+    @OperationsPerInvocation(50)
+    public List<MovimientoDTO> paginaMovimientosToDto() {
+        return pagina.stream().map(dtoConverter::toDto).toList();
+    }
+}
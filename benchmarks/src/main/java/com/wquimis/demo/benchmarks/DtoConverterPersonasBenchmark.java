@@ -0,0 +1,72 @@
+package com.wquimis.demo.benchmarks;
+
+import com.wquimis.demo.personasclientes.dto.ClienteDTO;
+import com.wquimis.demo.personasclientes.dto.CreateClienteDTO;
+import com.wquimis.demo.personasclientes.dto.PersonaDTO;
+import com.wquimis.demo.personasclientes.entities.Cliente;
+import com.wquimis.demo.personasclientes.entities.Persona;
+import com.wquimis.demo.personasclientes.utils.DtoConverter;
+import com.wquimis.demo.personasclientes.utils.PersonaClienteMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversiones de personas-clientes. Cada petición del servicio pasa por al menos una de ellas.
+ * Usa la implementación generada por MapStruct en el módulo del servicio.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoConverterPersonasBenchmark {
+
+    private DtoConverter dtoConverter;
+    private Persona persona;
+    private Cliente cliente;
+    private PersonaDTO personaDto;
+    private CreateClienteDTO createClienteDto;
+
+    @Setup
+    public void preparar() {
+        dtoConverter = new DtoConverter(new PersonaClienteMapperImpl());
+        persona = Datos.persona();
+        cliente = Datos.cliente(persona);
+        personaDto = dtoConverter.toPersonaDTO(persona);
+        createClienteDto = new CreateClienteDTO();
+        createClienteDto.setPersonaId(persona.getIdpersona());
+        createClienteDto.setNombreUsuario(cliente.getNombreusuario());
+        createClienteDto.setContrasena(cliente.getContrasena());
+    }
+
+    @Benchmark
+    public PersonaDTO toPersonaDTO() {
+        return dtoConverter.toPersonaDTO(persona);
+    }
+
+    @Benchmark
+    public ClienteDTO toClienteDTO() {
+        return dtoConverter.toClienteDTO(cliente);
+    }
+
+    @Benchmark
+    public Persona toPersona() {
+        return dtoConverter.toPersona(personaDto);
+    }
+
+    @Benchmark
+    public Cliente createClienteFromDTO() {
+        return dtoConverter.createClienteFromDTO(createClienteDto);
+    }
+}
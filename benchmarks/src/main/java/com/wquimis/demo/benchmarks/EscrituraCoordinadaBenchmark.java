@@ -0,0 +1,60 @@
+package com.wquimis.demo.benchmarks;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.services.MovimientoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ráfaga de depósitos de 64 llamadores sobre una cuenta caliente (requiere MySQL, ver {@link ServicioCuentas}),
+ * por la misma entrada que usa el controlador sin Idempotency-Key. Sin coordinación cada depósito es su propia
+ * transacción y espera el bloqueo de la fila; coordinado, el trabajador de la cuenta aplica los pendientes en
+ * tandas de una transacción (un UPDATE de saldo e inserts por lotes) y cada llamador recibe su resultado.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class EscrituraCoordinadaBenchmark {
+
+    @Param({"false", "true"})
+    private boolean coordinada;
+
+    private ConfigurableApplicationContext contexto;
+    private MovimientoService movimientoService;
+
+    @Setup
+    public void preparar() {
+        contexto = ServicioCuentas.iniciar(Map.of("cuentas.escritura.coordinada.enabled", coordinada));
+        movimientoService = contexto.getBean(MovimientoService.class);
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Movimiento depositar() {
+        return movimientoService.realizarMovimientoCoordinado(ServicioCuentas.CUENTA,
+            ServicioCuentas.movimiento(Movimiento.TipoMovimiento.DEPOSITO));
+    }
+}
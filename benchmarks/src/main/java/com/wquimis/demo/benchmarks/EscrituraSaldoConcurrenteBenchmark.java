@@ -0,0 +1,74 @@
+package com.wquimis.demo.benchmarks;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.services.MovimientoService;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoMovimiento;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 64 escritores concurrentes sobre una sola cuenta (requiere MySQL, ver {@link ServicioCuentas}).
+ * Cada operación es una transacción completa con su movimiento; retiros y depósitos se alternan por hilo para
+ * que el saldo no se agote. Se compara el UPDATE condicional de realizarMovimiento con el camino que lee la
+ * cuenta bajo bloqueo (SELECT ... FOR UPDATE), calcula el saldo en Java y lo escribe de vuelta.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class EscrituraSaldoConcurrenteBenchmark {
+
+    private ConfigurableApplicationContext contexto;
+    private MovimientoService movimientoService;
+
+    @State(Scope.Thread)
+    public static class Escritor {
+        private boolean retiro;
+
+        Movimiento siguiente() {
+            retiro = !retiro;
+            return ServicioCuentas.movimiento(retiro ? Movimiento.TipoMovimiento.RETIRO : Movimiento.TipoMovimiento.DEPOSITO);
+        }
+    }
+
+    @Setup
+    public void preparar() {
+        contexto = ServicioCuentas.iniciar(Map.of("cuentas.escritura.coordinada.enabled", false));
+        movimientoService = contexto.getBean(MovimientoService.class);
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    /** Un UPDATE condicional sin lectura previa de la cuenta. */
+    @Benchmark
+    public Movimiento actualizacionCondicional(Escritor escritor) {
+        return movimientoService.realizarMovimiento(ServicioCuentas.CUENTA, escritor.siguiente());
+    }
+
+    /** Lectura de la cuenta con bloqueo y escritura del saldo calculado, un movimiento por transacción. */
+    @Benchmark
+    public List<ResultadoMovimiento> lecturaConBloqueo(Escritor escritor) {
+        return movimientoService.realizarMovimientosCuenta(ServicioCuentas.CUENTA, List.of(escritor.siguiente()));
+    }
+}
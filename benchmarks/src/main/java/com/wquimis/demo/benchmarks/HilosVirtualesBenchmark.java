@@ -0,0 +1,101 @@
+package com.wquimis.demo.benchmarks;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.services.MovimientoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1000 clientes concurrentes, cada uno con una solicitud de depósito sobre su propia cuenta (requiere MySQL, ver
+ * {@link ServicioCuentas}), atendidos como los atendería Tomcat: con un pool de 200 hilos de plataforma (el máximo
+ * por defecto de server.tomcat.threads.max) o con un hilo virtual por solicitud (VIRTUAL_THREADS_ENABLED=true).
+ * latenciaRemotaMs agrega antes del depósito una espera bloqueante como la de una llamada a otro servicio
+ * (onboarding con WebClient.block()); con 0 el límite es el pool de Hikari (64 conexiones) en ambos modos.
+ * Los bloqueos de hilos virtuales fijados al hilo portador (synchronized en el driver) se ven con
+ * -Djdk.tracePinnedThreads=short en jvmArgsAppend.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HilosVirtualesBenchmark {
+
+    private static final int CLIENTES = 1_000;
+    private static final int HILOS_PLATAFORMA = 200;
+
+    @Param({"plataforma", "virtual"})
+    private String hilos;
+
+    @Param({"0", "20"})
+    private int latenciaRemotaMs;
+
+    private ConfigurableApplicationContext contexto;
+    private MovimientoService movimientoService;
+    private ExecutorService solicitudes;
+
+    @Setup
+    public void preparar() {
+        boolean virtuales = "virtual".equals(hilos);
+        contexto = ServicioCuentas.iniciar(Map.of(
+            "cuentas.escritura.coordinada.enabled", false,
+            "spring.threads.virtual.enabled", virtuales));
+        ServicioCuentas.prepararCuentasClientes(contexto.getBean(JdbcTemplate.class), CLIENTES);
+        movimientoService = contexto.getBean(MovimientoService.class);
+        solicitudes = virtuales
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(HILOS_PLATAFORMA);
+    }
+
+    @TearDown
+    public void cerrar() {
+        solicitudes.shutdownNow();
+        contexto.close();
+    }
+
+    /** Una invocación atiende a los 1000 clientes a la vez; el resultado es en solicitudes por segundo. */
+    @Benchmark
+    @OperationsPerInvocation(CLIENTES)
+    public int milClientes() throws Exception {
+        List<Future<Movimiento>> pendientes = new ArrayList<>(CLIENTES);
+        for (int i = 0; i < CLIENTES; i++) {
+            int numeroCuenta = ServicioCuentas.PRIMERA_CUENTA_CLIENTES + i;
+            pendientes.add(solicitudes.submit(() -> atender(numeroCuenta)));
+        }
+        int atendidas = 0;
+        for (Future<Movimiento> pendiente : pendientes) {
+            atendidas += pendiente.get() != null ? 1 : 0;
+        }
+        return atendidas;
+    }
+
+    private Movimiento atender(int numeroCuenta) throws InterruptedException {
+        if (latenciaRemotaMs > 0) {
+            Thread.sleep(latenciaRemotaMs);
+        }
+        return movimientoService.realizarMovimiento(numeroCuenta,
+            ServicioCuentas.movimiento(Movimiento.TipoMovimiento.DEPOSITO));
+    }
+}
@@ -0,0 +1,55 @@
+package com.wquimis.demo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.wquimis.demo.cuentasmovimientos.dto.MovimientoDTO;
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.utils.DtoConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización Jackson de listas de MovimientoDTO, como la hacen los endpoints de listado.
+ * El ObjectWriter se resuelve una vez, igual que el conversor de mensajes de Spring MVC.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MovimientoJsonBenchmark {
+
+    @Param({"20", "1000"})
+    private int cantidadMovimientos;
+
+    private ObjectWriter writer;
+    private List<MovimientoDTO> movimientos;
+
+    @Setup
+    public void preparar() {
+        DtoConverter dtoConverter = new DtoConverter();
+        Cuenta cuenta = Datos.cuenta();
+        movimientos = Datos.movimientos(cuenta, cantidadMovimientos).stream().map(dtoConverter::toDto).toList();
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(new TypeReference<List<MovimientoDTO>>() { });
+    }
+
+    @Benchmark
+    public byte[] serializarLista() throws JsonProcessingException {
+        return writer.writeValueAsBytes(movimientos);
+    }
+}
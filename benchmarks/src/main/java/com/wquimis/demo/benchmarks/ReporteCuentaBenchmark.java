@@ -0,0 +1,94 @@
+package com.wquimis.demo.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wquimis.demo.cuentasmovimientos.dto.ResumenReporteDTO;
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.services.MovimientoService;
+import com.wquimis.demo.cuentasmovimientos.utils.ReporteCuentaWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Construcción del reporte de cuenta fila por fila (reemplazó al armado de mapas por movimiento de
+ * createMovimientoInfo). El servicio se sustituye por uno en memoria para medir solo el formateo y la escritura.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReporteCuentaBenchmark {
+
+    private static final LocalDate FECHA_INICIO = LocalDate.of(2024, 1, 1);
+    private static final LocalDate FECHA_FIN = LocalDate.of(2024, 12, 31);
+
+    @Param({"100", "10000"})
+    private int cantidadMovimientos;
+
+    private ReporteCuentaWriter writer;
+    private Cuenta cuenta;
+
+    @Setup
+    public void preparar() {
+        cuenta = Datos.cuenta();
+        List<Movimiento> movimientos = Datos.movimientos(cuenta, cantidadMovimientos);
+        ResumenReporteDTO resumen = new ResumenReporteDTO();
+        resumen.setSaldoApertura(cuenta.getSaldoinicial());
+        resumen.setSaldoCierre(movimientos.get(movimientos.size() - 1).getSaldodisponible());
+        resumen.setTotalDepositos(BigDecimal.ZERO);
+        resumen.setTotalRetiros(BigDecimal.ZERO);
+        resumen.setCantidadMovimientos(movimientos.size());
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = new ReporteCuentaWriter(objectMapper, movimientoServiceEnMemoria(movimientos, resumen));
+    }
+
+    @Benchmark
+    public void json() throws IOException {
+        writer.escribirJson(cuenta, FECHA_INICIO, FECHA_FIN, true, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void ndjson() throws IOException {
+        writer.escribirNdjson(cuenta, FECHA_INICIO, FECHA_FIN, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void csv() throws IOException {
+        writer.escribirCsv(cuenta, FECHA_INICIO, FECHA_FIN, OutputStream.nullOutputStream());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MovimientoService movimientoServiceEnMemoria(List<Movimiento> movimientos, ResumenReporteDTO resumen) {
+        return (MovimientoService) Proxy.newProxyInstance(MovimientoService.class.getClassLoader(),
+            new Class<?>[]{MovimientoService.class},
+            (proxy, metodo, args) -> switch (metodo.getName()) {
+                case "recorrerByNumeroCuentaAndFechaBetween" -> {
+                    movimientos.forEach((Consumer<Movimiento>) args[3]);
+                    yield null;
+                }
+                case "obtenerResumen" -> resumen;
+                default -> throw new UnsupportedOperationException(metodo.getName());
+            });
+    }
+}
@@ -0,0 +1,85 @@
+package com.wquimis.demo.benchmarks;
+
+import com.wquimis.demo.cuentasmovimientos.CuentasMovimientosApplication;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contexto de cuentas-movimientos-service sin web ni Kafka para las suites de contención, contra la base de datos
+ * de application.properties (la de tools/docker-compose.yml salvo que se definan SPRING_DATASOURCE_URL, _USERNAME
+ * y _PASSWORD). Las escrituras van a una cuenta propia, fuera del rango de numeración automática, que se deja
+ * activa, sin fragmentos y con saldo alto al iniciar cada prueba. Las suites con muchos clientes usan además una
+ * cuenta por cliente desde {@link #PRIMERA_CUENTA_CLIENTES}.
+ */
+final class ServicioCuentas {
+
+    static final Integer CUENTA = 990_001;
+    static final int PRIMERA_CUENTA_CLIENTES = 991_000;
+    static final BigDecimal MONTO = new BigDecimal("0.0100");
+
+    private ServicioCuentas() {
+    }
+
+    static ConfigurableApplicationContext iniciar(Map<String, Object> propiedades) {
+        Map<String, Object> configuracion = new LinkedHashMap<>();
+        configuracion.put("spring.main.web-application-type", "none");
+        configuracion.put("spring.main.keep-alive", false);
+        configuracion.put("spring.kafka.admin.auto-create", false);
+        configuracion.put("cuentas.comandos.enabled", false);
+        configuracion.put("cuentas.outbox.relay.enabled", false);
+        // Una conexión por escritor: lo que se mide es la espera por la fila de la cuenta, no por el pool
+        configuracion.put("spring.datasource.hikari.maximum-pool-size", 64);
+        configuracion.put("logging.level.com.wquimis.demo", "WARN");
+        configuracion.putAll(propiedades);
+
+        // Como argumentos de línea de comandos para que prevalezcan sobre application.properties
+        String[] argumentos = configuracion.entrySet().stream()
+            .map(propiedad -> "--" + propiedad.getKey() + "=" + propiedad.getValue())
+            .toArray(String[]::new);
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(CuentasMovimientosApplication.class)
+            .logStartupInfo(false)
+            .run(argumentos);
+        prepararCuenta(contexto.getBean(JdbcTemplate.class));
+        return contexto;
+    }
+
+    static Movimiento movimiento(Movimiento.TipoMovimiento tipo) {
+        Movimiento movimiento = new Movimiento();
+        movimiento.setTipomovimiento(tipo);
+        movimiento.setMontomovimiento(MONTO);
+        movimiento.setEstado(true);
+        movimiento.setMovimientodescripcion(tipo == Movimiento.TipoMovimiento.RETIRO
+            ? "Retiro en cajero automático" : "Depósito en ventanilla");
+        return movimiento;
+    }
+
+    static void prepararCuentasClientes(JdbcTemplate jdbcTemplate, int cantidad) {
+        List<Object[]> cuentas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            cuentas.add(new Object[] {PRIMERA_CUENTA_CLIENTES + i});
+        }
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO cuentas (numerocuenta, idcliente, tipocuenta, saldoinicial, saldodisponible, estado,
+                                 fechacreacion, fragmentossaldo)
+            VALUES (?, 0, 'AHORROS', 1000, 1000, true, NOW(), 0)
+            ON DUPLICATE KEY UPDATE saldodisponible = 1000, estado = true, fragmentossaldo = 0
+            """, cuentas);
+    }
+
+    private static void prepararCuenta(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("""
+            INSERT INTO cuentas (numerocuenta, idcliente, tipocuenta, saldoinicial, saldodisponible, estado,
+                                 fechacreacion, fragmentossaldo)
+            VALUES (?, 0, 'CORRIENTE', 500000, 500000, true, NOW(), 0)
+            ON DUPLICATE KEY UPDATE saldodisponible = 500000, estado = true, fragmentossaldo = 0
+            """, CUENTA);
+    }
+}
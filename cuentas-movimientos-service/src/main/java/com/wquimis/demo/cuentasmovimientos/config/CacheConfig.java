@@ -0,0 +1,31 @@
+package com.wquimis.demo.cuentasmovimientos.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CUENTAS_METADATOS = "cuentasMetadatos";
+    public static final String IDEMPOTENCIA = "idempotencia";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cuentas.cache.metadatos.spec}") String specMetadatos,
+                                     @Value("${cuentas.cache.idempotencia.spec}") String specIdempotencia) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(CUENTAS_METADATOS, Caffeine.from(CaffeineSpec.parse(specMetadatos)).build());
+        cacheManager.registerCustomCache(IDEMPOTENCIA, Caffeine.from(CaffeineSpec.parse(specIdempotencia)).build());
+        // put/evict dentro de una transacción se aplican al confirmarla: una lectura concurrente no vuelve
+        // a cargar el valor anterior al commit y una operación revertida no deja rastro en la cache
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,54 @@
+package com.wquimis.demo.cuentasmovimientos.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+
+@Configuration
+public class KafkaConfig {
+
+    @Bean
+    public NewTopic comandosMovimientoTopic(@Value("${cuentas.comandos.topic}") String topic,
+                                            @Value("${cuentas.comandos.particiones:12}") int particiones) {
+        return TopicBuilder.name(topic).partitions(particiones).build();
+    }
+
+    @Bean
+    public NewTopic eventosTopic(@Value("${cuentas.outbox.topic}") String topic,
+                                 @Value("${cuentas.comandos.particiones:12}") int particiones) {
+        return TopicBuilder.name(topic).partitions(particiones).build();
+    }
+
+    /**
+     * Tópico de comandos que agotaron sus reintentos. DeadLetterPublishingRecoverer publica en la misma
+     * partición de origen, por eso tiene las mismas particiones que el tópico de comandos.
+     */
+    @Bean
+    public NewTopic comandosMovimientoDltTopic(@Value("${cuentas.comandos.topic}") String topic,
+                                               @Value("${cuentas.comandos.particiones:12}") int particiones) {
+        return TopicBuilder.name(topic + ".DLT").partitions(particiones).build();
+    }
+
+    /**
+     * El listener señala el comando que falla con BatchListenerFailedException: los registros anteriores del lote
+     * se confirman, ese comando se reintenta con espera exponencial hasta cuentas.comandos.reintentos veces y luego
+     * se publica en el tópico .DLT (con la excepción en las cabeceras); los posteriores se vuelven a entregar.
+     * Las fallas transitorias de la base de datos no pasan por aquí: el listener las reintenta sin límite (nack).
+     */
+    @Bean
+    public CommonErrorHandler kafkaErrorHandler(KafkaTemplate<String, String> kafkaTemplate,
+                                                @Value("${cuentas.comandos.reintentos:5}") int reintentos) {
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(reintentos);
+        backOff.setInitialInterval(500L);
+        backOff.setMultiplier(2.0);
+        backOff.setMaxInterval(30_000L);
+        return new DefaultErrorHandler(new DeadLetterPublishingRecoverer(kafkaTemplate), backOff);
+    }
+}
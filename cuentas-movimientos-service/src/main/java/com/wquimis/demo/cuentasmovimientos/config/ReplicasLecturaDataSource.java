@@ -0,0 +1,165 @@
+package com.wquimis.demo.cuentasmovimientos.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conexiones de las transacciones de solo lectura. Se reparten en turno entre las réplicas cuyo retraso
+ * medido no supera el máximo configurado; si ninguna cumple (retraso, replicación detenida, réplica caída
+ * o medición vencida) la conexión se toma de la primaria. El retraso se mide con SHOW REPLICA STATUS
+ * (Seconds_Behind_Source, resolución de segundos).
+ * La medición la programa la configuración de cada servicio con {@link #verificarRetraso()}.
+ * Métricas, con el prefijo del servicio: {prefijo}.lecturas.conexiones (tag destino) y
+ * {prefijo}.lecturas.replica.retraso (tag replica).
+ */
+@Slf4j
+public class ReplicasLecturaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final long SIN_MEDICION = -1;
+
+    private final DataSource primaria;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long retrasoMaximoSegundos;
+    private final long vigenciaMedicionNanos;
+    private final AtomicInteger turno = new AtomicInteger();
+    private final Counter conexionesPrimaria;
+    private final String etiquetaLog;
+
+    public ReplicasLecturaDataSource(String prefijoMetricas, DataSource primaria, List<HikariDataSource> pools,
+                                     Duration retrasoMaximo, Duration intervaloVerificacion, MeterRegistry meterRegistry) {
+        this.primaria = primaria;
+        this.etiquetaLog = "[" + prefijoMetricas.toUpperCase(Locale.ROOT) + "][REPLICAS]";
+        this.retrasoMaximoSegundos = retrasoMaximo.toSeconds();
+        // Si el monitor deja de medir (BD colgada, scheduler saturado) la réplica deja de considerarse al día
+        this.vigenciaMedicionNanos = Math.max(retrasoMaximo.toNanos(), intervaloVerificacion.multipliedBy(3).toNanos());
+        this.conexionesPrimaria = Counter.builder(prefijoMetricas + ".lecturas.conexiones")
+            .description("Conexiones de solo lectura entregadas por destino")
+            .tag("destino", "primaria")
+            .register(meterRegistry);
+        for (HikariDataSource pool : pools) {
+            Replica replica = new Replica(pool, Counter.builder(prefijoMetricas + ".lecturas.conexiones")
+                .description("Conexiones de solo lectura entregadas por destino")
+                .tag("destino", pool.getPoolName())
+                .register(meterRegistry));
+            Gauge.builder(prefijoMetricas + ".lecturas.replica.retraso", replica, Replica::retrasoMedido)
+                .description("Retraso de replicación medido en segundos (NaN si la réplica no está disponible)")
+                .tag("replica", pool.getPoolName())
+                .baseUnit("seconds")
+                .register(meterRegistry);
+            replicas.add(replica);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int cantidad = replicas.size();
+        int inicio = Math.floorMod(turno.getAndIncrement(), cantidad);
+        long ahora = System.nanoTime();
+        for (int i = 0; i < cantidad; i++) {
+            Replica replica = replicas.get((inicio + i) % cantidad);
+            if (!replica.alDia(ahora)) {
+                continue;
+            }
+            try {
+                Connection conexion = replica.pool.getConnection();
+                replica.conexiones.increment();
+                return conexion;
+            } catch (SQLException e) {
+                // No se vuelve a elegir hasta que la próxima medición la encuentre disponible
+                replica.registrar(SIN_MEDICION);
+                log.warn("{} Réplica {} sin conexión: {}", etiquetaLog, replica.pool.getPoolName(), e.getMessage());
+            }
+        }
+        conexionesPrimaria.increment();
+        return primaria.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Las réplicas de lectura usan las credenciales configuradas");
+    }
+
+    public void verificarRetraso() {
+        for (Replica replica : replicas) {
+            replica.registrar(medirRetraso(replica));
+        }
+    }
+
+    private long medirRetraso(Replica replica) {
+        try (Connection conexion = replica.pool.getConnection();
+             Statement sentencia = conexion.createStatement();
+             ResultSet resultado = sentencia.executeQuery("SHOW REPLICA STATUS")) {
+            if (!resultado.next()) {
+                // Instancia sin replicación configurada (p. ej. una segunda BD local de pruebas): se toma como al día
+                if (!replica.sinReplicacionInformada) {
+                    replica.sinReplicacionInformada = true;
+                    log.warn("{} {} no tiene replicación configurada; se considera al día", etiquetaLog,
+                        replica.pool.getPoolName());
+                }
+                return 0;
+            }
+            long segundos = resultado.getLong("Seconds_Behind_Source");
+            // NULL: hilo SQL o de E/S detenido
+            return resultado.wasNull() ? SIN_MEDICION : segundos;
+        } catch (SQLException e) {
+            log.warn("{} No se pudo medir el retraso de {}: {}", etiquetaLog, replica.pool.getPoolName(), e.getMessage());
+            return SIN_MEDICION;
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private final class Replica {
+        private final HikariDataSource pool;
+        private final Counter conexiones;
+        private volatile long retrasoSegundos = SIN_MEDICION;
+        private volatile long medidoNanos;
+        private volatile boolean sinReplicacionInformada;
+
+        private Replica(HikariDataSource pool, Counter conexiones) {
+            this.pool = pool;
+            this.conexiones = conexiones;
+        }
+
+        private void registrar(long retraso) {
+            boolean estabaAlDia = alDia(System.nanoTime());
+            retrasoSegundos = retraso;
+            medidoNanos = System.nanoTime();
+            boolean quedaAlDia = alDia(medidoNanos);
+            if (estabaAlDia != quedaAlDia) {
+                log.info("{} {} {} (retraso {} s, máximo {} s)", etiquetaLog, pool.getPoolName(),
+                    quedaAlDia ? "habilitada" : "excluida", retraso, retrasoMaximoSegundos);
+            }
+        }
+
+        private boolean alDia(long ahora) {
+            long retraso = retrasoSegundos;
+            return retraso != SIN_MEDICION && retraso <= retrasoMaximoSegundos
+                && ahora - medidoNanos <= vigenciaMedicionNanos;
+        }
+
+        private double retrasoMedido() {
+            long retraso = retrasoSegundos;
+            return retraso == SIN_MEDICION ? Double.NaN : retraso;
+        }
+    }
+}
@@ -1,17 +1,48 @@
 package com.wquimis.demo.cuentasmovimientos.controller;
 
+import com.wquimis.demo.cuentasmovimientos.dto.ConciliacionDTO;
 import com.wquimis.demo.cuentasmovimientos.dto.CuentaDTO;
 import com.wquimis.demo.cuentasmovimientos.dto.ErrorDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.FiltroCuentasDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.FiltroMovimientosDTO;
 import com.wquimis.demo.cuentasmovimientos.dto.MovimientoDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.MovimientoLoteDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.MovimientoLoteResultadoDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.PaginaDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.PaginaMovimientosDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.ParticionMovimientosDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.PodaParticionesDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.ReversoLoteDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.ReversoLoteResultadoDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.SaldoDiarioDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.SaldoFechaDTO;
 import com.wquimis.demo.cuentasmovimientos.dto.UpdateCuentaDTO;
+import com.wquimis.demo.cuentasmovimientos.exceptions.ClaveIdempotenciaReutilizadaException;
 import com.wquimis.demo.cuentasmovimientos.exceptions.CuentaExistenteException;
+import com.wquimis.demo.cuentasmovimientos.exceptions.CuentaInactivaException;
+import com.wquimis.demo.cuentasmovimientos.exceptions.CursorInvalidoException;
+import com.wquimis.demo.cuentasmovimientos.entities.Conciliacion;
 import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.DiscrepanciaConciliacion;
 import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
 import com.wquimis.demo.cuentasmovimientos.exceptions.SaldoNoDisponibleException;
+import com.wquimis.demo.cuentasmovimientos.services.ArchivoMovimientosService;
+import com.wquimis.demo.cuentasmovimientos.services.ConciliacionService;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatosService;
 import com.wquimis.demo.cuentasmovimientos.services.CuentaService;
+import com.wquimis.demo.cuentasmovimientos.services.IdempotenciaService;
 import com.wquimis.demo.cuentasmovimientos.services.MovimientoService;
+import com.wquimis.demo.cuentasmovimientos.services.ParticionMovimientosService;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoMovimiento;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoParticiones;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoReverso;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoDiarioService;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoFragmentadoService;
+import com.wquimis.demo.cuentasmovimientos.utils.CursorMovimiento;
 import com.wquimis.demo.cuentasmovimientos.utils.DtoConverter;
+import com.wquimis.demo.cuentasmovimientos.utils.ReporteCuentaWriter;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -20,18 +51,27 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.persistence.EntityNotFoundException;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @RestController
@@ -40,53 +80,70 @@ import java.util.stream.Collectors;
 @Tag(name = "Gestión de Cuentas y Movimientos", description = "APIs para gestionar cuentas y movimientos de forma autónoma")
 public class CuentaMovimientoController {
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-    private static final DateTimeFormatter DATE_REPORT_FORMATTER = DateTimeFormatter.ofPattern("d/M/yyyy");
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final int LIMITE_PAGINA_DEFECTO = 50;
+    private static final int LIMITE_PAGINA_MAXIMO = 500;
+    private static final int LIMITE_REVERSOS_LOTE = 500;
+    // El id desempata fecha y hora iguales para que las páginas no repitan ni omitan filas
+    private static final Sort ORDEN_CUENTAS = Sort.by("numerocuenta");
+    private static final Sort ORDEN_MOVIMIENTOS = Sort.by(Sort.Direction.DESC, "fechamovimiento", "horamovimiento", "idmovimiento");
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final int IDEMPOTENCY_KEY_LONGITUD_MAXIMA = 100;
 
     private final CuentaService cuentaService;
     private final MovimientoService movimientoService;
     private final DtoConverter dtoConverter;
+    private final ReporteCuentaWriter reporteCuentaWriter;
+    private final SaldoDiarioService saldoDiarioService;
+    private final CuentaMetadatosService cuentaMetadatosService;
+    private final IdempotenciaService idempotenciaService;
+    private final SaldoFragmentadoService saldoFragmentadoService;
+    private final ParticionMovimientosService particionMovimientosService;
+    private final ArchivoMovimientosService archivoMovimientosService;
+    private final ConciliacionService conciliacionService;
 
     public CuentaMovimientoController(CuentaService cuentaService, MovimientoService movimientoService, 
-                                     DtoConverter dtoConverter) {
+                                     DtoConverter dtoConverter, ReporteCuentaWriter reporteCuentaWriter,
+                                     SaldoDiarioService saldoDiarioService, CuentaMetadatosService cuentaMetadatosService,
+                                     IdempotenciaService idempotenciaService, SaldoFragmentadoService saldoFragmentadoService,
+                                     ParticionMovimientosService particionMovimientosService,
+                                     ArchivoMovimientosService archivoMovimientosService,
+                                     ConciliacionService conciliacionService) {
         this.cuentaService = cuentaService;
         this.movimientoService = movimientoService;
         this.dtoConverter = dtoConverter;
+        this.reporteCuentaWriter = reporteCuentaWriter;
+        this.saldoDiarioService = saldoDiarioService;
+        this.cuentaMetadatosService = cuentaMetadatosService;
+        this.idempotenciaService = idempotenciaService;
+        this.saldoFragmentadoService = saldoFragmentadoService;
+        this.particionMovimientosService = particionMovimientosService;
+        this.archivoMovimientosService = archivoMovimientosService;
+        this.conciliacionService = conciliacionService;
     }
 
     // ===== ENDPOINTS PARA CUENTAS =====
 
-    @Operation(summary = "Obtener todas las cuentas")
+    @Operation(summary = "Buscar cuentas",
+               description = "Listado paginado de cuentas ordenado por número. Todos los filtros son opcionales y se combinan " +
+                           "en una sola consulta; el tamaño de página se limita a " + LIMITE_PAGINA_MAXIMO)
     @GetMapping("/cuentas")
-    public ResponseEntity<?> getAllCuentas() {
-        try {
-            List<CuentaDTO> cuentas = cuentaService.findAll().stream()
-                    .map(dtoConverter::toDto)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(cuentas);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO", 
-                    e.getMessage(),
-                    "Ha ocurrido un error al obtener las cuentas"));
-        }
+    public ResponseEntity<?> getAllCuentas(
+            @ParameterObject FiltroCuentasDTO filtro,
+            @RequestParam(name = "pagina", defaultValue = "0") int pagina,
+            @RequestParam(name = "tamano", defaultValue = "" + LIMITE_PAGINA_DEFECTO) int tamano) {
+        return buscarCuentas(filtro, pagina, tamano, "Ha ocurrido un error al obtener las cuentas");
     }
 
-    @Operation(summary = "Obtener todas las cuentas activas")
+    @Operation(summary = "Obtener cuentas activas (paginado)",
+               description = "Equivale a GET /cuentas?estado=true")
     @GetMapping("/cuentas/activas")
-    public ResponseEntity<?> getCuentasActivas() {
-        try {
-            List<CuentaDTO> cuentas = cuentaService.findByEstado(true).stream()
-                    .map(dtoConverter::toDto)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(cuentas);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO", 
-                    e.getMessage(),
-                    "Ha ocurrido un error al obtener las cuentas activas"));
-        }
+    public ResponseEntity<?> getCuentasActivas(
+            @RequestParam(name = "pagina", defaultValue = "0") int pagina,
+            @RequestParam(name = "tamano", defaultValue = "" + LIMITE_PAGINA_DEFECTO) int tamano) {
+        FiltroCuentasDTO filtro = new FiltroCuentasDTO();
+        filtro.setEstado(true);
+        return buscarCuentas(filtro, pagina, tamano, "Ha ocurrido un error al obtener las cuentas activas");
     }
 
     @Operation(summary = "Obtener cuenta por número")
@@ -108,6 +165,35 @@ public class CuentaMovimientoController {
         }
     }
 
+    @Operation(summary = "Obtener saldo de la cuenta a una fecha",
+               description = "Retorna el saldo al cierre de la fecha indicada (por defecto hoy) usando los saldos diarios, " +
+                           "sin recorrer los movimientos de la cuenta")
+    @GetMapping("/cuentas/{numeroCuenta}/saldo")
+    public ResponseEntity<?> getSaldoAFecha(
+        @PathVariable("numeroCuenta") Integer numeroCuenta,
+            @RequestParam(name = "fecha", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        LocalDate fechaConsulta = fecha != null ? fecha : LocalDate.now();
+        try {
+            BigDecimal saldo = saldoDiarioService.obtenerSaldoAl(numeroCuenta, fechaConsulta);
+            return ResponseEntity.ok(new SaldoFechaDTO(numeroCuenta, fechaConsulta, saldo));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ErrorDTO.of("NOT_201_CUENTA",
+                    e.getMessage(),
+                    "Cuenta no encontrada"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ErrorDTO.of("VAL_104_FECHA_ANTERIOR_CREACION",
+                    e.getMessage(),
+                    "La cuenta no existía en la fecha consultada"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al obtener el saldo de la cuenta"));
+        }
+    }
+
     @Operation(summary = "Obtener cuentas por ID de cliente")
     @GetMapping("/cuentas/cliente/{idCliente}")
     public ResponseEntity<?> getCuentasByCliente(@PathVariable("idCliente") Long idCliente) {
@@ -124,30 +210,29 @@ public class CuentaMovimientoController {
         }
     }
 
-    @Operation(summary = "Obtener cuentas por tipo")
+    @Operation(summary = "Obtener cuentas por tipo (paginado)",
+               description = "Equivale a GET /cuentas?tipoCuenta={tipoCuenta}")
     @GetMapping("/cuentas/tipo/{tipoCuenta}")
-    public ResponseEntity<?> getCuentasByTipo(@PathVariable("tipoCuenta") String tipoCuenta) {
+    public ResponseEntity<?> getCuentasByTipo(
+            @PathVariable("tipoCuenta") String tipoCuenta,
+            @RequestParam(name = "pagina", defaultValue = "0") int pagina,
+            @RequestParam(name = "tamano", defaultValue = "" + LIMITE_PAGINA_DEFECTO) int tamano) {
         try {
-            Cuenta.TipoCuenta tipo = Cuenta.TipoCuenta.valueOf(tipoCuenta.toUpperCase());
-            List<CuentaDTO> cuentas = cuentaService.findByTipoCuenta(tipo).stream()
-                    .map(dtoConverter::toDto)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(cuentas);
+            Cuenta.TipoCuenta.valueOf(tipoCuenta.toUpperCase());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(ErrorDTO.of("VAL_100_TIPO_CUENTA_INVALIDO",
                     "Tipo de cuenta inválido: " + tipoCuenta,
                     "Los tipos válidos son: AHORROS, CORRIENTE"));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
-                    e.getMessage(),
-                    "Ha ocurrido un error al obtener las cuentas por tipo"));
         }
+        FiltroCuentasDTO filtro = new FiltroCuentasDTO();
+        filtro.setTipoCuenta(tipoCuenta);
+        return buscarCuentas(filtro, pagina, tamano, "Ha ocurrido un error al obtener las cuentas por tipo");
     }
 
     @Operation(summary = "Crear nueva cuenta",
-               description = "Crea una nueva cuenta bancaria con el saldo inicial especificado")
+               description = "Crea una nueva cuenta bancaria con el saldo inicial especificado. Si no se envía " +
+                             "numeroCuenta, el servicio asigna uno del rango de numeración automática")
     @PostMapping("/cuentas")
     public ResponseEntity<?> createCuenta(@Valid @RequestBody CuentaDTO cuentaDto) {
         try {
@@ -160,6 +245,11 @@ public class CuentaMovimientoController {
                 .body(ErrorDTO.of("CUE_300_DUP_TIPO_NUMERO", // número de cuenta duplicado
                     e.getMessage(),
                     "Ya existe una cuenta con el número proporcionado"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ErrorDTO.of("VAL_109_NUMERO_CUENTA_RESERVADO",
+                    e.getMessage(),
+                    "Omita numeroCuenta para que el servicio asigne el número"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
@@ -213,39 +303,47 @@ public class CuentaMovimientoController {
 
     // ===== ENDPOINTS PARA MOVIMIENTOS =====
 
-    @Operation(summary = "Realizar nuevo movimiento")
+    @Operation(summary = "Realizar nuevo movimiento",
+               description = "Con la cabecera Idempotency-Key un reintento con la misma clave y el mismo cuerpo retorna " +
+                           "la respuesta registrada (cabecera Idempotent-Replayed) sin volver a aplicar el movimiento.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Movimiento realizado exitosamente"),
         @ApiResponse(responseCode = "400", description = "Datos del movimiento inválidos"),
         @ApiResponse(responseCode = "404", description = "Cuenta no encontrada"),
-        @ApiResponse(responseCode = "422", description = "Saldo insuficiente para realizar el retiro")
+        @ApiResponse(responseCode = "422", description = "Saldo insuficiente para realizar el retiro o Idempotency-Key reutilizada")
     })
     @PostMapping("/movimientos/cuenta/{numeroCuenta}")
     public ResponseEntity<?> realizarMovimiento(
         @PathVariable("numeroCuenta") @NotNull(message = "El número de cuenta es requerido") Integer numeroCuenta,
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @Valid @RequestBody MovimientoDTO movimientoDto) {
-        try {
-            // Verificar que la cuenta existe
-            Cuenta cuenta = cuentaService.findByNumeroCuenta(numeroCuenta);
-            
-            // Validar que la cuenta esté activa
-            if (!cuenta.getEstado()) {
-                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
-                    .body(ErrorDTO.of("ACC_401_CUENTA_INACTIVA",
-                        "La cuenta se encuentra inactiva",
-                        "No se pueden realizar movimientos en una cuenta inactiva"));
-            }
+        return ejecutarIdempotente(idempotencyKey, "POST /api/movimientos/cuenta/" + numeroCuenta, movimientoDto,
+            () -> procesarMovimiento(numeroCuenta, movimientoDto, idempotencyKey == null));
+    }
 
-            // Preparar el movimiento
+    /**
+     * Sin Idempotency-Key el movimiento puede pasar por el coordinador de escritura de la cuenta. Con clave se aplica
+     * en la transacción de la reserva, para que el movimiento y la respuesta registrada se confirmen juntos.
+     */
+    private ResponseEntity<?> procesarMovimiento(Integer numeroCuenta, MovimientoDTO movimientoDto, boolean coordinable) {
+        try {
+            // Preparar el movimiento (la existencia, estado y saldo de la cuenta se validan
+            // en la misma sentencia UPDATE que aplica el cambio de saldo)
             Movimiento movimiento = new Movimiento();
-            movimiento.setCuenta(cuenta);
             movimiento.setTipomovimiento(Movimiento.TipoMovimiento.valueOf(movimientoDto.getTipomovimiento()));
             movimiento.setMontomovimiento(movimientoDto.getMontomovimiento());
             movimiento.setMovimientodescripcion(movimientoDto.getMovimientodescripcion());
             
             // Realizar el movimiento y obtener el resultado
-            Movimiento movimientoRealizado = movimientoService.realizarMovimiento(movimiento);
+            Movimiento movimientoRealizado = coordinable
+                ? movimientoService.realizarMovimientoCoordinado(numeroCuenta, movimiento)
+                : movimientoService.realizarMovimiento(numeroCuenta, movimiento);
             return ResponseEntity.ok(dtoConverter.toDto(movimientoRealizado));
+        } catch (CuentaInactivaException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(ErrorDTO.of("ACC_401_CUENTA_INACTIVA",
+                    e.getMessage(),
+                    "No se pueden realizar movimientos en una cuenta inactiva"));
         } catch (SaldoNoDisponibleException e) {
             return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
                 .body(ErrorDTO.of("MOV_401_SALDO_INSUFICIENTE",
@@ -264,14 +362,82 @@ public class CuentaMovimientoController {
         }
     }
 
-    @Operation(summary = "Obtener todos los movimientos")
+    @Operation(summary = "Realizar movimientos por lote",
+               description = "Procesa una lista de movimientos de una o varias cuentas. Los movimientos se agrupan por cuenta " +
+                           "y cada grupo se aplica en una sola transacción con inserción por lotes. " +
+                           "La respuesta incluye el resultado de cada elemento en el orden recibido.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lote procesado (revisar el resultado de cada elemento)"),
+        @ApiResponse(responseCode = "400", description = "Datos del lote inválidos")
+    })
+    @PostMapping("/movimientos/batch")
+    public ResponseEntity<?> realizarMovimientosLote(@Valid @RequestBody MovimientoLoteDTO loteDto) {
+        try {
+            List<MovimientoDTO> items = loteDto.getMovimientos();
+            MovimientoLoteResultadoDTO.Item[] resultados = new MovimientoLoteResultadoDTO.Item[items.size()];
+
+            // Agrupar índices por cuenta conservando el orden de llegada
+            Map<Integer, List<Integer>> indicesPorCuenta = new LinkedHashMap<>();
+            for (int i = 0; i < items.size(); i++) {
+                Integer numeroCuenta = items.get(i).getNumeroCuenta();
+                if (numeroCuenta == null) {
+                    resultados[i] = crearItemFallido(i, null, "VAL_102_CUENTA_REQUERIDA",
+                        "El número de cuenta es requerido en cada movimiento del lote");
+                } else {
+                    indicesPorCuenta.computeIfAbsent(numeroCuenta, k -> new ArrayList<>()).add(i);
+                }
+            }
+
+            for (Map.Entry<Integer, List<Integer>> grupo : indicesPorCuenta.entrySet()) {
+                Integer numeroCuenta = grupo.getKey();
+                List<Integer> indices = grupo.getValue();
+                List<Movimiento> movimientos = indices.stream()
+                    .map(i -> dtoConverter.toEntity(items.get(i)))
+                    .toList();
+                try {
+                    List<ResultadoMovimiento> resultadosCuenta =
+                        movimientoService.realizarMovimientosCuenta(numeroCuenta, movimientos);
+                    for (int k = 0; k < indices.size(); k++) {
+                        resultados[indices.get(k)] = crearItem(indices.get(k), numeroCuenta, resultadosCuenta.get(k));
+                    }
+                } catch (EntityNotFoundException e) {
+                    indices.forEach(i -> resultados[i] = crearItemFallido(i, numeroCuenta, "NOT_201_CUENTA", e.getMessage()));
+                } catch (CuentaInactivaException e) {
+                    indices.forEach(i -> resultados[i] = crearItemFallido(i, numeroCuenta, "ACC_401_CUENTA_INACTIVA", e.getMessage()));
+                } catch (Exception e) {
+                    indices.forEach(i -> resultados[i] = crearItemFallido(i, numeroCuenta, "GEN_000_ERROR_INTERNO", e.getMessage()));
+                }
+            }
+
+            MovimientoLoteResultadoDTO respuesta = new MovimientoLoteResultadoDTO();
+            respuesta.setResultados(List.of(resultados));
+            respuesta.setTotal(resultados.length);
+            respuesta.setExitosos((int) respuesta.getResultados().stream().filter(MovimientoLoteResultadoDTO.Item::isExitoso).count());
+            respuesta.setFallidos(respuesta.getTotal() - respuesta.getExitosos());
+            return ResponseEntity.ok(respuesta);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al procesar el lote de movimientos"));
+        }
+    }
+
+    @Operation(summary = "Buscar movimientos",
+               description = "Listado paginado de movimientos, del más reciente al más antiguo. Filtros opcionales por cuenta, " +
+                           "cliente, tipo, estado, rango de fechas y rango de montos, combinados en una sola consulta; " +
+                           "el tamaño de página se limita a " + LIMITE_PAGINA_MAXIMO)
     @GetMapping("/movimientos")
-    public ResponseEntity<?> getAllMovimientos() {
+    public ResponseEntity<?> getAllMovimientos(
+            @ParameterObject FiltroMovimientosDTO filtro,
+            @RequestParam(name = "pagina", defaultValue = "0") int pagina,
+            @RequestParam(name = "tamano", defaultValue = "" + LIMITE_PAGINA_DEFECTO) int tamano) {
         try {
-            List<MovimientoDTO> movimientos = movimientoService.findAll().stream()
-                    .map(dtoConverter::toDto)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(movimientos);
+            Page<Movimiento> resultado = movimientoService.buscar(filtro, PageRequest.of(Math.max(0, pagina),
+                normalizarLimite(tamano), ORDEN_MOVIMIENTOS));
+            return ResponseEntity.ok(PaginaDTO.of(resultado, dtoConverter::toDto));
+        } catch (IllegalArgumentException e) {
+            return respuestaFiltroInvalido(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
@@ -299,14 +465,31 @@ public class CuentaMovimientoController {
         }
     }
 
-    @Operation(summary = "Obtener todos los movimientos por cuenta")
+    @Operation(summary = "Obtener movimientos por cuenta (paginado por cursor)",
+               description = "Retorna los movimientos de la cuenta del más reciente al más antiguo en páginas de tamaño 'limit'. " +
+                           "Para la siguiente página enviar el 'nextCursor' recibido. Con todos=true se retorna la lista completa sin paginar.")
     @GetMapping("/movimientos/cuenta/{numeroCuenta}")
-    public ResponseEntity<?> getMovimientosByCuenta(@PathVariable("numeroCuenta") Integer numeroCuenta) {
+    public ResponseEntity<?> getMovimientosByCuenta(
+        @PathVariable("numeroCuenta") Integer numeroCuenta,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "" + LIMITE_PAGINA_DEFECTO) int limit,
+            @RequestParam(name = "todos", defaultValue = "false") boolean todos) {
         try {
-            List<MovimientoDTO> movimientos = movimientoService.findByNumeroCuenta(numeroCuenta).stream()
-                    .map(dtoConverter::toDto)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(movimientos);
+            if (todos) {
+                List<MovimientoDTO> movimientos = movimientoService.findByNumeroCuenta(numeroCuenta).stream()
+                        .map(dtoConverter::toDto)
+                        .collect(Collectors.toList());
+                return ResponseEntity.ok(movimientos);
+            }
+            int tamanoPagina = normalizarLimite(limit);
+            List<Movimiento> filas = movimientoService.findPaginaByNumeroCuenta(
+                numeroCuenta, decodificarCursor(cursor), tamanoPagina + 1);
+            return ResponseEntity.ok(construirPagina(filas, tamanoPagina));
+        } catch (CursorInvalidoException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ErrorDTO.of("VAL_103_CURSOR_INVALIDO",
+                    e.getMessage(),
+                    "El cursor de paginación no es válido; use el nextCursor de la respuesta anterior"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
@@ -315,20 +498,35 @@ public class CuentaMovimientoController {
         }
     }
 
-    @Operation(summary = "Obtener movimientos por cuenta y fechas")
+    @Operation(summary = "Obtener movimientos por cuenta y fechas (paginado por cursor)",
+               description = "Igual que el listado por cuenta, restringido al rango de fechas. " +
+                           "Con todos=true se retorna la lista completa del rango sin paginar.")
     @GetMapping("/movimientos/cuenta/{numeroCuenta}/fechas")
     public ResponseEntity<?> getMovimientosByFecha(
         @PathVariable("numeroCuenta") Integer numeroCuenta,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "" + LIMITE_PAGINA_DEFECTO) int limit,
+            @RequestParam(name = "todos", defaultValue = "false") boolean todos) {
         try {
-            List<MovimientoDTO> movimientos = movimientoService
-                .findByNumeroCuentaAndFechaBetween(numeroCuenta, fechaInicio, fechaFin)
-                .stream()
-                .map(dtoConverter::toDto)
-                .collect(Collectors.toList());
-                
-            return ResponseEntity.ok(movimientos);
+            if (todos) {
+                List<MovimientoDTO> movimientos = movimientoService
+                    .findByNumeroCuentaAndFechaBetween(numeroCuenta, fechaInicio, fechaFin)
+                    .stream()
+                    .map(dtoConverter::toDto)
+                    .collect(Collectors.toList());
+                return ResponseEntity.ok(movimientos);
+            }
+            int tamanoPagina = normalizarLimite(limit);
+            List<Movimiento> filas = movimientoService.findPaginaByNumeroCuentaAndFechaBetween(
+                numeroCuenta, fechaInicio, fechaFin, decodificarCursor(cursor), tamanoPagina + 1);
+            return ResponseEntity.ok(construirPagina(filas, tamanoPagina));
+        } catch (CursorInvalidoException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ErrorDTO.of("VAL_103_CURSOR_INVALIDO",
+                    e.getMessage(),
+                    "El cursor de paginación no es válido; use el nextCursor de la respuesta anterior"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
@@ -361,9 +559,15 @@ public class CuentaMovimientoController {
                            "1. Cambia la descripción del movimiento original por 'Operacion Anulada' con timestamp y milisegundos, " +
                            "2. Crea un movimiento de reverso con referencia al ID original. " +
                            "El movimiento anulado tendrá estado=false (esReverso=true en respuesta), " +
-                           "el movimiento de reverso tendrá estado=true (esReverso=false en respuesta)")
+                           "el movimiento de reverso tendrá estado=true (esReverso=false en respuesta). " +
+                           "Acepta Idempotency-Key igual que la creación de movimientos.")
     @DeleteMapping("/movimientos/{id}")
-    public ResponseEntity<?> deleteMovimiento(@PathVariable("id") Long id) {
+    public ResponseEntity<?> deleteMovimiento(@PathVariable("id") Long id,
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return ejecutarIdempotente(idempotencyKey, "DELETE /api/movimientos/" + id, id, () -> anularMovimiento(id));
+    }
+
+    private ResponseEntity<?> anularMovimiento(Long id) {
         try {
             movimientoService.deleteById(id);
             return ResponseEntity.ok(ErrorDTO.of("SUCCESS",
@@ -374,6 +578,11 @@ public class CuentaMovimientoController {
                 .body(ErrorDTO.of("NOT_202_MOVIMIENTO",
                     "Movimiento no encontrado con ID: " + id,
                     "El movimiento que intenta anular no existe"));
+        } catch (CuentaInactivaException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(ErrorDTO.of("ACC_401_CUENTA_INACTIVA",
+                    e.getMessage(),
+                    "No se pueden revertir movimientos de una cuenta inactiva"));
         } catch (SaldoNoDisponibleException e) {
             return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
                 .body(ErrorDTO.of("MOV_401_SALDO_INSUFICIENTE",
@@ -392,28 +601,163 @@ public class CuentaMovimientoController {
         }
     }
 
+    @Operation(summary = "Revertir movimientos por lote",
+               description = "Revierte una lista de movimientos (ids) o los movimientos vigentes de una cuenta en una ventana " +
+                           "de tiempo (numeroCuenta, desde, hasta). Los movimientos se agrupan por cuenta y cada grupo se aplica " +
+                           "en una sola transacción: un cambio de saldo neto y escritura por lotes de reversos y anulaciones. " +
+                           "Reintentar el lote es seguro: los movimientos ya anulados se informan con yaReversado=true.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lote procesado (revisar el resultado de cada elemento)"),
+        @ApiResponse(responseCode = "400", description = "Selección de movimientos inválida"),
+        @ApiResponse(responseCode = "404", description = "Cuenta no encontrada (selección por ventana)")
+    })
+    @PostMapping("/movimientos/reversos")
+    public ResponseEntity<?> reversarMovimientos(@Valid @RequestBody ReversoLoteDTO reversoDto) {
+        try {
+            // Agrupar ids (sin repetir) por cuenta conservando el orden de llegada
+            Map<Integer, List<Long>> idsPorCuenta = new LinkedHashMap<>();
+            Map<Long, ReversoLoteResultadoDTO.Item> resultados = new LinkedHashMap<>();
+            if (reversoDto.getIds() != null) {
+                validarSeleccionPorIds(reversoDto);
+                List<Long> ids = List.copyOf(new LinkedHashSet<>(reversoDto.getIds()));
+                Map<Long, Integer> cuentas = movimientoService.findNumerosCuenta(ids);
+                for (Long id : ids) {
+                    Integer numeroCuenta = cuentas.get(id);
+                    if (numeroCuenta == null) {
+                        resultados.put(id, crearItemReversoFallido(id, null, "NOT_202_MOVIMIENTO",
+                            "Movimiento no encontrado con ID: " + id));
+                    } else {
+                        resultados.put(id, null);
+                        idsPorCuenta.computeIfAbsent(numeroCuenta, k -> new ArrayList<>()).add(id);
+                    }
+                }
+            } else {
+                validarSeleccionPorVentana(reversoDto);
+                Integer numeroCuenta = reversoDto.getNumeroCuenta();
+                cuentaMetadatosService.obtener(numeroCuenta);
+                List<Long> ids = movimientoService.findIdsReversibles(numeroCuenta,
+                    reversoDto.getDesde(), reversoDto.getHasta(), LIMITE_REVERSOS_LOTE + 1);
+                if (ids.size() > LIMITE_REVERSOS_LOTE) {
+                    throw new IllegalArgumentException("La ventana contiene más de " + LIMITE_REVERSOS_LOTE +
+                        " movimientos; divídala en ventanas más cortas");
+                }
+                ids.forEach(id -> resultados.put(id, null));
+                if (!ids.isEmpty()) {
+                    idsPorCuenta.put(numeroCuenta, ids);
+                }
+            }
+
+            for (Map.Entry<Integer, List<Long>> grupo : idsPorCuenta.entrySet()) {
+                Integer numeroCuenta = grupo.getKey();
+                List<Long> ids = grupo.getValue();
+                try {
+                    for (ResultadoReverso resultado : movimientoService.reversarMovimientosCuenta(numeroCuenta, ids)) {
+                        resultados.put(resultado.getIdMovimiento(), crearItemReverso(numeroCuenta, resultado));
+                    }
+                } catch (EntityNotFoundException e) {
+                    ids.forEach(id -> resultados.put(id, crearItemReversoFallido(id, numeroCuenta, "NOT_201_CUENTA", e.getMessage())));
+                } catch (CuentaInactivaException e) {
+                    ids.forEach(id -> resultados.put(id, crearItemReversoFallido(id, numeroCuenta, "ACC_401_CUENTA_INACTIVA", e.getMessage())));
+                } catch (Exception e) {
+                    ids.forEach(id -> resultados.put(id, crearItemReversoFallido(id, numeroCuenta, "GEN_000_ERROR_INTERNO", e.getMessage())));
+                }
+            }
+
+            ReversoLoteResultadoDTO respuesta = new ReversoLoteResultadoDTO();
+            respuesta.setResultados(new ArrayList<>(resultados.values()));
+            respuesta.setTotal(resultados.size());
+            respuesta.setYaReversados((int) resultados.values().stream().filter(ReversoLoteResultadoDTO.Item::isYaReversado).count());
+            respuesta.setReversados((int) resultados.values().stream().filter(ReversoLoteResultadoDTO.Item::isExitoso).count()
+                - respuesta.getYaReversados());
+            respuesta.setFallidos(respuesta.getTotal() - respuesta.getReversados() - respuesta.getYaReversados());
+            return ResponseEntity.ok(respuesta);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ErrorDTO.of("VAL_108_REVERSO_INVALIDO",
+                    e.getMessage(),
+                    "Indique ids o numeroCuenta con la ventana desde/hasta"));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ErrorDTO.of("NOT_201_CUENTA",
+                    e.getMessage(),
+                    "La cuenta especificada no existe"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al procesar el lote de reversos"));
+        }
+    }
+
     // ===== ENDPOINTS PARA REPORTES =====
 
-    @Operation(summary = "Generar reporte de cuenta")
+    @Operation(summary = "Generar reporte de cuenta",
+               description = "El reporte se escribe en streaming fila por fila. Formato según cabecera Accept: " +
+                           "application/json (por defecto), application/x-ndjson (un movimiento por línea) o text/csv. " +
+                           "El JSON incluye el bloque Resumen (saldo de apertura, saldo de cierre, total de depósitos y " +
+                           "de retiros del rango); con detalle=false se retorna solo el resumen sin movimientos.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Reporte generado exitosamente"),
         @ApiResponse(responseCode = "404", description = "Cuenta no encontrada")
     })
-    @GetMapping("/reportes/cuenta/{numeroCuenta}")
-    public ResponseEntity<?> generarReporteCuenta(
+    @GetMapping(value = "/reportes/cuenta/{numeroCuenta}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> generarReporteCuenta(
+        @PathVariable("numeroCuenta") Integer numeroCuenta,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(name = "detalle", defaultValue = "true") boolean detalle) {
+        return generarReporteStreaming(numeroCuenta, MediaType.APPLICATION_JSON,
+            (cuenta, salida) -> reporteCuentaWriter.escribirJson(cuenta, fechaInicio, fechaFin, detalle, salida));
+    }
+
+    @Operation(summary = "Generar reporte de cuenta en NDJSON")
+    @GetMapping(value = "/reportes/cuenta/{numeroCuenta}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> generarReporteCuentaNdjson(
         @PathVariable("numeroCuenta") Integer numeroCuenta,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
-        try {
-            // Obtener información de la cuenta
-            Cuenta cuenta = cuentaService.findByNumeroCuenta(numeroCuenta);
+        return generarReporteStreaming(numeroCuenta, MediaType.APPLICATION_NDJSON,
+            (cuenta, salida) -> reporteCuentaWriter.escribirNdjson(cuenta, fechaInicio, fechaFin, salida));
+    }
+
+    @Operation(summary = "Generar reporte de cuenta en CSV")
+    @GetMapping(value = "/reportes/cuenta/{numeroCuenta}", produces = TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> generarReporteCuentaCsv(
+        @PathVariable("numeroCuenta") Integer numeroCuenta,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        return generarReporteStreaming(numeroCuenta, MediaType.parseMediaType(TEXT_CSV_VALUE),
+            (cuenta, salida) -> reporteCuentaWriter.escribirCsv(cuenta, fechaInicio, fechaFin, salida));
+    }
 
-            // Crear el reporte
-            Map<String, Object> reporte = new LinkedHashMap<>();
-            reporte.put("FechaReporte", LocalDate.now().format(DATE_REPORT_FORMATTER));
-            reporte.put("Cuenta", createCuentaInfo(cuenta, fechaInicio, fechaFin));
+    @Operation(summary = "Generar reporte consolidado de cliente",
+               description = "Todas las cuentas del cliente con sus movimientos del rango, obtenidos con una sola consulta " +
+                           "y escritos en streaming agrupados por cuenta (orden: cuenta, fecha, hora).")
+    @GetMapping(value = "/reportes/cliente/{idCliente}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> generarReporteCliente(
+        @PathVariable("idCliente") Long idCliente,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+            .body(salida -> reporteCuentaWriter.escribirJsonCliente(idCliente, fechaInicio, fechaFin, salida));
+    }
 
-            return ResponseEntity.ok(reporte);
+    @Operation(summary = "Resumen diario de saldos de la cuenta",
+               description = "Una fila por día con movimientos: saldo de apertura, saldo de cierre, total de créditos, " +
+                           "total de débitos y cantidad de movimientos. Se lee de los saldos diarios precalculados.")
+    @GetMapping("/reportes/cuenta/{numeroCuenta}/resumen-diario")
+    public ResponseEntity<?> generarResumenDiario(
+        @PathVariable("numeroCuenta") Integer numeroCuenta,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        try {
+            cuentaMetadatosService.obtener(numeroCuenta);
+            List<SaldoDiarioDTO> dias = saldoDiarioService
+                .findByNumeroCuentaAndFechaBetween(numeroCuenta, fechaInicio, fechaFin)
+                .stream()
+                .map(dtoConverter::toDto)
+                .collect(Collectors.toList());
+            return ResponseEntity.ok(dias);
         } catch (EntityNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(ErrorDTO.of("NOT_201_CUENTA",
@@ -423,60 +767,426 @@ public class CuentaMovimientoController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
                     e.getMessage(),
-                    "Ha ocurrido un error al generar el reporte"));
+                    "Ha ocurrido un error al generar el resumen diario"));
+        }
+    }
+
+    // ===== ENDPOINTS DE ADMINISTRACIÓN =====
+
+    @Operation(summary = "Reconstruir saldos diarios",
+               description = "Recalcula la tabla de saldos diarios desde los movimientos. Sin numeroCuenta procesa todas " +
+                           "las cuentas, una transacción por cuenta.")
+    @PostMapping("/admin/saldos-diarios/reconstruir")
+    public ResponseEntity<?> reconstruirSaldosDiarios(
+            @RequestParam(name = "numeroCuenta", required = false) Integer numeroCuenta) {
+        try {
+            int dias = numeroCuenta != null
+                ? saldoDiarioService.reconstruir(numeroCuenta)
+                : saldoDiarioService.reconstruirTodas();
+            return ResponseEntity.ok(ErrorDTO.of("SUCCESS",
+                "Saldos diarios reconstruidos correctamente",
+                "Días reconstruidos: " + dias));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ErrorDTO.of("NOT_201_CUENTA",
+                    e.getMessage(),
+                    "La cuenta especificada no existe"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al reconstruir los saldos diarios"));
+        }
+    }
+
+    @Operation(summary = "Fragmentar saldo de una cuenta caliente",
+               description = "Reparte el saldo de la cuenta en la cantidad de fragmentos indicada para que los depósitos " +
+                           "simultáneos no compitan por la misma fila. El saldo visible sigue siendo la suma de los fragmentos.")
+    @PutMapping("/admin/cuentas/{numeroCuenta}/fragmentos")
+    public ResponseEntity<?> fragmentarCuenta(
+            @PathVariable("numeroCuenta") Integer numeroCuenta,
+            @RequestParam(name = "cantidad") int cantidad) {
+        try {
+            Cuenta cuenta = saldoFragmentadoService.fragmentar(numeroCuenta, cantidad);
+            return ResponseEntity.ok(ErrorDTO.of("SUCCESS",
+                "Saldo de la cuenta fragmentado correctamente",
+                "Fragmentos: " + cuenta.getFragmentossaldo() + ", saldo: " + cuenta.getSaldodisponible()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ErrorDTO.of("NOT_201_CUENTA",
+                    e.getMessage(),
+                    "La cuenta especificada no existe"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ErrorDTO.of("VAL_107_FRAGMENTOS_INVALIDOS",
+                    e.getMessage(),
+                    "Indique una cantidad de fragmentos dentro del rango permitido"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al fragmentar el saldo de la cuenta"));
+        }
+    }
+
+    @Operation(summary = "Unificar saldo fragmentado",
+               description = "Devuelve la cuenta al modo normal: consolida sus totales diarios pendientes y suma los " +
+                           "fragmentos en la fila de la cuenta.")
+    @DeleteMapping("/admin/cuentas/{numeroCuenta}/fragmentos")
+    public ResponseEntity<?> unificarCuenta(@PathVariable("numeroCuenta") Integer numeroCuenta) {
+        try {
+            Cuenta cuenta = saldoFragmentadoService.unificar(numeroCuenta);
+            return ResponseEntity.ok(ErrorDTO.of("SUCCESS",
+                "Saldo de la cuenta unificado correctamente",
+                "Saldo: " + cuenta.getSaldodisponible()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ErrorDTO.of("NOT_201_CUENTA",
+                    e.getMessage(),
+                    "La cuenta especificada no existe"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al unificar el saldo de la cuenta"));
+        }
+    }
+
+    @Operation(summary = "Listar particiones de movimientos",
+               description = "Particiones mensuales de la tabla movimientos con su límite superior (excluido) y filas estimadas")
+    @GetMapping("/admin/movimientos/particiones")
+    public ResponseEntity<?> listarParticionesMovimientos() {
+        try {
+            List<ParticionMovimientosDTO> particiones = particionMovimientosService.listar();
+            return ResponseEntity.ok(particiones);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al listar las particiones de movimientos"));
+        }
+    }
+
+    @Operation(summary = "Verificar poda de particiones",
+               description = "Ejecuta EXPLAIN de la consulta de movimientos por rango de fechas (opcionalmente por cuenta) " +
+                           "y devuelve las particiones que MySQL leería")
+    @GetMapping("/admin/movimientos/particiones/poda")
+    public ResponseEntity<?> verificarPodaParticiones(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaDesde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaHasta,
+            @RequestParam(name = "numeroCuenta", required = false) Integer numeroCuenta) {
+        if (fechaDesde.isAfter(fechaHasta)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ErrorDTO.of("VAL_106_FILTRO_INVALIDO",
+                    "La fecha de inicio debe ser anterior o igual a la fecha de fin",
+                    "Rango: " + fechaDesde + " a " + fechaHasta));
+        }
+        try {
+            List<String> consultadas = particionMovimientosService.particionesConsultadas(numeroCuenta, fechaDesde, fechaHasta);
+            int total = particionMovimientosService.listar().size();
+            return ResponseEntity.ok(new PodaParticionesDTO(numeroCuenta, fechaDesde, fechaHasta, consultadas, total));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al verificar la poda de particiones"));
+        }
+    }
+
+    @Operation(summary = "Mantener particiones de movimientos",
+               description = "Ejecuta de inmediato el mantenimiento programado: crea las particiones mensuales por delante " +
+                           "y aplica la política de retención configurada.")
+    @PostMapping("/admin/movimientos/particiones/mantenimiento")
+    public ResponseEntity<?> mantenerParticionesMovimientos() {
+        try {
+            ResultadoParticiones resultado = particionMovimientosService.mantener();
+            return ResponseEntity.ok(ErrorDTO.of("SUCCESS",
+                "Mantenimiento de particiones ejecutado correctamente",
+                "Creadas: " + resultado.getCreadas() + ", retiradas: " + resultado.getRetiradas()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al mantener las particiones de movimientos"));
+        }
+    }
+
+    @Operation(summary = "Archivar movimientos antiguos",
+               description = "Ejecuta de inmediato el archivado programado: mueve a un segmento comprimido los movimientos " +
+                           "anteriores al corte configurado y los borra de la base de datos. Siguen visibles en la " +
+                           "consulta por rango de fechas con todos=true.")
+    @PostMapping("/admin/movimientos/archivo")
+    public ResponseEntity<?> archivarMovimientos() {
+        try {
+            int archivados = archivoMovimientosService.archivar();
+            return ResponseEntity.ok(ErrorDTO.of("SUCCESS",
+                "Archivado de movimientos ejecutado correctamente",
+                "Movimientos archivados: " + archivados));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al archivar los movimientos"));
+        }
+    }
+
+    @Operation(summary = "Iniciar conciliación del libro",
+               description = "Compara el saldo de cada cuenta con su saldo de apertura más la suma de sus movimientos y " +
+                           "verifica la cadena de saldos de cada movimiento. Se ejecuta en segundo plano con consumo " +
+                           "regulado del pool de conexiones; el avance se consulta con el id devuelto.")
+    @PostMapping("/admin/conciliaciones")
+    public ResponseEntity<?> iniciarConciliacion() {
+        try {
+            Conciliacion conciliacion = conciliacionService.iniciar();
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(dtoConverter.toDto(conciliacion));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ErrorDTO.of("CON_300_CONCILIACION_EN_CURSO",
+                    e.getMessage(),
+                    "Espere a que termine la conciliación en curso"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al iniciar la conciliación"));
+        }
+    }
+
+    @Operation(summary = "Listar conciliaciones", description = "Últimas 20 ejecuciones, de la más reciente a la más antigua.")
+    @GetMapping("/admin/conciliaciones")
+    public ResponseEntity<?> getConciliaciones() {
+        try {
+            List<ConciliacionDTO> conciliaciones = conciliacionService.findUltimas()
+                .stream()
+                .map(dtoConverter::toDto)
+                .collect(Collectors.toList());
+            return ResponseEntity.ok(conciliaciones);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al obtener las conciliaciones"));
+        }
+    }
+
+    @Operation(summary = "Obtener conciliación", description = "Estado y totales de una ejecución de la conciliación.")
+    @GetMapping("/admin/conciliaciones/{id}")
+    public ResponseEntity<?> getConciliacion(@PathVariable("id") Long id) {
+        try {
+            return ResponseEntity.ok(dtoConverter.toDto(conciliacionService.findById(id)));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ErrorDTO.of("NOT_203_CONCILIACION",
+                    e.getMessage(),
+                    "La conciliación especificada no existe"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al obtener la conciliación"));
+        }
+    }
+
+    @Operation(summary = "Discrepancias de una conciliación",
+               description = "Reporte paginado de discrepancias ordenado por número de cuenta. Tipos: SALDO (saldo de la " +
+                           "cuenta distinto del esperado), APERTURA (el primer movimiento no parte del saldo inicial) y " +
+                           "CADENA (movimiento cuyo saldo no continúa el del anterior).")
+    @GetMapping("/admin/conciliaciones/{id}/discrepancias")
+    public ResponseEntity<?> getDiscrepanciasConciliacion(
+            @PathVariable("id") Long id,
+            @RequestParam(name = "pagina", defaultValue = "0") int pagina,
+            @RequestParam(name = "tamano", defaultValue = "" + LIMITE_PAGINA_DEFECTO) int tamano) {
+        try {
+            Page<DiscrepanciaConciliacion> resultado = conciliacionService.findDiscrepancias(id,
+                PageRequest.of(Math.max(0, pagina), normalizarLimite(tamano)));
+            return ResponseEntity.ok(PaginaDTO.of(resultado, dtoConverter::toDto));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ErrorDTO.of("NOT_203_CONCILIACION",
+                    e.getMessage(),
+                    "La conciliación especificada no existe"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al obtener las discrepancias de la conciliación"));
         }
     }
 
     // ===== MÉTODOS PRIVADOS PARA REPORTES =====
 
-    /**
-     * Crea el mapa de información de una cuenta específica
-     */
-    private Map<String, Object> createCuentaInfo(Cuenta cuenta, LocalDate fechaInicio, LocalDate fechaFin) {
-        Map<String, Object> cuentaInfo = new LinkedHashMap<>();
-        
-        cuentaInfo.put("Numero", cuenta.getNumerocuenta().toString());
-        cuentaInfo.put("TipoCuenta", cuenta.getTipocuenta().toString());
-        cuentaInfo.put("SaldoInicial", cuenta.getSaldoinicial().toPlainString());
-        cuentaInfo.put("SaldoDisponible", (cuenta.getSaldodisponible() != null ? 
-            cuenta.getSaldodisponible() : cuenta.getSaldoinicial()).toPlainString());
-        cuentaInfo.put("Estado", cuenta.getEstado() ? "ACTIVA" : "INACTIVA");
-        cuentaInfo.put("FechaCreacion", cuenta.getFechacreacion().toLocalDate().format(DATE_FORMATTER));
-        cuentaInfo.put("Movimientos", createMovimientosInfo(cuenta, fechaInicio, fechaFin));
-        
-        return cuentaInfo;
+    @FunctionalInterface
+    private interface EscrituraReporte {
+        void escribir(Cuenta cuenta, OutputStream salida) throws IOException;
     }
 
     /**
-     * Crea la lista de información de movimientos de una cuenta
+     * Valida la cuenta antes de iniciar la respuesta (para poder responder 404 con ErrorDTO)
+     * y luego delega la escritura fila por fila al cuerpo en streaming.
      */
-    private List<Map<String, Object>> createMovimientosInfo(Cuenta cuenta, LocalDate fechaInicio, LocalDate fechaFin) {
-        List<Movimiento> movimientos = movimientoService.findByNumeroCuentaAndFechaBetween(
-            cuenta.getNumerocuenta(), fechaInicio, fechaFin);
+    private ResponseEntity<StreamingResponseBody> generarReporteStreaming(Integer numeroCuenta, MediaType formato,
+                                                                          EscrituraReporte escritura) {
+        try {
+            Cuenta cuenta = cuentaService.findByNumeroCuenta(numeroCuenta);
+            return ResponseEntity.ok().contentType(formato)
+                .body(salida -> escritura.escribir(cuenta, salida));
+        } catch (EntityNotFoundException e) {
+            return respuestaErrorReporte(HttpStatus.NOT_FOUND, ErrorDTO.of("NOT_201_CUENTA",
+                    "Cuenta no encontrada con número: " + numeroCuenta,
+                    "La cuenta especificada no existe"));
+        } catch (Exception e) {
+            return respuestaErrorReporte(HttpStatus.INTERNAL_SERVER_ERROR, ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al generar el reporte"));
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> respuestaErrorReporte(HttpStatus status, ErrorDTO error) {
+        return ResponseEntity.status(status)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(salida -> reporteCuentaWriter.escribirError(error, salida));
+    }
+
+    // ===== MÉTODOS PRIVADOS PARA PAGINACIÓN =====
+
+    private ResponseEntity<?> buscarCuentas(FiltroCuentasDTO filtro, int pagina, int tamano, String detalleError) {
+        try {
+            Page<Cuenta> resultado = cuentaService.buscar(filtro, PageRequest.of(Math.max(0, pagina),
+                normalizarLimite(tamano), ORDEN_CUENTAS));
+            return ResponseEntity.ok(PaginaDTO.of(resultado, dtoConverter::toDto));
+        } catch (IllegalArgumentException e) {
+            return respuestaFiltroInvalido(e);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    detalleError));
+        }
+    }
+
+    private ResponseEntity<?> respuestaFiltroInvalido(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+            .body(ErrorDTO.of("VAL_106_FILTRO_INVALIDO",
+                e.getMessage(),
+                "Revise los filtros: tipos válidos y rangos con el valor inicial menor o igual al final"));
+    }
+
+    private int normalizarLimite(int limit) {
+        return Math.max(1, Math.min(limit, LIMITE_PAGINA_MAXIMO));
+    }
 
-        return movimientos.stream()
-            .sorted((m1, m2) -> {
-                int compareDate = m2.getFechamovimiento().compareTo(m1.getFechamovimiento());
-                return compareDate == 0 ? m2.getHoramovimiento().compareTo(m1.getHoramovimiento()) : compareDate;
-            })
-            .map(this::createMovimientoInfo)
-            .toList();
+    private CursorMovimiento decodificarCursor(String cursor) {
+        return (cursor == null || cursor.isBlank()) ? null : CursorMovimiento.decodificar(cursor);
     }
 
     /**
-     * Crea el mapa de información de un movimiento específico
+     * Arma la página a partir de limit + 1 filas: la fila extra solo indica que existe una página siguiente.
      */
-    private Map<String, Object> createMovimientoInfo(Movimiento mov) {
-        Map<String, Object> movInfo = new LinkedHashMap<>();
-        
-        movInfo.put("Fecha", mov.getFechamovimiento().format(DATE_FORMATTER));
-        movInfo.put("Hora", mov.getHoramovimiento().format(TIME_FORMATTER));
-        movInfo.put("Descripcion", mov.getMovimientodescripcion());
-        movInfo.put("Tipo", mov.getTipomovimiento().toString());
-        movInfo.put("Monto", mov.getMontomovimiento().abs().toPlainString());
-        movInfo.put("Saldo Disponible", mov.getSaldodisponible().doubleValue());
-        movInfo.put("id", mov.getIdmovimiento());
-        
-        return movInfo;
+    private PaginaMovimientosDTO construirPagina(List<Movimiento> filas, int limit) {
+        boolean haySiguiente = filas.size() > limit;
+        List<Movimiento> pagina = haySiguiente ? filas.subList(0, limit) : filas;
+
+        PaginaMovimientosDTO dto = new PaginaMovimientosDTO();
+        dto.setMovimientos(pagina.stream().map(dtoConverter::toDto).toList());
+        dto.setLimit(limit);
+        dto.setNextCursor(haySiguiente ? CursorMovimiento.desde(pagina.get(pagina.size() - 1)).codificar() : null);
+        return dto;
+    }
+
+    // ===== MÉTODOS PRIVADOS PARA IDEMPOTENCIA =====
+
+    private ResponseEntity<?> ejecutarIdempotente(String idempotencyKey, String operacion, Object solicitud,
+                                                  Supplier<ResponseEntity<?>> accion) {
+        if (idempotencyKey == null) {
+            return accion.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IDEMPOTENCY_KEY_LONGITUD_MAXIMA) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ErrorDTO.of("VAL_105_IDEMPOTENCY_KEY_INVALIDA",
+                    "Idempotency-Key inválida",
+                    "La cabecera Idempotency-Key debe tener entre 1 y " + IDEMPOTENCY_KEY_LONGITUD_MAXIMA + " caracteres"));
+        }
+        try {
+            return idempotenciaService.ejecutar(idempotencyKey, operacion, solicitud, accion);
+        } catch (ClaveIdempotenciaReutilizadaException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(ErrorDTO.of("IDE_300_CLAVE_REUTILIZADA",
+                    e.getMessage(),
+                    "Use una Idempotency-Key nueva para cada operación distinta"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ErrorDTO.of("GEN_000_ERROR_INTERNO",
+                    e.getMessage(),
+                    "Ha ocurrido un error al procesar la solicitud idempotente"));
+        }
+    }
+
+    // ===== MÉTODOS PRIVADOS PARA LOTES =====
+
+    private MovimientoLoteResultadoDTO.Item crearItem(int indice, Integer numeroCuenta, ResultadoMovimiento resultado) {
+        if (!resultado.isExitoso()) {
+            return crearItemFallido(indice, numeroCuenta, resultado.getCodigo(), resultado.getMensaje());
+        }
+        MovimientoLoteResultadoDTO.Item item = new MovimientoLoteResultadoDTO.Item();
+        item.setIndice(indice);
+        item.setNumeroCuenta(numeroCuenta);
+        item.setExitoso(true);
+        item.setMovimiento(dtoConverter.toDto(resultado.getMovimiento()));
+        return item;
+    }
+
+    private void validarSeleccionPorIds(ReversoLoteDTO reversoDto) {
+        if (reversoDto.getNumeroCuenta() != null || reversoDto.getDesde() != null || reversoDto.getHasta() != null) {
+            throw new IllegalArgumentException("Indique ids o la ventana de una cuenta, no ambos");
+        }
+        if (reversoDto.getIds().isEmpty() || reversoDto.getIds().contains(null)) {
+            throw new IllegalArgumentException("La lista de ids debe contener al menos un id y ningún valor nulo");
+        }
+    }
+
+    private void validarSeleccionPorVentana(ReversoLoteDTO reversoDto) {
+        if (reversoDto.getNumeroCuenta() == null || reversoDto.getDesde() == null || reversoDto.getHasta() == null) {
+            throw new IllegalArgumentException("Sin ids se requieren numeroCuenta, desde y hasta");
+        }
+        if (reversoDto.getDesde().isAfter(reversoDto.getHasta())) {
+            throw new IllegalArgumentException("El inicio de la ventana no puede ser posterior al fin");
+        }
+    }
+
+    private ReversoLoteResultadoDTO.Item crearItemReverso(Integer numeroCuenta, ResultadoReverso resultado) {
+        if (!resultado.isExitoso()) {
+            return crearItemReversoFallido(resultado.getIdMovimiento(), numeroCuenta,
+                resultado.getCodigo(), resultado.getMensaje());
+        }
+        ReversoLoteResultadoDTO.Item item = new ReversoLoteResultadoDTO.Item();
+        item.setIdMovimiento(resultado.getIdMovimiento());
+        item.setNumeroCuenta(numeroCuenta);
+        item.setExitoso(true);
+        item.setYaReversado(resultado.isYaReversado());
+        if (resultado.getReverso() != null) {
+            item.setReverso(dtoConverter.toDto(resultado.getReverso()));
+        }
+        return item;
+    }
+
+    private ReversoLoteResultadoDTO.Item crearItemReversoFallido(Long idMovimiento, Integer numeroCuenta,
+                                                               String codigo, String mensaje) {
+        ReversoLoteResultadoDTO.Item item = new ReversoLoteResultadoDTO.Item();
+        item.setIdMovimiento(idMovimiento);
+        item.setNumeroCuenta(numeroCuenta);
+        item.setExitoso(false);
+        item.setCodigo(codigo);
+        item.setMensaje(mensaje);
+        return item;
+    }
+
+    private MovimientoLoteResultadoDTO.Item crearItemFallido(int indice, Integer numeroCuenta, String codigo, String mensaje) {
+        MovimientoLoteResultadoDTO.Item item = new MovimientoLoteResultadoDTO.Item();
+        item.setIndice(indice);
+        item.setNumeroCuenta(numeroCuenta);
+        item.setExitoso(false);
+        item.setCodigo(codigo);
+        item.setMensaje(mensaje);
+        return item;
     }
 }
@@ -0,0 +1,16 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class ConciliacionDTO {
+    private Long id;
+    private String estado;
+    private LocalDateTime fechaInicio;
+    private LocalDateTime fechaFin;
+    private Integer cuentasRevisadas;
+    private Long movimientosRevisados;
+    private Integer discrepancias;
+    private String error;
+}
@@ -10,8 +10,8 @@ import java.time.LocalDateTime;
 // Campos expuestos en respuestas: numeroCuenta, idCliente, tipoCuenta, saldoInicial,
 // saldoDisponible (puede ser null al crear y luego refleja saldoinicial), estado, fechas.
 // Evitar agregar campos derivados aquí para mantener DTO estable.
+// numeroCuenta es opcional al crear: si se omite, el servicio asigna uno del rango de numeración automática.
 public class CuentaDTO {
-    @NotNull(message = "El número de cuenta es requerido")
     @Min(value = 100000, message = "El número de cuenta debe ser de 6 dígitos")
     @Max(value = 999999, message = "El número de cuenta debe ser de 6 dígitos")
     private Integer numeroCuenta;
@@ -0,0 +1,16 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+
+@Data
+public class DiscrepanciaConciliacionDTO {
+    private Integer numeroCuenta;
+    // SALDO, APERTURA o CADENA
+    private String tipo;
+    // Solo en discrepancias de la cadena: fila cuyo saldo no continúa el de la anterior
+    private Long idMovimiento;
+    private BigDecimal esperado;
+    private BigDecimal registrado;
+    private String detalle;
+}
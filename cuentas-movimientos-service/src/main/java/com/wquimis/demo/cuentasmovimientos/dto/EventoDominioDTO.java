@@ -0,0 +1,12 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.Data;
+
+@Data
+// Sobre de los eventos publicados en Kafka; datos contiene el CuentaDTO o MovimientoDTO del cambio
+public class EventoDominioDTO {
+    private String tipoEvento;
+    private Integer numeroCuenta;
+    private long timestamp;
+    private Object datos;
+}
@@ -0,0 +1,25 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+// Filtros opcionales del listado de cuentas (parámetros de consulta). Los campos nulos no filtran;
+// los rangos son inclusivos y se aplican sobre la fecha de creación y el saldo disponible.
+public class FiltroCuentasDTO {
+    private Integer numeroCuenta;
+    private Long idCliente;
+    private String tipoCuenta;
+    private Boolean estado;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate fechaDesde;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate fechaHasta;
+
+    private BigDecimal saldoMinimo;
+    private BigDecimal saldoMaximo;
+}
@@ -0,0 +1,25 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+// Filtros opcionales del listado de movimientos (parámetros de consulta). Los campos nulos no filtran;
+// los rangos de fecha y monto son inclusivos. estado=false selecciona los movimientos anulados.
+public class FiltroMovimientosDTO {
+    private Integer numeroCuenta;
+    private Long idCliente;
+    private String tipoMovimiento;
+    private Boolean estado;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate fechaInicio;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate fechaFin;
+
+    private BigDecimal montoMinimo;
+    private BigDecimal montoMaximo;
+}
@@ -0,0 +1,18 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import java.util.List;
+
+@Data
+// Contrato REST para lotes de movimientos. Cada elemento usa el contrato de MovimientoDTO
+// y debe indicar numeroCuenta (aquí no llega por path). Se procesan agrupados por cuenta,
+// respetando el orden de llegada dentro de cada cuenta.
+public class MovimientoLoteDTO {
+    @NotEmpty(message = "El lote debe contener al menos un movimiento")
+    @Size(max = 500, message = "El lote no puede exceder los 500 movimientos")
+    @Valid
+    private List<MovimientoDTO> movimientos;
+}
@@ -0,0 +1,25 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+// Respuesta de un lote de movimientos: un resultado por elemento, en el mismo orden del request.
+// Los elementos fallidos llevan codigo/mensaje con la convención de ERROR_CODES.md.
+public class MovimientoLoteResultadoDTO {
+    private int total;
+    private int exitosos;
+    private int fallidos;
+    private List<Item> resultados = new ArrayList<>();
+
+    @Data
+    public static class Item {
+        private int indice;
+        private Integer numeroCuenta;
+        private boolean exitoso;
+        private String codigo;
+        private String mensaje;
+        private MovimientoDTO movimiento;
+    }
+}
@@ -0,0 +1,27 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.Data;
+import org.springframework.data.domain.Page;
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+// Página numerada de un listado filtrado. pagina es base 0; totalElementos y totalPaginas
+// corresponden al filtro aplicado, no a la tabla completa.
+public class PaginaDTO<T> {
+    private List<T> contenido;
+    private int pagina;
+    private int tamano;
+    private long totalElementos;
+    private int totalPaginas;
+
+    public static <E, T> PaginaDTO<T> of(Page<E> page, Function<E, T> conversor) {
+        PaginaDTO<T> dto = new PaginaDTO<>();
+        dto.setContenido(page.getContent().stream().map(conversor).toList());
+        dto.setPagina(page.getNumber());
+        dto.setTamano(page.getSize());
+        dto.setTotalElementos(page.getTotalElements());
+        dto.setTotalPaginas(page.getTotalPages());
+        return dto;
+    }
+}
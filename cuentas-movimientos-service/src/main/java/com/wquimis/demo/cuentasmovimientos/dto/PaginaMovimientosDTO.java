@@ -0,0 +1,13 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+// Página de movimientos con paginación por cursor. nextCursor es opaco y es null en la última página;
+// para obtener la siguiente página se reenvía tal cual en el parámetro cursor.
+public class PaginaMovimientosDTO {
+    private List<MovimientoDTO> movimientos;
+    private int limit;
+    private String nextCursor;
+}
@@ -0,0 +1,17 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticionMovimientosDTO {
+    private String nombre;
+    // Fecha excluida: la partición contiene movimientos anteriores a este día (null = sin límite, p_futuro)
+    private LocalDate limite;
+    // Estimación de InnoDB (information_schema.PARTITIONS.TABLE_ROWS)
+    private Long filasAproximadas;
+}
@@ -0,0 +1,19 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PodaParticionesDTO {
+    private Integer numeroCuenta;
+    private LocalDate fechaDesde;
+    private LocalDate fechaHasta;
+    // Particiones que lee la consulta según EXPLAIN, frente al total de la tabla
+    private List<String> particionesConsultadas;
+    private int totalParticiones;
+}
@@ -0,0 +1,14 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+
+@Data
+// Resumen del rango de un reporte de cuenta: saldos de apertura y cierre y totales por tipo de movimiento
+public class ResumenReporteDTO {
+    private BigDecimal saldoApertura;
+    private BigDecimal saldoCierre;
+    private BigDecimal totalDepositos;
+    private BigDecimal totalRetiros;
+    private long cantidadMovimientos;
+}
@@ -0,0 +1,20 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+// Contrato REST para reversos por lote. Se indica una de dos selecciones:
+// - ids: lista de movimientos a revertir (de una o varias cuentas)
+// - numeroCuenta + desde/hasta: movimientos vigentes de la cuenta en la ventana (inclusiva), sin incluir reversos
+// Reintentar el mismo lote es seguro: los movimientos ya anulados no se vuelven a revertir.
+public class ReversoLoteDTO {
+    @Size(max = 500, message = "El lote no puede exceder los 500 movimientos")
+    private List<Long> ids;
+
+    private Integer numeroCuenta;
+    private LocalDateTime desde;
+    private LocalDateTime hasta;
+}
@@ -0,0 +1,28 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+// Respuesta de un reverso por lote: un resultado por movimiento (ids sin repetir, en el orden recibido).
+// yaReversado indica un movimiento anulado antes de esta solicitud (exitoso, sin reverso nuevo).
+// Los elementos fallidos llevan codigo/mensaje con la convención de ERROR_CODES.md.
+public class ReversoLoteResultadoDTO {
+    private int total;
+    private int reversados;
+    private int yaReversados;
+    private int fallidos;
+    private List<Item> resultados = new ArrayList<>();
+
+    @Data
+    public static class Item {
+        private Long idMovimiento;
+        private Integer numeroCuenta;
+        private boolean exitoso;
+        private boolean yaReversado;
+        private String codigo;
+        private String mensaje;
+        private MovimientoDTO reverso;
+    }
+}
@@ -0,0 +1,15 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class SaldoDiarioDTO {
+    private LocalDate fecha;
+    private BigDecimal saldoApertura;
+    private BigDecimal saldoCierre;
+    private BigDecimal totalCreditos;
+    private BigDecimal totalDebitos;
+    private Integer cantidadMovimientos;
+}
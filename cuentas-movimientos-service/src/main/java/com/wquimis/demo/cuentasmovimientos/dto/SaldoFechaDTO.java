@@ -0,0 +1,16 @@
+package com.wquimis.demo.cuentasmovimientos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoFechaDTO {
+    private Integer numeroCuenta;
+    private LocalDate fecha;
+    private BigDecimal saldo;
+}
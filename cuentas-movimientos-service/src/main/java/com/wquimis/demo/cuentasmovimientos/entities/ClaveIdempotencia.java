@@ -0,0 +1,39 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Respuesta registrada para una Idempotency-Key. La fila se inserta al iniciar la operación
+ * (en la misma transacción que el movimiento) y se completa con la respuesta antes del commit.
+ */
+@Data
+@Entity
+@Table(name = "claves_idempotencia")
+public class ClaveIdempotencia {
+
+    @Id
+    @Column(length = 100)
+    private String clave;
+
+    @Column(length = 150, nullable = false)
+    private String operacion;
+
+    // SHA-256 (hex) de la operación y el cuerpo de la solicitud
+    @Column(length = 64, nullable = false)
+    private String huella;
+
+    @Column
+    private Integer estadohttp;
+
+    @Lob
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String respuesta;
+
+    @Column(nullable = false)
+    private LocalDateTime fechacreacion;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaexpiracion;
+}
@@ -0,0 +1,31 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Último offset de comandos de movimiento aplicado para una cuenta en una partición del tópico de comandos.
+ */
+@Data
+@Entity
+@Table(name = "comandos_consumidos")
+@IdClass(ComandoConsumidoId.class)
+public class ComandoConsumido {
+
+    @Id
+    @Column(length = 249)
+    private String topico;
+
+    @Id
+    private Integer particion;
+
+    @Id
+    private Integer numerocuenta;
+
+    @Column(nullable = false)
+    private Long ultimooffset;
+
+    @Column(nullable = false)
+    private LocalDateTime fechaactualizacion;
+}
@@ -0,0 +1,15 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComandoConsumidoId implements Serializable {
+    private String topico;
+    private Integer particion;
+    private Integer numerocuenta;
+}
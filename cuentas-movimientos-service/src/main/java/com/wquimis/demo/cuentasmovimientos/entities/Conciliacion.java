@@ -0,0 +1,41 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "conciliaciones")
+public class Conciliacion {
+
+    public enum EstadoConciliacion {
+        EN_CURSO, COMPLETADA, FALLIDA
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idconciliacion;
+
+    @Column(length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private EstadoConciliacion estado;
+
+    @Column(nullable = false)
+    private LocalDateTime fechainicio;
+
+    @Column
+    private LocalDateTime fechafin;
+
+    @Column(nullable = false)
+    private Integer cuentasrevisadas;
+
+    @Column(nullable = false)
+    private Long movimientosrevisados;
+
+    @Column(nullable = false)
+    private Integer discrepancias;
+
+    @Column(length = 500)
+    private String error;
+}
@@ -42,6 +42,16 @@ public class Cuenta {
     @Column
     private LocalDateTime fechacierre;
 
+    // Cantidad de fragmentos de saldo (cuenta caliente); 0 en cuentas normales
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Integer fragmentossaldo;
+
+    // Suma de los fragmentos; no se persiste y solo se carga para cuentas fragmentadas
+    // (SaldoFragmentadoService.cargarSaldoFragmentos)
+    @Transient
+    private BigDecimal saldofragmentos;
+
     @OneToMany(mappedBy = "cuenta", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Movimiento> movimientos;
 
@@ -57,6 +67,10 @@ public class Cuenta {
         if (this.saldodisponible == null) {
             this.saldodisponible = this.saldoinicial;
         }
+
+        if (this.fragmentossaldo == null) {
+            this.fragmentossaldo = 0;
+        }
     }
 
     @PreUpdate
@@ -80,11 +94,18 @@ public class Cuenta {
     }
 
     public boolean tieneSaldoSuficiente(BigDecimal monto) {
-        BigDecimal saldoActual = this.saldodisponible != null ? this.saldodisponible : this.saldoinicial;
-        return saldoActual.compareTo(monto) >= 0;
+        return getSaldodisponible().compareTo(monto) >= 0;
     }
 
+    /**
+     * Saldo visible: el de la fila de la cuenta más la suma de sus fragmentos (cero en cuentas normales).
+     */
     public BigDecimal getSaldodisponible() {
-        return this.saldodisponible != null ? this.saldodisponible : this.saldoinicial;
+        BigDecimal saldoCuenta = this.saldodisponible != null ? this.saldodisponible : this.saldoinicial;
+        return this.saldofragmentos != null ? saldoCuenta.add(this.saldofragmentos) : saldoCuenta;
+    }
+
+    public boolean isFragmentada() {
+        return this.fragmentossaldo != null && this.fragmentossaldo > 0;
     }
 }
@@ -0,0 +1,46 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+
+@Data
+@Entity
+@Table(name = "conciliacion_discrepancias")
+public class DiscrepanciaConciliacion {
+
+    public enum TipoDiscrepancia {
+        // Saldo vigente de la cuenta distinto del saldo de apertura más la suma de movimientos
+        SALDO,
+        // El primer movimiento en la BD no parte del saldo inicial (ni del último movimiento archivado)
+        APERTURA,
+        // saldodisponible de una fila distinto del de la fila anterior más su monto
+        CADENA
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long iddiscrepancia;
+
+    @Column(nullable = false)
+    private Long idconciliacion;
+
+    @Column(nullable = false)
+    private Integer numerocuenta;
+
+    @Column(length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TipoDiscrepancia tipo;
+
+    @Column
+    private Long idmovimiento;
+
+    @Column(precision = 14, scale = 4)
+    private BigDecimal esperado;
+
+    @Column(precision = 14, scale = 4)
+    private BigDecimal registrado;
+
+    @Column(length = 300)
+    private String detalle;
+}
@@ -0,0 +1,25 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * Parte del saldo de una cuenta fragmentada (cuenta caliente). Los depósitos se aplican sobre un fragmento
+ * al azar y los retiros los consumen en orden; el saldo visible es la suma de los fragmentos.
+ */
+@Data
+@Entity
+@Table(name = "cuentas_fragmentos_saldo")
+@IdClass(FragmentoSaldoId.class)
+public class FragmentoSaldo {
+
+    @Id
+    private Integer numerocuenta;
+
+    @Id
+    private Integer fragmento;
+
+    @Column(precision = 10, scale = 4, nullable = false)
+    private BigDecimal saldo;
+}
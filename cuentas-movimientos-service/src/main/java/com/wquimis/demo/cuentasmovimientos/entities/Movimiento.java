@@ -11,8 +11,13 @@ import org.hibernate.annotations.ColumnDefault;
 @Entity
 @Table(name = "movimientos")
 public class Movimiento {
+    // IDENTITY deshabilita el batching JDBC de inserts en Hibernate; se usa un generador de tabla
+    // con bloques de 50 IDs (optimizador pooled) para permitir inserts por lotes.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "movimientos_gen")
+    @TableGenerator(name = "movimientos_gen", table = "secuencias",
+                    pkColumnName = "nombre", valueColumnName = "valor",
+                    pkColumnValue = "movimientos", allocationSize = 50)
     private Long idmovimiento;
 
     @ManyToOne
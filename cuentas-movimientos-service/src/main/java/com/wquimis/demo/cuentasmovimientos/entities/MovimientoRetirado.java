@@ -0,0 +1,28 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Resumen de los movimientos de una cuenta que la retención de particiones sacó de la tabla movimientos.
+ * Lo escribe ParticionMovimientosService antes de retirar cada partición.
+ */
+@Data
+@Entity
+@Table(name = "movimientos_retirados")
+public class MovimientoRetirado {
+
+    @Id
+    private Integer numerocuenta;
+
+    @Column(nullable = false)
+    private LocalDate fechahasta;
+
+    @Column(nullable = false, precision = 10, scale = 4)
+    private BigDecimal saldocierre;
+
+    @Column(nullable = false)
+    private Long cantidadmovimientos;
+}
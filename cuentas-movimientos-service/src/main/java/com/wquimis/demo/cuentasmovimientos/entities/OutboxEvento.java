@@ -0,0 +1,37 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "outbox_eventos")
+public class OutboxEvento {
+
+    public enum TipoEvento {
+        CUENTA_CREADA, CUENTA_ACTUALIZADA, CUENTA_DESACTIVADA,
+        MOVIMIENTO_CREADO, MOVIMIENTO_ANULADO
+    }
+
+    // IDENTITY a propósito: el ID se asigna al insertar, bajo el bloqueo de la fila de la cuenta,
+    // por lo que el orden de IDs respeta el orden de los cambios de cada cuenta (un generador por
+    // bloques reparte rangos por instancia y no garantiza ese orden)
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idevento;
+
+    @Column(length = 50, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TipoEvento tipoevento;
+
+    @Column(nullable = false)
+    private Integer numerocuenta;
+
+    @Lob
+    @Column(columnDefinition = "MEDIUMTEXT", nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime fechacreacion;
+}
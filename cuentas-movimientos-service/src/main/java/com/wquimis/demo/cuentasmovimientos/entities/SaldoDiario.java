@@ -0,0 +1,38 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Saldo de cierre diario por cuenta. Se mantiene de forma incremental en la misma transacción
+ * que cada movimiento y permite responder saldos a una fecha y resúmenes por rango sin recorrer movimientos.
+ */
+@Data
+@Entity
+@Table(name = "saldos_diarios")
+@IdClass(SaldoDiarioId.class)
+public class SaldoDiario {
+
+    @Id
+    private Integer numerocuenta;
+
+    @Id
+    private LocalDate fecha;
+
+    @Column(precision = 12, scale = 4, nullable = false)
+    private BigDecimal saldoapertura;
+
+    @Column(precision = 12, scale = 4, nullable = false)
+    private BigDecimal saldocierre;
+
+    @Column(precision = 14, scale = 4, nullable = false)
+    private BigDecimal totalcreditos;
+
+    @Column(precision = 14, scale = 4, nullable = false)
+    private BigDecimal totaldebitos;
+
+    @Column(nullable = false)
+    private Integer cantidadmovimientos;
+}
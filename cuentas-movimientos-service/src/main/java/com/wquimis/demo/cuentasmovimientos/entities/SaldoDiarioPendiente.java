@@ -0,0 +1,35 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Totales del día de una cuenta fragmentada, acumulados por fragmento y todavía no consolidados
+ * en {@link SaldoDiario}. Solo guarda créditos y débitos: el saldo de cierre se calcula al consolidar.
+ */
+@Data
+@Entity
+@Table(name = "saldos_diarios_pendientes")
+@IdClass(SaldoDiarioPendienteId.class)
+public class SaldoDiarioPendiente {
+
+    @Id
+    private Integer numerocuenta;
+
+    @Id
+    private LocalDate fecha;
+
+    @Id
+    private Integer fragmento;
+
+    @Column(precision = 14, scale = 4, nullable = false)
+    private BigDecimal totalcreditos;
+
+    @Column(precision = 14, scale = 4, nullable = false)
+    private BigDecimal totaldebitos;
+
+    @Column(nullable = false)
+    private Integer cantidadmovimientos;
+}
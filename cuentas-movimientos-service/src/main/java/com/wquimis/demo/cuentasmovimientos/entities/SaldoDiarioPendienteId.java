@@ -0,0 +1,16 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoDiarioPendienteId implements Serializable {
+    private Integer numerocuenta;
+    private LocalDate fecha;
+    private Integer fragmento;
+}
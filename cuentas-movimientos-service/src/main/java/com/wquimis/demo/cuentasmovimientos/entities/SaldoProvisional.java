@@ -0,0 +1,25 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDate;
+
+/**
+ * Depósito de una cuenta fragmentada cuyo saldodisponible todavía es provisional. fechamovimiento completa la
+ * clave de la tabla particionada de movimientos.
+ */
+@Data
+@Entity
+@Table(name = "movimientos_saldo_provisional")
+@IdClass(SaldoProvisionalId.class)
+public class SaldoProvisional {
+
+    @Id
+    private Integer numerocuenta;
+
+    @Id
+    private Long idmovimiento;
+
+    @Column(nullable = false)
+    private LocalDate fechamovimiento;
+}
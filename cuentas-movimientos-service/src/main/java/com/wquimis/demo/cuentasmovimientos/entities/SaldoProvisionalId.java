@@ -0,0 +1,14 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoProvisionalId implements Serializable {
+    private Integer numerocuenta;
+    private Long idmovimiento;
+}
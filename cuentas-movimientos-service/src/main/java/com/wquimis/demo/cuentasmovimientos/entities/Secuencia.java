@@ -0,0 +1,21 @@
+package com.wquimis.demo.cuentasmovimientos.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Fila de la tabla secuencias. La de movimientos la administra Hibernate (@TableGenerator);
+ * la de cuentas la reserva por bloques NumeracionCuentaService.
+ */
+@Data
+@Entity
+@Table(name = "secuencias")
+public class Secuencia {
+
+    @Id
+    @Column(length = 64)
+    private String nombre;
+
+    @Column(nullable = false)
+    private Long valor;
+}
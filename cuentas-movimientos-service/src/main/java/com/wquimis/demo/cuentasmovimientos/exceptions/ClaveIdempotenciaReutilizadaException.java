@@ -0,0 +1,7 @@
+package com.wquimis.demo.cuentasmovimientos.exceptions;
+
+public class ClaveIdempotenciaReutilizadaException extends RuntimeException {
+    public ClaveIdempotenciaReutilizadaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.wquimis.demo.cuentasmovimientos.exceptions;
+
+public class CuentaInactivaException extends RuntimeException {
+    public CuentaInactivaException(String message) {
+        super(message);
+    }
+}
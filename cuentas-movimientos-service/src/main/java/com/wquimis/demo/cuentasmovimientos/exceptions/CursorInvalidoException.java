@@ -0,0 +1,11 @@
+package com.wquimis.demo.cuentasmovimientos.exceptions;
+
+public class CursorInvalidoException extends RuntimeException {
+    public CursorInvalidoException(String message) {
+        super(message);
+    }
+
+    public CursorInvalidoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,309 @@
+package com.wquimis.demo.cuentasmovimientos.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wquimis.demo.cuentasmovimientos.dto.MovimientoDTO;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.exceptions.CuentaInactivaException;
+import com.wquimis.demo.cuentasmovimientos.repository.ComandoConsumidoRepository;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatosService;
+import com.wquimis.demo.cuentasmovimientos.services.MovimientoService;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoMovimiento;
+import com.wquimis.demo.cuentasmovimientos.utils.DtoConverter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consume comandos de movimiento en lotes. La clave del mensaje es el número de cuenta, por lo que todos
+ * los comandos de una cuenta llegan en orden a la misma partición (un solo hilo); cuentas de particiones
+ * distintas se procesan en paralelo según spring.kafka.listener.concurrency.
+ *
+ * Cada lote se agrupa por cuenta y cada grupo se aplica en su propia transacción reutilizando el camino de lotes
+ * (un bloqueo por cuenta, inserts por lotes JDBC), de modo que un comando que falla no revierte a las demás
+ * cuentas. En la misma transacción se guarda el último offset aplicado de la cuenta en su partición
+ * (comandos_consumidos): si el lote se reentrega después del commit de BD y antes del commit de offsets
+ * (caída o rebalanceo), los comandos ya aplicados se omiten.
+ *
+ * Fallas:
+ * - Transitorias de BD (conexión, bloqueo, deadlock): nack desde el primer comando sin aplicar; se reintenta
+ *   sin límite tras cuentas.comandos.espera-reintento-ms.
+ * - Cualquier otra: el grupo se reintenta comando por comando para encontrar el que falla, y se informa con
+ *   BatchListenerFailedException; el error handler (KafkaConfig) lo reintenta un número acotado de veces y lo
+ *   envía al tópico .DLT, sin bloquear al resto de cuentas de la partición.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "cuentas.comandos.enabled", havingValue = "true", matchIfMissing = true)
+public class MovimientoComandoListener {
+
+    private static final int ACEPTADOS = 0;
+    private static final int RECHAZADOS = 1;
+    private static final int DESCARTADOS = 2;
+    private static final int DUPLICADOS = 3;
+
+    private final MovimientoService movimientoService;
+    private final CuentaMetadatosService cuentaMetadatosService;
+    private final ComandoConsumidoRepository comandoConsumidoRepository;
+    private final DtoConverter dtoConverter;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration esperaReintento;
+    private final Timer tiempoLote;
+    private final Counter aceptados;
+    private final Counter rechazados;
+    private final Counter descartados;
+    private final Counter duplicados;
+
+    public MovimientoComandoListener(MovimientoService movimientoService, CuentaMetadatosService cuentaMetadatosService,
+                                     ComandoConsumidoRepository comandoConsumidoRepository,
+                                     DtoConverter dtoConverter, ObjectMapper objectMapper, Validator validator,
+                                     PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                     @Value("${cuentas.comandos.espera-reintento-ms:5000}") long esperaReintentoMs) {
+        this.movimientoService = movimientoService;
+        this.cuentaMetadatosService = cuentaMetadatosService;
+        this.comandoConsumidoRepository = comandoConsumidoRepository;
+        this.dtoConverter = dtoConverter;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.esperaReintento = Duration.ofMillis(esperaReintentoMs);
+        this.tiempoLote = Timer.builder("cuentas.comandos.lote")
+            .description("Tiempo de aplicación de un lote de comandos de movimiento")
+            .register(meterRegistry);
+        this.aceptados = contador(meterRegistry, "aceptado");
+        this.rechazados = contador(meterRegistry, "rechazado");
+        this.descartados = contador(meterRegistry, "descartado");
+        this.duplicados = contador(meterRegistry, "duplicado");
+    }
+
+    @KafkaListener(id = "movimientosComandos", topics = "${cuentas.comandos.topic}")
+    public void procesarLote(List<ConsumerRecord<String, String>> registros, Acknowledgment ack) {
+        Timer.Sample muestra = Timer.start();
+        int[] totales = new int[4];
+
+        // Orden ascendente de cuenta; cada lista conserva el orden de offsets de su partición
+        Map<GrupoComandos, List<Comando>> grupos = new TreeMap<>(GrupoComandos.ORDEN);
+        for (int indice = 0; indice < registros.size(); indice++) {
+            ConsumerRecord<String, String> registro = registros.get(indice);
+            MovimientoDTO comando = leerComando(registro);
+            if (comando == null) {
+                totales[DESCARTADOS]++;
+                continue;
+            }
+            grupos.computeIfAbsent(new GrupoComandos(registro.topic(), registro.partition(), comando.getNumeroCuenta()),
+                    k -> new ArrayList<>())
+                .add(new Comando(indice, registro.offset(), comando));
+        }
+
+        // Índice del primer registro del lote que no quedó aplicado; los anteriores se pueden confirmar
+        int primerFallido = registros.size();
+        RuntimeException causaFallo = null;
+        List<Map.Entry<GrupoComandos, List<Comando>>> lista = new ArrayList<>(grupos.entrySet());
+        for (int g = 0; g < lista.size(); g++) {
+            try {
+                aplicarGrupo(lista.get(g).getKey(), lista.get(g).getValue(), totales);
+            } catch (ComandoFallidoException e) {
+                if (e.indice < primerFallido) {
+                    primerFallido = e.indice;
+                    causaFallo = (RuntimeException) e.getCause();
+                }
+            } catch (RuntimeException e) {
+                if (!esTransitoria(e)) {
+                    // Fuera de la transacción del grupo (p. ej. la validación de la cuenta): se señala su primer comando
+                    int indice = lista.get(g).getValue().get(0).indice();
+                    if (indice < primerFallido) {
+                        primerFallido = indice;
+                        causaFallo = e;
+                    }
+                    continue;
+                }
+                // Falla transitoria: este grupo y los siguientes quedan sin aplicar
+                int primerSinAplicar = lista.subList(g, lista.size()).stream()
+                    .flatMap(grupo -> grupo.getValue().stream())
+                    .mapToInt(Comando::indice)
+                    .min().orElse(registros.size());
+                registrarMetricas(muestra, totales);
+                log.warn("[COMANDOS][REINTENTO] Falla transitoria, se reintenta desde el registro {} de {}: {}",
+                    Math.min(primerSinAplicar, primerFallido), registros.size(), e.getMessage());
+                ack.nack(Math.min(primerSinAplicar, primerFallido), esperaReintento);
+                return;
+            }
+        }
+
+        registrarMetricas(muestra, totales);
+        log.debug("[COMANDOS][LOTE] Registros {} grupos {} aceptados {} rechazados {} descartados {} duplicados {}",
+            registros.size(), grupos.size(), totales[ACEPTADOS], totales[RECHAZADOS], totales[DESCARTADOS],
+            totales[DUPLICADOS]);
+        if (causaFallo != null) {
+            ConsumerRecord<String, String> fallido = registros.get(primerFallido);
+            log.error("[COMANDOS][FALLIDO] Partición {} offset {}: {}", fallido.partition(), fallido.offset(),
+                causaFallo.getMessage());
+            throw new BatchListenerFailedException("Comando de movimiento fallido", causaFallo, primerFallido);
+        }
+        ack.acknowledge();
+    }
+
+    /**
+     * Aplica el grupo en una transacción y suma a totales lo confirmado. Si falla por algo no transitorio, aplica
+     * los comandos de uno en uno, en orden, hasta encontrar el que falla (ComandoFallidoException).
+     */
+    private void aplicarGrupo(GrupoComandos grupo, List<Comando> comandos, int[] totales) {
+        try {
+            // Validación previa (cache) para no abrir la transacción con una cuenta inválida
+            cuentaMetadatosService.validarOperable(grupo.numeroCuenta());
+        } catch (EntityNotFoundException | CuentaInactivaException e) {
+            log.warn("[COMANDOS][DESCARTADO] Cuenta {} comandos {}: {}", grupo.numeroCuenta(), comandos.size(), e.getMessage());
+            totales[DESCARTADOS] += comandos.size();
+            return;
+        }
+        try {
+            sumar(totales, transactionTemplate.execute(status -> aplicarPendientes(grupo, comandos)));
+            return;
+        } catch (RuntimeException e) {
+            if (esTransitoria(e)) {
+                throw e;
+            }
+            if (comandos.size() == 1) {
+                throw new ComandoFallidoException(comandos.get(0).indice(), e);
+            }
+            log.warn("[COMANDOS][AISLAR] Cuenta {} grupo de {} revertido: {}", grupo.numeroCuenta(), comandos.size(),
+                e.getMessage());
+        }
+        for (Comando comando : comandos) {
+            try {
+                sumar(totales, transactionTemplate.execute(status -> aplicarPendientes(grupo, List.of(comando))));
+            } catch (RuntimeException e) {
+                if (esTransitoria(e)) {
+                    throw e;
+                }
+                throw new ComandoFallidoException(comando.indice(), e);
+            }
+        }
+    }
+
+    private int[] aplicarPendientes(GrupoComandos grupo, List<Comando> comandos) {
+        int[] totales = new int[4];
+        comandoConsumidoRepository.insertarSiNoExiste(grupo.topico(), grupo.particion(), grupo.numeroCuenta());
+        long ultimoOffset = comandoConsumidoRepository.findUltimoOffsetParaActualizar(
+            grupo.topico(), grupo.particion(), grupo.numeroCuenta());
+        List<Comando> pendientes = comandos.stream().filter(comando -> comando.offset() > ultimoOffset).toList();
+        totales[DUPLICADOS] = comandos.size() - pendientes.size();
+        if (totales[DUPLICADOS] > 0) {
+            log.info("[COMANDOS][DUPLICADO] Cuenta {} partición {} comandos ya aplicados {} (último offset {})",
+                grupo.numeroCuenta(), grupo.particion(), totales[DUPLICADOS], ultimoOffset);
+        }
+        if (pendientes.isEmpty()) {
+            return totales;
+        }
+
+        // Entidades nuevas en cada intento: un intento revertido pudo dejar ids o fechas asignados
+        List<Movimiento> movimientos = new ArrayList<>(pendientes.size());
+        pendientes.forEach(comando -> movimientos.add(dtoConverter.toEntity(comando.comando())));
+        for (ResultadoMovimiento resultado : movimientoService.realizarMovimientosCuenta(grupo.numeroCuenta(), movimientos)) {
+            if (resultado.isExitoso()) {
+                totales[ACEPTADOS]++;
+            } else {
+                totales[RECHAZADOS]++;
+                log.info("[COMANDOS][RECHAZADO] Cuenta {} {}: {}", grupo.numeroCuenta(), resultado.getCodigo(), resultado.getMensaje());
+            }
+        }
+        comandoConsumidoRepository.actualizarUltimoOffset(grupo.topico(), grupo.particion(), grupo.numeroCuenta(),
+            pendientes.get(pendientes.size() - 1).offset());
+        return totales;
+    }
+
+    private void registrarMetricas(Timer.Sample muestra, int[] totales) {
+        // Solo lo confirmado en BD: un grupo revertido y reentregado no se cuenta dos veces
+        aceptados.increment(totales[ACEPTADOS]);
+        rechazados.increment(totales[RECHAZADOS]);
+        descartados.increment(totales[DESCARTADOS]);
+        duplicados.increment(totales[DUPLICADOS]);
+        muestra.stop(tiempoLote);
+    }
+
+    private static void sumar(int[] totales, int[] grupo) {
+        for (int i = 0; i < totales.length; i++) {
+            totales[i] += grupo[i];
+        }
+    }
+
+    // Conexión perdida, pool agotado, timeout de bloqueo o deadlock: se resuelven solos, no son del comando
+    private static boolean esTransitoria(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof TransientDataAccessException || causa instanceof RecoverableDataAccessException
+                || causa instanceof DataAccessResourceFailureException || causa instanceof CannotCreateTransactionException
+                || causa instanceof SQLTransientException || causa instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private MovimientoDTO leerComando(ConsumerRecord<String, String> registro) {
+        try {
+            MovimientoDTO comando = objectMapper.readValue(registro.value(), MovimientoDTO.class);
+            if (comando.getNumeroCuenta() == null && registro.key() != null) {
+                comando.setNumeroCuenta(Integer.valueOf(registro.key()));
+            }
+            if (comando.getNumeroCuenta() == null || !validator.validate(comando).isEmpty()) {
+                log.warn("[COMANDOS][INVALIDO] Partición {} offset {}", registro.partition(), registro.offset());
+                return null;
+            }
+            return comando;
+        } catch (Exception e) {
+            log.warn("[COMANDOS][INVALIDO] Partición {} offset {}: {}", registro.partition(), registro.offset(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("cuentas.comandos.procesados")
+            .description("Comandos de movimiento procesados por resultado")
+            .tag("resultado", resultado)
+            .register(meterRegistry);
+    }
+
+    private record GrupoComandos(String topico, int particion, Integer numeroCuenta) {
+        private static final Comparator<GrupoComandos> ORDEN = Comparator.comparing(GrupoComandos::numeroCuenta)
+            .thenComparing(GrupoComandos::topico)
+            .thenComparingInt(GrupoComandos::particion);
+    }
+
+    private record Comando(int indice, long offset, MovimientoDTO comando) {
+    }
+
+    private static final class ComandoFallidoException extends RuntimeException {
+        private final int indice;
+
+        private ComandoFallidoException(int indice, RuntimeException causa) {
+            super(causa.getMessage(), causa);
+            this.indice = indice;
+        }
+    }
+}
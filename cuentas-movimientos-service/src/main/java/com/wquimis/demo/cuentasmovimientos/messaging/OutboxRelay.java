@@ -0,0 +1,121 @@
+package com.wquimis.demo.cuentasmovimientos.messaging;
+
+import com.wquimis.demo.cuentasmovimientos.entities.OutboxEvento;
+import com.wquimis.demo.cuentasmovimientos.repository.OutboxEventoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publica en Kafka los eventos del outbox por lotes. Cada ciclo bloquea un lote (SKIP LOCKED), lo envía
+ * con la clave numerocuenta (mismo orden por cuenta dentro de la partición), espera la confirmación del
+ * broker y elimina las filas en la misma transacción. Si el envío falla la transacción se revierte y el
+ * lote se reintenta en el siguiente ciclo (entrega al menos una vez; el consumidor deduplica por idEvento).
+ * El camino de escritura de movimientos nunca espera al broker: solo inserta en outbox_eventos.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "cuentas.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    public static final String CABECERA_ID_EVENTO = "idEvento";
+    public static final String CABECERA_TIPO_EVENTO = "tipoEvento";
+
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String topic;
+    private final int tamanoLote;
+    private final long timeoutEnvioMs;
+    private final Timer tiempoLote;
+
+    public OutboxRelay(OutboxEventoRepository outboxEventoRepository, KafkaTemplate<String, String> kafkaTemplate,
+                       PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                       @Value("${cuentas.outbox.topic}") String topic,
+                       @Value("${cuentas.outbox.relay.tamano-lote:500}") int tamanoLote,
+                       @Value("${cuentas.outbox.relay.timeout-envio-ms:30000}") long timeoutEnvioMs) {
+        this.outboxEventoRepository = outboxEventoRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.topic = topic;
+        this.tamanoLote = tamanoLote;
+        this.timeoutEnvioMs = timeoutEnvioMs;
+        this.tiempoLote = Timer.builder("cuentas.outbox.relay.lote")
+            .description("Tiempo de publicación de un lote del outbox")
+            .register(meterRegistry);
+        Gauge.builder("cuentas.outbox.pendientes", outboxEventoRepository, OutboxEventoRepository::countPendientes)
+            .description("Eventos del outbox pendientes de publicar")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${cuentas.outbox.relay.intervalo-ms:200}")
+    public void publicarPendientes() {
+        int publicados;
+        do {
+            // Mientras los lotes salgan completos se drena sin esperar al siguiente ciclo
+            publicados = publicarLote();
+        } while (publicados == tamanoLote);
+    }
+
+    private int publicarLote() {
+        try {
+            Integer publicados = transactionTemplate.execute(status -> {
+                List<OutboxEvento> lote = outboxEventoRepository.findLotePendiente(tamanoLote);
+                if (lote.isEmpty()) {
+                    return 0;
+                }
+                Timer.Sample muestra = Timer.start();
+                List<CompletableFuture<?>> envios = new ArrayList<>(lote.size());
+                List<Long> ids = new ArrayList<>(lote.size());
+                for (OutboxEvento evento : lote) {
+                    envios.add(kafkaTemplate.send(crearRegistro(evento)));
+                    ids.add(evento.getIdevento());
+                }
+                esperarConfirmacion(envios);
+                outboxEventoRepository.deleteByIds(ids);
+                muestra.stop(tiempoLote);
+                log.debug("[OUTBOX][RELAY] Eventos publicados {}", lote.size());
+                return lote.size();
+            });
+            return publicados != null ? publicados : 0;
+        } catch (Exception e) {
+            log.warn("[OUTBOX][RELAY] Falló la publicación del lote, se reintentará: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private ProducerRecord<String, String> crearRegistro(OutboxEvento evento) {
+        ProducerRecord<String, String> registro = new ProducerRecord<>(
+            topic, evento.getNumerocuenta().toString(), evento.getPayload());
+        registro.headers().add(CABECERA_ID_EVENTO, evento.getIdevento().toString().getBytes(StandardCharsets.UTF_8));
+        registro.headers().add(CABECERA_TIPO_EVENTO, evento.getTipoevento().name().getBytes(StandardCharsets.UTF_8));
+        return registro;
+    }
+
+    private void esperarConfirmacion(List<CompletableFuture<?>> envios) {
+        try {
+            CompletableFuture.allOf(envios.toArray(new CompletableFuture[0]))
+                .get(timeoutEnvioMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Publicación del outbox interrumpida", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("El broker no confirmó el lote del outbox", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.entities.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+
+    @Query("SELECT c FROM ClaveIdempotencia c WHERE c.clave = :clave AND c.estadohttp IS NOT NULL " +
+           "AND c.fechaexpiracion > :ahora")
+    Optional<ClaveIdempotencia> findVigente(@Param("clave") String clave, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Reserva la clave. Si otra transacción ya la insertó y no ha confirmado, MySQL espera su bloqueo
+     * y luego falla por llave duplicada; así dos reintentos simultáneos no ejecutan la operación dos veces.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO claves_idempotencia (clave, operacion, huella, fechacreacion, fechaexpiracion) " +
+                   "VALUES (:clave, :operacion, :huella, :ahora, :expiracion)", nativeQuery = true)
+    int reservar(@Param("clave") String clave,
+                 @Param("operacion") String operacion,
+                 @Param("huella") String huella,
+                 @Param("ahora") LocalDateTime ahora,
+                 @Param("expiracion") LocalDateTime expiracion);
+
+    @Modifying
+    @Query("UPDATE ClaveIdempotencia c SET c.estadohttp = :estadoHttp, c.respuesta = :respuesta WHERE c.clave = :clave")
+    int completar(@Param("clave") String clave, @Param("estadoHttp") Integer estadoHttp, @Param("respuesta") String respuesta);
+
+    @Modifying
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.clave = :clave AND c.fechaexpiracion <= :ahora")
+    int deleteExpirada(@Param("clave") String clave, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.fechaexpiracion <= :ahora")
+    int deleteExpiradas(@Param("ahora") LocalDateTime ahora);
+}
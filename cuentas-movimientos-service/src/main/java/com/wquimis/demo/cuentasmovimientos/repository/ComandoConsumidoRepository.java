@@ -0,0 +1,39 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.entities.ComandoConsumido;
+import com.wquimis.demo.cuentasmovimientos.entities.ComandoConsumidoId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ComandoConsumidoRepository extends JpaRepository<ComandoConsumido, ComandoConsumidoId> {
+
+    /**
+     * Crea la fila con offset -1 si no existe. Va antes de la lectura con bloqueo para que dos consumidores
+     * de la misma partición (rebalanceo) no tomen el bloqueo de hueco de una fila ausente.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO comandos_consumidos (topico, particion, numerocuenta, ultimooffset, fechaactualizacion) " +
+                   "VALUES (:topico, :particion, :numeroCuenta, -1, NOW(6))", nativeQuery = true)
+    int insertarSiNoExiste(@Param("topico") String topico, @Param("particion") Integer particion,
+                           @Param("numeroCuenta") Integer numeroCuenta);
+
+    /**
+     * Último offset aplicado, bloqueando la fila (SELECT ... FOR UPDATE) hasta el commit de los movimientos.
+     */
+    @Query(value = "SELECT ultimooffset FROM comandos_consumidos " +
+                   "WHERE topico = :topico AND particion = :particion AND numerocuenta = :numeroCuenta FOR UPDATE",
+           nativeQuery = true)
+    Long findUltimoOffsetParaActualizar(@Param("topico") String topico, @Param("particion") Integer particion,
+                                        @Param("numeroCuenta") Integer numeroCuenta);
+
+    @Modifying
+    @Query(value = "UPDATE comandos_consumidos SET ultimooffset = :offset, fechaactualizacion = NOW(6) " +
+                   "WHERE topico = :topico AND particion = :particion AND numerocuenta = :numeroCuenta",
+           nativeQuery = true)
+    int actualizarUltimoOffset(@Param("topico") String topico, @Param("particion") Integer particion,
+                               @Param("numeroCuenta") Integer numeroCuenta, @Param("offset") Long offset);
+}
@@ -0,0 +1,11 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Conciliacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface ConciliacionRepository extends JpaRepository<Conciliacion, Long> {
+    List<Conciliacion> findTop20ByOrderByIdconciliacionDesc();
+}
@@ -0,0 +1,73 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.dto.FiltroCuentasDTO;
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.FragmentoSaldo;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Traduce los filtros del listado de cuentas a una sola consulta dinámica.
+ * Los valores inválidos (tipo desconocido, rangos invertidos) lanzan IllegalArgumentException.
+ */
+public final class CuentaEspecificaciones {
+
+    private CuentaEspecificaciones() {
+    }
+
+    public static Specification<Cuenta> porFiltro(FiltroCuentasDTO filtro) {
+        Cuenta.TipoCuenta tipoCuenta = filtro.getTipoCuenta() == null ? null
+            : Cuenta.TipoCuenta.valueOf(filtro.getTipoCuenta().toUpperCase());
+        EspecificacionesUtil.validarRango("fechaDesde", filtro.getFechaDesde(), "fechaHasta", filtro.getFechaHasta());
+        EspecificacionesUtil.validarRango("saldoMinimo", filtro.getSaldoMinimo(), "saldoMaximo", filtro.getSaldoMaximo());
+
+        return (root, query, cb) -> {
+            List<Predicate> predicados = new ArrayList<>();
+            if (filtro.getNumeroCuenta() != null) {
+                predicados.add(cb.equal(root.get("numerocuenta"), filtro.getNumeroCuenta()));
+            }
+            if (filtro.getIdCliente() != null) {
+                predicados.add(cb.equal(root.get("idcliente"), filtro.getIdCliente()));
+            }
+            if (tipoCuenta != null) {
+                predicados.add(cb.equal(root.get("tipocuenta"), tipoCuenta));
+            }
+            if (filtro.getEstado() != null) {
+                predicados.add(cb.equal(root.get("estado"), filtro.getEstado()));
+            }
+            if (filtro.getFechaDesde() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("fechacreacion"), filtro.getFechaDesde().atStartOfDay()));
+            }
+            if (filtro.getFechaHasta() != null) {
+                // fechacreacion es DATETIME: el día final se incluye completo
+                predicados.add(cb.lessThan(root.get("fechacreacion"), filtro.getFechaHasta().plusDays(1).atStartOfDay()));
+            }
+            if (filtro.getSaldoMinimo() != null || filtro.getSaldoMaximo() != null) {
+                // Saldo visible: fila de la cuenta más sus fragmentos; la suma solo se evalúa en cuentas fragmentadas
+                Subquery<BigDecimal> fragmentos = query.subquery(BigDecimal.class);
+                Root<FragmentoSaldo> fragmento = fragmentos.from(FragmentoSaldo.class);
+                fragmentos.select(cb.coalesce(cb.sum(fragmento.get("saldo")), BigDecimal.ZERO))
+                    .where(cb.equal(fragmento.get("numerocuenta"), root.get("numerocuenta")));
+                Expression<BigDecimal> saldoFragmentos = cb.<BigDecimal>selectCase()
+                    .when(cb.greaterThan(root.get("fragmentossaldo"), 0), fragmentos)
+                    .otherwise(BigDecimal.ZERO);
+                Expression<BigDecimal> saldo = cb.sum(
+                    cb.coalesce(root.get("saldodisponible"), root.get("saldoinicial")), saldoFragmentos);
+                if (filtro.getSaldoMinimo() != null) {
+                    predicados.add(cb.greaterThanOrEqualTo(saldo, filtro.getSaldoMinimo()));
+                }
+                if (filtro.getSaldoMaximo() != null) {
+                    predicados.add(cb.lessThanOrEqualTo(saldo, filtro.getSaldoMaximo()));
+                }
+            }
+            return cb.and(predicados.toArray(Predicate[]::new));
+        };
+    }
+}
@@ -1,15 +1,78 @@
 package com.wquimis.demo.cuentasmovimientos.repository;
 
 import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatos;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CuentaRepository extends JpaRepository<Cuenta, Integer> {
-    List<Cuenta> findByTipocuenta(Cuenta.TipoCuenta tipoCuenta);
-    List<Cuenta> findByEstado(Boolean estado);
+public interface CuentaRepository extends JpaRepository<Cuenta, Integer>, JpaSpecificationExecutor<Cuenta> {
     List<Cuenta> findByIdcliente(Long idCliente);
     Optional<Cuenta> findTopByOrderByNumerocuentaDesc();
+
+    @Query("SELECT c.numerocuenta FROM Cuenta c ORDER BY c.numerocuenta")
+    List<Integer> findAllNumerosCuenta();
+
+    @Query("SELECT MAX(c.numerocuenta) FROM Cuenta c WHERE c.numerocuenta BETWEEN :desde AND :hasta")
+    Integer findMaxNumeroCuentaEntre(@Param("desde") Integer desde, @Param("hasta") Integer hasta);
+
+    // ===== Escritura atómica de saldo (una sola sentencia UPDATE, sin lectura previa) =====
+    // No se limpia el contexto de persistencia: los saldos se leen siempre vía consulta escalar.
+
+    /**
+     * Debita el monto solo si la cuenta está activa, no está fragmentada y el saldo alcanza.
+     * Retorna 1 si se aplicó, 0 si la cuenta no existe, está inactiva, fragmentada o no tiene saldo suficiente.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cuenta c SET c.saldodisponible = COALESCE(c.saldodisponible, c.saldoinicial) - :monto " +
+           "WHERE c.numerocuenta = :numeroCuenta AND c.estado = true AND c.fragmentossaldo = 0 " +
+           "AND COALESCE(c.saldodisponible, c.saldoinicial) >= :monto")
+    int debitarSiSaldoSuficiente(@Param("numeroCuenta") Integer numeroCuenta, @Param("monto") BigDecimal monto);
+
+    /**
+     * Acredita el monto solo si la cuenta está activa y no está fragmentada.
+     * Retorna 1 si se aplicó, 0 si la cuenta no existe, está inactiva o fragmentada.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cuenta c SET c.saldodisponible = COALESCE(c.saldodisponible, c.saldoinicial) + :monto " +
+           "WHERE c.numerocuenta = :numeroCuenta AND c.estado = true AND c.fragmentossaldo = 0")
+    int acreditar(@Param("numeroCuenta") Integer numeroCuenta, @Param("monto") BigDecimal monto);
+
+    /**
+     * Saldo de la fila de la cuenta, sin fragmentos (los UPDATE atómicos solo aplican a cuentas no fragmentadas).
+     * Dentro de la misma transacción que el UPDATE atómico, la fila ya está bloqueada y el valor leído es el
+     * resultante de la escritura.
+     */
+    @Query("SELECT COALESCE(c.saldodisponible, c.saldoinicial) FROM Cuenta c WHERE c.numerocuenta = :numeroCuenta")
+    Optional<BigDecimal> findSaldoDisponible(@Param("numeroCuenta") Integer numeroCuenta);
+
+    /**
+     * Carga la cuenta con bloqueo de escritura (SELECT ... FOR UPDATE) para aplicar
+     * un grupo de movimientos con una sola actualización de saldo.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cuenta c WHERE c.numerocuenta = :numeroCuenta")
+    Optional<Cuenta> findByIdParaActualizar(@Param("numeroCuenta") Integer numeroCuenta);
+
+    /**
+     * Carga la cuenta con bloqueo compartido (SELECT ... FOR SHARE). Los depósitos en fragmentos lo toman para
+     * que un retiro, la consolidación diaria o un cambio de fragmentación (bloqueo exclusivo) los esperen,
+     * sin serializarse entre sí.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT c FROM Cuenta c WHERE c.numerocuenta = :numeroCuenta")
+    Optional<Cuenta> findByIdCompartido(@Param("numeroCuenta") Integer numeroCuenta);
+
+    @Query("SELECT new com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatos(" +
+           "c.numerocuenta, c.estado, c.tipocuenta, c.idcliente, c.fragmentossaldo) FROM Cuenta c WHERE c.numerocuenta = :numeroCuenta")
+    Optional<CuentaMetadatos> findMetadatos(@Param("numeroCuenta") Integer numeroCuenta);
 }
@@ -0,0 +1,13 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.entities.DiscrepanciaConciliacion;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DiscrepanciaConciliacionRepository extends JpaRepository<DiscrepanciaConciliacion, Long> {
+    Page<DiscrepanciaConciliacion> findByIdconciliacionOrderByNumerocuentaAscIddiscrepanciaAsc(Long idconciliacion,
+                                                                                              Pageable pageable);
+}
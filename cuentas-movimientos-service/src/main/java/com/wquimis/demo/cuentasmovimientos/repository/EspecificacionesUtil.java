@@ -0,0 +1,20 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import jakarta.persistence.criteria.CriteriaQuery;
+
+final class EspecificacionesUtil {
+
+    private EspecificacionesUtil() {
+    }
+
+    static <T extends Comparable<? super T>> void validarRango(String nombreDesde, T desde, String nombreHasta, T hasta) {
+        if (desde != null && hasta != null && desde.compareTo(hasta) > 0) {
+            throw new IllegalArgumentException(nombreDesde + " no puede ser mayor que " + nombreHasta);
+        }
+    }
+
+    /** Spring Data reutiliza la especificación para el conteo de la página: ahí no se admite JOIN FETCH. */
+    static boolean esConsultaDeConteo(CriteriaQuery<?> query) {
+        return query.getResultType() == Long.class || query.getResultType() == long.class;
+    }
+}
@@ -0,0 +1,74 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.entities.FragmentoSaldo;
+import com.wquimis.demo.cuentasmovimientos.entities.FragmentoSaldoId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FragmentoSaldoRepository extends JpaRepository<FragmentoSaldo, FragmentoSaldoId> {
+
+    /**
+     * Acredita el monto en un fragmento; solo bloquea esa fila.
+     * Retorna 0 si el fragmento no existe (la cuenta dejó de estar fragmentada).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE FragmentoSaldo f SET f.saldo = f.saldo + :monto " +
+           "WHERE f.numerocuenta = :numeroCuenta AND f.fragmento = :fragmento")
+    int acreditar(@Param("numeroCuenta") Integer numeroCuenta, @Param("fragmento") Integer fragmento,
+                  @Param("monto") BigDecimal monto);
+
+    /**
+     * Debita el monto de un fragmento. Se invoca con los fragmentos ya bloqueados por {@link #findSaldosParaActualizar}.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE FragmentoSaldo f SET f.saldo = f.saldo - :monto " +
+           "WHERE f.numerocuenta = :numeroCuenta AND f.fragmento = :fragmento")
+    int debitar(@Param("numeroCuenta") Integer numeroCuenta, @Param("fragmento") Integer fragmento,
+                @Param("monto") BigDecimal monto);
+
+    /**
+     * Saldos de los fragmentos bloqueados en orden de fragmento (SELECT ... FOR UPDATE). Proyección escalar:
+     * los fragmentos se modifican con UPDATE y una entidad gestionada quedaría con el saldo anterior.
+     */
+    @Query(value = "SELECT fragmento, saldo FROM cuentas_fragmentos_saldo WHERE numerocuenta = :numeroCuenta " +
+                   "ORDER BY fragmento FOR UPDATE", nativeQuery = true)
+    List<SaldoFragmento> findSaldosParaActualizar(@Param("numeroCuenta") Integer numeroCuenta);
+
+    /**
+     * Bloquea todos los fragmentos de la cuenta en orden de fragmento (SELECT ... FOR UPDATE).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM FragmentoSaldo f WHERE f.numerocuenta = :numeroCuenta ORDER BY f.fragmento")
+    List<FragmentoSaldo> findParaActualizar(@Param("numeroCuenta") Integer numeroCuenta);
+
+    // Suma de los fragmentos de la cuenta; solo se consulta para cuentas fragmentadas
+    @Query("SELECT COALESCE(SUM(f.saldo), 0) FROM FragmentoSaldo f WHERE f.numerocuenta = :numeroCuenta")
+    BigDecimal sumSaldo(@Param("numeroCuenta") Integer numeroCuenta);
+
+    @Query("SELECT f.numerocuenta AS numeroCuenta, SUM(f.saldo) AS saldo FROM FragmentoSaldo f " +
+           "WHERE f.numerocuenta IN :numerosCuenta GROUP BY f.numerocuenta")
+    List<SaldoCuenta> sumSaldoPorCuenta(@Param("numerosCuenta") Collection<Integer> numerosCuenta);
+
+    @Modifying
+    @Query("DELETE FROM FragmentoSaldo f WHERE f.numerocuenta = :numeroCuenta")
+    int deleteByNumeroCuenta(@Param("numeroCuenta") Integer numeroCuenta);
+
+    interface SaldoFragmento {
+        Integer getFragmento();
+        BigDecimal getSaldo();
+    }
+
+    interface SaldoCuenta {
+        Integer getNumeroCuenta();
+        BigDecimal getSaldo();
+    }
+}
@@ -0,0 +1,63 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.dto.FiltroMovimientosDTO;
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Traduce los filtros del listado de movimientos a una sola consulta dinámica.
+ * La cuenta se trae con JOIN FETCH en la consulta de la página (Movimiento.cuenta es EAGER y, sin el fetch,
+ * se cargaría con una consulta por cuenta distinta); en la consulta de conteo se usa un JOIN simple.
+ */
+public final class MovimientoEspecificaciones {
+
+    private MovimientoEspecificaciones() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Specification<Movimiento> porFiltro(FiltroMovimientosDTO filtro) {
+        Movimiento.TipoMovimiento tipoMovimiento = filtro.getTipoMovimiento() == null ? null
+            : Movimiento.TipoMovimiento.valueOf(filtro.getTipoMovimiento().toUpperCase());
+        EspecificacionesUtil.validarRango("fechaInicio", filtro.getFechaInicio(), "fechaFin", filtro.getFechaFin());
+        EspecificacionesUtil.validarRango("montoMinimo", filtro.getMontoMinimo(), "montoMaximo", filtro.getMontoMaximo());
+
+        return (root, query, cb) -> {
+            Join<Movimiento, Cuenta> cuenta = EspecificacionesUtil.esConsultaDeConteo(query)
+                ? root.join("cuenta")
+                : (Join<Movimiento, Cuenta>) root.<Movimiento, Cuenta>fetch("cuenta");
+
+            List<Predicate> predicados = new ArrayList<>();
+            if (filtro.getNumeroCuenta() != null) {
+                predicados.add(cb.equal(cuenta.get("numerocuenta"), filtro.getNumeroCuenta()));
+            }
+            if (filtro.getIdCliente() != null) {
+                predicados.add(cb.equal(cuenta.get("idcliente"), filtro.getIdCliente()));
+            }
+            if (tipoMovimiento != null) {
+                predicados.add(cb.equal(root.get("tipomovimiento"), tipoMovimiento));
+            }
+            if (filtro.getEstado() != null) {
+                predicados.add(cb.equal(root.get("estado"), filtro.getEstado()));
+            }
+            if (filtro.getFechaInicio() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("fechamovimiento"), filtro.getFechaInicio()));
+            }
+            if (filtro.getFechaFin() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("fechamovimiento"), filtro.getFechaFin()));
+            }
+            if (filtro.getMontoMinimo() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("montomovimiento"), filtro.getMontoMinimo()));
+            }
+            if (filtro.getMontoMaximo() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("montomovimiento"), filtro.getMontoMaximo()));
+            }
+            return cb.and(predicados.toArray(Predicate[]::new));
+        };
+    }
+}
@@ -1,16 +1,27 @@
 package com.wquimis.demo.cuentasmovimientos.repository;
 
 import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface MovimientoRepository extends JpaRepository<Movimiento, Long> {
-    
+public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, JpaSpecificationExecutor<Movimiento> {
+
     @Query("SELECT m FROM Movimiento m WHERE m.cuenta.numerocuenta = :numeroCuenta ORDER BY m.fechamovimiento DESC, m.horamovimiento DESC")
     List<Movimiento> findByNumeroCuentaOrderByFechaDesc(@Param("numeroCuenta") Integer numeroCuenta);
     
@@ -27,4 +38,174 @@ public interface MovimientoRepository extends JpaRepository<Movimiento, Long> {
     List<Movimiento> findByCuentaNumerocuentaOrderByFechamovimientoDescHoramovimientoDesc(Integer numeroCuenta);
     List<Movimiento> findByCuentaNumerocuentaAndFechamovimientoBetweenOrderByFechamovimientoDescHoramovimientoDesc(
         Integer numeroCuenta, LocalDate fechaInicio, LocalDate fechaFin);
+
+    // Ids del rango; descarta los movimientos archivados que siguen en la BD (la fila de la BD es la vigente)
+    @Query("SELECT m.idmovimiento FROM Movimiento m WHERE m.cuenta.numerocuenta = :numeroCuenta " +
+           "AND m.fechamovimiento BETWEEN :fechaInicio AND :fechaFin")
+    List<Long> findIdsByNumeroCuentaAndFechaBetween(
+        @Param("numeroCuenta") Integer numeroCuenta,
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin);
+
+    // ===== Paginación por llave (keyset) sobre (fecha, hora, id) descendente =====
+    // El tamaño de página se aplica con Pageable sin consulta de conteo (retorno List).
+
+    @Query("SELECT m FROM Movimiento m WHERE m.cuenta.numerocuenta = :numeroCuenta " +
+           "ORDER BY m.fechamovimiento DESC, m.horamovimiento DESC, m.idmovimiento DESC")
+    List<Movimiento> findPrimeraPagina(@Param("numeroCuenta") Integer numeroCuenta, Pageable pageable);
+
+    @Query("SELECT m FROM Movimiento m WHERE m.cuenta.numerocuenta = :numeroCuenta " +
+           "AND (m.fechamovimiento < :fecha OR (m.fechamovimiento = :fecha AND " +
+           "(m.horamovimiento < :hora OR (m.horamovimiento = :hora AND m.idmovimiento < :id)))) " +
+           "ORDER BY m.fechamovimiento DESC, m.horamovimiento DESC, m.idmovimiento DESC")
+    List<Movimiento> findPaginaDespuesDe(
+        @Param("numeroCuenta") Integer numeroCuenta,
+        @Param("fecha") LocalDate fecha,
+        @Param("hora") LocalTime hora,
+        @Param("id") Long id,
+        Pageable pageable);
+
+    @Query("SELECT m FROM Movimiento m WHERE m.cuenta.numerocuenta = :numeroCuenta " +
+           "AND m.fechamovimiento BETWEEN :fechaInicio AND :fechaFin " +
+           "ORDER BY m.fechamovimiento DESC, m.horamovimiento DESC, m.idmovimiento DESC")
+    List<Movimiento> findPrimeraPaginaEntreFechas(
+        @Param("numeroCuenta") Integer numeroCuenta,
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin,
+        Pageable pageable);
+
+    @Query("SELECT m FROM Movimiento m WHERE m.cuenta.numerocuenta = :numeroCuenta " +
+           "AND m.fechamovimiento BETWEEN :fechaInicio AND :fechaFin " +
+           "AND (m.fechamovimiento < :fecha OR (m.fechamovimiento = :fecha AND " +
+           "(m.horamovimiento < :hora OR (m.horamovimiento = :hora AND m.idmovimiento < :id)))) " +
+           "ORDER BY m.fechamovimiento DESC, m.horamovimiento DESC, m.idmovimiento DESC")
+    List<Movimiento> findPaginaEntreFechasDespuesDe(
+        @Param("numeroCuenta") Integer numeroCuenta,
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin,
+        @Param("fecha") LocalDate fecha,
+        @Param("hora") LocalTime hora,
+        @Param("id") Long id,
+        Pageable pageable);
+
+    /**
+     * Recorre los movimientos del rango sin materializarlos en una lista. Debe consumirse dentro de
+     * una transacción y cerrarse al terminar; el fetch size hace que el driver traiga filas por bloques
+     * (requiere useCursorFetch=true en la URL de MySQL).
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT m FROM Movimiento m JOIN FETCH m.cuenta c WHERE c.numerocuenta = :numeroCuenta " +
+           "AND m.fechamovimiento BETWEEN :fechaInicio AND :fechaFin " +
+           "ORDER BY m.fechamovimiento DESC, m.horamovimiento DESC, m.idmovimiento DESC")
+    Stream<Movimiento> streamByNumeroCuentaAndFechaBetween(
+        @Param("numeroCuenta") Integer numeroCuenta,
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin);
+
+    /**
+     * Reporte consolidado de cliente: todas sus cuentas con sus movimientos del rango en una sola consulta,
+     * ordenadas por (cuenta, fecha, hora, id). Cada fila es [Cuenta, Movimiento]; las cuentas sin movimientos
+     * en el rango aparecen una vez con el movimiento en null (LEFT JOIN).
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c, m FROM Cuenta c LEFT JOIN Movimiento m ON m.cuenta = c " +
+           "AND m.fechamovimiento BETWEEN :fechaInicio AND :fechaFin " +
+           "WHERE c.idcliente = :idCliente " +
+           "ORDER BY c.numerocuenta, m.fechamovimiento, m.horamovimiento, m.idmovimiento")
+    Stream<Object[]> streamReporteCliente(
+        @Param("idCliente") Long idCliente,
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin);
+
+    /**
+     * Resumen del rango en una sola consulta: totales por tipo con SUM/CASE y saldos de apertura
+     * y cierre tomados del primer y último movimiento del rango mediante ROW_NUMBER().
+     * La apertura es el saldo del primer movimiento menos su efecto (el signo se toma del tipo).
+     * Sin movimientos en el rango los saldos vienen en null y la cantidad en 0.
+     */
+    @Query(value = "SELECT " +
+                   "COALESCE(SUM(CASE WHEN t.tipomovimiento = 'DEPOSITO' THEN t.monto ELSE 0 END), 0) AS totalDepositos, " +
+                   "COALESCE(SUM(CASE WHEN t.tipomovimiento = 'RETIRO' THEN t.monto ELSE 0 END), 0) AS totalRetiros, " +
+                   "COUNT(*) AS cantidadMovimientos, " +
+                   "MAX(CASE WHEN t.orden_asc = 1 THEN t.saldodisponible " +
+                   "    - CASE WHEN t.tipomovimiento = 'DEPOSITO' THEN t.monto ELSE -t.monto END END) AS saldoApertura, " +
+                   "MAX(CASE WHEN t.orden_desc = 1 THEN t.saldodisponible END) AS saldoCierre " +
+                   "FROM (SELECT m.tipomovimiento, ABS(m.montomovimiento) AS monto, m.saldodisponible, " +
+                   "      ROW_NUMBER() OVER (ORDER BY m.fechamovimiento, m.horamovimiento, m.idmovimiento) AS orden_asc, " +
+                   "      ROW_NUMBER() OVER (ORDER BY m.fechamovimiento DESC, m.horamovimiento DESC, m.idmovimiento DESC) AS orden_desc " +
+                   "      FROM movimientos m WHERE m.numerocuenta = :numeroCuenta " +
+                   "      AND m.fechamovimiento BETWEEN :fechaInicio AND :fechaFin) t",
+           nativeQuery = true)
+    ResumenMovimientos findResumenByNumeroCuentaAndFechaBetween(
+        @Param("numeroCuenta") Integer numeroCuenta,
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin);
+
+    // ===== Reversos =====
+
+    @Query("SELECT m.idmovimiento AS idMovimiento, m.cuenta.numerocuenta AS numeroCuenta " +
+           "FROM Movimiento m WHERE m.idmovimiento IN :ids")
+    List<CuentaMovimiento> findCuentasByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Movimientos vigentes de la cuenta en la ventana [desde, hasta], excluyendo los reversos (se reconocen
+     * por la marca de su descripción). El BETWEEN sobre la fecha acota el índice; las horas se comparan
+     * solo en los días extremos.
+     */
+    @Query("SELECT m.idmovimiento FROM Movimiento m WHERE m.cuenta.numerocuenta = :numeroCuenta AND m.estado = true " +
+           "AND m.fechamovimiento BETWEEN :fechaDesde AND :fechaHasta " +
+           "AND (m.fechamovimiento > :fechaDesde OR m.horamovimiento >= :horaDesde) " +
+           "AND (m.fechamovimiento < :fechaHasta OR m.horamovimiento <= :horaHasta) " +
+           "AND (m.movimientodescripcion IS NULL OR m.movimientodescripcion NOT LIKE :marcaReverso) " +
+           "ORDER BY m.fechamovimiento, m.horamovimiento, m.idmovimiento")
+    List<Long> findIdsReversibles(
+        @Param("numeroCuenta") Integer numeroCuenta,
+        @Param("fechaDesde") LocalDate fechaDesde,
+        @Param("horaDesde") LocalTime horaDesde,
+        @Param("fechaHasta") LocalDate fechaHasta,
+        @Param("horaHasta") LocalTime horaHasta,
+        @Param("marcaReverso") String marcaReverso,
+        Pageable pageable);
+
+    /**
+     * Bloquea los movimientos a revertir. Se llama con la fila de la cuenta ya bloqueada: el orden
+     * cuenta → movimientos es el mismo de la anulación individual.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Movimiento m WHERE m.idmovimiento IN :ids ORDER BY m.idmovimiento")
+    List<Movimiento> findParaReversar(@Param("ids") Collection<Long> ids);
+
+    // Relectura con bloqueo del estado del movimiento (no pasa por el contexto de persistencia)
+    @Query(value = "SELECT estado FROM movimientos WHERE idmovimiento = :id FOR UPDATE", nativeQuery = true)
+    Boolean findEstadoParaActualizar(@Param("id") Long id);
+
+    /**
+     * Depósitos con saldo provisional de la cuenta en el orden de la cadena de saldos. Se llama con la cuenta
+     * bloqueada en exclusiva: ningún depósito de la lista sigue en curso.
+     */
+    @Query(value = "SELECT m.* FROM movimientos m " +
+                   "JOIN movimientos_saldo_provisional p " +
+                   "  ON p.idmovimiento = m.idmovimiento AND p.fechamovimiento = m.fechamovimiento " +
+                   "WHERE p.numerocuenta = :numeroCuenta " +
+                   "ORDER BY m.fechamovimiento, m.horamovimiento, m.idmovimiento", nativeQuery = true)
+    List<Movimiento> findConSaldoProvisional(@Param("numeroCuenta") Integer numeroCuenta);
+
+    interface CuentaMovimiento {
+        Long getIdMovimiento();
+        Integer getNumeroCuenta();
+    }
+
+    interface ResumenMovimientos {
+        BigDecimal getTotalDepositos();
+        BigDecimal getTotalRetiros();
+        Long getCantidadMovimientos();
+        BigDecimal getSaldoApertura();
+        BigDecimal getSaldoCierre();
+    }
 }
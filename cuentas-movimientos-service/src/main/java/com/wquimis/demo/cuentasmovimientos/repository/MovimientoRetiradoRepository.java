@@ -0,0 +1,9 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.entities.MovimientoRetirado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MovimientoRetiradoRepository extends JpaRepository<MovimientoRetirado, Integer> {
+}
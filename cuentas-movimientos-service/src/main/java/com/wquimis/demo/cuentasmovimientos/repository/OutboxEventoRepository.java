@@ -0,0 +1,28 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.entities.OutboxEvento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface OutboxEventoRepository extends JpaRepository<OutboxEvento, Long> {
+
+    /**
+     * Toma el siguiente lote pendiente en orden de ID. SKIP LOCKED permite varias instancias del relay
+     * sin publicar dos veces el mismo evento; las escrituras del outbox (INSERT) no se bloquean.
+     */
+    @Query(value = "SELECT * FROM outbox_eventos ORDER BY idevento LIMIT :limite FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<OutboxEvento> findLotePendiente(@Param("limite") int limite);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvento e WHERE e.idevento IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    @Query("SELECT COUNT(e) FROM OutboxEvento e")
+    long countPendientes();
+}
@@ -0,0 +1,63 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.entities.SaldoDiarioPendiente;
+import com.wquimis.demo.cuentasmovimientos.entities.SaldoDiarioPendienteId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SaldoDiarioPendienteRepository extends JpaRepository<SaldoDiarioPendiente, SaldoDiarioPendienteId> {
+
+    /**
+     * Acumula los totales del día en la fila del fragmento: dos movimientos simultáneos de la misma cuenta
+     * solo compiten por esta fila si usaron el mismo fragmento.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO saldos_diarios_pendientes " +
+                   "(numerocuenta, fecha, fragmento, totalcreditos, totaldebitos, cantidadmovimientos) " +
+                   "VALUES (:numeroCuenta, :fecha, :fragmento, :creditos, :debitos, :cantidad) " +
+                   "ON DUPLICATE KEY UPDATE totalcreditos = totalcreditos + :creditos, " +
+                   "totaldebitos = totaldebitos + :debitos, " +
+                   "cantidadmovimientos = cantidadmovimientos + :cantidad",
+           nativeQuery = true)
+    int acumular(@Param("numeroCuenta") Integer numeroCuenta,
+                 @Param("fecha") LocalDate fecha,
+                 @Param("fragmento") Integer fragmento,
+                 @Param("creditos") BigDecimal creditos,
+                 @Param("debitos") BigDecimal debitos,
+                 @Param("cantidad") int cantidad);
+
+    /**
+     * Efecto neto (créditos - débitos) pendiente de consolidar hasta la fecha indicada.
+     */
+    @Query("SELECT COALESCE(SUM(p.totalcreditos - p.totaldebitos), 0) FROM SaldoDiarioPendiente p " +
+           "WHERE p.numerocuenta = :numeroCuenta AND p.fecha <= :fecha")
+    BigDecimal sumNetoAl(@Param("numeroCuenta") Integer numeroCuenta, @Param("fecha") LocalDate fecha);
+
+    @Query("SELECT p.fecha AS fecha, SUM(p.totalcreditos) AS totalCreditos, SUM(p.totaldebitos) AS totalDebitos, " +
+           "SUM(p.cantidadmovimientos) AS cantidadMovimientos FROM SaldoDiarioPendiente p " +
+           "WHERE p.numerocuenta = :numeroCuenta GROUP BY p.fecha ORDER BY p.fecha")
+    List<TotalesDia> findTotalesPorDia(@Param("numeroCuenta") Integer numeroCuenta);
+
+    @Query("SELECT DISTINCT p.numerocuenta FROM SaldoDiarioPendiente p")
+    List<Integer> findCuentasConPendientes();
+
+    boolean existsByNumerocuenta(Integer numerocuenta);
+
+    @Modifying
+    @Query("DELETE FROM SaldoDiarioPendiente p WHERE p.numerocuenta = :numeroCuenta")
+    int deleteByNumeroCuenta(@Param("numeroCuenta") Integer numeroCuenta);
+
+    interface TotalesDia {
+        LocalDate getFecha();
+        BigDecimal getTotalCreditos();
+        BigDecimal getTotalDebitos();
+        Long getCantidadMovimientos();
+    }
+}
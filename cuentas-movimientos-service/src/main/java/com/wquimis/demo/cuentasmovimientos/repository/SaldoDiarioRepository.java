@@ -0,0 +1,76 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.entities.SaldoDiario;
+import com.wquimis.demo.cuentasmovimientos.entities.SaldoDiarioId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SaldoDiarioRepository extends JpaRepository<SaldoDiario, SaldoDiarioId> {
+
+    /**
+     * Acumula movimientos en el saldo del día. El saldo de apertura solo se fija al crear la fila
+     * (saldo de cierre menos el efecto neto de los movimientos acumulados en esta llamada).
+     * Los movimientos de una cuenta se serializan por el bloqueo de su fila en cuentas,
+     * por lo que el último cierre escrito es el vigente. Las cuentas fragmentadas solo escriben aquí
+     * al consolidar sus totales pendientes, también bajo el bloqueo exclusivo de la cuenta.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO saldos_diarios " +
+                   "(numerocuenta, fecha, saldoapertura, saldocierre, totalcreditos, totaldebitos, cantidadmovimientos) " +
+                   "VALUES (:numeroCuenta, :fecha, :saldoCierre - :creditos + :debitos, :saldoCierre, :creditos, :debitos, :cantidad) " +
+                   "ON DUPLICATE KEY UPDATE saldocierre = :saldoCierre, " +
+                   "totalcreditos = totalcreditos + :creditos, " +
+                   "totaldebitos = totaldebitos + :debitos, " +
+                   "cantidadmovimientos = cantidadmovimientos + :cantidad",
+           nativeQuery = true)
+    int acumular(@Param("numeroCuenta") Integer numeroCuenta,
+                 @Param("fecha") LocalDate fecha,
+                 @Param("creditos") BigDecimal creditos,
+                 @Param("debitos") BigDecimal debitos,
+                 @Param("cantidad") int cantidad,
+                 @Param("saldoCierre") BigDecimal saldoCierre);
+
+    /**
+     * Saldo de cierre del último día con movimientos en o antes de la fecha indicada.
+     */
+    @Query(value = "SELECT saldocierre FROM saldos_diarios WHERE numerocuenta = :numeroCuenta AND fecha <= :fecha " +
+                   "ORDER BY fecha DESC LIMIT 1", nativeQuery = true)
+    Optional<BigDecimal> findSaldoCierreAl(@Param("numeroCuenta") Integer numeroCuenta, @Param("fecha") LocalDate fecha);
+
+    List<SaldoDiario> findByNumerocuentaAndFechaBetweenOrderByFechaAsc(Integer numerocuenta, LocalDate fechaInicio, LocalDate fechaFin);
+
+    @Modifying
+    @Query(value = "DELETE FROM saldos_diarios WHERE numerocuenta = :numeroCuenta AND fecha >= :desde", nativeQuery = true)
+    int deleteByNumeroCuentaDesde(@Param("numeroCuenta") Integer numeroCuenta, @Param("desde") LocalDate desde);
+
+    /**
+     * Reconstruye los saldos diarios de una cuenta a partir de sus movimientos, usando el saldo
+     * registrado en cada movimiento. Los montos se normalizan con ABS y el signo se toma del tipo.
+     * Solo se reconstruyen los días desde la fecha indicada.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO saldos_diarios " +
+                   "(numerocuenta, fecha, saldoapertura, saldocierre, totalcreditos, totaldebitos, cantidadmovimientos) " +
+                   "SELECT t.numerocuenta, t.fechamovimiento, " +
+                   "MAX(CASE WHEN t.orden_asc = 1 THEN t.saldodisponible - t.efecto END), " +
+                   "MAX(CASE WHEN t.orden_desc = 1 THEN t.saldodisponible END), " +
+                   "SUM(CASE WHEN t.efecto > 0 THEN t.efecto ELSE 0 END), " +
+                   "SUM(CASE WHEN t.efecto < 0 THEN -t.efecto ELSE 0 END), " +
+                   "COUNT(*) " +
+                   "FROM (SELECT m.numerocuenta, m.fechamovimiento, m.saldodisponible, " +
+                   "      CASE WHEN m.tipomovimiento = 'DEPOSITO' THEN ABS(m.montomovimiento) ELSE -ABS(m.montomovimiento) END AS efecto, " +
+                   "      ROW_NUMBER() OVER (PARTITION BY m.fechamovimiento ORDER BY m.horamovimiento, m.idmovimiento) AS orden_asc, " +
+                   "      ROW_NUMBER() OVER (PARTITION BY m.fechamovimiento ORDER BY m.horamovimiento DESC, m.idmovimiento DESC) AS orden_desc " +
+                   "      FROM movimientos m WHERE m.numerocuenta = :numeroCuenta AND m.fechamovimiento >= :desde) t " +
+                   "GROUP BY t.numerocuenta, t.fechamovimiento",
+           nativeQuery = true)
+    int reconstruir(@Param("numeroCuenta") Integer numeroCuenta, @Param("desde") LocalDate desde);
+}
@@ -0,0 +1,29 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.entities.SaldoProvisional;
+import com.wquimis.demo.cuentasmovimientos.entities.SaldoProvisionalId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SaldoProvisionalRepository extends JpaRepository<SaldoProvisional, SaldoProvisionalId> {
+
+    // INSERT directo: save() sobre una clave asignada haría antes un SELECT
+    @Modifying
+    @Query(value = "INSERT INTO movimientos_saldo_provisional (numerocuenta, idmovimiento, fechamovimiento) " +
+                   "VALUES (:numeroCuenta, :idMovimiento, :fecha)", nativeQuery = true)
+    int registrar(@Param("numeroCuenta") Integer numeroCuenta, @Param("idMovimiento") Long idMovimiento,
+                  @Param("fecha") LocalDate fecha);
+
+    @Query("SELECT DISTINCT p.numerocuenta FROM SaldoProvisional p")
+    List<Integer> findCuentasConProvisionales();
+
+    @Modifying
+    @Query("DELETE FROM SaldoProvisional p WHERE p.numerocuenta = :numeroCuenta")
+    int deleteByNumeroCuenta(@Param("numeroCuenta") Integer numeroCuenta);
+}
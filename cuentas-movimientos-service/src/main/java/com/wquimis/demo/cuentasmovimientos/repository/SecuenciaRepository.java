@@ -0,0 +1,30 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Secuencia;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface SecuenciaRepository extends JpaRepository<Secuencia, String> {
+
+    /**
+     * Lee la secuencia con bloqueo exclusivo (SELECT ... FOR UPDATE) para reservar un bloque.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Secuencia s WHERE s.nombre = :nombre")
+    Optional<Secuencia> findParaActualizar(@Param("nombre") String nombre);
+
+    /**
+     * Crea la fila si no existe. Sin lectura previa con bloqueo: dos instancias que inician a la vez no toman
+     * el bloqueo de hueco de la fila ausente, una inserta y la otra la encuentra y no hace nada.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO secuencias (nombre, valor) VALUES (:nombre, :valor)", nativeQuery = true)
+    int insertarSiNoExiste(@Param("nombre") String nombre, @Param("valor") Long valor);
+}
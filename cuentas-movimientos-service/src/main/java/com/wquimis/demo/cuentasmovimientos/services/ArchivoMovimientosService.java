@@ -0,0 +1,18 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ArchivoMovimientosService {
+    // Mueve a un segmento nuevo los movimientos anteriores al corte y los borra de la BD; devuelve los archivados
+    int archivar();
+    // Movimientos archivados de la cuenta dentro del rango, sin orden definido
+    List<Movimiento> buscar(Cuenta cuenta, LocalDate fechaInicio, LocalDate fechaFin);
+    // Último día archivado de la cuenta, o null si no tiene movimientos archivados
+    LocalDate fechaMaximaArchivada(Integer numeroCuenta);
+    // Último movimiento archivado de la cuenta (fecha, hora, id), o null
+    Movimiento ultimoArchivado(Integer numeroCuenta);
+    void recargar();
+}
@@ -0,0 +1,17 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Conciliacion;
+import com.wquimis.demo.cuentasmovimientos.entities.DiscrepanciaConciliacion;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import java.util.List;
+
+public interface ConciliacionService {
+    // Registra la ejecución y la procesa en segundo plano; IllegalStateException si ya hay una en curso
+    Conciliacion iniciar();
+    // Igual que iniciar pero espera a que termine
+    Conciliacion ejecutar();
+    Conciliacion findById(Long idConciliacion);
+    List<Conciliacion> findUltimas();
+    Page<DiscrepanciaConciliacion> findDiscrepancias(Long idConciliacion, Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import lombok.Value;
+
+/**
+ * Atributos de la cuenta que no cambian (o cambian muy poco) y se pueden mantener en cache.
+ * No incluye el saldo.
+ */
+@Value
+public class CuentaMetadatos {
+    Integer numeroCuenta;
+    Boolean estado;
+    Cuenta.TipoCuenta tipoCuenta;
+    Long idCliente;
+    Integer fragmentosSaldo;
+
+    public boolean isActiva() {
+        return Boolean.TRUE.equals(estado);
+    }
+
+    public boolean isFragmentada() {
+        return fragmentosSaldo != null && fragmentosSaldo > 0;
+    }
+}
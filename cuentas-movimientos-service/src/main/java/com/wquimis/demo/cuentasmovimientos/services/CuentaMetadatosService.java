@@ -0,0 +1,8 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+public interface CuentaMetadatosService {
+    CuentaMetadatos obtener(Integer numeroCuenta);
+    // Lanza EntityNotFoundException o CuentaInactivaException si la cuenta no admite movimientos
+    void validarOperable(Integer numeroCuenta);
+    void invalidar(Integer numeroCuenta);
+}
@@ -1,16 +1,25 @@
 package com.wquimis.demo.cuentasmovimientos.services;
 
+import com.wquimis.demo.cuentasmovimientos.dto.FiltroCuentasDTO;
 import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import java.math.BigDecimal;
 import java.util.List;
 
 public interface CuentaService {
     List<Cuenta> findAll();
     Cuenta findByNumeroCuenta(Integer numeroCuenta);
-    List<Cuenta> findByTipoCuenta(Cuenta.TipoCuenta tipoCuenta);
-    List<Cuenta> findByEstado(Boolean estado);
     List<Cuenta> findByIdCliente(Long idCliente);
+    Page<Cuenta> buscar(FiltroCuentasDTO filtro, Pageable pageable);
     Cuenta save(Cuenta cuenta);
     Cuenta saveOrUpdate(Cuenta cuenta);
     Cuenta update(Integer numeroCuenta, Cuenta cuenta);
     void delete(Integer numeroCuenta);
+    Cuenta getReferencia(Integer numeroCuenta);
+    Cuenta findByNumeroCuentaParaActualizar(Integer numeroCuenta);
+
+    // Escritura atómica de saldo: retornan el saldo resultante (y el fragmento usado si la cuenta está fragmentada)
+    SaldoAplicado debitar(Integer numeroCuenta, BigDecimal monto);
+    SaldoAplicado acreditar(Integer numeroCuenta, BigDecimal monto);
 }
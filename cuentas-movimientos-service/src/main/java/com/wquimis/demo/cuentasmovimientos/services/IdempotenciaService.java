@@ -0,0 +1,14 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import org.springframework.http.ResponseEntity;
+import java.util.function.Supplier;
+
+public interface IdempotenciaService {
+    /**
+     * Ejecuta la acción una sola vez por clave. Si la clave ya tiene una respuesta registrada para la
+     * misma solicitud, la retorna sin ejecutar la acción; si la solicitud es distinta lanza
+     * ClaveIdempotenciaReutilizadaException. Solo se registran respuestas 2xx.
+     */
+    ResponseEntity<?> ejecutar(String clave, String operacion, Object solicitud, Supplier<ResponseEntity<?>> accion);
+    int purgarExpiradas();
+}
@@ -1,17 +1,43 @@
 package com.wquimis.demo.cuentasmovimientos.services;
 
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
 import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.dto.FiltroMovimientosDTO;
 import com.wquimis.demo.cuentasmovimientos.dto.MovimientoDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.ResumenReporteDTO;
+import com.wquimis.demo.cuentasmovimientos.utils.CursorMovimiento;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public interface MovimientoService {
     List<Movimiento> findAll();
+    Page<Movimiento> buscar(FiltroMovimientosDTO filtro, Pageable pageable);
     Movimiento findById(Long id);
     List<Movimiento> findByNumeroCuenta(Integer numeroCuenta);
     List<Movimiento> findByNumeroCuentaAndFechaBetween(Integer numeroCuenta, LocalDate fechaInicio, LocalDate fechaFin);
+    List<Movimiento> findPaginaByNumeroCuenta(Integer numeroCuenta, CursorMovimiento cursor, int limit);
+    List<Movimiento> findPaginaByNumeroCuentaAndFechaBetween(Integer numeroCuenta, LocalDate fechaInicio, LocalDate fechaFin,
+                                                             CursorMovimiento cursor, int limit);
+    void recorrerByNumeroCuentaAndFechaBetween(Integer numeroCuenta, LocalDate fechaInicio, LocalDate fechaFin,
+                                               Consumer<Movimiento> consumidor);
+    void recorrerReporteCliente(Long idCliente, LocalDate fechaInicio, LocalDate fechaFin,
+                                BiConsumer<Cuenta, Movimiento> consumidor);
+    ResumenReporteDTO obtenerResumen(Integer numeroCuenta, LocalDate fechaInicio, LocalDate fechaFin);
     Movimiento save(Movimiento movimiento);
     Movimiento update(Long id, MovimientoDTO movimientoDTO);
     void deleteById(Long id);
-    Movimiento realizarMovimiento(Movimiento movimiento);
+    Movimiento realizarMovimiento(Integer numeroCuenta, Movimiento movimiento);
+    Movimiento realizarMovimientoCoordinado(Integer numeroCuenta, Movimiento movimiento);
+    List<ResultadoMovimiento> realizarMovimientosCuenta(Integer numeroCuenta, List<Movimiento> movimientos);
+    // Reversos por lote: ids de la ventana, cuenta de cada id y reverso de un grupo de una misma cuenta
+    List<Long> findIdsReversibles(Integer numeroCuenta, LocalDateTime desde, LocalDateTime hasta, int limite);
+    Map<Long, Integer> findNumerosCuenta(Collection<Long> ids);
+    List<ResultadoReverso> reversarMovimientosCuenta(Integer numeroCuenta, List<Long> ids);
 }
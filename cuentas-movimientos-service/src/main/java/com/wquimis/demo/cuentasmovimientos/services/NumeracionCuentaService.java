@@ -0,0 +1,9 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+public interface NumeracionCuentaService {
+    // Siguiente número de cuenta libre del rango reservado
+    int siguiente();
+
+    // Indica si el número pertenece al rango que asigna el servicio (no se acepta en altas manuales)
+    boolean esReservado(Integer numeroCuenta);
+}
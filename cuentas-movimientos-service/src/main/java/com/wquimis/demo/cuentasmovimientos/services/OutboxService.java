@@ -0,0 +1,11 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.entities.OutboxEvento;
+
+public interface OutboxService {
+    // Deben invocarse dentro de la transacción que realiza el cambio (el evento se confirma con él)
+    void registrar(OutboxEvento.TipoEvento tipoEvento, Cuenta cuenta);
+    void registrar(OutboxEvento.TipoEvento tipoEvento, Integer numeroCuenta, Movimiento movimiento);
+}
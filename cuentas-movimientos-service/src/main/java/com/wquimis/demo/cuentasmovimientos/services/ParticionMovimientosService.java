@@ -0,0 +1,15 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import com.wquimis.demo.cuentasmovimientos.dto.ParticionMovimientosDTO;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ParticionMovimientosService {
+    // Crea las particiones mensuales por delante y aplica la retención a las vencidas
+    ResultadoParticiones mantener();
+
+    List<ParticionMovimientosDTO> listar();
+
+    // Particiones que MySQL lee (según EXPLAIN) para una consulta de movimientos por rango de fechas
+    List<String> particionesConsultadas(Integer numeroCuenta, LocalDate fechaDesde, LocalDate fechaHasta);
+}
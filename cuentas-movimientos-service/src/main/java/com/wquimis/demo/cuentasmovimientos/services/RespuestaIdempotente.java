@@ -0,0 +1,13 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import lombok.Value;
+
+/**
+ * Respuesta registrada para una Idempotency-Key (lo que se guarda en la cache en memoria).
+ */
+@Value
+public class RespuestaIdempotente {
+    String huella;
+    int estadoHttp;
+    String cuerpo;
+}
@@ -0,0 +1,29 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Resultado individual de un movimiento procesado dentro de un lote.
+ * Si el movimiento fue rechazado, codigo y mensaje describen el motivo y movimiento no fue persistido.
+ */
+@Data
+@AllArgsConstructor
+public class ResultadoMovimiento {
+    private Movimiento movimiento;
+    private String codigo;
+    private String mensaje;
+
+    public static ResultadoMovimiento exitoso(Movimiento movimiento) {
+        return new ResultadoMovimiento(movimiento, null, null);
+    }
+
+    public static ResultadoMovimiento rechazado(Movimiento movimiento, String codigo, String mensaje) {
+        return new ResultadoMovimiento(movimiento, codigo, mensaje);
+    }
+
+    public boolean isExitoso() {
+        return codigo == null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import lombok.Value;
+import java.util.List;
+
+/**
+ * Particiones de movimientos creadas y retiradas (archivadas o eliminadas) en una pasada de mantenimiento.
+ */
+@Value
+public class ResultadoParticiones {
+    List<String> creadas;
+    List<String> retiradas;
+
+    public static ResultadoParticiones vacio() {
+        return new ResultadoParticiones(List.of(), List.of());
+    }
+}
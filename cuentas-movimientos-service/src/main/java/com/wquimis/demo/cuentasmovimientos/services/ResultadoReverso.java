@@ -0,0 +1,35 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Resultado individual de un reverso dentro de un lote. Un movimiento que ya estaba anulado se informa
+ * como exitoso con yaReversado = true y sin reverso nuevo, para que reintentar el lote no duplique reversos.
+ */
+@Data
+@AllArgsConstructor
+public class ResultadoReverso {
+    private Long idMovimiento;
+    private Movimiento reverso;
+    private boolean yaReversado;
+    private String codigo;
+    private String mensaje;
+
+    public static ResultadoReverso reversado(Long idMovimiento, Movimiento reverso) {
+        return new ResultadoReverso(idMovimiento, reverso, false, null, null);
+    }
+
+    public static ResultadoReverso yaReversado(Long idMovimiento) {
+        return new ResultadoReverso(idMovimiento, null, true, null, null);
+    }
+
+    public static ResultadoReverso rechazado(Long idMovimiento, String codigo, String mensaje) {
+        return new ResultadoReverso(idMovimiento, null, false, codigo, mensaje);
+    }
+
+    public boolean isExitoso() {
+        return codigo == null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import lombok.Value;
+import java.math.BigDecimal;
+
+/**
+ * Resultado de un cambio de saldo: saldo visible resultante y, si la cuenta está fragmentada,
+ * el fragmento donde se acumulan los totales del día (null en cuentas normales).
+ * Provisional indica un depósito aplicado con bloqueo compartido de una cuenta fragmentada: el saldo no cuenta
+ * los depósitos simultáneos aún sin confirmar y el movimiento se registra con
+ * {@link SaldoFragmentadoService#registrarProvisional} para asentarlo después.
+ */
+@Value
+public class SaldoAplicado {
+    BigDecimal saldo;
+    Integer fragmento;
+    boolean provisional;
+
+    public static SaldoAplicado enCuenta(BigDecimal saldo) {
+        return new SaldoAplicado(saldo, null, false);
+    }
+
+    public boolean isFragmentado() {
+        return fragmento != null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import com.wquimis.demo.cuentasmovimientos.entities.SaldoDiario;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SaldoDiarioService {
+    // Acumula en el saldo del día; debe invocarse en la misma transacción que el cambio de saldo
+    void registrar(Integer numeroCuenta, LocalDate fecha, BigDecimal creditos, BigDecimal debitos,
+                   int cantidadMovimientos, BigDecimal saldoCierre);
+    // Cuentas fragmentadas: acumula solo los totales en la fila del fragmento; el cierre se calcula al consolidar
+    void registrarPendiente(Integer numeroCuenta, Integer fragmento, LocalDate fecha, BigDecimal creditos,
+                            BigDecimal debitos, int cantidadMovimientos);
+    int consolidar(Integer numeroCuenta);
+    int consolidarPendientes();
+    BigDecimal obtenerSaldoAl(Integer numeroCuenta, LocalDate fecha);
+    List<SaldoDiario> findByNumeroCuentaAndFechaBetween(Integer numeroCuenta, LocalDate fechaInicio, LocalDate fechaFin);
+    int reconstruir(Integer numeroCuenta);
+    int reconstruirTodas();
+}
@@ -0,0 +1,25 @@
+package com.wquimis.demo.cuentasmovimientos.services;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import java.math.BigDecimal;
+import java.util.Collection;
+
+public interface SaldoFragmentadoService {
+    // Retornan null si la cuenta no está fragmentada: el cambio se aplica sobre la fila de la cuenta
+    SaldoAplicado acreditar(Integer numeroCuenta, BigDecimal monto);
+    SaldoAplicado debitar(Integer numeroCuenta, BigDecimal monto);
+
+    // Depósitos con saldo provisional: se registran al guardarlos y se asientan bajo el bloqueo exclusivo de la cuenta
+    void registrarProvisional(Integer numeroCuenta, Movimiento movimiento);
+    BigDecimal asentar(Integer numeroCuenta);
+    int asentarProvisionales();
+
+    // Operaciones de administración (promover / degradar una cuenta caliente)
+    Cuenta fragmentar(Integer numeroCuenta, int cantidadFragmentos);
+    Cuenta unificar(Integer numeroCuenta);
+
+    // Completan el saldo visible con la suma de los fragmentos; solo consultan las cuentas fragmentadas
+    Cuenta cargarSaldoFragmentos(Cuenta cuenta);
+    void cargarSaldoFragmentos(Collection<Cuenta> cuentas);
+}
@@ -0,0 +1,289 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.services.ArchivoMovimientosService;
+import com.wquimis.demo.cuentasmovimientos.utils.SegmentoMovimientos;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Archivo de movimientos fríos en segmentos inmutables ({@link SegmentoMovimientos}) en disco local.
+ * <ul>
+ *   <li>archivar: los movimientos anteriores al primer día del mes de hace antiguedad-meses se copian por cuenta
+ *   a un segmento nuevo, que se publica antes de borrar las filas. El DELETE compara estado, montos y descripción
+ *   con lo archivado: un movimiento modificado entretanto (p. ej. reversado) queda en la BD y se vuelve a
+ *   archivar en la pasada siguiente.</li>
+ *   <li>buscar: recorre los segmentos del más nuevo al más antiguo; si un id aparece en varios (pasada interrumpida
+ *   entre la publicación y el DELETE, o archivado de nuevo tras un cambio) gana el segmento más nuevo.</li>
+ * </ul>
+ * Con varias instancias el directorio debe ser compartido: cada instancia relee la lista de segmentos cada
+ * reescaneo-ms y solo una archiva a la vez (bloqueo con nombre de MySQL).
+ */
+@Service
+@Slf4j
+public class ArchivoMovimientosServiceImpl implements ArchivoMovimientosService {
+
+    private static final String BLOQUEO = "cuentas_movimientos.archivo";
+    private static final String PREFIJO = "segmento-";
+    private static final String EXTENSION = ".mov";
+    private static final int TAMANO_BORRADO = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean habilitado;
+    private final int antiguedadMeses;
+    private final Path directorio;
+    private final int maximoMovimientosSegmento;
+    private final ReentrantLock bloqueoRecarga = new ReentrantLock();
+    // Del más nuevo al más antiguo; se reemplaza completa en cada recarga
+    private volatile List<SegmentoMovimientos> segmentos = List.of();
+
+    public ArchivoMovimientosServiceImpl(JdbcTemplate jdbcTemplate,
+                                         @Value("${cuentas.archivo.enabled:false}") boolean habilitado,
+                                         @Value("${cuentas.archivo.antiguedad-meses:18}") int antiguedadMeses,
+                                         @Value("${cuentas.archivo.directorio:./data/archivo-movimientos}") String directorio,
+                                         @Value("${cuentas.archivo.maximo-movimientos-segmento:1000000}") int maximoMovimientosSegmento) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.habilitado = habilitado;
+        this.antiguedadMeses = Math.max(antiguedadMeses, 1);
+        this.directorio = Paths.get(directorio);
+        this.maximoMovimientosSegmento = Math.max(maximoMovimientosSegmento, 1);
+        recargar();
+    }
+
+    @Scheduled(fixedDelayString = "${cuentas.archivo.intervalo-ms:86400000}")
+    public void archivarProgramado() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            archivar();
+        } catch (Exception e) {
+            log.error("[MOVIMIENTOS][ARCHIVO] Error al archivar movimientos: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int archivar() {
+        LocalDate corte = LocalDate.now().withDayOfMonth(1).minusMonths(antiguedadMeses);
+        Integer archivados = jdbcTemplate.execute((ConnectionCallback<Integer>) conexion -> {
+            JdbcTemplate sesion = new JdbcTemplate(new SingleConnectionDataSource(conexion, true));
+            Integer obtenido = sesion.queryForObject("SELECT GET_LOCK(?, 0)", Integer.class, BLOQUEO);
+            if (obtenido == null || obtenido != 1) {
+                log.info("[MOVIMIENTOS][ARCHIVO] Archivado en curso en otra instancia");
+                return 0;
+            }
+            try {
+                return archivarBloqueado(sesion, corte);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                sesion.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, BLOQUEO);
+            }
+        });
+        return archivados != null ? archivados : 0;
+    }
+
+    private int archivarBloqueado(JdbcTemplate sesion, LocalDate corte) throws IOException {
+        // Con el particionado mensual la consulta solo recorre las particiones anteriores al corte
+        List<Integer> cuentas = sesion.queryForList(
+            "SELECT DISTINCT numerocuenta FROM movimientos WHERE fechamovimiento < ? ORDER BY numerocuenta",
+            Integer.class, corte);
+        if (cuentas.isEmpty()) {
+            return 0;
+        }
+
+        Files.createDirectories(directorio);
+        Map<Integer, List<Movimiento>> porCuenta = new LinkedHashMap<>();
+        Path destino = nuevoSegmento();
+        int total = 0;
+        try (SegmentoMovimientos.Escritor escritor = SegmentoMovimientos.crear(destino)) {
+            for (Integer numeroCuenta : cuentas) {
+                List<Movimiento> movimientos = leerAnteriores(sesion, numeroCuenta, corte);
+                if (total > 0 && total + movimientos.size() > maximoMovimientosSegmento) {
+                    // El resto de cuentas queda para la pasada siguiente
+                    break;
+                }
+                escritor.agregar(numeroCuenta, movimientos);
+                porCuenta.put(numeroCuenta, movimientos);
+                total += movimientos.size();
+            }
+            escritor.publicar();
+        }
+        recargar();
+
+        int borrados = 0;
+        for (Map.Entry<Integer, List<Movimiento>> cuenta : porCuenta.entrySet()) {
+            borrados += borrar(sesion, cuenta.getKey(), corte, cuenta.getValue());
+        }
+        log.info("[MOVIMIENTOS][ARCHIVO] Segmento {} cuentas {} movimientos {} borrados {} (corte {})",
+            destino.getFileName(), porCuenta.size(), total, borrados, corte);
+        return total;
+    }
+
+    private List<Movimiento> leerAnteriores(JdbcTemplate sesion, Integer numeroCuenta, LocalDate corte) {
+        return sesion.query(
+            "SELECT idmovimiento, estado, fechamovimiento, horamovimiento, tipomovimiento, montomovimiento, " +
+            "saldodisponible, movimientodescripcion FROM movimientos " +
+            "WHERE numerocuenta = ? AND fechamovimiento < ? " +
+            "ORDER BY fechamovimiento, horamovimiento, idmovimiento",
+            (rs, i) -> {
+                Movimiento movimiento = new Movimiento();
+                movimiento.setIdmovimiento(rs.getLong("idmovimiento"));
+                movimiento.setEstado(rs.getObject("estado", Boolean.class));
+                movimiento.setFechamovimiento(rs.getObject("fechamovimiento", LocalDate.class));
+                movimiento.setHoramovimiento(rs.getObject("horamovimiento", LocalTime.class));
+                movimiento.setTipomovimiento(Movimiento.TipoMovimiento.valueOf(rs.getString("tipomovimiento")));
+                movimiento.setMontomovimiento(rs.getBigDecimal("montomovimiento"));
+                movimiento.setSaldodisponible(rs.getBigDecimal("saldodisponible"));
+                movimiento.setMovimientodescripcion(rs.getString("movimientodescripcion"));
+                return movimiento;
+            },
+            numeroCuenta, corte);
+    }
+
+    // Borra solo las filas que siguen iguales a lo archivado; cada sentencia se confirma por separado
+    private int borrar(JdbcTemplate sesion, Integer numeroCuenta, LocalDate corte, List<Movimiento> movimientos) {
+        int borrados = 0;
+        for (int desde = 0; desde < movimientos.size(); desde += TAMANO_BORRADO) {
+            List<Movimiento> grupo = movimientos.subList(desde, Math.min(desde + TAMANO_BORRADO, movimientos.size()));
+            StringBuilder sql = new StringBuilder(
+                "DELETE FROM movimientos WHERE numerocuenta = ? AND fechamovimiento < ? AND (");
+            List<Object> parametros = new ArrayList<>(2 + grupo.size() * 5);
+            parametros.add(numeroCuenta);
+            parametros.add(corte);
+            for (int i = 0; i < grupo.size(); i++) {
+                Movimiento movimiento = grupo.get(i);
+                sql.append(i == 0 ? "" : " OR ").append("(idmovimiento = ? AND estado <=> ? AND montomovimiento = ? " +
+                    "AND saldodisponible = ? AND movimientodescripcion <=> ?)");
+                parametros.add(movimiento.getIdmovimiento());
+                parametros.add(movimiento.getEstado());
+                parametros.add(movimiento.getMontomovimiento());
+                parametros.add(movimiento.getSaldodisponible());
+                parametros.add(movimiento.getMovimientodescripcion());
+            }
+            sql.append(')');
+            borrados += sesion.update(sql.toString(), parametros.toArray());
+        }
+        return borrados;
+    }
+
+    private Path nuevoSegmento() {
+        long secuencia = System.currentTimeMillis();
+        Path destino;
+        do {
+            destino = directorio.resolve(String.format("%s%013d%s", PREFIJO, secuencia++, EXTENSION));
+        } while (Files.exists(destino));
+        return destino;
+    }
+
+    @Override
+    public List<Movimiento> buscar(Cuenta cuenta, LocalDate fechaInicio, LocalDate fechaFin) {
+        List<SegmentoMovimientos> actuales = segmentos;
+        if (actuales.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Movimiento> porId = new LinkedHashMap<>();
+        List<Movimiento> leidos = new ArrayList<>();
+        for (SegmentoMovimientos segmento : actuales) {
+            segmento.leer(cuenta, fechaInicio, fechaFin, leidos);
+            for (Movimiento movimiento : leidos) {
+                porId.putIfAbsent(movimiento.getIdmovimiento(), movimiento);
+            }
+            leidos.clear();
+        }
+        return new ArrayList<>(porId.values());
+    }
+
+    @Override
+    public LocalDate fechaMaximaArchivada(Integer numeroCuenta) {
+        LocalDate maxima = null;
+        for (SegmentoMovimientos segmento : segmentos) {
+            LocalDate fecha = segmento.fechaMaxima(numeroCuenta);
+            if (fecha != null && (maxima == null || fecha.isAfter(maxima))) {
+                maxima = fecha;
+            }
+        }
+        return maxima;
+    }
+
+    @Override
+    public Movimiento ultimoArchivado(Integer numeroCuenta) {
+        LocalDate fecha = fechaMaximaArchivada(numeroCuenta);
+        if (fecha == null) {
+            return null;
+        }
+        Cuenta cuenta = new Cuenta();
+        cuenta.setNumerocuenta(numeroCuenta);
+        return buscar(cuenta, fecha, fecha).stream()
+            .max(Comparator.comparing(Movimiento::getHoramovimiento).thenComparing(Movimiento::getIdmovimiento))
+            .orElse(null);
+    }
+
+    /**
+     * Relee la lista de segmentos del directorio. Los ya mapeados se reutilizan; los segmentos nuevos
+     * (publicados por esta u otra instancia) se mapean y uno ilegible se omite con un aviso.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${cuentas.archivo.reescaneo-ms:60000}")
+    public void recargar() {
+        bloqueoRecarga.lock();
+        try {
+            if (!Files.isDirectory(directorio)) {
+                segmentos = List.of();
+                return;
+            }
+            Map<Path, SegmentoMovimientos> abiertos = new HashMap<>();
+            for (SegmentoMovimientos segmento : segmentos) {
+                abiertos.put(segmento.getRuta(), segmento);
+            }
+            List<SegmentoMovimientos> encontrados = new ArrayList<>();
+            try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO + "*" + EXTENSION)) {
+                for (Path archivo : archivos) {
+                    SegmentoMovimientos segmento = abiertos.get(archivo);
+                    if (segmento == null) {
+                        try {
+                            segmento = SegmentoMovimientos.abrir(archivo);
+                        } catch (IOException e) {
+                            log.warn("[MOVIMIENTOS][ARCHIVO] Segmento {} omitido: {}", archivo, e.getMessage());
+                            continue;
+                        }
+                    }
+                    encontrados.add(segmento);
+                }
+            }
+            // El nombre lleva la secuencia con ancho fijo: orden lexicográfico descendente = más nuevo primero
+            encontrados.sort(Comparator.comparing((SegmentoMovimientos s) -> s.getRuta().getFileName().toString())
+                .reversed());
+            if (encontrados.size() != segmentos.size()) {
+                log.info("[MOVIMIENTOS][ARCHIVO] Segmentos disponibles: {}", encontrados.size());
+            }
+            segmentos = List.copyOf(encontrados);
+        } catch (IOException e) {
+            log.warn("[MOVIMIENTOS][ARCHIVO] No se pudo leer el directorio {}: {}", directorio, e.getMessage());
+        } finally {
+            bloqueoRecarga.unlock();
+        }
+    }
+}
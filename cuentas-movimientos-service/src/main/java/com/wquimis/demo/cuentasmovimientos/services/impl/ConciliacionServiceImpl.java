@@ -0,0 +1,561 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Conciliacion;
+import com.wquimis.demo.cuentasmovimientos.entities.DiscrepanciaConciliacion;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.repository.ConciliacionRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.DiscrepanciaConciliacionRepository;
+import com.wquimis.demo.cuentasmovimientos.services.ArchivoMovimientosService;
+import com.wquimis.demo.cuentasmovimientos.services.ConciliacionService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Conciliación del libro: verifica que el saldo de cada cuenta (incluidos sus fragmentos) sea el saldo de apertura
+ * más la suma con signo de sus movimientos, y que el saldodisponible de cada movimiento continúe el de la fila
+ * anterior. Todos los movimientos cuentan, también los anulados: el reverso es un movimiento compensatorio.
+ * <p>
+ * El saldo de apertura es el saldo inicial; si el primer movimiento es el depósito inicial (parte de cero y su monto
+ * es el saldo inicial, que no vuelve a acreditar) es cero; si la cuenta tiene movimientos archivados o en particiones
+ * retiradas (movimientos_retirados) es el saldo del último de ellos, el más reciente de los dos.
+ * <p>
+ * Los depósitos de cuentas fragmentadas que siguen en movimientos_saldo_provisional no entran en la verificación de
+ * la cadena ni de la apertura: su saldo se fija al asentarlos. Sí cuentan en el saldo de la cuenta.
+ * <p>
+ * Las cuentas se recorren en bloques de cuentas-por-bloque números consecutivos, repartidos en un ForkJoinPool de
+ * paralelismo hilos. Cada bloque es una consulta de agregados (una sola sentencia, así que saldo y movimientos salen
+ * de la misma instantánea) y otra que devuelve solo las filas donde se corta la cadena; ambas se leen en streaming.
+ * Para no acaparar el pool de Hikari, a lo sumo paralelismo consultas corren a la vez, cada bloque espera mientras
+ * el pool tiene hilos esperando conexión o más de uso-maximo-pool de sus conexiones activas, y entre bloques se
+ * pausa pausa-ms.
+ */
+@Service
+@Slf4j
+public class ConciliacionServiceImpl implements ConciliacionService {
+
+    private static final String BLOQUEO = "cuentas_movimientos.conciliacion";
+    private static final LocalDate SIN_ARCHIVO = LocalDate.of(1000, 1, 1);
+    private static final int TAMANO_LECTURA = 500;
+    private static final String EFECTO =
+        "CASE WHEN tipomovimiento = 'DEPOSITO' THEN ABS(montomovimiento) ELSE -ABS(montomovimiento) END";
+
+    private static final String SQL_AGREGADOS =
+        "SELECT c.numerocuenta, c.saldoinicial, " +
+        "COALESCE(c.saldodisponible, c.saldoinicial) + COALESCE(f.saldo, 0) AS saldo, " +
+        "COALESCE(m.neto, 0) AS neto, COALESCE(m.cantidad, 0) AS cantidad, m.apertura, m.primerefecto, " +
+        "m.primeroprovisional, r.fechahasta AS retiradohasta, r.saldocierre AS saldoretirado " +
+        "FROM cuentas c " +
+        "LEFT JOIN (SELECT numerocuenta, SUM(saldo) AS saldo FROM cuentas_fragmentos_saldo " +
+        "           WHERE numerocuenta >= ? AND numerocuenta < ? GROUP BY numerocuenta) f " +
+        "       ON f.numerocuenta = c.numerocuenta " +
+        "LEFT JOIN (SELECT numerocuenta, SUM(efecto) AS neto, COUNT(*) AS cantidad, " +
+        "                  MAX(CASE WHEN orden = 1 THEN saldodisponible - efecto END) AS apertura, " +
+        "                  MAX(CASE WHEN orden = 1 THEN efecto END) AS primerefecto, " +
+        "                  MAX(CASE WHEN orden = 1 THEN provisional END) AS primeroprovisional " +
+        "           FROM (SELECT m.numerocuenta, m.saldodisponible, " + EFECTO + " AS efecto, " +
+        "                        p.idmovimiento IS NOT NULL AS provisional, " +
+        "                        ROW_NUMBER() OVER (PARTITION BY m.numerocuenta " +
+        "                                           ORDER BY m.fechamovimiento, m.horamovimiento, m.idmovimiento) AS orden " +
+        "                 FROM movimientos m " +
+        "                 LEFT JOIN movimientos_saldo_provisional p " +
+        "                        ON p.numerocuenta = m.numerocuenta AND p.idmovimiento = m.idmovimiento " +
+        "                 WHERE m.numerocuenta >= ? AND m.numerocuenta < ? AND m.fechamovimiento >= ?) x " +
+        "           GROUP BY numerocuenta) m " +
+        "       ON m.numerocuenta = c.numerocuenta " +
+        "LEFT JOIN movimientos_retirados r ON r.numerocuenta = c.numerocuenta " +
+        "WHERE c.numerocuenta >= ? AND c.numerocuenta < ? " +
+        "ORDER BY c.numerocuenta";
+
+    private static final String SQL_CADENA =
+        "SELECT numerocuenta, idmovimiento, saldodisponible, anterior + efecto AS esperado, fechaanterior " +
+        "FROM (SELECT numerocuenta, idmovimiento, saldodisponible, " + EFECTO + " AS efecto, " +
+        "             LAG(saldodisponible) OVER w AS anterior, LAG(fechamovimiento) OVER w AS fechaanterior " +
+        "      FROM movimientos m WHERE numerocuenta >= ? AND numerocuenta < ? " +
+        "      AND NOT EXISTS (SELECT 1 FROM movimientos_saldo_provisional p " +
+        "                      WHERE p.numerocuenta = m.numerocuenta AND p.idmovimiento = m.idmovimiento) " +
+        "      WINDOW w AS (PARTITION BY numerocuenta ORDER BY fechamovimiento, horamovimiento, idmovimiento)) t " +
+        "WHERE anterior IS NOT NULL AND saldodisponible <> anterior + efecto " +
+        "ORDER BY numerocuenta, idmovimiento";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate lectura;
+    private final ConciliacionRepository conciliacionRepository;
+    private final DiscrepanciaConciliacionRepository discrepanciaRepository;
+    private final ArchivoMovimientosService archivoMovimientosService;
+    private final boolean habilitado;
+    private final int paralelismo;
+    private final int cuentasPorBloque;
+    private final long pausaMs;
+    private final double usoMaximoPool;
+    private final int maximoDiscrepancias;
+    private final Semaphore consultas;
+    // Null si el DataSource no es (ni envuelve) un pool de Hikari: solo se aplica el límite de consultas y la pausa
+    private final HikariDataSource pool;
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "conciliacion");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public ConciliacionServiceImpl(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                   ConciliacionRepository conciliacionRepository,
+                                   DiscrepanciaConciliacionRepository discrepanciaRepository,
+                                   ArchivoMovimientosService archivoMovimientosService,
+                                   @Value("${cuentas.conciliacion.enabled:false}") boolean habilitado,
+                                   @Value("${cuentas.conciliacion.paralelismo:2}") int paralelismo,
+                                   @Value("${cuentas.conciliacion.cuentas-por-bloque:500}") int cuentasPorBloque,
+                                   @Value("${cuentas.conciliacion.pausa-ms:50}") long pausaMs,
+                                   @Value("${cuentas.conciliacion.uso-maximo-pool:0.5}") double usoMaximoPool,
+                                   @Value("${cuentas.conciliacion.maximo-discrepancias:10000}") int maximoDiscrepancias) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Lecturas por cursor (useCursorFetch en la URL): los bloques no se cargan completos en memoria
+        this.lectura = new JdbcTemplate(dataSource);
+        this.lectura.setFetchSize(TAMANO_LECTURA);
+        this.conciliacionRepository = conciliacionRepository;
+        this.discrepanciaRepository = discrepanciaRepository;
+        this.archivoMovimientosService = archivoMovimientosService;
+        this.habilitado = habilitado;
+        this.paralelismo = Math.max(paralelismo, 1);
+        this.cuentasPorBloque = Math.max(cuentasPorBloque, 1);
+        this.pausaMs = Math.max(pausaMs, 0);
+        this.usoMaximoPool = usoMaximoPool;
+        this.maximoDiscrepancias = maximoDiscrepancias;
+        this.consultas = new Semaphore(this.paralelismo);
+        this.pool = obtenerPool(dataSource);
+    }
+
+    @PreDestroy
+    void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${cuentas.conciliacion.intervalo-ms:86400000}",
+               initialDelayString = "${cuentas.conciliacion.intervalo-ms:86400000}")
+    public void ejecutarProgramada() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            ejecutar();
+        } catch (IllegalStateException e) {
+            log.info("[CONCILIACION][PROGRAMADA] {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("[CONCILIACION][PROGRAMADA] Error en la conciliación: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Conciliacion iniciar() {
+        Conciliacion conciliacion = registrarInicio();
+        try {
+            ejecutor.execute(() -> {
+                try {
+                    procesar(conciliacion);
+                } finally {
+                    enCurso.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            enCurso.set(false);
+            throw e;
+        }
+        return conciliacion;
+    }
+
+    @Override
+    public Conciliacion ejecutar() {
+        Conciliacion conciliacion = registrarInicio();
+        try {
+            return procesar(conciliacion);
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    @Override
+    public Conciliacion findById(Long idConciliacion) {
+        return conciliacionRepository.findById(idConciliacion)
+            .orElseThrow(() -> new EntityNotFoundException("Conciliación no encontrada con ID: " + idConciliacion));
+    }
+
+    @Override
+    public List<Conciliacion> findUltimas() {
+        return conciliacionRepository.findTop20ByOrderByIdconciliacionDesc();
+    }
+
+    @Override
+    public Page<DiscrepanciaConciliacion> findDiscrepancias(Long idConciliacion, Pageable pageable) {
+        findById(idConciliacion);
+        return discrepanciaRepository.findByIdconciliacionOrderByNumerocuentaAscIddiscrepanciaAsc(idConciliacion, pageable);
+    }
+
+    private Conciliacion registrarInicio() {
+        if (!enCurso.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una conciliación en curso en esta instancia");
+        }
+        try {
+            Conciliacion conciliacion = new Conciliacion();
+            conciliacion.setEstado(Conciliacion.EstadoConciliacion.EN_CURSO);
+            conciliacion.setFechainicio(LocalDateTime.now());
+            conciliacion.setCuentasrevisadas(0);
+            conciliacion.setMovimientosrevisados(0L);
+            conciliacion.setDiscrepancias(0);
+            return conciliacionRepository.save(conciliacion);
+        } catch (RuntimeException e) {
+            enCurso.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * El bloqueo con nombre de MySQL ocupa una conexión durante toda la ejecución; los bloques usan conexiones
+     * propias del pool, reguladas por {@link #conRegulacion}.
+     */
+    private Conciliacion procesar(Conciliacion conciliacion) {
+        Ejecucion ejecucion = new Ejecucion(conciliacion.getIdconciliacion());
+        try {
+            Boolean obtenido = jdbcTemplate.execute((ConnectionCallback<Boolean>) conexion -> {
+                JdbcTemplate sesion = new JdbcTemplate(new SingleConnectionDataSource(conexion, true));
+                Integer bloqueo = sesion.queryForObject("SELECT GET_LOCK(?, 0)", Integer.class, BLOQUEO);
+                if (bloqueo == null || bloqueo != 1) {
+                    return false;
+                }
+                try {
+                    recorrer(ejecucion);
+                    return true;
+                } finally {
+                    sesion.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, BLOQUEO);
+                }
+            });
+            if (!Boolean.TRUE.equals(obtenido)) {
+                ejecucion.fallar("Conciliación en curso en otra instancia");
+            }
+        } catch (Exception e) {
+            log.error("[CONCILIACION][EJECUCION] Conciliación {} fallida: {}", conciliacion.getIdconciliacion(),
+                e.getMessage(), e);
+            ejecucion.fallar(e.getMessage());
+        }
+
+        conciliacion.setEstado(ejecucion.error.get() == null
+            ? Conciliacion.EstadoConciliacion.COMPLETADA
+            : Conciliacion.EstadoConciliacion.FALLIDA);
+        conciliacion.setFechafin(LocalDateTime.now());
+        conciliacion.setCuentasrevisadas(ejecucion.cuentas.get());
+        conciliacion.setMovimientosrevisados(ejecucion.movimientos.get());
+        conciliacion.setDiscrepancias(ejecucion.discrepancias.get());
+        conciliacion.setError(recortar(ejecucion.error.get(), 500));
+        log.info("[CONCILIACION][EJECUCION] Conciliación {} {} cuentas {} movimientos {} discrepancias {}",
+            conciliacion.getIdconciliacion(), conciliacion.getEstado(), conciliacion.getCuentasrevisadas(),
+            conciliacion.getMovimientosrevisados(), conciliacion.getDiscrepancias());
+        return conciliacionRepository.save(conciliacion);
+    }
+
+    private void recorrer(Ejecucion ejecucion) {
+        // Primer número de cada bloque: cada cuentas-por-bloque cuentas en orden de número
+        List<Integer> inicios = jdbcTemplate.queryForList(
+            "SELECT numerocuenta FROM (SELECT numerocuenta, ROW_NUMBER() OVER (ORDER BY numerocuenta) AS fila " +
+            "FROM cuentas) t WHERE MOD(fila - 1, ?) = 0 ORDER BY numerocuenta",
+            Integer.class, cuentasPorBloque);
+        if (inicios.isEmpty()) {
+            return;
+        }
+        Integer ultima = jdbcTemplate.queryForObject("SELECT MAX(numerocuenta) FROM cuentas", Integer.class);
+        List<int[]> rangos = new ArrayList<>(inicios.size());
+        for (int i = 0; i < inicios.size(); i++) {
+            int fin = i + 1 < inicios.size() ? inicios.get(i + 1) : ultima + 1;
+            rangos.add(new int[] {inicios.get(i), fin});
+        }
+        log.info("[CONCILIACION][EJECUCION] Conciliación {} bloques {} paralelismo {}",
+            ejecucion.idConciliacion, rangos.size(), paralelismo);
+
+        ForkJoinPool forkJoin = new ForkJoinPool(paralelismo);
+        try {
+            forkJoin.invoke(new TareaBloques(ejecucion, rangos, 0, rangos.size()));
+        } finally {
+            forkJoin.shutdown();
+        }
+    }
+
+    /**
+     * Divide la lista de bloques a la mitad hasta llegar a uno; un bloque fallido se registra y no detiene a los demás.
+     */
+    private final class TareaBloques extends RecursiveAction {
+
+        private final Ejecucion ejecucion;
+        private final List<int[]> rangos;
+        private final int desde;
+        private final int hasta;
+
+        TareaBloques(Ejecucion ejecucion, List<int[]> rangos, int desde, int hasta) {
+            this.ejecucion = ejecucion;
+            this.rangos = rangos;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde > 1) {
+                int medio = (desde + hasta) >>> 1;
+                invokeAll(new TareaBloques(ejecucion, rangos, desde, medio),
+                    new TareaBloques(ejecucion, rangos, medio, hasta));
+                return;
+            }
+            int[] rango = rangos.get(desde);
+            try {
+                revisarBloque(ejecucion, rango[0], rango[1]);
+            } catch (Exception e) {
+                log.error("[CONCILIACION][BLOQUE] Cuentas [{}, {}) con error: {}", rango[0], rango[1], e.getMessage(), e);
+                ejecucion.fallar("Bloque [" + rango[0] + ", " + rango[1] + "): " + e.getMessage());
+            }
+        }
+    }
+
+    private void revisarBloque(Ejecucion ejecucion, int desde, int hasta) {
+        List<DiscrepanciaConciliacion> encontradas = new ArrayList<>();
+        Map<Integer, Apertura> aConfirmar = new LinkedHashMap<>();
+
+        conRegulacion(() -> {
+            lectura.query(SQL_AGREGADOS, rs -> {
+                ejecucion.cuentas.incrementAndGet();
+                ejecucion.movimientos.addAndGet(rs.getLong("cantidad"));
+                Agregados agregados = leerAgregados(rs);
+                Apertura apertura = apertura(agregados);
+                if (!evaluar(ejecucion, agregados, apertura).isEmpty()) {
+                    // Se confirma aparte, en su propia instantánea y sin las filas que quedaron en la BD tras archivar
+                    aConfirmar.put(agregados.numeroCuenta(), apertura);
+                }
+            }, desde, hasta, desde, hasta, SIN_ARCHIVO, desde, hasta);
+            return null;
+        });
+
+        aConfirmar.forEach((numeroCuenta, apertura) -> encontradas.addAll(confirmar(ejecucion, numeroCuenta, apertura)));
+
+        conRegulacion(() -> {
+            lectura.query(SQL_CADENA, rs -> {
+                int numeroCuenta = rs.getInt("numerocuenta");
+                LocalDate fechaAnterior = rs.getObject("fechaanterior", LocalDate.class);
+                LocalDate archivadoHasta = archivoMovimientosService.fechaMaximaArchivada(numeroCuenta);
+                if (archivadoHasta != null && !fechaAnterior.isAfter(archivadoHasta)) {
+                    // Fila que quedó en la BD tras archivar (se modificó durante el archivado): el salto es el hueco
+                    // de los movimientos ya archivados, no un corte de la cadena
+                    return;
+                }
+                DiscrepanciaConciliacion discrepancia = nueva(ejecucion, numeroCuenta,
+                    DiscrepanciaConciliacion.TipoDiscrepancia.CADENA, rs.getBigDecimal("esperado"),
+                    rs.getBigDecimal("saldodisponible"), "El saldo no continúa el del movimiento anterior");
+                discrepancia.setIdmovimiento(rs.getLong("idmovimiento"));
+                encontradas.add(discrepancia);
+            }, desde, hasta);
+            return null;
+        });
+
+        guardar(ejecucion, encontradas);
+    }
+
+    /**
+     * Repite la verificación de una cuenta con el saldo de apertura del archivo o de las particiones retiradas y solo
+     * con los movimientos posteriores a su último día.
+     */
+    private List<DiscrepanciaConciliacion> confirmar(Ejecucion ejecucion, Integer numeroCuenta, Apertura apertura) {
+        LocalDate desde = apertura != null ? apertura.fecha().plusDays(1) : SIN_ARCHIVO;
+        return conRegulacion(() -> {
+            List<DiscrepanciaConciliacion> discrepancias = new ArrayList<>();
+            lectura.query(SQL_AGREGADOS, rs -> {
+                discrepancias.addAll(evaluar(ejecucion, leerAgregados(rs), apertura));
+            }, numeroCuenta, numeroCuenta + 1, numeroCuenta, numeroCuenta + 1, desde, numeroCuenta, numeroCuenta + 1);
+            return discrepancias;
+        });
+    }
+
+    /**
+     * Saldo de apertura tomado de lo que ya no está en la tabla: el último movimiento archivado en segmentos o el
+     * último de las particiones retiradas, el que sea posterior. Null si la cuenta tiene todos sus movimientos.
+     */
+    private Apertura apertura(Agregados cuenta) {
+        Movimiento archivado = archivoMovimientosService.ultimoArchivado(cuenta.numeroCuenta());
+        if (archivado != null && (cuenta.retiradoHasta() == null
+                || archivado.getFechamovimiento().isAfter(cuenta.retiradoHasta()))) {
+            return new Apertura(archivado.getSaldodisponible(), archivado.getFechamovimiento(),
+                "El primer movimiento no parte del saldo del último movimiento archivado");
+        }
+        if (cuenta.retiradoHasta() != null) {
+            return new Apertura(cuenta.saldoRetirado(), cuenta.retiradoHasta(),
+                "El primer movimiento no parte del saldo del último movimiento de las particiones retiradas");
+        }
+        return null;
+    }
+
+    private List<DiscrepanciaConciliacion> evaluar(Ejecucion ejecucion, Agregados cuenta, Apertura apertura) {
+        BigDecimal base;
+        if (apertura != null) {
+            base = apertura.saldo();
+        } else if (cuenta.cantidad() > 0 && cuenta.apertura().signum() == 0 && cuenta.saldoInicial().signum() > 0
+                && cuenta.primerEfecto().compareTo(cuenta.saldoInicial()) == 0) {
+            // Depósito inicial registrado como movimiento: no vuelve a acreditar
+            base = BigDecimal.ZERO;
+        } else {
+            base = cuenta.saldoInicial();
+        }
+
+        List<DiscrepanciaConciliacion> discrepancias = new ArrayList<>(2);
+        // Un primer movimiento con saldo provisional (cuenta fragmentada sin asentar) no tiene apertura verificable
+        if (cuenta.cantidad() > 0 && !cuenta.primeroProvisional() && cuenta.apertura().compareTo(base) != 0) {
+            discrepancias.add(nueva(ejecucion, cuenta.numeroCuenta(), DiscrepanciaConciliacion.TipoDiscrepancia.APERTURA,
+                base, cuenta.apertura(), apertura != null
+                    ? apertura.detalle()
+                    : "El primer movimiento no parte del saldo inicial"));
+        }
+        BigDecimal esperado = base.add(cuenta.neto());
+        if (cuenta.saldo().compareTo(esperado) != 0) {
+            discrepancias.add(nueva(ejecucion, cuenta.numeroCuenta(), DiscrepanciaConciliacion.TipoDiscrepancia.SALDO,
+                esperado, cuenta.saldo(), "Saldo de la cuenta distinto de apertura más " + cuenta.cantidad() + " movimientos"));
+        }
+        return discrepancias;
+    }
+
+    private static Agregados leerAgregados(ResultSet rs) throws SQLException {
+        BigDecimal apertura = rs.getBigDecimal("apertura");
+        BigDecimal primerEfecto = rs.getBigDecimal("primerefecto");
+        return new Agregados(rs.getInt("numerocuenta"), rs.getBigDecimal("saldoinicial"), rs.getBigDecimal("saldo"),
+            rs.getBigDecimal("neto"), rs.getLong("cantidad"),
+            apertura != null ? apertura : BigDecimal.ZERO, primerEfecto != null ? primerEfecto : BigDecimal.ZERO,
+            rs.getBoolean("primeroprovisional"), rs.getObject("retiradohasta", LocalDate.class),
+            rs.getBigDecimal("saldoretirado"));
+    }
+
+    private record Agregados(int numeroCuenta, BigDecimal saldoInicial, BigDecimal saldo, BigDecimal neto, long cantidad,
+                             BigDecimal apertura, BigDecimal primerEfecto, boolean primeroProvisional,
+                             LocalDate retiradoHasta, BigDecimal saldoRetirado) {
+    }
+
+    private record Apertura(BigDecimal saldo, LocalDate fecha, String detalle) {
+    }
+
+    private DiscrepanciaConciliacion nueva(Ejecucion ejecucion, Integer numeroCuenta,
+                                           DiscrepanciaConciliacion.TipoDiscrepancia tipo,
+                                           BigDecimal esperado, BigDecimal registrado, String detalle) {
+        DiscrepanciaConciliacion discrepancia = new DiscrepanciaConciliacion();
+        discrepancia.setIdconciliacion(ejecucion.idConciliacion);
+        discrepancia.setNumerocuenta(numeroCuenta);
+        discrepancia.setTipo(tipo);
+        discrepancia.setEsperado(esperado);
+        discrepancia.setRegistrado(registrado);
+        discrepancia.setDetalle(detalle);
+        return discrepancia;
+    }
+
+    // Se cuentan todas; se guardan hasta maximo-discrepancias para que un error sistemático no llene la tabla
+    private void guardar(Ejecucion ejecucion, List<DiscrepanciaConciliacion> encontradas) {
+        if (encontradas.isEmpty()) {
+            return;
+        }
+        int previas = ejecucion.discrepancias.getAndAdd(encontradas.size());
+        int disponibles = Math.max(0, maximoDiscrepancias - previas);
+        if (disponibles > 0) {
+            discrepanciaRepository.saveAll(encontradas.subList(0, Math.min(disponibles, encontradas.size())));
+        }
+        log.warn("[CONCILIACION][DISCREPANCIA] Conciliación {} cuentas {}", ejecucion.idConciliacion,
+            encontradas.stream().map(DiscrepanciaConciliacion::getNumerocuenta).distinct().toList());
+    }
+
+    /**
+     * Ejecuta una consulta de la conciliación sin competir con el tráfico normal por el pool: espera turno entre
+     * las consultas de la conciliación y, mientras el pool está presionado, cede el paso antes de pedir conexión.
+     */
+    private <T> T conRegulacion(Supplier<T> consulta) {
+        try {
+            consultas.acquire();
+            try {
+                while (poolPresionado()) {
+                    Thread.sleep(Math.max(pausaMs, 10));
+                }
+                return consulta.get();
+            } finally {
+                consultas.release();
+                if (pausaMs > 0) {
+                    Thread.sleep(pausaMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Conciliación interrumpida", e);
+        }
+    }
+
+    private boolean poolPresionado() {
+        if (pool == null) {
+            return false;
+        }
+        HikariPoolMXBean estado = pool.getHikariPoolMXBean();
+        if (estado == null) {
+            return false;
+        }
+        return estado.getThreadsAwaitingConnection() > 0
+            || estado.getActiveConnections() >= Math.max(1, (int) (pool.getMaximumPoolSize() * usoMaximoPool));
+    }
+
+    // Con réplicas de lectura el DataSource es un proxy que delega en el pool de la primaria
+    private static HikariDataSource obtenerPool(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            log.warn("[CONCILIACION][POOL] No se pudo obtener el pool de conexiones: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String recortar(String texto, int longitud) {
+        return texto == null || texto.length() <= longitud ? texto : texto.substring(0, longitud);
+    }
+
+    // Estado compartido por los bloques de una ejecución
+    private static final class Ejecucion {
+        private final Long idConciliacion;
+        private final AtomicInteger cuentas = new AtomicInteger();
+        private final AtomicLong movimientos = new AtomicLong();
+        private final AtomicInteger discrepancias = new AtomicInteger();
+        private final AtomicReference<String> error = new AtomicReference<>();
+
+        private Ejecucion(Long idConciliacion) {
+            this.idConciliacion = idConciliacion;
+        }
+
+        private void fallar(String mensaje) {
+            error.compareAndSet(null, mensaje != null ? mensaje : "Error sin mensaje");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoMovimiento;
+import io.micrometer.core.instrument.DistributionSummary;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * Coordinador de escritura por cuenta (group commit). Cada solicitud entra a la cola de su cuenta y un único
+ * trabajador por cuenta drena los pendientes en tandas: cada tanda se aplica con una sola transacción,
+ * un bloqueo de la fila, un UPDATE de saldo e inserción por lotes. Cada llamador espera y recibe su propio resultado.
+ * Las cuentas distintas se procesan en paralelo hasta el número de trabajadores configurado; tras cada tanda la
+ * cuenta vuelve al final de la cola de trabajo, de modo que una cuenta caliente no acapara un trabajador.
+ * Una solicitud cuyo llamador agotó la espera antes de entrar a una tanda se descarta y nunca se aplica.
+ */
+@Slf4j
+final class CoordinadorEscrituraCuentas {
+
+    private final ConcurrentHashMap<Integer, ColaCuenta> colas = new ConcurrentHashMap<>();
+    private final BiFunction<Integer, List<Movimiento>, List<ResultadoMovimiento>> aplicarTanda;
+    private final ExecutorService trabajadores;
+    private final int tamanoMaximoTanda;
+    private final long timeoutMs;
+    private final DistributionSummary tamanoTanda;
+
+    CoordinadorEscrituraCuentas(BiFunction<Integer, List<Movimiento>, List<ResultadoMovimiento>> aplicarTanda,
+                                int cantidadTrabajadores, boolean hilosVirtuales, int tamanoMaximoTanda, long timeoutMs,
+                                DistributionSummary tamanoTanda) {
+        this.aplicarTanda = aplicarTanda;
+        // El pool fijo acota las transacciones simultáneas aunque los trabajadores sean hilos virtuales
+        this.trabajadores = Executors.newFixedThreadPool(cantidadTrabajadores, hilosVirtuales
+            ? Thread.ofVirtual().name("escritura-cuenta-", 0).factory()
+            : Thread.ofPlatform().name("escritura-cuenta-", 0).daemon(true).factory());
+        this.tamanoMaximoTanda = tamanoMaximoTanda;
+        this.timeoutMs = timeoutMs;
+        this.tamanoTanda = tamanoTanda;
+    }
+
+    /**
+     * Encola el movimiento y espera el resultado de la tanda en la que fue aplicado.
+     * Las excepciones de la tanda (cuenta inexistente, inactiva, error de BD) se propagan a todos sus llamadores.
+     */
+    ResultadoMovimiento encolar(Integer numeroCuenta, Movimiento movimiento) {
+        Solicitud solicitud = new Solicitud(movimiento);
+        // Las colas no se eliminan: eliminarlas abriría una ventana con dos trabajadores para la misma cuenta
+        ColaCuenta cola = colas.computeIfAbsent(numeroCuenta, n -> new ColaCuenta());
+        cola.pendientes.add(solicitud);
+        if (cola.programada.compareAndSet(false, true)) {
+            trabajadores.execute(() -> drenar(numeroCuenta, cola));
+        }
+        try {
+            return solicitud.resultado.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Estas solicitudes no llevan Idempotency-Key: si se informa el error, el movimiento no debe aplicarse
+            // después, o el reintento del cliente lo duplicaría. Si ya entró a una tanda se espera su resultado.
+            if (solicitud.cancelar()) {
+                throw new IllegalStateException("Tiempo de espera agotado: el movimiento en la cuenta " + numeroCuenta
+                    + " no se aplicó");
+            }
+            return esperarTanda(numeroCuenta, solicitud);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (solicitud.cancelar()) {
+                throw new IllegalStateException("Interrumpido esperando el movimiento en la cuenta " + numeroCuenta);
+            }
+            return esperarTanda(numeroCuenta, solicitud);
+        }
+    }
+
+    private ResultadoMovimiento esperarTanda(Integer numeroCuenta, Solicitud solicitud) {
+        // La tanda está en curso: termina con su transacción, acotada por los timeouts de bloqueo de la base
+        try {
+            return solicitud.resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Error aplicando el movimiento en la cuenta " + numeroCuenta, e.getCause());
+        }
+    }
+
+    void detener() {
+        trabajadores.shutdown();
+        try {
+            if (!trabajadores.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                trabajadores.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            trabajadores.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Aplica una sola tanda y, si quedan pendientes, vuelve a programar la cuenta al final de la cola del pool
+     * en lugar de seguir en ella: con pocos trabajadores compartidos por todas las cuentas, unas cuantas cuentas
+     * calientes no dejan a las demás esperando hasta agotar su tiempo.
+     */
+    private void drenar(Integer numeroCuenta, ColaCuenta cola) {
+        List<Solicitud> tanda = cola.tomarTanda(tamanoMaximoTanda);
+        if (!tanda.isEmpty()) {
+            aplicar(numeroCuenta, tanda);
+        }
+        cola.programada.set(false);
+        // Un productor pudo encolar después del último poll y antes de liberar la marca
+        if (!cola.pendientes.isEmpty() && cola.programada.compareAndSet(false, true)) {
+            try {
+                trabajadores.execute(() -> drenar(numeroCuenta, cola));
+            } catch (RejectedExecutionException e) {
+                // Pool detenido: los pendientes no se aplicarán
+                IllegalStateException detenido = new IllegalStateException(
+                    "Coordinador detenido: el movimiento en la cuenta " + numeroCuenta + " no se aplicó");
+                cola.tomarTanda(Integer.MAX_VALUE).forEach(solicitud -> solicitud.resultado.completeExceptionally(detenido));
+            }
+        }
+    }
+
+    private void aplicar(Integer numeroCuenta, List<Solicitud> tanda) {
+        tamanoTanda.record(tanda.size());
+        try {
+            List<ResultadoMovimiento> resultados = aplicarTanda.apply(numeroCuenta,
+                tanda.stream().map(Solicitud::movimiento).toList());
+            for (int i = 0; i < tanda.size(); i++) {
+                tanda.get(i).resultado.complete(resultados.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.warn("[MOVIMIENTOS][COORDINADOR] Cuenta {} tanda de {} revertida: {}",
+                numeroCuenta, tanda.size(), e.getMessage());
+            tanda.forEach(solicitud -> solicitud.resultado.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * tomada decide una sola vez el destino de la solicitud: la toma una tanda o la cancela su llamador.
+     */
+    private record Solicitud(Movimiento movimiento, CompletableFuture<ResultadoMovimiento> resultado, AtomicBoolean tomada) {
+        Solicitud(Movimiento movimiento) {
+            this(movimiento, new CompletableFuture<>(), new AtomicBoolean());
+        }
+
+        private boolean tomar() {
+            return tomada.compareAndSet(false, true);
+        }
+
+        private boolean cancelar() {
+            return tomar() && resultado.cancel(false);
+        }
+    }
+
+    private static final class ColaCuenta {
+        private final Queue<Solicitud> pendientes = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean programada = new AtomicBoolean();
+
+        private List<Solicitud> tomarTanda(int maximo) {
+            List<Solicitud> tanda = new ArrayList<>();
+            Solicitud solicitud;
+            while (tanda.size() < maximo && (solicitud = pendientes.poll()) != null) {
+                // Las canceladas por tiempo de espera se descartan
+                if (solicitud.tomar()) {
+                    tanda.add(solicitud);
+                }
+            }
+            return tanda;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.config.CacheConfig;
+import com.wquimis.demo.cuentasmovimientos.exceptions.CuentaInactivaException;
+import com.wquimis.demo.cuentasmovimientos.repository.CuentaRepository;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatos;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatosService;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache de metadatos de cuenta para las validaciones previas a un movimiento.
+ * Las cuentas inexistentes no se guardan en cache (la excepción no se cachea).
+ */
+@Service
+public class CuentaMetadatosServiceImpl implements CuentaMetadatosService {
+
+    private final CuentaRepository cuentaRepository;
+    private final Cache cache;
+
+    public CuentaMetadatosServiceImpl(CuentaRepository cuentaRepository, CacheManager cacheManager) {
+        this.cuentaRepository = cuentaRepository;
+        this.cache = cacheManager.getCache(CacheConfig.CUENTAS_METADATOS);
+    }
+
+    @Override
+    public CuentaMetadatos obtener(Integer numeroCuenta) {
+        CuentaMetadatos metadatos = cache.get(numeroCuenta, CuentaMetadatos.class);
+        if (metadatos == null) {
+            metadatos = cuentaRepository.findMetadatos(numeroCuenta)
+                .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta));
+            cache.put(numeroCuenta, metadatos);
+        }
+        return metadatos;
+    }
+
+    @Override
+    public void validarOperable(Integer numeroCuenta) {
+        if (!obtener(numeroCuenta).isActiva()) {
+            throw new CuentaInactivaException("La cuenta se encuentra inactiva");
+        }
+    }
+
+    @Override
+    public void invalidar(Integer numeroCuenta) {
+        cache.evict(numeroCuenta);
+    }
+}
@@ -1,61 +1,110 @@
 package com.wquimis.demo.cuentasmovimientos.services.impl;
 
+import com.wquimis.demo.cuentasmovimientos.dto.FiltroCuentasDTO;
 import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.entities.OutboxEvento;
 import com.wquimis.demo.cuentasmovimientos.exceptions.CuentaExistenteException;
+import com.wquimis.demo.cuentasmovimientos.exceptions.SaldoNoDisponibleException;
+import com.wquimis.demo.cuentasmovimientos.repository.CuentaEspecificaciones;
 import com.wquimis.demo.cuentasmovimientos.repository.CuentaRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.MovimientoRepository;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatosService;
 import com.wquimis.demo.cuentasmovimientos.services.CuentaService;
+import com.wquimis.demo.cuentasmovimientos.services.NumeracionCuentaService;
+import com.wquimis.demo.cuentasmovimientos.services.OutboxService;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoAplicado;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoDiarioService;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoFragmentadoService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.exception.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 
 @Service
+@Slf4j
 public class CuentaServiceImpl implements CuentaService {
 
     private final CuentaRepository cuentaRepository;
+    private final CuentaMetadatosService cuentaMetadatosService;
+    private final MovimientoRepository movimientoRepository;
+    private final SaldoDiarioService saldoDiarioService;
+    private final OutboxService outboxService;
+    private final SaldoFragmentadoService saldoFragmentadoService;
+    private final NumeracionCuentaService numeracionCuentaService;
 
-    public CuentaServiceImpl(CuentaRepository cuentaRepository) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CuentaServiceImpl(CuentaRepository cuentaRepository, CuentaMetadatosService cuentaMetadatosService,
+                             MovimientoRepository movimientoRepository, SaldoDiarioService saldoDiarioService,
+                             OutboxService outboxService, SaldoFragmentadoService saldoFragmentadoService,
+                             NumeracionCuentaService numeracionCuentaService) {
         this.cuentaRepository = cuentaRepository;
+        this.cuentaMetadatosService = cuentaMetadatosService;
+        this.movimientoRepository = movimientoRepository;
+        this.saldoDiarioService = saldoDiarioService;
+        this.outboxService = outboxService;
+        this.saldoFragmentadoService = saldoFragmentadoService;
+        this.numeracionCuentaService = numeracionCuentaService;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Cuenta> findAll() {
-        return cuentaRepository.findAll();
+        List<Cuenta> cuentas = cuentaRepository.findAll();
+        saldoFragmentadoService.cargarSaldoFragmentos(cuentas);
+        return cuentas;
     }
 
     @Override
     @Transactional(readOnly = true)
     public Cuenta findByNumeroCuenta(Integer numeroCuenta) {
-        return cuentaRepository.findById(numeroCuenta)
-            .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta));
-    }
-
-    @Override
-    @Transactional(readOnly = true)
-    public List<Cuenta> findByTipoCuenta(Cuenta.TipoCuenta tipoCuenta) {
-        return cuentaRepository.findByTipocuenta(tipoCuenta);
+        return saldoFragmentadoService.cargarSaldoFragmentos(cuentaRepository.findById(numeroCuenta)
+            .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta)));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Cuenta> findByEstado(Boolean estado) {
-        return cuentaRepository.findByEstado(estado);
+    public List<Cuenta> findByIdCliente(Long idCliente) {
+        List<Cuenta> cuentas = cuentaRepository.findByIdcliente(idCliente);
+        saldoFragmentadoService.cargarSaldoFragmentos(cuentas);
+        return cuentas;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Cuenta> findByIdCliente(Long idCliente) {
-        return cuentaRepository.findByIdcliente(idCliente);
+    public Page<Cuenta> buscar(FiltroCuentasDTO filtro, Pageable pageable) {
+        Page<Cuenta> pagina = cuentaRepository.findAll(CuentaEspecificaciones.porFiltro(filtro), pageable);
+        saldoFragmentadoService.cargarSaldoFragmentos(pagina.getContent());
+        return pagina;
     }
 
+    /**
+     * Sin número en la solicitud se asigna uno del rango reservado. Un número manual dentro de ese rango
+     * se rechaza para no chocar con la numeración automática. El duplicado lo detecta la PK en el INSERT
+     * (sin SELECT previo).
+     */
     @Override
     @Transactional
     public Cuenta save(Cuenta cuenta) {
-        // Verificar si ya existe una cuenta con el mismo número
-        if (cuentaRepository.findById(cuenta.getNumerocuenta()).isPresent()) {
-            throw new CuentaExistenteException("Ya existe una cuenta con el número: " + cuenta.getNumerocuenta());
+        if (cuenta.getNumerocuenta() == null) {
+            cuenta.setNumerocuenta(numeracionCuentaService.siguiente());
+        } else if (numeracionCuentaService.esReservado(cuenta.getNumerocuenta())) {
+            throw new IllegalArgumentException("El número de cuenta " + cuenta.getNumerocuenta() +
+                " pertenece al rango de numeración automática");
         }
 
         if (cuenta.getEstado() == null) {
@@ -64,30 +113,155 @@ public class CuentaServiceImpl implements CuentaService {
         if (cuenta.getFechacreacion() == null) {
             cuenta.setFechacreacion(LocalDateTime.now());
         }
-        return cuentaRepository.save(cuenta);
+        cuentaMetadatosService.invalidar(cuenta.getNumerocuenta());
+        try {
+            entityManager.persist(cuenta);
+            entityManager.flush();
+        } catch (EntityExistsException e) {
+            throw new CuentaExistenteException("Ya existe una cuenta con el número: " + cuenta.getNumerocuenta());
+        } catch (PersistenceException e) {
+            if (esClaveDuplicada(e)) {
+                throw new CuentaExistenteException("Ya existe una cuenta con el número: " + cuenta.getNumerocuenta());
+            }
+            throw e;
+        }
+        outboxService.registrar(OutboxEvento.TipoEvento.CUENTA_CREADA, cuenta);
+        registrarDepositoInicial(cuenta);
+        return cuenta;
     }
 
     @Override
     @Transactional
     public Cuenta saveOrUpdate(Cuenta cuenta) {
         // Este método actualiza una cuenta existente sin validar duplicados
-        return cuentaRepository.save(cuenta);
+        cuentaMetadatosService.invalidar(cuenta.getNumerocuenta());
+        Cuenta cuentaGuardada = cuentaRepository.save(cuenta);
+        outboxService.registrar(OutboxEvento.TipoEvento.CUENTA_ACTUALIZADA, cuentaGuardada);
+        return cuentaGuardada;
     }
 
     @Override
     @Transactional
     public Cuenta update(Integer numeroCuenta, Cuenta cuenta) {
-        Cuenta existingCuenta = findByNumeroCuenta(numeroCuenta);
+        // Con bloqueo: al guardar la entidad completa no se pisa un saldo o fragmentossaldo confirmado entre
+        // la lectura y el UPDATE por un débito, un crédito o un cambio de fragmentación
+        Cuenta existingCuenta = saldoFragmentadoService.cargarSaldoFragmentos(findByNumeroCuentaParaActualizar(numeroCuenta));
         // Permitir actualizar estado
         existingCuenta.setEstado(cuenta.getEstado());
-        return cuentaRepository.save(existingCuenta);
+        cuentaMetadatosService.invalidar(numeroCuenta);
+        Cuenta cuentaActualizada = cuentaRepository.save(existingCuenta);
+        outboxService.registrar(OutboxEvento.TipoEvento.CUENTA_ACTUALIZADA, cuentaActualizada);
+        return cuentaActualizada;
     }
 
     @Override
     @Transactional
     public void delete(Integer numeroCuenta) {
-        Cuenta cuenta = findByNumeroCuenta(numeroCuenta);
+        Cuenta cuenta = saldoFragmentadoService.cargarSaldoFragmentos(findByNumeroCuentaParaActualizar(numeroCuenta));
         cuenta.setEstado(false);
+        cuentaMetadatosService.invalidar(numeroCuenta);
         cuentaRepository.save(cuenta);
+        outboxService.registrar(OutboxEvento.TipoEvento.CUENTA_DESACTIVADA, cuenta);
+    }
+
+    @Override
+    public Cuenta getReferencia(Integer numeroCuenta) {
+        // Proxy sin SELECT: solo se usa como FK del movimiento
+        return cuentaRepository.getReferenceById(numeroCuenta);
+    }
+
+    @Override
+    @Transactional
+    public Cuenta findByNumeroCuentaParaActualizar(Integer numeroCuenta) {
+        return cuentaRepository.findByIdParaActualizar(numeroCuenta)
+            .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta));
+    }
+
+    /**
+     * Las cuentas fragmentadas según la cache van directo a sus fragmentos. Si la cache está desactualizada
+     * en cualquiera de los dos sentidos, el UPDATE atómico (que exige fragmentossaldo = 0) o la relectura
+     * con bloqueo lo detectan y el cambio se aplica por el camino correcto.
+     */
+    @Override
+    @Transactional
+    public SaldoAplicado debitar(Integer numeroCuenta, BigDecimal monto) {
+        if (cuentaMetadatosService.obtener(numeroCuenta).isFragmentada()) {
+            SaldoAplicado aplicado = saldoFragmentadoService.debitar(numeroCuenta, monto);
+            if (aplicado != null) {
+                return aplicado;
+            }
+            cuentaMetadatosService.invalidar(numeroCuenta);
+        }
+        if (cuentaRepository.debitarSiSaldoSuficiente(numeroCuenta, monto) == 0) {
+            // Solo en el camino de rechazo se relee la cuenta (con bloqueo) para clasificar el motivo:
+            // inexistente, inactiva, fragmentada o sin saldo suficiente
+            SaldoAplicado aplicado = saldoFragmentadoService.debitar(numeroCuenta, monto);
+            if (aplicado != null) {
+                cuentaMetadatosService.invalidar(numeroCuenta);
+                return aplicado;
+            }
+            throw new SaldoNoDisponibleException(
+                "Saldo no disponible. Saldo actual: " + obtenerSaldo(numeroCuenta) +
+                ", Monto solicitado: " + monto);
+        }
+        return SaldoAplicado.enCuenta(obtenerSaldo(numeroCuenta));
+    }
+
+    @Override
+    @Transactional
+    public SaldoAplicado acreditar(Integer numeroCuenta, BigDecimal monto) {
+        if (cuentaMetadatosService.obtener(numeroCuenta).isFragmentada()) {
+            SaldoAplicado aplicado = saldoFragmentadoService.acreditar(numeroCuenta, monto);
+            if (aplicado != null) {
+                return aplicado;
+            }
+            cuentaMetadatosService.invalidar(numeroCuenta);
+        }
+        if (cuentaRepository.acreditar(numeroCuenta, monto) == 0) {
+            SaldoAplicado aplicado = saldoFragmentadoService.acreditar(numeroCuenta, monto);
+            if (aplicado == null) {
+                throw new IllegalStateException("No se pudo acreditar la cuenta " + numeroCuenta);
+            }
+            cuentaMetadatosService.invalidar(numeroCuenta);
+            return aplicado;
+        }
+        return SaldoAplicado.enCuenta(obtenerSaldo(numeroCuenta));
+    }
+
+    /**
+     * El saldo inicial ya forma parte del saldo de la cuenta; se deja constancia en el historial con un
+     * movimiento de depósito que no vuelve a acreditar (antes lo enviaba onboarding como un POST más y
+     * se detectaba por la descripción para no duplicar el saldo).
+     */
+    private void registrarDepositoInicial(Cuenta cuenta) {
+        BigDecimal saldoInicial = cuenta.getSaldoinicial();
+        if (saldoInicial == null || saldoInicial.compareTo(BigDecimal.ZERO) <= 0) {
+            return;
+        }
+        Movimiento deposito = new Movimiento();
+        deposito.setCuenta(cuenta);
+        deposito.setTipomovimiento(Movimiento.TipoMovimiento.DEPOSITO);
+        deposito.setMontomovimiento(saldoInicial);
+        deposito.setSaldodisponible(saldoInicial);
+        deposito.setMovimientodescripcion("Depósito inicial");
+        deposito.setFechamovimiento(LocalDate.now());
+        deposito.setHoramovimiento(LocalTime.now());
+        movimientoRepository.save(deposito);
+        outboxService.registrar(OutboxEvento.TipoEvento.MOVIMIENTO_CREADO, cuenta.getNumerocuenta(), deposito);
+        saldoDiarioService.registrar(cuenta.getNumerocuenta(), deposito.getFechamovimiento(),
+            saldoInicial, BigDecimal.ZERO, 1, saldoInicial);
+        log.info("[CUENTAS][DEPOSITO_INICIAL] Cuenta {} monto {}", cuenta.getNumerocuenta(), saldoInicial);
+    }
+
+    // Hibernate entrega la violación de PK como tal o envuelta, según el punto del flush donde ocurre
+    private boolean esClaveDuplicada(PersistenceException e) {
+        Throwable causa = e instanceof ConstraintViolationException ? e : e.getCause();
+        return causa instanceof ConstraintViolationException violacion
+            && violacion.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE;
+    }
+
+    private BigDecimal obtenerSaldo(Integer numeroCuenta) {
+        return cuentaRepository.findSaldoDisponible(numeroCuenta)
+            .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta));
     }
 }
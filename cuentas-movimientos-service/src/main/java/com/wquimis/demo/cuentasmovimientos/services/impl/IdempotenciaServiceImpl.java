@@ -0,0 +1,154 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wquimis.demo.cuentasmovimientos.config.CacheConfig;
+import com.wquimis.demo.cuentasmovimientos.exceptions.ClaveIdempotenciaReutilizadaException;
+import com.wquimis.demo.cuentasmovimientos.repository.ClaveIdempotenciaRepository;
+import com.wquimis.demo.cuentasmovimientos.services.IdempotenciaService;
+import com.wquimis.demo.cuentasmovimientos.services.RespuestaIdempotente;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicación de solicitudes por Idempotency-Key. La clave se reserva en la misma transacción que
+ * el movimiento: si la operación falla se revierte junto con la reserva, y si se confirma la respuesta
+ * queda registrada de forma atómica con el cambio de saldo. Las respuestas confirmadas se copian a una
+ * cache en memoria para que los reintentos no consulten la base de datos.
+ */
+@Service
+@Slf4j
+public class IdempotenciaServiceImpl implements IdempotenciaService {
+
+    public static final String CABECERA_REPRODUCIDA = "Idempotent-Replayed";
+
+    private final ClaveIdempotenciaRepository claveIdempotenciaRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache cache;
+    private final Duration ttl;
+
+    public IdempotenciaServiceImpl(ClaveIdempotenciaRepository claveIdempotenciaRepository, ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager, CacheManager cacheManager,
+                                   @Value("${cuentas.idempotencia.ttl:PT24H}") Duration ttl) {
+        this.claveIdempotenciaRepository = claveIdempotenciaRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cache = cacheManager.getCache(CacheConfig.IDEMPOTENCIA);
+        this.ttl = ttl;
+    }
+
+    @Override
+    public ResponseEntity<?> ejecutar(String clave, String operacion, Object solicitud, Supplier<ResponseEntity<?>> accion) {
+        String huella = calcularHuella(operacion, solicitud);
+
+        RespuestaIdempotente previa = buscar(clave);
+        if (previa != null) {
+            return reproducir(clave, previa, huella);
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                LocalDateTime ahora = LocalDateTime.now();
+                claveIdempotenciaRepository.deleteExpirada(clave, ahora);
+                claveIdempotenciaRepository.reservar(clave, operacion, huella, ahora, ahora.plus(ttl));
+
+                ResponseEntity<?> respuesta = accion.get();
+                if (!respuesta.getStatusCode().is2xxSuccessful()) {
+                    // Los rechazos no se registran: se revierte la reserva y un reintento vuelve a evaluarse
+                    status.setRollbackOnly();
+                    return respuesta;
+                }
+
+                String cuerpo = serializar(respuesta.getBody());
+                claveIdempotenciaRepository.completar(clave, respuesta.getStatusCode().value(), cuerpo);
+                // Cache transaccional: el valor se publica solo después del commit
+                cache.put(clave, new RespuestaIdempotente(huella, respuesta.getStatusCode().value(), cuerpo));
+                return respuesta;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Una solicitud concurrente con la misma clave se confirmó primero
+            RespuestaIdempotente concurrente = buscar(clave);
+            if (concurrente == null) {
+                throw e;
+            }
+            return reproducir(clave, concurrente, huella);
+        }
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${cuentas.idempotencia.purga-ms:3600000}")
+    public int purgarExpiradas() {
+        int eliminadas = claveIdempotenciaRepository.deleteExpiradas(LocalDateTime.now());
+        if (eliminadas > 0) {
+            log.info("[IDEMPOTENCIA][PURGA] Claves expiradas eliminadas {}", eliminadas);
+        }
+        return eliminadas;
+    }
+
+    private RespuestaIdempotente buscar(String clave) {
+        RespuestaIdempotente enCache = cache.get(clave, RespuestaIdempotente.class);
+        if (enCache != null) {
+            return enCache;
+        }
+        return claveIdempotenciaRepository.findVigente(clave, LocalDateTime.now())
+            .map(registro -> {
+                RespuestaIdempotente respuesta = new RespuestaIdempotente(
+                    registro.getHuella(), registro.getEstadohttp(), registro.getRespuesta());
+                cache.put(clave, respuesta);
+                return respuesta;
+            })
+            .orElse(null);
+    }
+
+    private ResponseEntity<?> reproducir(String clave, RespuestaIdempotente previa, String huella) {
+        if (!previa.getHuella().equals(huella)) {
+            throw new ClaveIdempotenciaReutilizadaException(
+                "La Idempotency-Key " + clave + " ya se utilizó con una solicitud diferente");
+        }
+        log.info("[IDEMPOTENCIA][REPRODUCIDA] Clave {}", clave);
+        return ResponseEntity.status(previa.getEstadoHttp())
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(CABECERA_REPRODUCIDA, "true")
+            .body(previa.getCuerpo());
+    }
+
+    private String calcularHuella(String operacion, Object solicitud) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operacion.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(objectMapper.writeValueAsBytes(solicitud));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo calcular la huella de la solicitud", e);
+        }
+    }
+
+    private String serializar(Object cuerpo) {
+        try {
+            return objectMapper.writeValueAsString(cuerpo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo registrar la respuesta idempotente", e);
+        }
+    }
+}
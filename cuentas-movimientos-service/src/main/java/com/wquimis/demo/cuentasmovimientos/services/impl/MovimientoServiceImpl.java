@@ -1,35 +1,122 @@
 package com.wquimis.demo.cuentasmovimientos.services.impl;
 
+import com.wquimis.demo.cuentasmovimientos.dto.FiltroMovimientosDTO;
 import com.wquimis.demo.cuentasmovimientos.dto.MovimientoDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.ResumenReporteDTO;
 import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
 import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.entities.OutboxEvento;
+import com.wquimis.demo.cuentasmovimientos.exceptions.CuentaInactivaException;
 import com.wquimis.demo.cuentasmovimientos.exceptions.SaldoNoDisponibleException;
+import com.wquimis.demo.cuentasmovimientos.repository.MovimientoEspecificaciones;
 import com.wquimis.demo.cuentasmovimientos.repository.MovimientoRepository;
+import com.wquimis.demo.cuentasmovimientos.services.ArchivoMovimientosService;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatosService;
 import com.wquimis.demo.cuentasmovimientos.services.CuentaService;
 import com.wquimis.demo.cuentasmovimientos.services.MovimientoService;
+import com.wquimis.demo.cuentasmovimientos.services.OutboxService;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoMovimiento;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoReverso;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoAplicado;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoDiarioService;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoFragmentadoService;
+import com.wquimis.demo.cuentasmovimientos.utils.CursorMovimiento;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 @Slf4j
 public class MovimientoServiceImpl implements MovimientoService {
 
+    // Marca que llevan en la descripción los movimientos de reverso, seguida del id del original
+    private static final String MARCA_REVERSO = "[REVERSO ID#";
+    // Fecha mínima de MySQL: inicio de los rangos abiertos que pueden alcanzar movimientos archivados
+    private static final LocalDate SIN_LIMITE = LocalDate.of(1000, 1, 1);
+    private static final Comparator<Movimiento> ORDEN_ASCENDENTE = Comparator.comparing(Movimiento::getFechamovimiento)
+        .thenComparing(Movimiento::getHoramovimiento)
+        .thenComparing(Movimiento::getIdmovimiento);
+    private static final Comparator<Movimiento> ORDEN_DESCENDENTE = ORDEN_ASCENDENTE.reversed();
+
     private final MovimientoRepository movimientoRepository;
     private final CuentaService cuentaService;
+    private final SaldoDiarioService saldoDiarioService;
+    private final CuentaMetadatosService cuentaMetadatosService;
+    private final SaldoFragmentadoService saldoFragmentadoService;
+    private final OutboxService outboxService;
+    private final ArchivoMovimientosService archivoMovimientosService;
+    private final TransactionTemplate transactionTemplate;
+    // Nulo si el modo coordinado está deshabilitado
+    private final CoordinadorEscrituraCuentas coordinador;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public MovimientoServiceImpl(MovimientoRepository movimientoRepository, CuentaService cuentaService) {
+    public MovimientoServiceImpl(MovimientoRepository movimientoRepository, CuentaService cuentaService,
+                                 SaldoDiarioService saldoDiarioService, CuentaMetadatosService cuentaMetadatosService,
+                                 SaldoFragmentadoService saldoFragmentadoService, OutboxService outboxService,
+                                 ArchivoMovimientosService archivoMovimientosService,
+                                 PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                 @Value("${cuentas.escritura.coordinada.enabled:false}") boolean escrituraCoordinada,
+                                 @Value("${cuentas.escritura.coordinada.trabajadores:8}") int trabajadores,
+                                 @Value("${cuentas.escritura.coordinada.tamano-tanda:200}") int tamanoTanda,
+                                 @Value("${cuentas.escritura.coordinada.timeout-ms:10000}") long timeoutMs,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales) {
         this.movimientoRepository = movimientoRepository;
         this.cuentaService = cuentaService;
+        this.saldoDiarioService = saldoDiarioService;
+        this.cuentaMetadatosService = cuentaMetadatosService;
+        this.saldoFragmentadoService = saldoFragmentadoService;
+        this.outboxService = outboxService;
+        this.archivoMovimientosService = archivoMovimientosService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.coordinador = !escrituraCoordinada ? null : new CoordinadorEscrituraCuentas(
+            (numeroCuenta, tanda) -> transactionTemplate.execute(status -> realizarMovimientosCuenta(numeroCuenta, tanda)),
+            trabajadores, hilosVirtuales, tamanoTanda, timeoutMs,
+            DistributionSummary.builder("cuentas.escritura.coordinada.tanda")
+                .description("Movimientos aplicados por transacción en el modo de escritura coordinada")
+                .register(meterRegistry));
+    }
+
+    @PreDestroy
+    void detenerCoordinador() {
+        if (coordinador != null) {
+            coordinador.detener();
+        }
     }
 
     @Override
@@ -38,6 +125,12 @@ public class MovimientoServiceImpl implements MovimientoService {
         return movimientoRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Movimiento> buscar(FiltroMovimientosDTO filtro, Pageable pageable) {
+        return movimientoRepository.findAll(MovimientoEspecificaciones.porFiltro(filtro), pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Movimiento findById(Long id) {
@@ -48,14 +141,276 @@ public class MovimientoServiceImpl implements MovimientoService {
     @Override
     @Transactional(readOnly = true)
     public List<Movimiento> findByNumeroCuenta(Integer numeroCuenta) {
-        return movimientoRepository.findByCuentaNumerocuentaOrderByFechamovimientoDescHoramovimientoDesc(numeroCuenta);
+        return unirArchivados(numeroCuenta,
+            movimientoRepository.findByCuentaNumerocuentaOrderByFechamovimientoDescHoramovimientoDesc(numeroCuenta),
+            SIN_LIMITE, LocalDate.MAX);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Movimiento> findByNumeroCuentaAndFechaBetween(Integer numeroCuenta, LocalDate fechaInicio, LocalDate fechaFin) {
-        return movimientoRepository.findByCuentaNumerocuentaAndFechamovimientoBetweenOrderByFechamovimientoDescHoramovimientoDesc(
-                numeroCuenta, fechaInicio, fechaFin);
+        return unirArchivados(numeroCuenta,
+            movimientoRepository.findByCuentaNumerocuentaAndFechamovimientoBetweenOrderByFechamovimientoDescHoramovimientoDesc(
+                numeroCuenta, fechaInicio, fechaFin),
+            fechaInicio, fechaFin);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Movimiento> findPaginaByNumeroCuenta(Integer numeroCuenta, CursorMovimiento cursor, int limit) {
+        List<Movimiento> filas = cursor == null
+            ? movimientoRepository.findPrimeraPagina(numeroCuenta, PageRequest.ofSize(limit))
+            : movimientoRepository.findPaginaDespuesDe(numeroCuenta,
+                cursor.getFecha(), cursor.getHora(), cursor.getId(), PageRequest.ofSize(limit));
+        return unirPaginaArchivados(numeroCuenta, filas, SIN_LIMITE, LocalDate.MAX, cursor, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Movimiento> findPaginaByNumeroCuentaAndFechaBetween(Integer numeroCuenta, LocalDate fechaInicio, LocalDate fechaFin,
+                                                                    CursorMovimiento cursor, int limit) {
+        List<Movimiento> filas = cursor == null
+            ? movimientoRepository.findPrimeraPaginaEntreFechas(numeroCuenta, fechaInicio, fechaFin,
+                PageRequest.ofSize(limit))
+            : movimientoRepository.findPaginaEntreFechasDespuesDe(numeroCuenta, fechaInicio, fechaFin,
+                cursor.getFecha(), cursor.getHora(), cursor.getId(), PageRequest.ofSize(limit));
+        return unirPaginaArchivados(numeroCuenta, filas, fechaInicio, fechaFin, cursor, limit);
+    }
+
+    /**
+     * Entrega los movimientos del rango uno a uno. Cada entidad se desvincula del contexto de
+     * persistencia después de consumirse para que la memoria no crezca con el tamaño del rango.
+     * Los movimientos archivados del rango se intercalan en su posición mientras se recorre la BD.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void recorrerByNumeroCuentaAndFechaBetween(Integer numeroCuenta, LocalDate fechaInicio, LocalDate fechaFin,
+                                                      Consumer<Movimiento> consumidor) {
+        Iterator<Movimiento> archivados = buscarArchivados(entityManager.getReference(Cuenta.class, numeroCuenta),
+            fechaInicio, fechaFin, ORDEN_DESCENDENTE).iterator();
+        Movimiento archivado = archivados.hasNext() ? archivados.next() : null;
+        try (Stream<Movimiento> movimientos = movimientoRepository.streamByNumeroCuentaAndFechaBetween(
+                numeroCuenta, fechaInicio, fechaFin)) {
+            Iterator<Movimiento> filas = movimientos.iterator();
+            while (filas.hasNext()) {
+                Movimiento movimiento = filas.next();
+                while (archivado != null && ORDEN_DESCENDENTE.compare(archivado, movimiento) < 0) {
+                    consumidor.accept(archivado);
+                    archivado = archivados.hasNext() ? archivados.next() : null;
+                }
+                consumidor.accept(movimiento);
+                entityManager.detach(movimiento);
+            }
+        }
+        for (; archivado != null; archivado = archivados.hasNext() ? archivados.next() : null) {
+            consumidor.accept(archivado);
+        }
+    }
+
+    /**
+     * Entrega las filas (cuenta, movimiento) del reporte de cliente en orden; el movimiento es null para
+     * cuentas sin movimientos en el rango. Los movimientos se desvinculan al consumirse; las cuentas
+     * se mantienen porque se repiten en filas consecutivas. Los archivados de cada cuenta se buscan al
+     * llegar su primera fila y se intercalan en orden ascendente.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void recorrerReporteCliente(Long idCliente, LocalDate fechaInicio, LocalDate fechaFin,
+                                       BiConsumer<Cuenta, Movimiento> consumidor) {
+        Cuenta actual = null;
+        Iterator<Movimiento> archivados = Collections.emptyIterator();
+        Movimiento archivado = null;
+        try (Stream<Object[]> filas = movimientoRepository.streamReporteCliente(idCliente, fechaInicio, fechaFin)) {
+            Iterator<Object[]> iterador = filas.iterator();
+            while (iterador.hasNext()) {
+                Object[] fila = iterador.next();
+                Cuenta cuenta = (Cuenta) fila[0];
+                Movimiento movimiento = (Movimiento) fila[1];
+                if (cuenta != actual) {
+                    for (; archivado != null; archivado = archivados.hasNext() ? archivados.next() : null) {
+                        consumidor.accept(actual, archivado);
+                    }
+                    actual = saldoFragmentadoService.cargarSaldoFragmentos(cuenta);
+                    archivados = buscarArchivados(cuenta, fechaInicio, fechaFin, ORDEN_ASCENDENTE).iterator();
+                    archivado = archivados.hasNext() ? archivados.next() : null;
+                }
+                if (movimiento == null) {
+                    // Cuenta sin movimientos en la BD: la fila vacía solo se entrega si tampoco tiene archivados
+                    if (archivado == null) {
+                        consumidor.accept(cuenta, null);
+                    }
+                    continue;
+                }
+                while (archivado != null && ORDEN_ASCENDENTE.compare(archivado, movimiento) < 0) {
+                    consumidor.accept(cuenta, archivado);
+                    archivado = archivados.hasNext() ? archivados.next() : null;
+                }
+                consumidor.accept(cuenta, movimiento);
+                entityManager.detach(movimiento);
+            }
+        }
+        for (; archivado != null; archivado = archivados.hasNext() ? archivados.next() : null) {
+            consumidor.accept(actual, archivado);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResumenReporteDTO obtenerResumen(Integer numeroCuenta, LocalDate fechaInicio, LocalDate fechaFin) {
+        List<Movimiento> archivados = buscarArchivados(entityManager.getReference(Cuenta.class, numeroCuenta),
+            fechaInicio, fechaFin, ORDEN_ASCENDENTE);
+        if (!archivados.isEmpty()) {
+            return obtenerResumenConArchivados(numeroCuenta, archivados, fechaInicio, fechaFin);
+        }
+
+        MovimientoRepository.ResumenMovimientos resumen =
+            movimientoRepository.findResumenByNumeroCuentaAndFechaBetween(numeroCuenta, fechaInicio, fechaFin);
+
+        ResumenReporteDTO dto = new ResumenReporteDTO();
+        dto.setTotalDepositos(resumen.getTotalDepositos());
+        dto.setTotalRetiros(resumen.getTotalRetiros());
+        dto.setCantidadMovimientos(resumen.getCantidadMovimientos());
+        if (resumen.getCantidadMovimientos() > 0) {
+            dto.setSaldoApertura(resumen.getSaldoApertura());
+            dto.setSaldoCierre(resumen.getSaldoCierre());
+        } else {
+            // Sin movimientos en el rango el saldo no cambia: se toma el cierre diario vigente al final del rango
+            BigDecimal saldo = obtenerSaldoSinMovimientos(numeroCuenta, fechaFin);
+            dto.setSaldoApertura(saldo);
+            dto.setSaldoCierre(saldo);
+        }
+        return dto;
+    }
+
+    /**
+     * Resumen de un rango que alcanza movimientos archivados. Los días archivados se resumen en memoria junto con
+     * las filas que siguen en la BD en esos días (modificadas después de archivarse, pocas); los días posteriores
+     * se toman del resumen SQL.
+     */
+    private ResumenReporteDTO obtenerResumenConArchivados(Integer numeroCuenta, List<Movimiento> archivados,
+                                                          LocalDate fechaInicio, LocalDate fechaFin) {
+        LocalDate ultimoDiaArchivado = archivados.get(archivados.size() - 1).getFechamovimiento();
+        List<Movimiento> ventana = new ArrayList<>(archivados);
+        ventana.addAll(movimientoRepository.findByCuentaNumerocuentaAndFechamovimientoBetween(
+            numeroCuenta, fechaInicio, ultimoDiaArchivado));
+        ventana.sort(ORDEN_ASCENDENTE);
+
+        BigDecimal depositos = BigDecimal.ZERO;
+        BigDecimal retiros = BigDecimal.ZERO;
+        for (Movimiento movimiento : ventana) {
+            if (movimiento.getTipomovimiento() == Movimiento.TipoMovimiento.DEPOSITO) {
+                depositos = depositos.add(movimiento.getMontomovimiento().abs());
+            } else {
+                retiros = retiros.add(movimiento.getMontomovimiento().abs());
+            }
+        }
+        Movimiento primero = ventana.get(0);
+        BigDecimal efectoPrimero = primero.getTipomovimiento() == Movimiento.TipoMovimiento.DEPOSITO
+            ? primero.getMontomovimiento().abs()
+            : primero.getMontomovimiento().abs().negate();
+
+        ResumenReporteDTO dto = new ResumenReporteDTO();
+        dto.setSaldoApertura(primero.getSaldodisponible().subtract(efectoPrimero));
+        dto.setSaldoCierre(ventana.get(ventana.size() - 1).getSaldodisponible());
+        long cantidad = ventana.size();
+        if (ultimoDiaArchivado.isBefore(fechaFin)) {
+            MovimientoRepository.ResumenMovimientos posterior = movimientoRepository
+                .findResumenByNumeroCuentaAndFechaBetween(numeroCuenta, ultimoDiaArchivado.plusDays(1), fechaFin);
+            depositos = depositos.add(posterior.getTotalDepositos());
+            retiros = retiros.add(posterior.getTotalRetiros());
+            cantidad += posterior.getCantidadMovimientos();
+            if (posterior.getCantidadMovimientos() > 0) {
+                dto.setSaldoCierre(posterior.getSaldoCierre());
+            }
+        }
+        dto.setTotalDepositos(depositos);
+        dto.setTotalRetiros(retiros);
+        dto.setCantidadMovimientos(cantidad);
+        return dto;
+    }
+
+    /**
+     * Movimientos archivados de la cuenta en el rango que ya no están en la BD, en el orden indicado
+     * (ver {@link ArchivoMovimientosService}). Si un id sigue en ambos lados (pasada interrumpida o fila modificada
+     * después de archivarse) gana la BD, que es la versión vigente. Sin segmentos, o si el rango es posterior al
+     * último día archivado de la cuenta, no lee segmentos ni consulta la BD.
+     */
+    private List<Movimiento> buscarArchivados(Cuenta cuenta, LocalDate fechaInicio, LocalDate fechaFin,
+                                              Comparator<Movimiento> orden) {
+        LocalDate ultimoDiaArchivado = archivoMovimientosService.fechaMaximaArchivada(cuenta.getNumerocuenta());
+        if (ultimoDiaArchivado == null || ultimoDiaArchivado.isBefore(fechaInicio)) {
+            return List.of();
+        }
+        LocalDate hasta = fechaFin.isBefore(ultimoDiaArchivado) ? fechaFin : ultimoDiaArchivado;
+        List<Movimiento> archivados = archivoMovimientosService.buscar(cuenta, fechaInicio, hasta);
+        if (archivados.isEmpty()) {
+            return archivados;
+        }
+        Set<Long> enBd = new HashSet<>(movimientoRepository.findIdsByNumeroCuentaAndFechaBetween(
+            cuenta.getNumerocuenta(), fechaInicio, hasta));
+        return archivados.stream()
+            .filter(movimiento -> !enBd.contains(movimiento.getIdmovimiento()))
+            .sorted(orden)
+            .toList();
+    }
+
+    private List<Movimiento> unirArchivados(Integer numeroCuenta, List<Movimiento> movimientos,
+                                            LocalDate fechaInicio, LocalDate fechaFin) {
+        // Referencia sin consulta: los movimientos archivados solo usan el número de cuenta
+        Cuenta cuenta = movimientos.isEmpty()
+            ? entityManager.getReference(Cuenta.class, numeroCuenta)
+            : movimientos.get(0).getCuenta();
+        List<Movimiento> archivados = buscarArchivados(cuenta, fechaInicio, fechaFin, ORDEN_DESCENDENTE);
+        if (archivados.isEmpty()) {
+            return movimientos;
+        }
+        List<Movimiento> unidos = new ArrayList<>(movimientos.size() + archivados.size());
+        unidos.addAll(movimientos);
+        unidos.addAll(archivados);
+        unidos.sort(ORDEN_DESCENDENTE);
+        return unidos;
+    }
+
+    /**
+     * Completa una página de la BD con los archivados que le corresponden según el cursor. Si la página de la BD
+     * está llena solo pueden entrar archivados del día de su última fila en adelante.
+     */
+    private List<Movimiento> unirPaginaArchivados(Integer numeroCuenta, List<Movimiento> filas, LocalDate fechaInicio,
+                                                  LocalDate fechaFin, CursorMovimiento cursor, int limit) {
+        LocalDate desde = fechaInicio;
+        if (filas.size() >= limit) {
+            LocalDate ultimaFecha = filas.get(filas.size() - 1).getFechamovimiento();
+            desde = ultimaFecha.isAfter(desde) ? ultimaFecha : desde;
+        }
+        LocalDate hasta = cursor != null && cursor.getFecha().isBefore(fechaFin) ? cursor.getFecha() : fechaFin;
+        if (desde.isAfter(hasta)) {
+            return filas;
+        }
+        Cuenta cuenta = filas.isEmpty()
+            ? entityManager.getReference(Cuenta.class, numeroCuenta)
+            : filas.get(0).getCuenta();
+        List<Movimiento> archivados = buscarArchivados(cuenta, desde, hasta, ORDEN_DESCENDENTE).stream()
+            .filter(movimiento -> cursor == null || posteriorAlCursor(movimiento, cursor))
+            .limit(limit)
+            .toList();
+        if (archivados.isEmpty()) {
+            return filas;
+        }
+        List<Movimiento> unidos = new ArrayList<>(filas.size() + archivados.size());
+        unidos.addAll(filas);
+        unidos.addAll(archivados);
+        unidos.sort(ORDEN_DESCENDENTE);
+        return unidos.size() > limit ? unidos.subList(0, limit) : unidos;
+    }
+
+    // El cursor es la última fila entregada: la página siguiente sigue en orden descendente
+    private static boolean posteriorAlCursor(Movimiento movimiento, CursorMovimiento cursor) {
+        int fecha = movimiento.getFechamovimiento().compareTo(cursor.getFecha());
+        if (fecha != 0) {
+            return fecha < 0;
+        }
+        int hora = movimiento.getHoramovimiento().compareTo(cursor.getHora());
+        return hora != 0 ? hora < 0 : movimiento.getIdmovimiento() < cursor.getId();
     }
 
     @Override
@@ -84,118 +439,405 @@ public class MovimientoServiceImpl implements MovimientoService {
             throw new IllegalStateException("No se puede revertir un movimiento que ya ha sido revertido");
         }
         
-        Cuenta cuenta = movimientoOriginal.getCuenta();
+        Integer numeroCuenta = movimientoOriginal.getCuenta().getNumerocuenta();
         
-        // Crear el movimiento de reverso
-        Movimiento movimientoReverso = new Movimiento();
-        movimientoReverso.setCuenta(cuenta);
-        movimientoReverso.setFechamovimiento(LocalDate.now());
-        movimientoReverso.setHoramovimiento(LocalTime.now());
-        movimientoReverso.setEstado(true); // El reverso es una operación correcta
+        // Crear el movimiento de reverso (tipo opuesto, mismo monto en valor absoluto)
+        Movimiento movimientoReverso = crearReverso(movimientoOriginal);
+        BigDecimal montoReverso = movimientoReverso.getMontomovimiento();
         
-        // Determinar el tipo de movimiento reverso y el monto
-        BigDecimal montoReverso = movimientoOriginal.getMontomovimiento().abs(); // Usar valor absoluto
-        
-        if (movimientoOriginal.getTipomovimiento() == Movimiento.TipoMovimiento.DEPOSITO) {
-            // Si el original fue un depósito, hacer un retiro de reverso
-            movimientoReverso.setTipomovimiento(Movimiento.TipoMovimiento.RETIRO);
-            movimientoReverso.setMovimientodescripcion(
-                movimientoOriginal.getMovimientodescripcion() + " [REVERSO ID#" + movimientoOriginal.getIdmovimiento() + "]");
-            
-            // Verificar que hay saldo suficiente para el reverso
-            if (!cuenta.tieneSaldoSuficiente(montoReverso)) {
+        SaldoAplicado saldoResultante;
+        if (movimientoReverso.getTipomovimiento() == Movimiento.TipoMovimiento.RETIRO) {
+            // Si el original fue un depósito, hacer un retiro de reverso (UPDATE condicional al saldo)
+            try {
+                saldoResultante = cuentaService.debitar(numeroCuenta, montoReverso);
+            } catch (SaldoNoDisponibleException e) {
                 throw new SaldoNoDisponibleException(
-                    "No hay saldo suficiente para revertir el depósito. Saldo actual: " + 
-                    cuenta.getSaldodisponible() + ", Monto requerido: " + montoReverso);
+                    "No hay saldo suficiente para revertir el depósito. " + e.getMessage());
             }
-            
-            // Debitar de la cuenta
-            cuenta.debitar(montoReverso);
-            movimientoReverso.setMontomovimiento(montoReverso);
-            
         } else {
             // Si el original fue un retiro, hacer un depósito de reverso
-            movimientoReverso.setTipomovimiento(Movimiento.TipoMovimiento.DEPOSITO);
-            movimientoReverso.setMovimientodescripcion(
-                movimientoOriginal.getMovimientodescripcion() + " [REVERSO ID#" + movimientoOriginal.getIdmovimiento() + "]");
-            
-            // Acreditar a la cuenta
-            cuenta.acreditar(montoReverso);
-            movimientoReverso.setMontomovimiento(montoReverso);
+            saldoResultante = cuentaService.acreditar(numeroCuenta, montoReverso);
+        }
+
+        // Con la cuenta ya bloqueada por el cambio de saldo se relee el estado con bloqueo: otra anulación
+        // (individual o por lote) pudo confirmarse después de la lectura inicial. La excepción revierte el saldo.
+        if (!Boolean.TRUE.equals(movimientoRepository.findEstadoParaActualizar(id))) {
+            throw new IllegalStateException("No se puede revertir un movimiento que ya ha sido revertido");
         }
         
         // Establecer el saldo disponible después del reverso
-        movimientoReverso.setSaldodisponible(cuenta.getSaldodisponible());
+        movimientoReverso.setSaldodisponible(saldoResultante.getSaldo());
         
         // Anular el movimiento original: cambiar descripción y marcar como reversado
-        LocalDateTime fechaHoraAnulacion = LocalDateTime.now();
-        String descripcionAnulacion = String.format("Operacion Anulada %s.%03d", 
-            fechaHoraAnulacion.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
-            fechaHoraAnulacion.getNano() / 1_000_000); // Convertir nanosegundos a milisegundos
-        
-        movimientoOriginal.setMovimientodescripcion(descripcionAnulacion);
-        movimientoOriginal.setEstado(false); // Marcado como reversado (esReverso = true en DTO)
+        anular(movimientoOriginal);
         
         // El movimiento de reverso tiene estado = true (esReverso = false en DTO) ya que es una operación nueva y correcta
         
-        // Guardar los cambios
-        cuentaService.saveOrUpdate(cuenta);
+        // Guardar los cambios (el saldo de la cuenta ya fue actualizado por el UPDATE atómico)
         movimientoRepository.save(movimientoOriginal); // Actualizar el estado y descripción del original
         movimientoRepository.save(movimientoReverso);   // Guardar el movimiento de reverso
+        if (saldoResultante.isProvisional()) {
+            saldoFragmentadoService.registrarProvisional(numeroCuenta, movimientoReverso);
+        }
+        registrarSaldoDiario(numeroCuenta, movimientoReverso, saldoResultante.getFragmento());
+        outboxService.registrar(OutboxEvento.TipoEvento.MOVIMIENTO_ANULADO, numeroCuenta, movimientoOriginal);
+        outboxService.registrar(OutboxEvento.TipoEvento.MOVIMIENTO_CREADO, numeroCuenta, movimientoReverso);
     }
 
+    /**
+     * Registra un movimiento aplicando el cambio de saldo con un único UPDATE condicional.
+     * No se lee la cuenta antes de escribir: el rechazo por saldo, cuenta inactiva o inexistente
+     * se deduce del número de filas afectadas, evitando actualizaciones perdidas bajo concurrencia.
+     */
     @Override
-    public Movimiento realizarMovimiento(Movimiento movimiento) {
-        Cuenta cuenta = movimiento.getCuenta();
+    public Movimiento realizarMovimiento(Integer numeroCuenta, Movimiento movimiento) {
+        // Rechazo temprano (desde cache) de cuentas inexistentes o inactivas, sin tomar el bloqueo de la fila.
+        // El UPDATE condicional sigue siendo la validación definitiva.
+        cuentaMetadatosService.validarOperable(numeroCuenta);
         BigDecimal monto = movimiento.getMontomovimiento();
+        SaldoAplicado saldoResultante;
 
-        // Validar saldo disponible para retiros
         if (movimiento.getTipomovimiento() == Movimiento.TipoMovimiento.RETIRO) {
-            if (!cuenta.tieneSaldoSuficiente(monto)) {
-                throw new SaldoNoDisponibleException(
-                    "Saldo no disponible. Saldo actual: " + cuenta.getSaldodisponible() + 
-                    ", Monto solicitado: " + monto);
+            saldoResultante = cuentaService.debitar(numeroCuenta, monto);
+        } else {
+            saldoResultante = cuentaService.acreditar(numeroCuenta, monto);
+        }
+
+        movimiento.setCuenta(cuentaService.getReferencia(numeroCuenta));
+        movimiento.setFechamovimiento(LocalDate.now());
+        movimiento.setHoramovimiento(LocalTime.now());
+        movimiento.setSaldodisponible(saldoResultante.getSaldo());
+
+        Movimiento guardado = movimientoRepository.save(movimiento);
+        if (saldoResultante.isProvisional()) {
+            saldoFragmentadoService.registrarProvisional(numeroCuenta, guardado);
+        }
+        registrarSaldoDiario(numeroCuenta, guardado, saldoResultante.getFragmento());
+        outboxService.registrar(OutboxEvento.TipoEvento.MOVIMIENTO_CREADO, numeroCuenta, guardado);
+        return guardado;
+    }
+
+    /**
+     * Con el modo coordinado habilitado el movimiento se encola en su cuenta y se aplica junto con los demás
+     * pendientes de la misma cuenta en una sola transacción (ver {@link CoordinadorEscrituraCuentas}).
+     * El commit lo hace el trabajador de la cuenta, por eso solo se encola cuando el llamador no tiene una transacción
+     * activa: dentro de una (por ejemplo la reserva de una Idempotency-Key) el movimiento se aplica en ella para que
+     * ambos se confirmen o reviertan juntos.
+     * Con el modo deshabilitado, o si la cuenta está fragmentada (sus depósitos ya no se serializan en una fila),
+     * equivale a {@link #realizarMovimiento}.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Movimiento realizarMovimientoCoordinado(Integer numeroCuenta, Movimiento movimiento) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return realizarMovimiento(numeroCuenta, movimiento);
+        }
+        if (coordinador == null || cuentaMetadatosService.obtener(numeroCuenta).isFragmentada()) {
+            return transactionTemplate.execute(status -> realizarMovimiento(numeroCuenta, movimiento));
+        }
+        cuentaMetadatosService.validarOperable(numeroCuenta);
+        ResultadoMovimiento resultado = coordinador.encolar(numeroCuenta, movimiento);
+        if (!resultado.isExitoso()) {
+            throw excepcionDeRechazo(resultado);
+        }
+        return resultado.getMovimiento();
+    }
+
+    // Traduce el rechazo individual de una tanda a la excepción que lanzaría realizarMovimiento
+    private static RuntimeException excepcionDeRechazo(ResultadoMovimiento resultado) {
+        return switch (resultado.getCodigo()) {
+            case "MOV_401_SALDO_INSUFICIENTE" -> new SaldoNoDisponibleException(resultado.getMensaje());
+            case "ACC_401_CUENTA_INACTIVA" -> new CuentaInactivaException(resultado.getMensaje());
+            case "NOT_201_CUENTA" -> new EntityNotFoundException(resultado.getMensaje());
+            default -> new IllegalStateException(resultado.getCodigo() + ": " + resultado.getMensaje());
+        };
+    }
+
+    /**
+     * Aplica un grupo de movimientos de una misma cuenta en una sola transacción:
+     * bloquea la fila de la cuenta una vez, evalúa los movimientos en orden sobre el saldo en memoria,
+     * escribe el saldo final con un único UPDATE e inserta los movimientos aceptados por lotes JDBC.
+     * Los retiros sin saldo se rechazan individualmente sin abortar el resto del grupo.
+     */
+    @Override
+    public List<ResultadoMovimiento> realizarMovimientosCuenta(Integer numeroCuenta, List<Movimiento> movimientos) {
+        Cuenta cuenta = cuentaService.findByNumeroCuentaParaActualizar(numeroCuenta);
+        if (!Boolean.TRUE.equals(cuenta.getEstado())) {
+            throw new CuentaInactivaException("La cuenta se encuentra inactiva");
+        }
+        if (cuenta.isFragmentada()) {
+            return realizarMovimientosCuentaFragmentada(cuenta, movimientos);
+        }
+
+        List<ResultadoMovimiento> resultados = new ArrayList<>(movimientos.size());
+        List<Movimiento> aceptados = new ArrayList<>(movimientos.size());
+        LocalDate fecha = LocalDate.now();
+        BigDecimal creditos = BigDecimal.ZERO;
+        BigDecimal debitos = BigDecimal.ZERO;
+
+        for (Movimiento movimiento : movimientos) {
+            BigDecimal monto = movimiento.getMontomovimiento();
+            if (movimiento.getTipomovimiento() == Movimiento.TipoMovimiento.RETIRO) {
+                if (!cuenta.tieneSaldoSuficiente(monto)) {
+                    resultados.add(ResultadoMovimiento.rechazado(movimiento, "MOV_401_SALDO_INSUFICIENTE",
+                        "Saldo no disponible. Saldo actual: " + cuenta.getSaldodisponible() +
+                        ", Monto solicitado: " + monto));
+                    continue;
+                }
+                cuenta.debitar(monto);
+                debitos = debitos.add(monto);
+            } else {
+                cuenta.acreditar(monto);
+                creditos = creditos.add(monto);
             }
-            // Debitar de la cuenta
-            cuenta.debitar(monto);
-        } else { // DEPÓSITO
-            boolean esDepositoInicial = false;
-            // Detectar posible depósito inicial (patrón de onboarding)
-            if (movimiento.getMovimientodescripcion() != null &&
-                movimiento.getMovimientodescripcion().toLowerCase().contains("depósito inicial") ) {
-                // Si el saldo disponible ya es igual al saldo inicial + monto (o ya refleja el monto)
-                // entonces probablemente el saldo ya fue seteado al crear la cuenta
-                BigDecimal saldoAntes = cuenta.getSaldodisponible();
-                BigDecimal saldoInicial = cuenta.getSaldoinicial();
-                if (saldoAntes != null && saldoInicial != null) {
-                    // Caso A: prePersist ya igualó saldodisponible = saldoinicial y el movimiento repite ese monto
-                    if (saldoAntes.compareTo(saldoInicial) == 0 && monto.compareTo(saldoInicial) == 0) {
-                        esDepositoInicial = true;
-                        log.info("[MOVIMIENTOS][SKIP_DEPOSITO_INICIAL] Evitando doble acreditación. Cuenta {} saldoActual {} monto {}", cuenta.getNumerocuenta(), saldoAntes, monto);
-                    }
-                    // Caso B: saldo disponible ya incluye el monto (posible reintento) -> saldoAntes - monto == saldoInicial
-                    else if (saldoAntes.subtract(monto).compareTo(saldoInicial) == 0) {
-                        esDepositoInicial = true;
-                        log.warn("[MOVIMIENTOS][REINTENTO_DEPOSITO_INICIAL] Detectado reintento de depósito inicial. Cuenta {} saldoActual {} monto {}", cuenta.getNumerocuenta(), saldoAntes, monto);
+
+            movimiento.setCuenta(cuenta);
+            movimiento.setFechamovimiento(fecha);
+            movimiento.setHoramovimiento(LocalTime.now());
+            movimiento.setSaldodisponible(cuenta.getSaldodisponible());
+            aceptados.add(movimiento);
+            resultados.add(ResultadoMovimiento.exitoso(movimiento));
+        }
+
+        // La cuenta está gestionada y bloqueada: el saldo final se escribe en el flush (un solo UPDATE)
+        movimientoRepository.saveAll(aceptados);
+        aceptados.forEach(movimiento ->
+            outboxService.registrar(OutboxEvento.TipoEvento.MOVIMIENTO_CREADO, numeroCuenta, movimiento));
+        if (!aceptados.isEmpty()) {
+            // Una sola acumulación diaria por grupo con los totales del lote
+            saldoDiarioService.registrar(numeroCuenta, fecha, creditos, debitos, aceptados.size(),
+                cuenta.getSaldodisponible());
+        }
+        log.debug("[MOVIMIENTOS][LOTE] Cuenta {} aceptados {} rechazados {}",
+            numeroCuenta, aceptados.size(), movimientos.size() - aceptados.size());
+        return resultados;
+    }
+
+    /**
+     * Grupo sobre una cuenta fragmentada: la cuenta ya está bloqueada en exclusiva, así que se parte del saldo total
+     * exacto (asentando los depósitos provisionales previos) y cada movimiento se aplica sobre los fragmentos en orden
+     * continuando ese saldo en memoria. Antes de acumular el día se consolidan los pendientes de los depósitos
+     * previos, de modo que el cierre escrito es el saldo total vigente.
+     */
+    private List<ResultadoMovimiento> realizarMovimientosCuentaFragmentada(Cuenta cuenta, List<Movimiento> movimientos) {
+        Integer numeroCuenta = cuenta.getNumerocuenta();
+        List<ResultadoMovimiento> resultados = new ArrayList<>(movimientos.size());
+        List<Movimiento> aceptados = new ArrayList<>(movimientos.size());
+        LocalDate fecha = LocalDate.now();
+        BigDecimal creditos = BigDecimal.ZERO;
+        BigDecimal debitos = BigDecimal.ZERO;
+        BigDecimal saldo = saldoFragmentadoService.asentar(numeroCuenta);
+
+        for (Movimiento movimiento : movimientos) {
+            BigDecimal monto = movimiento.getMontomovimiento();
+            if (movimiento.getTipomovimiento() == Movimiento.TipoMovimiento.RETIRO) {
+                try {
+                    saldo = saldoFragmentadoService.debitar(numeroCuenta, monto).getSaldo();
+                } catch (SaldoNoDisponibleException e) {
+                    resultados.add(ResultadoMovimiento.rechazado(movimiento, "MOV_401_SALDO_INSUFICIENTE", e.getMessage()));
+                    continue;
+                }
+                debitos = debitos.add(monto);
+            } else {
+                // El saldo que devuelve es provisional; con la cuenta en exclusiva el exacto es el anterior más el monto
+                saldoFragmentadoService.acreditar(numeroCuenta, monto);
+                saldo = saldo.add(monto);
+                creditos = creditos.add(monto);
+            }
+
+            movimiento.setCuenta(cuenta);
+            movimiento.setFechamovimiento(fecha);
+            movimiento.setHoramovimiento(LocalTime.now());
+            movimiento.setSaldodisponible(saldo);
+            aceptados.add(movimiento);
+            resultados.add(ResultadoMovimiento.exitoso(movimiento));
+        }
+
+        movimientoRepository.saveAll(aceptados);
+        aceptados.forEach(movimiento ->
+            outboxService.registrar(OutboxEvento.TipoEvento.MOVIMIENTO_CREADO, numeroCuenta, movimiento));
+        if (!aceptados.isEmpty()) {
+            saldoDiarioService.consolidar(numeroCuenta);
+            saldoDiarioService.registrar(numeroCuenta, fecha, creditos, debitos, aceptados.size(),
+                aceptados.get(aceptados.size() - 1).getSaldodisponible());
+        }
+        log.debug("[MOVIMIENTOS][LOTE] Cuenta {} fragmentada aceptados {} rechazados {}",
+            numeroCuenta, aceptados.size(), movimientos.size() - aceptados.size());
+        return resultados;
+    }
+
+    /**
+     * Movimientos reversibles de la cuenta en la ventana indicada, en orden cronológico. Como máximo
+     * se retornan 'limite' ids; el llamador decide qué hacer si la ventana tiene más.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> findIdsReversibles(Integer numeroCuenta, LocalDateTime desde, LocalDateTime hasta, int limite) {
+        return movimientoRepository.findIdsReversibles(numeroCuenta,
+            desde.toLocalDate(), desde.toLocalTime(), hasta.toLocalDate(), hasta.toLocalTime(),
+            "%" + MARCA_REVERSO + "%", PageRequest.ofSize(limite));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> findNumerosCuenta(Collection<Long> ids) {
+        return movimientoRepository.findCuentasByIds(ids).stream()
+            .collect(Collectors.toMap(MovimientoRepository.CuentaMovimiento::getIdMovimiento,
+                MovimientoRepository.CuentaMovimiento::getNumeroCuenta));
+    }
+
+    /**
+     * Revierte un grupo de movimientos de una misma cuenta en una sola transacción: bloquea la cuenta y luego
+     * los movimientos (el mismo orden de la anulación individual), evalúa los reversos en orden sobre el saldo
+     * en memoria y aplica el efecto neto con una sola escritura del saldo. Reversos y anulaciones se escriben
+     * por lotes JDBC. Los reversos de depósitos sin saldo se rechazan individualmente; los movimientos ya
+     * anulados se informan como ya reversados, de modo que reintentar el lote completo es seguro.
+     */
+    @Override
+    public List<ResultadoReverso> reversarMovimientosCuenta(Integer numeroCuenta, List<Long> ids) {
+        Cuenta cuenta = cuentaService.findByNumeroCuentaParaActualizar(numeroCuenta);
+        if (!Boolean.TRUE.equals(cuenta.getEstado())) {
+            throw new CuentaInactivaException("La cuenta se encuentra inactiva");
+        }
+        Map<Long, Movimiento> originales = movimientoRepository.findParaReversar(ids).stream()
+            .filter(movimiento -> numeroCuenta.equals(movimiento.getCuenta().getNumerocuenta()))
+            .collect(Collectors.toMap(Movimiento::getIdmovimiento, movimiento -> movimiento));
+
+        boolean fragmentada = cuenta.isFragmentada();
+        BigDecimal saldoInicial = fragmentada ? saldoFragmentadoService.asentar(numeroCuenta) : cuenta.getSaldodisponible();
+        BigDecimal saldo = saldoInicial;
+        List<ResultadoReverso> resultados = new ArrayList<>(ids.size());
+        List<Movimiento> anulados = new ArrayList<>(ids.size());
+        List<Movimiento> reversos = new ArrayList<>(ids.size());
+        LocalDate fecha = LocalDate.now();
+        BigDecimal creditos = BigDecimal.ZERO;
+        BigDecimal debitos = BigDecimal.ZERO;
+
+        for (Long id : ids) {
+            Movimiento original = originales.get(id);
+            if (original == null) {
+                resultados.add(ResultadoReverso.rechazado(id, "NOT_202_MOVIMIENTO",
+                    "Movimiento no encontrado con ID: " + id + " en la cuenta " + numeroCuenta));
+                continue;
+            }
+            if (!original.getEstado()) {
+                resultados.add(ResultadoReverso.yaReversado(id));
+                continue;
+            }
+
+            Movimiento reverso = crearReverso(original);
+            BigDecimal monto = reverso.getMontomovimiento();
+            boolean esRetiro = reverso.getTipomovimiento() == Movimiento.TipoMovimiento.RETIRO;
+            if (fragmentada) {
+                // En una cuenta fragmentada el saldo vive en los fragmentos: cada reverso se aplica sobre ellos y el
+                // saldo exacto se sigue en memoria desde el asentado al inicio
+                try {
+                    if (esRetiro) {
+                        saldo = saldoFragmentadoService.debitar(numeroCuenta, monto).getSaldo();
+                    } else {
+                        saldoFragmentadoService.acreditar(numeroCuenta, monto);
+                        saldo = saldo.add(monto);
                     }
+                } catch (SaldoNoDisponibleException e) {
+                    resultados.add(ResultadoReverso.rechazado(id, "MOV_401_SALDO_INSUFICIENTE",
+                        "No hay saldo suficiente para revertir el depósito. " + e.getMessage()));
+                    continue;
                 }
+            } else if (esRetiro && saldo.compareTo(monto) < 0) {
+                resultados.add(ResultadoReverso.rechazado(id, "MOV_401_SALDO_INSUFICIENTE",
+                    "No hay saldo suficiente para revertir el depósito. Saldo no disponible. Saldo actual: " + saldo +
+                    ", Monto solicitado: " + monto));
+                continue;
+            } else {
+                saldo = esRetiro ? saldo.subtract(monto) : saldo.add(monto);
             }
-            if (!esDepositoInicial) {
-                cuenta.acreditar(monto);
+            if (esRetiro) {
+                debitos = debitos.add(monto);
+            } else {
+                creditos = creditos.add(monto);
             }
+
+            reverso.setCuenta(cuenta);
+            reverso.setSaldodisponible(saldo);
+            anular(original);
+            anulados.add(original);
+            reversos.add(reverso);
+            resultados.add(ResultadoReverso.reversado(id, reverso));
         }
 
-        // Establecer fechas y hora actuales
-        movimiento.setFechamovimiento(LocalDate.now());
-        movimiento.setHoramovimiento(LocalTime.now());
-        
-    // Establecer el saldo disponible después del movimiento (o sin cambios si se saltó)
-    movimiento.setSaldodisponible(cuenta.getSaldodisponible());
+        if (!fragmentada) {
+            // La cuenta está gestionada y bloqueada: el efecto neto se escribe en el flush (un solo UPDATE)
+            BigDecimal neto = saldo.subtract(saldoInicial);
+            if (neto.signum() > 0) {
+                cuenta.acreditar(neto);
+            } else if (neto.signum() < 0) {
+                cuenta.debitar(neto.negate());
+            }
+        }
+        // Los originales están gestionados: su anulación se escribe en el flush junto con los reversos
+        movimientoRepository.saveAll(reversos);
+        for (int i = 0; i < reversos.size(); i++) {
+            outboxService.registrar(OutboxEvento.TipoEvento.MOVIMIENTO_ANULADO, numeroCuenta, anulados.get(i));
+            outboxService.registrar(OutboxEvento.TipoEvento.MOVIMIENTO_CREADO, numeroCuenta, reversos.get(i));
+        }
+        if (!reversos.isEmpty()) {
+            if (fragmentada) {
+                saldoDiarioService.consolidar(numeroCuenta);
+            }
+            saldoDiarioService.registrar(numeroCuenta, fecha, creditos, debitos, reversos.size(), saldo);
+        }
+        log.info("[MOVIMIENTOS][REVERSO_LOTE] Cuenta {} reversados {} solicitados {}",
+            numeroCuenta, reversos.size(), ids.size());
+        return resultados;
+    }
 
-        // Guardar la cuenta actualizada
-        cuentaService.saveOrUpdate(cuenta);
+    // Reverso del movimiento: tipo opuesto y mismo monto en valor absoluto; la cuenta y el saldo los fija el llamador
+    private Movimiento crearReverso(Movimiento original) {
+        Movimiento reverso = new Movimiento();
+        reverso.setCuenta(original.getCuenta());
+        reverso.setFechamovimiento(LocalDate.now());
+        reverso.setHoramovimiento(LocalTime.now());
+        reverso.setEstado(true); // El reverso es una operación correcta
+        reverso.setMovimientodescripcion(
+            original.getMovimientodescripcion() + " " + MARCA_REVERSO + original.getIdmovimiento() + "]");
+        reverso.setMontomovimiento(original.getMontomovimiento().abs());
+        reverso.setTipomovimiento(original.getTipomovimiento() == Movimiento.TipoMovimiento.DEPOSITO
+            ? Movimiento.TipoMovimiento.RETIRO
+            : Movimiento.TipoMovimiento.DEPOSITO);
+        return reverso;
+    }
 
-        // Guardar y retornar el movimiento
-        return movimientoRepository.save(movimiento);
+    // Cambia la descripción por la marca de anulación con milisegundos y marca el movimiento como reversado
+    private void anular(Movimiento original) {
+        LocalDateTime fechaHoraAnulacion = LocalDateTime.now();
+        String descripcionAnulacion = String.format("Operacion Anulada %s.%03d",
+            fechaHoraAnulacion.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
+            fechaHoraAnulacion.getNano() / 1_000_000); // Convertir nanosegundos a milisegundos
+        original.setMovimientodescripcion(descripcionAnulacion);
+        original.setEstado(false); // Marcado como reversado (esReverso = true en DTO)
+    }
+
+    private BigDecimal obtenerSaldoSinMovimientos(Integer numeroCuenta, LocalDate fecha) {
+        try {
+            return saldoDiarioService.obtenerSaldoAl(numeroCuenta, fecha);
+        } catch (IllegalArgumentException e) {
+            // Rango anterior a la creación de la cuenta
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private void registrarSaldoDiario(Integer numeroCuenta, Movimiento movimiento, Integer fragmento) {
+        BigDecimal monto = movimiento.getMontomovimiento().abs();
+        boolean esCredito = movimiento.getTipomovimiento() == Movimiento.TipoMovimiento.DEPOSITO;
+        if (fragmento != null) {
+            saldoDiarioService.registrarPendiente(numeroCuenta, fragmento, movimiento.getFechamovimiento(),
+                esCredito ? monto : BigDecimal.ZERO,
+                esCredito ? BigDecimal.ZERO : monto, 1);
+            return;
+        }
+        saldoDiarioService.registrar(numeroCuenta, movimiento.getFechamovimiento(),
+            esCredito ? monto : BigDecimal.ZERO,
+            esCredito ? BigDecimal.ZERO : monto,
+            1, movimiento.getSaldodisponible());
     }
 }
@@ -0,0 +1,145 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Secuencia;
+import com.wquimis.demo.cuentasmovimientos.repository.CuentaRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.SecuenciaRepository;
+import com.wquimis.demo.cuentasmovimientos.services.NumeracionCuentaService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asignación de números de cuenta por bloques (hi/lo): cada instancia reserva en la tabla secuencias un
+ * bloque de números consecutivos y los entrega desde memoria sin tocar la base de datos. La reserva corre
+ * en su propia transacción y solo bloquea la fila de la secuencia el tiempo del UPDATE, de modo que las
+ * instancias no se coordinan entre sí. Los números que queden sin usar al reiniciar se pierden (huecos).
+ * Al iniciar, la fila de la secuencia se alinea con el rango configurado: la migración V9 la sembró para
+ * 500000-989999 y un rango distinto puede dejarla fuera de él o por debajo de cuentas ya existentes.
+ */
+@Service
+@Slf4j
+public class NumeracionCuentaServiceImpl implements NumeracionCuentaService {
+
+    static final String SECUENCIA_CUENTAS = "cuentas";
+
+    private final SecuenciaRepository secuenciaRepository;
+    private final CuentaRepository cuentaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock lockReserva = new ReentrantLock();
+    private final int inicio;
+    private final int fin;
+    private final int tamanoBloque;
+
+    private volatile Bloque bloque = new Bloque(0, 0);
+
+    public NumeracionCuentaServiceImpl(SecuenciaRepository secuenciaRepository, CuentaRepository cuentaRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${cuentas.numeracion.inicio:500000}") int inicio,
+                                       @Value("${cuentas.numeracion.fin:989999}") int fin,
+                                       @Value("${cuentas.numeracion.bloque:100}") int tamanoBloque) {
+        if (inicio > fin || tamanoBloque < 1) {
+            throw new IllegalArgumentException("Configuración de numeración de cuentas inválida");
+        }
+        this.secuenciaRepository = secuenciaRepository;
+        this.cuentaRepository = cuentaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // La reserva se confirma aunque el alta que la pidió se revierta: el bloque ya es de esta instancia
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.inicio = inicio;
+        this.fin = fin;
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    /**
+     * Deja el valor de la secuencia dentro de [inicio, fin + 1] y por encima de la última cuenta existente del
+     * rango. Un valor ya válido no se toca, para no retroceder sobre bloques entregados a otras instancias.
+     * Si la fila falta (V9 la siembra) se crea con INSERT IGNORE y se relee con bloqueo para alinearla.
+     */
+    @PostConstruct
+    void alinearSecuencia() {
+        transactionTemplate.executeWithoutResult(status -> {
+            secuenciaRepository.insertarSiNoExiste(SECUENCIA_CUENTAS, (long) inicio);
+            Secuencia secuencia = secuenciaRepository.findParaActualizar(SECUENCIA_CUENTAS)
+                .orElseThrow(() -> new IllegalStateException("No existe la secuencia " + SECUENCIA_CUENTAS));
+            Integer ultimaCuenta = cuentaRepository.findMaxNumeroCuentaEntre(inicio, fin);
+            long minimo = ultimaCuenta != null ? (long) ultimaCuenta + 1 : inicio;
+            Long valor = secuencia.getValor();
+            if (valor >= minimo && valor <= (long) fin + 1) {
+                return;
+            }
+            secuencia.setValor(minimo);
+            secuenciaRepository.save(secuencia);
+            log.warn("[CUENTAS][NUMERACION] Secuencia alineada al rango {}-{}: {} -> {}", inicio, fin, valor, minimo);
+        });
+    }
+
+    @Override
+    public int siguiente() {
+        while (true) {
+            Bloque actual = bloque;
+            int numero = actual.tomar();
+            if (numero >= 0) {
+                return numero;
+            }
+            lockReserva.lock();
+            try {
+                // Otro hilo pudo haber reservado mientras se esperaba el lock
+                if (bloque == actual) {
+                    bloque = reservarBloque();
+                }
+            } finally {
+                lockReserva.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean esReservado(Integer numeroCuenta) {
+        return numeroCuenta != null && numeroCuenta >= inicio && numeroCuenta <= fin;
+    }
+
+    private Bloque reservarBloque() {
+        Bloque reservado = transactionTemplate.execute(status -> {
+            // La fila la garantiza alinearSecuencia al iniciar
+            Secuencia secuencia = secuenciaRepository.findParaActualizar(SECUENCIA_CUENTAS)
+                .orElseThrow(() -> new IllegalStateException("No existe la secuencia " + SECUENCIA_CUENTAS));
+            long desde = Math.max(secuencia.getValor(), inicio);
+            if (desde > fin) {
+                throw new IllegalStateException("Rango de numeración de cuentas agotado (" + inicio + "-" + fin + ")");
+            }
+            long hasta = Math.min(desde + tamanoBloque, (long) fin + 1);
+            secuencia.setValor(hasta);
+            secuenciaRepository.save(secuencia);
+            return new Bloque((int) desde, (int) hasta);
+        });
+        log.info("[CUENTAS][NUMERACION] Bloque reservado {}-{}", reservado.desde, reservado.hasta - 1);
+        return reservado;
+    }
+
+    /**
+     * Números [desde, hasta) entregados sin bloqueo; tomar retorna -1 cuando el bloque se agotó.
+     */
+    private static final class Bloque {
+        private final int desde;
+        private final int hasta;
+        private final AtomicInteger siguiente;
+
+        private Bloque(int desde, int hasta) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.siguiente = new AtomicInteger(desde);
+        }
+
+        private int tomar() {
+            int numero = siguiente.getAndIncrement();
+            return numero < hasta ? numero : -1;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wquimis.demo.cuentasmovimientos.dto.EventoDominioDTO;
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.entities.OutboxEvento;
+import com.wquimis.demo.cuentasmovimientos.repository.OutboxEventoRepository;
+import com.wquimis.demo.cuentasmovimientos.services.OutboxService;
+import com.wquimis.demo.cuentasmovimientos.utils.DtoConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+public class OutboxServiceImpl implements OutboxService {
+
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final DtoConverter dtoConverter;
+    private final ObjectMapper objectMapper;
+
+    public OutboxServiceImpl(OutboxEventoRepository outboxEventoRepository, DtoConverter dtoConverter,
+                             ObjectMapper objectMapper) {
+        this.outboxEventoRepository = outboxEventoRepository;
+        this.dtoConverter = dtoConverter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(OutboxEvento.TipoEvento tipoEvento, Cuenta cuenta) {
+        guardar(tipoEvento, cuenta.getNumerocuenta(), dtoConverter.toDto(cuenta));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(OutboxEvento.TipoEvento tipoEvento, Integer numeroCuenta, Movimiento movimiento) {
+        guardar(tipoEvento, numeroCuenta, dtoConverter.toDto(movimiento));
+    }
+
+    private void guardar(OutboxEvento.TipoEvento tipoEvento, Integer numeroCuenta, Object datos) {
+        LocalDateTime ahora = LocalDateTime.now();
+
+        EventoDominioDTO evento = new EventoDominioDTO();
+        evento.setTipoEvento(tipoEvento.name());
+        evento.setNumeroCuenta(numeroCuenta);
+        evento.setTimestamp(System.currentTimeMillis());
+        evento.setDatos(datos);
+
+        OutboxEvento registro = new OutboxEvento();
+        registro.setTipoevento(tipoEvento);
+        registro.setNumerocuenta(numeroCuenta);
+        registro.setFechacreacion(ahora);
+        try {
+            registro.setPayload(objectMapper.writeValueAsString(evento));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento " + tipoEvento, e);
+        }
+        outboxEventoRepository.save(registro);
+    }
+}
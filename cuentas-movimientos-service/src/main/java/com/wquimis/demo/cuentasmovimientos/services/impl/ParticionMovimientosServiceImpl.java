@@ -0,0 +1,225 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.dto.ParticionMovimientosDTO;
+import com.wquimis.demo.cuentasmovimientos.services.ParticionMovimientosService;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoParticiones;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Mantenimiento del particionado mensual de movimientos (RANGE COLUMNS sobre fechamovimiento, ver V10):
+ * <ul>
+ *   <li>Divide p_futuro para que existan particiones hasta meses-adelante meses después del actual;
+ *   si p_futuro está vacía la reorganización no mueve filas.</li>
+ *   <li>Con retencion-meses &gt; 0 retira las particiones cuyo límite quedó antes del corte: ARCHIVAR las
+ *   intercambia con una tabla movimientos_pAAAAMM (EXCHANGE PARTITION, sin copiar filas) y ELIMINAR las descarta.
+ *   Antes de retirar cada partición se guarda en movimientos_retirados el último saldo de cada cuenta, que pasa a
+ *   ser la apertura de la conciliación.</li>
+ * </ul>
+ * Las sentencias DDL corren en una sola conexión (fuera de transacción) bajo un bloqueo con nombre de MySQL,
+ * así que con varias instancias solo una aplica cambios en cada pasada.
+ */
+@Service
+@Slf4j
+public class ParticionMovimientosServiceImpl implements ParticionMovimientosService {
+
+    private static final String PARTICION_FUTURO = "p_futuro";
+    private static final String BLOQUEO = "cuentas_movimientos.particiones";
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyyMM");
+
+    // Último movimiento de cada cuenta en la partición. Reintentar la misma partición (el DROP falló después del
+    // resumen) no cambia nada: solo una fecha posterior suma movimientos y reemplaza el saldo
+    private static final String SQL_RESUMIR_RETIRADA =
+        "INSERT INTO movimientos_retirados (numerocuenta, fechahasta, saldocierre, cantidadmovimientos) " +
+        "SELECT t.numerocuenta, t.fechamovimiento, t.saldodisponible, t.cantidad " +
+        "FROM (SELECT numerocuenta, fechamovimiento, saldodisponible, " +
+        "             COUNT(*) OVER (PARTITION BY numerocuenta) AS cantidad, " +
+        "             ROW_NUMBER() OVER (PARTITION BY numerocuenta " +
+        "                                ORDER BY fechamovimiento DESC, horamovimiento DESC, idmovimiento DESC) AS fila " +
+        "      FROM movimientos PARTITION (%s)) t " +
+        "WHERE t.fila = 1 " +
+        "ON DUPLICATE KEY UPDATE " +
+        "cantidadmovimientos = IF(t.fechamovimiento > movimientos_retirados.fechahasta, " +
+        "                         movimientos_retirados.cantidadmovimientos + t.cantidad, " +
+        "                         movimientos_retirados.cantidadmovimientos), " +
+        "saldocierre = IF(t.fechamovimiento > movimientos_retirados.fechahasta, t.saldodisponible, " +
+        "                 movimientos_retirados.saldocierre), " +
+        "fechahasta = GREATEST(movimientos_retirados.fechahasta, t.fechamovimiento)";
+
+    enum ModoRetencion { ARCHIVAR, ELIMINAR }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int mesesAdelante;
+    private final int retencionMeses;
+    private final ModoRetencion modoRetencion;
+
+    public ParticionMovimientosServiceImpl(JdbcTemplate jdbcTemplate,
+                                           @Value("${cuentas.movimientos.particiones.meses-adelante:3}") int mesesAdelante,
+                                           @Value("${cuentas.movimientos.particiones.retencion-meses:0}") int retencionMeses,
+                                           @Value("${cuentas.movimientos.particiones.modo-retencion:ARCHIVAR}") String modoRetencion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mesesAdelante = Math.max(mesesAdelante, 1);
+        this.retencionMeses = retencionMeses;
+        this.modoRetencion = ModoRetencion.valueOf(modoRetencion.toUpperCase());
+    }
+
+    @Scheduled(fixedDelayString = "${cuentas.movimientos.particiones.mantenimiento-ms:21600000}")
+    public void mantenerProgramado() {
+        try {
+            mantener();
+        } catch (Exception e) {
+            log.error("[MOVIMIENTOS][PARTICIONES] Error en el mantenimiento de particiones: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public ResultadoParticiones mantener() {
+        return jdbcTemplate.execute((ConnectionCallback<ResultadoParticiones>) conexion -> {
+            JdbcTemplate sesion = new JdbcTemplate(new SingleConnectionDataSource(conexion, true));
+            Integer obtenido = sesion.queryForObject("SELECT GET_LOCK(?, 0)", Integer.class, BLOQUEO);
+            if (obtenido == null || obtenido != 1) {
+                log.info("[MOVIMIENTOS][PARTICIONES] Mantenimiento en curso en otra instancia");
+                return ResultadoParticiones.vacio();
+            }
+            try {
+                List<ParticionMovimientosDTO> particiones = leerParticiones(sesion);
+                if (particiones.isEmpty()) {
+                    log.warn("[MOVIMIENTOS][PARTICIONES] La tabla movimientos no está particionada");
+                    return ResultadoParticiones.vacio();
+                }
+                List<String> creadas = crearFuturas(sesion, particiones);
+                List<String> retiradas = aplicarRetencion(sesion, leerParticiones(sesion));
+                return new ResultadoParticiones(creadas, retiradas);
+            } finally {
+                sesion.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, BLOQUEO);
+            }
+        });
+    }
+
+    @Override
+    public List<ParticionMovimientosDTO> listar() {
+        return leerParticiones(jdbcTemplate);
+    }
+
+    /**
+     * Ejecuta EXPLAIN sobre la forma de las consultas por rango de MovimientoRepository y devuelve la columna
+     * partitions: con la poda funcionando solo aparecen los meses del rango.
+     */
+    @Override
+    public List<String> particionesConsultadas(Integer numeroCuenta, LocalDate fechaDesde, LocalDate fechaHasta) {
+        List<String> particiones = numeroCuenta != null
+            ? jdbcTemplate.query(
+                "EXPLAIN SELECT idmovimiento FROM movimientos WHERE numerocuenta = ? " +
+                "AND fechamovimiento BETWEEN ? AND ?",
+                (rs, i) -> rs.getString("partitions"), numeroCuenta, fechaDesde, fechaHasta)
+            : jdbcTemplate.query(
+                "EXPLAIN SELECT idmovimiento FROM movimientos WHERE fechamovimiento BETWEEN ? AND ?",
+                (rs, i) -> rs.getString("partitions"), fechaDesde, fechaHasta);
+        if (particiones.isEmpty() || particiones.get(0) == null) {
+            return List.of();
+        }
+        return Arrays.asList(particiones.get(0).split(","));
+    }
+
+    private List<String> crearFuturas(JdbcTemplate sesion, List<ParticionMovimientosDTO> particiones) {
+        LocalDate objetivo = LocalDate.now().withDayOfMonth(1).plusMonths(mesesAdelante + 1L);
+        LocalDate limite = particiones.stream()
+            .map(ParticionMovimientosDTO::getLimite)
+            .filter(Objects::nonNull)
+            .max(LocalDate::compareTo)
+            .orElse(LocalDate.now().withDayOfMonth(1));
+
+        List<String> creadas = new ArrayList<>();
+        StringBuilder definiciones = new StringBuilder();
+        while (limite.isBefore(objetivo)) {
+            LocalDate siguiente = limite.withDayOfMonth(1).plusMonths(1);
+            String nombre = "p" + limite.format(FORMATO_MES);
+            definiciones.append("PARTITION ").append(nombre)
+                .append(" VALUES LESS THAN ('").append(siguiente).append("'), ");
+            creadas.add(nombre);
+            limite = siguiente;
+        }
+        if (creadas.isEmpty()) {
+            return creadas;
+        }
+
+        boolean hayFuturo = particiones.stream().anyMatch(p -> p.getLimite() == null);
+        if (hayFuturo) {
+            sesion.execute("ALTER TABLE movimientos REORGANIZE PARTITION " + PARTICION_FUTURO + " INTO (" +
+                definiciones + "PARTITION " + PARTICION_FUTURO + " VALUES LESS THAN (MAXVALUE))");
+        } else {
+            sesion.execute("ALTER TABLE movimientos ADD PARTITION (" +
+                definiciones.substring(0, definiciones.length() - 2) + ")");
+        }
+        log.info("[MOVIMIENTOS][PARTICIONES] Particiones creadas: {}", creadas);
+        return creadas;
+    }
+
+    private List<String> aplicarRetencion(JdbcTemplate sesion, List<ParticionMovimientosDTO> particiones) {
+        List<String> retiradas = new ArrayList<>();
+        if (retencionMeses <= 0) {
+            return retiradas;
+        }
+        LocalDate corte = LocalDate.now().withDayOfMonth(1).minusMonths(retencionMeses);
+        for (ParticionMovimientosDTO particion : particiones) {
+            if (particion.getLimite() == null || particion.getLimite().isAfter(corte)) {
+                continue;
+            }
+            String nombre = particion.getNombre();
+            if (modoRetencion == ModoRetencion.ARCHIVAR) {
+                String tabla = "movimientos_" + nombre;
+                Integer existe = sesion.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                    Integer.class, tabla);
+                if (existe != null && existe > 0) {
+                    // Un archivo previo con el mismo nombre no se sobrescribe: requiere revisión manual
+                    log.warn("[MOVIMIENTOS][PARTICIONES] La tabla {} ya existe; partición {} sin archivar", tabla, nombre);
+                    continue;
+                }
+                sesion.update(String.format(SQL_RESUMIR_RETIRADA, nombre));
+                sesion.execute("CREATE TABLE " + tabla + " LIKE movimientos");
+                sesion.execute("ALTER TABLE " + tabla + " REMOVE PARTITIONING");
+                sesion.execute("ALTER TABLE movimientos EXCHANGE PARTITION " + nombre + " WITH TABLE " + tabla);
+            } else {
+                sesion.update(String.format(SQL_RESUMIR_RETIRADA, nombre));
+            }
+            sesion.execute("ALTER TABLE movimientos DROP PARTITION " + nombre);
+            log.info("[MOVIMIENTOS][PARTICIONES] Partición {} ({} filas aprox.) {}", nombre,
+                particion.getFilasAproximadas(),
+                modoRetencion == ModoRetencion.ARCHIVAR ? "archivada en movimientos_" + nombre : "eliminada");
+            retiradas.add(nombre);
+        }
+        return retiradas;
+    }
+
+    private List<ParticionMovimientosDTO> leerParticiones(JdbcTemplate plantilla) {
+        return plantilla.query(
+            "SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'movimientos' AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION",
+            (rs, i) -> new ParticionMovimientosDTO(
+                rs.getString("PARTITION_NAME"),
+                leerLimite(rs.getString("PARTITION_DESCRIPTION")),
+                rs.getLong("TABLE_ROWS")));
+    }
+
+    // RANGE COLUMNS informa el límite como literal entre comillas ('2025-02-01') o MAXVALUE
+    private static LocalDate leerLimite(String descripcion) {
+        if (descripcion == null || descripcion.equalsIgnoreCase("MAXVALUE")) {
+            return null;
+        }
+        return LocalDate.parse(descripcion.replace("'", "").trim());
+    }
+}
@@ -0,0 +1,183 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.MovimientoRetirado;
+import com.wquimis.demo.cuentasmovimientos.entities.SaldoDiario;
+import com.wquimis.demo.cuentasmovimientos.repository.CuentaRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.MovimientoRetiradoRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.SaldoDiarioPendienteRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.SaldoDiarioRepository;
+import com.wquimis.demo.cuentasmovimientos.services.ArchivoMovimientosService;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoDiarioService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Service
+@Slf4j
+public class SaldoDiarioServiceImpl implements SaldoDiarioService {
+
+    // Menor fecha DATE de MySQL: reconstrucción completa de una cuenta sin movimientos archivados
+    private static final LocalDate SIN_ARCHIVO = LocalDate.of(1000, 1, 1);
+
+    private final SaldoDiarioRepository saldoDiarioRepository;
+    private final SaldoDiarioPendienteRepository saldoDiarioPendienteRepository;
+    private final CuentaRepository cuentaRepository;
+    private final ArchivoMovimientosService archivoMovimientosService;
+    private final MovimientoRetiradoRepository movimientoRetiradoRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public SaldoDiarioServiceImpl(SaldoDiarioRepository saldoDiarioRepository,
+                                  SaldoDiarioPendienteRepository saldoDiarioPendienteRepository,
+                                  CuentaRepository cuentaRepository, ArchivoMovimientosService archivoMovimientosService,
+                                  MovimientoRetiradoRepository movimientoRetiradoRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.saldoDiarioRepository = saldoDiarioRepository;
+        this.saldoDiarioPendienteRepository = saldoDiarioPendienteRepository;
+        this.cuentaRepository = cuentaRepository;
+        this.archivoMovimientosService = archivoMovimientosService;
+        this.movimientoRetiradoRepository = movimientoRetiradoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Integer numeroCuenta, LocalDate fecha, BigDecimal creditos, BigDecimal debitos,
+                          int cantidadMovimientos, BigDecimal saldoCierre) {
+        saldoDiarioRepository.acumular(numeroCuenta, fecha, creditos, debitos, cantidadMovimientos, saldoCierre);
+    }
+
+    /**
+     * En una cuenta fragmentada los movimientos del día no se serializan y el último saldo escrito no es
+     * necesariamente el cierre: se acumulan solo créditos y débitos por fragmento y el cierre se deriva al consolidar.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarPendiente(Integer numeroCuenta, Integer fragmento, LocalDate fecha, BigDecimal creditos,
+                                   BigDecimal debitos, int cantidadMovimientos) {
+        saldoDiarioPendienteRepository.acumular(numeroCuenta, fecha, fragmento, creditos, debitos, cantidadMovimientos);
+    }
+
+    /**
+     * Traslada los totales pendientes de la cuenta a saldos_diarios, día por día en orden: el cierre de cada día
+     * es el último cierre registrado hasta ese día más el efecto neto pendiente. El bloqueo exclusivo de la cuenta
+     * espera a los depósitos en curso y frena los nuevos mientras dura la consolidación.
+     */
+    @Override
+    @Transactional
+    public int consolidar(Integer numeroCuenta) {
+        Cuenta cuenta = cuentaRepository.findByIdParaActualizar(numeroCuenta)
+            .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta));
+        List<SaldoDiarioPendienteRepository.TotalesDia> dias = saldoDiarioPendienteRepository.findTotalesPorDia(numeroCuenta);
+        for (SaldoDiarioPendienteRepository.TotalesDia dia : dias) {
+            BigDecimal cierre = saldoDiarioRepository.findSaldoCierreAl(numeroCuenta, dia.getFecha())
+                .orElse(cuenta.getSaldoinicial())
+                .add(dia.getTotalCreditos())
+                .subtract(dia.getTotalDebitos());
+            saldoDiarioRepository.acumular(numeroCuenta, dia.getFecha(), dia.getTotalCreditos(), dia.getTotalDebitos(),
+                dia.getCantidadMovimientos().intValue(), cierre);
+        }
+        if (!dias.isEmpty()) {
+            saldoDiarioPendienteRepository.deleteByNumeroCuenta(numeroCuenta);
+            log.debug("[SALDOS_DIARIOS][CONSOLIDAR] Cuenta {} dias {}", numeroCuenta, dias.size());
+        }
+        return dias.size();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${cuentas.fragmentos.consolidacion-ms:60000}")
+    public int consolidarPendientes() {
+        int totalDias = 0;
+        for (Integer numeroCuenta : saldoDiarioPendienteRepository.findCuentasConPendientes()) {
+            Integer dias = transactionTemplate.execute(status -> consolidar(numeroCuenta));
+            totalDias += dias != null ? dias : 0;
+        }
+        return totalDias;
+    }
+
+    /**
+     * Saldo al cierre de la fecha indicada: último cierre diario registrado hasta esa fecha,
+     * o el saldo inicial si la cuenta no tuvo movimientos antes, más los totales aún no consolidados
+     * (cuentas fragmentadas).
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public BigDecimal obtenerSaldoAl(Integer numeroCuenta, LocalDate fecha) {
+        Cuenta cuenta = cuentaRepository.findById(numeroCuenta)
+            .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta));
+        if (cuenta.getFechacreacion() != null && fecha.isBefore(cuenta.getFechacreacion().toLocalDate())) {
+            throw new IllegalArgumentException("La fecha " + fecha + " es anterior a la creación de la cuenta ("
+                + cuenta.getFechacreacion().toLocalDate() + ")");
+        }
+        return saldoDiarioRepository.findSaldoCierreAl(numeroCuenta, fecha)
+            .orElse(cuenta.getSaldoinicial())
+            .add(saldoDiarioPendienteRepository.sumNetoAl(numeroCuenta, fecha));
+    }
+
+    /**
+     * Si la cuenta tiene totales pendientes se consolidan antes de leer, para que los días del rango estén completos.
+     */
+    @Override
+    public List<SaldoDiario> findByNumeroCuentaAndFechaBetween(Integer numeroCuenta, LocalDate fechaInicio, LocalDate fechaFin) {
+        if (saldoDiarioPendienteRepository.existsByNumerocuenta(numeroCuenta)) {
+            transactionTemplate.executeWithoutResult(status -> consolidar(numeroCuenta));
+        }
+        return saldoDiarioRepository.findByNumerocuentaAndFechaBetweenOrderByFechaAsc(numeroCuenta, fechaInicio, fechaFin);
+    }
+
+    /**
+     * Recalcula los saldos diarios de la cuenta desde sus movimientos. Bloquea la fila de la cuenta
+     * para que ningún movimiento concurrente acumule sobre filas que se están reemplazando.
+     * Los totales pendientes se descartan porque sus movimientos ya entran en la reconstrucción; en cuentas
+     * fragmentadas el cierre tomado del último movimiento del día puede no reflejar depósitos simultáneos.
+     * Los días ya archivados, o retirados con su partición (movimientos_retirados), no tienen movimientos en la BD:
+     * se conservan y se reconstruye desde el día siguiente al último de ellos.
+     */
+    @Override
+    @Transactional
+    public int reconstruir(Integer numeroCuenta) {
+        cuentaRepository.findByIdParaActualizar(numeroCuenta)
+            .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta));
+        LocalDate desde = SIN_ARCHIVO;
+        LocalDate archivadoHasta = archivoMovimientosService.fechaMaximaArchivada(numeroCuenta);
+        if (archivadoHasta != null) {
+            desde = archivadoHasta.plusDays(1);
+        }
+        LocalDate retiradoHasta = movimientoRetiradoRepository.findById(numeroCuenta)
+            .map(MovimientoRetirado::getFechahasta)
+            .orElse(null);
+        if (retiradoHasta != null && !retiradoHasta.isBefore(desde)) {
+            desde = retiradoHasta.plusDays(1);
+        }
+        saldoDiarioRepository.deleteByNumeroCuentaDesde(numeroCuenta, desde);
+        saldoDiarioPendienteRepository.deleteByNumeroCuenta(numeroCuenta);
+        int dias = saldoDiarioRepository.reconstruir(numeroCuenta, desde);
+        log.info("[SALDOS_DIARIOS][RECONSTRUIR] Cuenta {} desde {} dias {}", numeroCuenta, desde, dias);
+        return dias;
+    }
+
+    /**
+     * Reconstrucción completa: una transacción corta por cuenta para no mantener bloqueos
+     * sobre todas las cuentas mientras dura el proceso.
+     */
+    @Override
+    public int reconstruirTodas() {
+        List<Integer> numerosCuenta = cuentaRepository.findAllNumerosCuenta();
+        int totalDias = 0;
+        for (Integer numeroCuenta : numerosCuenta) {
+            Integer dias = transactionTemplate.execute(status -> reconstruir(numeroCuenta));
+            totalDias += dias != null ? dias : 0;
+        }
+        log.info("[SALDOS_DIARIOS][RECONSTRUIR] Cuentas {} dias {}", numerosCuenta.size(), totalDias);
+        return totalDias;
+    }
+}
@@ -0,0 +1,325 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.FragmentoSaldo;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.exceptions.CuentaInactivaException;
+import com.wquimis.demo.cuentasmovimientos.exceptions.SaldoNoDisponibleException;
+import com.wquimis.demo.cuentasmovimientos.repository.CuentaRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.FragmentoSaldoRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.MovimientoRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.SaldoProvisionalRepository;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatosService;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoAplicado;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoDiarioService;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoFragmentadoService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Saldo fragmentado para cuentas calientes. Orden de bloqueo, común a todas las operaciones:
+ * primero la fila de la cuenta y después los fragmentos en orden.
+ * <ul>
+ *   <li>Depósito: bloqueo compartido de la cuenta y exclusivo de un solo fragmento al azar; los depósitos
+ *   simultáneos solo compiten si eligen el mismo fragmento.</li>
+ *   <li>Retiro: bloqueo exclusivo de la cuenta (espera a los depósitos en curso) y de todos los fragmentos;
+ *   la suficiencia de saldo se evalúa sobre el total y el monto se consume en orden de fragmento.</li>
+ * </ul>
+ * Mientras la cuenta está fragmentada la fila de la cuenta queda en cero: los UPDATE atómicos de
+ * {@link CuentaRepository} exigen fragmentossaldo = 0, así que el saldo visible es la suma de los fragmentos.
+ * <p>
+ * Un depósito no ve a los depósitos simultáneos en otros fragmentos, así que su saldo es provisional. Quien toma la
+ * cuenta en exclusiva (retiro, lote, unificación o el asentamiento programado) ya no tiene depósitos en curso y
+ * conoce el saldo total exacto: asienta los provisionales como saldo acumulado en el orden de la cadena
+ * (fecha, hora, id), de modo que la cadena de saldodisponible de la cuenta vuelve a ser verificable.
+ */
+@Service
+@Slf4j
+public class SaldoFragmentadoServiceImpl implements SaldoFragmentadoService {
+
+    private static final int FRAGMENTOS_MINIMO = 2;
+
+    private final CuentaRepository cuentaRepository;
+    private final FragmentoSaldoRepository fragmentoSaldoRepository;
+    private final CuentaMetadatosService cuentaMetadatosService;
+    private final SaldoDiarioService saldoDiarioService;
+    private final MovimientoRepository movimientoRepository;
+    private final SaldoProvisionalRepository saldoProvisionalRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int fragmentosMaximo;
+
+    public SaldoFragmentadoServiceImpl(CuentaRepository cuentaRepository, FragmentoSaldoRepository fragmentoSaldoRepository,
+                                       CuentaMetadatosService cuentaMetadatosService, SaldoDiarioService saldoDiarioService,
+                                       MovimientoRepository movimientoRepository,
+                                       SaldoProvisionalRepository saldoProvisionalRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${cuentas.fragmentos.maximo:64}") int fragmentosMaximo) {
+        this.cuentaRepository = cuentaRepository;
+        this.fragmentoSaldoRepository = fragmentoSaldoRepository;
+        this.cuentaMetadatosService = cuentaMetadatosService;
+        this.saldoDiarioService = saldoDiarioService;
+        this.movimientoRepository = movimientoRepository;
+        this.saldoProvisionalRepository = saldoProvisionalRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fragmentosMaximo = fragmentosMaximo;
+    }
+
+    /**
+     * El saldo devuelto es provisional: el fragmento propio está bloqueado, los demás se leen sin bloqueo y no
+     * incluyen los depósitos simultáneos que aún no confirman. Quien guarda el movimiento lo registra con
+     * {@link #registrarProvisional} para que se asiente con el saldo exacto.
+     */
+    @Override
+    @Transactional
+    public SaldoAplicado acreditar(Integer numeroCuenta, BigDecimal monto) {
+        Cuenta cuenta = cuentaRepository.findByIdCompartido(numeroCuenta)
+            .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta));
+        validarActiva(cuenta);
+        if (!cuenta.isFragmentada()) {
+            return null;
+        }
+        int fragmento = ThreadLocalRandom.current().nextInt(cuenta.getFragmentossaldo());
+        if (fragmentoSaldoRepository.acreditar(numeroCuenta, fragmento, monto) == 0) {
+            throw new IllegalStateException("La cuenta " + numeroCuenta + " no tiene el fragmento " + fragmento);
+        }
+        BigDecimal saldo = cuentaRepository.findSaldoDisponible(numeroCuenta)
+            .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta))
+            .add(fragmentoSaldoRepository.sumSaldo(numeroCuenta));
+        return new SaldoAplicado(saldo, fragmento, true);
+    }
+
+    /**
+     * El rechazo por saldo no marca la transacción para rollback: el lote lo registra como rechazo
+     * individual y continúa con el resto de movimientos de la cuenta. Con todo bloqueado el saldo es exacto:
+     * antes de aplicar el retiro se asientan los depósitos provisionales.
+     */
+    @Override
+    @Transactional(noRollbackFor = SaldoNoDisponibleException.class)
+    public SaldoAplicado debitar(Integer numeroCuenta, BigDecimal monto) {
+        Cuenta cuenta = cuentaRepository.findByIdParaActualizar(numeroCuenta)
+            .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta));
+        validarActiva(cuenta);
+        if (!cuenta.isFragmentada()) {
+            return null;
+        }
+        List<FragmentoSaldoRepository.SaldoFragmento> fragmentos =
+            fragmentoSaldoRepository.findSaldosParaActualizar(numeroCuenta);
+        BigDecimal saldo = fragmentos.stream()
+            .map(FragmentoSaldoRepository.SaldoFragmento::getSaldo)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        asentarBloqueada(numeroCuenta, saldo);
+        if (saldo.compareTo(monto) < 0) {
+            throw new SaldoNoDisponibleException(
+                "Saldo no disponible. Saldo actual: " + saldo + ", Monto solicitado: " + monto);
+        }
+
+        Integer primerFragmento = fragmentos.get(0).getFragmento();
+        BigDecimal restante = monto;
+        for (FragmentoSaldoRepository.SaldoFragmento fragmento : fragmentos) {
+            if (restante.signum() == 0) {
+                break;
+            }
+            if (fragmento.getSaldo().signum() <= 0) {
+                continue;
+            }
+            BigDecimal consumido = fragmento.getSaldo().min(restante);
+            fragmentoSaldoRepository.debitar(numeroCuenta, fragmento.getFragmento(), consumido);
+            if (restante.compareTo(monto) == 0) {
+                primerFragmento = fragmento.getFragmento();
+            }
+            restante = restante.subtract(consumido);
+        }
+        return new SaldoAplicado(saldo.subtract(monto), primerFragmento, false);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarProvisional(Integer numeroCuenta, Movimiento movimiento) {
+        saldoProvisionalRepository.registrar(numeroCuenta, movimiento.getIdmovimiento(), movimiento.getFechamovimiento());
+    }
+
+    /**
+     * Se llama con la cuenta bloqueada en exclusiva: bloquea los fragmentos, asienta los depósitos provisionales
+     * y devuelve el saldo total exacto, desde el que el llamador puede seguir la cadena en memoria.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BigDecimal asentar(Integer numeroCuenta) {
+        BigDecimal saldo = fragmentoSaldoRepository.findSaldosParaActualizar(numeroCuenta).stream()
+            .map(FragmentoSaldoRepository.SaldoFragmento::getSaldo)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        asentarBloqueada(numeroCuenta, saldo);
+        return saldo;
+    }
+
+    /**
+     * Una transacción corta por cuenta: los depósitos de una cuenta con actividad solo de depósitos no quedan
+     * provisionales más de un intervalo.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${cuentas.fragmentos.consolidacion-ms:60000}")
+    public int asentarProvisionales() {
+        int totalCuentas = 0;
+        for (Integer numeroCuenta : saldoProvisionalRepository.findCuentasConProvisionales()) {
+            Boolean asentada = transactionTemplate.execute(status -> {
+                Cuenta cuenta = cuentaRepository.findByIdParaActualizar(numeroCuenta).orElse(null);
+                if (cuenta == null || !cuenta.isFragmentada()) {
+                    // Unificar asienta antes de quitar los fragmentos: aquí solo quedan filas huérfanas
+                    saldoProvisionalRepository.deleteByNumeroCuenta(numeroCuenta);
+                    return false;
+                }
+                asentar(numeroCuenta);
+                return true;
+            });
+            totalCuentas += Boolean.TRUE.equals(asentada) ? 1 : 0;
+        }
+        return totalCuentas;
+    }
+
+    /**
+     * Reparte el saldo de la cuenta en la cantidad de fragmentos indicada: el saldo completo pasa al fragmento 0
+     * y los demás empiezan en cero. Si la cuenta ya estaba fragmentada con otra cantidad, primero se unifica.
+     */
+    @Override
+    @Transactional
+    public Cuenta fragmentar(Integer numeroCuenta, int cantidadFragmentos) {
+        if (cantidadFragmentos < FRAGMENTOS_MINIMO || cantidadFragmentos > fragmentosMaximo) {
+            throw new IllegalArgumentException("La cantidad de fragmentos debe estar entre " + FRAGMENTOS_MINIMO +
+                " y " + fragmentosMaximo);
+        }
+        Cuenta cuenta = cuentaRepository.findByIdParaActualizar(numeroCuenta)
+            .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta));
+        if (cuenta.isFragmentada()) {
+            if (cuenta.getFragmentossaldo() == cantidadFragmentos) {
+                return cargarSaldoFragmentos(cuenta);
+            }
+            unificarBloqueada(cuenta);
+        }
+
+        BigDecimal saldo = cuenta.getSaldodisponible();
+        List<FragmentoSaldo> fragmentos = new ArrayList<>(cantidadFragmentos);
+        for (int i = 0; i < cantidadFragmentos; i++) {
+            FragmentoSaldo fragmento = new FragmentoSaldo();
+            fragmento.setNumerocuenta(numeroCuenta);
+            fragmento.setFragmento(i);
+            fragmento.setSaldo(i == 0 ? saldo : BigDecimal.ZERO);
+            fragmentos.add(fragmento);
+        }
+        fragmentoSaldoRepository.saveAll(fragmentos);
+        cuenta.setSaldodisponible(BigDecimal.ZERO);
+        cuenta.setSaldofragmentos(saldo);
+        cuenta.setFragmentossaldo(cantidadFragmentos);
+        cuentaMetadatosService.invalidar(numeroCuenta);
+        log.info("[CUENTAS][FRAGMENTAR] Cuenta {} fragmentos {} saldo {}", numeroCuenta, cantidadFragmentos, saldo);
+        return cuenta;
+    }
+
+    /**
+     * Devuelve la cuenta al modo normal: consolida sus totales diarios pendientes y suma los fragmentos
+     * en la fila de la cuenta.
+     */
+    @Override
+    @Transactional
+    public Cuenta unificar(Integer numeroCuenta) {
+        Cuenta cuenta = cuentaRepository.findByIdParaActualizar(numeroCuenta)
+            .orElseThrow(() -> new EntityNotFoundException("Cuenta no encontrada con número: " + numeroCuenta));
+        if (cuenta.isFragmentada()) {
+            unificarBloqueada(cuenta);
+            cuentaMetadatosService.invalidar(numeroCuenta);
+        }
+        return cuenta;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Cuenta cargarSaldoFragmentos(Cuenta cuenta) {
+        if (cuenta.isFragmentada()) {
+            cuenta.setSaldofragmentos(fragmentoSaldoRepository.sumSaldo(cuenta.getNumerocuenta()));
+        }
+        return cuenta;
+    }
+
+    // Una sola consulta agrupada para las cuentas fragmentadas de la colección
+    @Override
+    @Transactional(readOnly = true)
+    public void cargarSaldoFragmentos(Collection<Cuenta> cuentas) {
+        List<Cuenta> fragmentadas = cuentas.stream().filter(Cuenta::isFragmentada).toList();
+        if (fragmentadas.isEmpty()) {
+            return;
+        }
+        if (fragmentadas.size() == 1) {
+            cargarSaldoFragmentos(fragmentadas.get(0));
+            return;
+        }
+        Map<Integer, BigDecimal> saldos = fragmentoSaldoRepository.sumSaldoPorCuenta(
+                fragmentadas.stream().map(Cuenta::getNumerocuenta).toList()).stream()
+            .collect(Collectors.toMap(FragmentoSaldoRepository.SaldoCuenta::getNumeroCuenta,
+                FragmentoSaldoRepository.SaldoCuenta::getSaldo));
+        fragmentadas.forEach(cuenta ->
+            cuenta.setSaldofragmentos(saldos.getOrDefault(cuenta.getNumerocuenta(), BigDecimal.ZERO)));
+    }
+
+    private void unificarBloqueada(Cuenta cuenta) {
+        Integer numeroCuenta = cuenta.getNumerocuenta();
+        saldoDiarioService.consolidar(numeroCuenta);
+        List<FragmentoSaldo> fragmentos = fragmentoSaldoRepository.findParaActualizar(numeroCuenta);
+        BigDecimal saldo = fragmentos.stream()
+            .map(FragmentoSaldo::getSaldo)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        asentarBloqueada(numeroCuenta, saldo);
+        fragmentoSaldoRepository.deleteAll(fragmentos);
+        // Se ejecutan los DELETE antes de que fragmentar vuelva a insertar las mismas claves
+        fragmentoSaldoRepository.flush();
+        cuenta.setSaldodisponible(saldo);
+        cuenta.setSaldofragmentos(BigDecimal.ZERO);
+        cuenta.setFragmentossaldo(0);
+        log.info("[CUENTAS][UNIFICAR] Cuenta {} fragmentos {} saldo {}", numeroCuenta, fragmentos.size(), saldo);
+    }
+
+    /**
+     * Con la cuenta y sus fragmentos bloqueados los depósitos provisionales ya confirmaron y saldoTotal los incluye:
+     * el primero parte de saldoTotal menos la suma de todos ellos y cada uno continúa al anterior.
+     */
+    private void asentarBloqueada(Integer numeroCuenta, BigDecimal saldoTotal) {
+        List<Movimiento> provisionales = movimientoRepository.findConSaldoProvisional(numeroCuenta);
+        if (provisionales.isEmpty()) {
+            return;
+        }
+        BigDecimal saldo = provisionales.stream()
+            .map(SaldoFragmentadoServiceImpl::efecto)
+            .reduce(saldoTotal, BigDecimal::subtract);
+        for (Movimiento movimiento : provisionales) {
+            saldo = saldo.add(efecto(movimiento));
+            // Entidades gestionadas: el nuevo saldo se escribe en el flush, por lotes JDBC
+            movimiento.setSaldodisponible(saldo);
+        }
+        saldoProvisionalRepository.deleteByNumeroCuenta(numeroCuenta);
+        log.debug("[CUENTAS][ASENTAR] Cuenta {} depositos {} saldo {}", numeroCuenta, provisionales.size(), saldoTotal);
+    }
+
+    private static BigDecimal efecto(Movimiento movimiento) {
+        BigDecimal monto = movimiento.getMontomovimiento().abs();
+        return movimiento.getTipomovimiento() == Movimiento.TipoMovimiento.DEPOSITO ? monto : monto.negate();
+    }
+
+    private void validarActiva(Cuenta cuenta) {
+        if (!Boolean.TRUE.equals(cuenta.getEstado())) {
+            throw new CuentaInactivaException("La cuenta se encuentra inactiva");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.wquimis.demo.cuentasmovimientos.utils;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.exceptions.CursorInvalidoException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Cursor de paginación por llave (keyset) sobre (fechamovimiento, horamovimiento, idmovimiento).
+ * Se expone al cliente como un token opaco en Base64 URL-safe.
+ */
+@Data
+@AllArgsConstructor
+public class CursorMovimiento {
+
+    private static final String SEPARADOR = "|";
+
+    private LocalDate fecha;
+    private LocalTime hora;
+    private Long id;
+
+    public static CursorMovimiento desde(Movimiento movimiento) {
+        return new CursorMovimiento(movimiento.getFechamovimiento(), movimiento.getHoramovimiento(),
+            movimiento.getIdmovimiento());
+    }
+
+    public String codificar() {
+        String valor = fecha + SEPARADOR + hora + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws CursorInvalidoException si el token no tiene el formato esperado
+     */
+    public static CursorMovimiento decodificar(String token) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|");
+            if (partes.length != 3) {
+                throw new CursorInvalidoException("Cursor inválido: " + token);
+            }
+            return new CursorMovimiento(LocalDate.parse(partes[0]), LocalTime.parse(partes[1]),
+                Long.parseLong(partes[2]));
+        } catch (CursorInvalidoException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new CursorInvalidoException("Cursor inválido: " + token, e);
+        }
+    }
+}
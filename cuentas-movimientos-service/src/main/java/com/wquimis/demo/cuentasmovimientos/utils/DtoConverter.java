@@ -60,4 +60,39 @@ public class DtoConverter {
         
         return dto;
     }
+
+    public SaldoDiarioDTO toDto(SaldoDiario saldoDiario) {
+        SaldoDiarioDTO dto = new SaldoDiarioDTO();
+        dto.setFecha(saldoDiario.getFecha());
+        dto.setSaldoApertura(saldoDiario.getSaldoapertura());
+        dto.setSaldoCierre(saldoDiario.getSaldocierre());
+        dto.setTotalCreditos(saldoDiario.getTotalcreditos());
+        dto.setTotalDebitos(saldoDiario.getTotaldebitos());
+        dto.setCantidadMovimientos(saldoDiario.getCantidadmovimientos());
+        return dto;
+    }
+
+    public ConciliacionDTO toDto(Conciliacion conciliacion) {
+        ConciliacionDTO dto = new ConciliacionDTO();
+        dto.setId(conciliacion.getIdconciliacion());
+        dto.setEstado(conciliacion.getEstado().toString());
+        dto.setFechaInicio(conciliacion.getFechainicio());
+        dto.setFechaFin(conciliacion.getFechafin());
+        dto.setCuentasRevisadas(conciliacion.getCuentasrevisadas());
+        dto.setMovimientosRevisados(conciliacion.getMovimientosrevisados());
+        dto.setDiscrepancias(conciliacion.getDiscrepancias());
+        dto.setError(conciliacion.getError());
+        return dto;
+    }
+
+    public DiscrepanciaConciliacionDTO toDto(DiscrepanciaConciliacion discrepancia) {
+        DiscrepanciaConciliacionDTO dto = new DiscrepanciaConciliacionDTO();
+        dto.setNumeroCuenta(discrepancia.getNumerocuenta());
+        dto.setTipo(discrepancia.getTipo().toString());
+        dto.setIdMovimiento(discrepancia.getIdmovimiento());
+        dto.setEsperado(discrepancia.getEsperado());
+        dto.setRegistrado(discrepancia.getRegistrado());
+        dto.setDetalle(discrepancia.getDetalle());
+        return dto;
+    }
 }
@@ -0,0 +1,203 @@
+package com.wquimis.demo.cuentasmovimientos.utils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wquimis.demo.cuentasmovimientos.dto.ErrorDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.ResumenReporteDTO;
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.services.MovimientoService;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Escribe el reporte de cuenta directamente sobre el stream de la respuesta, fila por fila,
+ * sin construir el reporte en memoria. Soporta JSON (mismo contrato que el reporte clásico),
+ * NDJSON (un movimiento por línea) y CSV. El JSON incluye además un bloque Resumen calculado
+ * con una sola consulta agregada.
+ */
+@Component
+public class ReporteCuentaWriter {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DATE_REPORT_FORMATTER = DateTimeFormatter.ofPattern("d/M/yyyy");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final String CSV_CABECERA = "Fecha,Hora,Descripcion,Tipo,Monto,Saldo Disponible,id";
+
+    private final ObjectMapper objectMapper;
+    private final MovimientoService movimientoService;
+
+    public ReporteCuentaWriter(ObjectMapper objectMapper, MovimientoService movimientoService) {
+        this.objectMapper = objectMapper;
+        this.movimientoService = movimientoService;
+    }
+
+    public void escribirJson(Cuenta cuenta, LocalDate fechaInicio, LocalDate fechaFin, boolean incluirDetalle,
+                             OutputStream salida) throws IOException {
+        ResumenReporteDTO resumen = movimientoService.obtenerResumen(cuenta.getNumerocuenta(), fechaInicio, fechaFin);
+        try (JsonGenerator gen = crearGenerador(salida)) {
+            gen.writeStartObject();
+            gen.writeStringField("FechaReporte", LocalDate.now().format(DATE_REPORT_FORMATTER));
+            gen.writeObjectFieldStart("Cuenta");
+            escribirCuenta(gen, cuenta);
+            escribirResumen(gen, resumen);
+            if (incluirDetalle) {
+                gen.writeArrayFieldStart("Movimientos");
+                movimientoService.recorrerByNumeroCuentaAndFechaBetween(cuenta.getNumerocuenta(), fechaInicio, fechaFin,
+                    mov -> escribirSinExcepcion(() -> escribirMovimiento(gen, mov)));
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Reporte consolidado de cliente. Las filas llegan ordenadas por cuenta: se abre el objeto de una cuenta
+     * al cambiar el número de cuenta y se cierra el anterior, sin agrupar en memoria.
+     */
+    public void escribirJsonCliente(Long idCliente, LocalDate fechaInicio, LocalDate fechaFin, OutputStream salida) throws IOException {
+        try (JsonGenerator gen = crearGenerador(salida)) {
+            gen.writeStartObject();
+            gen.writeStringField("FechaReporte", LocalDate.now().format(DATE_REPORT_FORMATTER));
+            gen.writeStringField("Cliente", idCliente.toString());
+            gen.writeArrayFieldStart("Cuentas");
+            AtomicReference<Integer> cuentaActual = new AtomicReference<>();
+            movimientoService.recorrerReporteCliente(idCliente, fechaInicio, fechaFin,
+                (cuenta, mov) -> escribirSinExcepcion(() -> {
+                    if (!cuenta.getNumerocuenta().equals(cuentaActual.get())) {
+                        if (cuentaActual.get() != null) {
+                            gen.writeEndArray();
+                            gen.writeEndObject();
+                        }
+                        cuentaActual.set(cuenta.getNumerocuenta());
+                        gen.writeStartObject();
+                        escribirCuenta(gen, cuenta);
+                        gen.writeArrayFieldStart("Movimientos");
+                    }
+                    if (mov != null) {
+                        escribirMovimiento(gen, mov);
+                    }
+                }));
+            if (cuentaActual.get() != null) {
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+
+    public void escribirNdjson(Cuenta cuenta, LocalDate fechaInicio, LocalDate fechaFin, OutputStream salida) throws IOException {
+        try (JsonGenerator gen = crearGenerador(salida)) {
+            gen.setRootValueSeparator(null);
+            movimientoService.recorrerByNumeroCuentaAndFechaBetween(cuenta.getNumerocuenta(), fechaInicio, fechaFin,
+                mov -> escribirSinExcepcion(() -> {
+                    escribirMovimiento(gen, mov);
+                    gen.writeRaw('\n');
+                }));
+        }
+    }
+
+    public void escribirCsv(Cuenta cuenta, LocalDate fechaInicio, LocalDate fechaFin, OutputStream salida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        writer.write(CSV_CABECERA);
+        writer.write('\n');
+        movimientoService.recorrerByNumeroCuentaAndFechaBetween(cuenta.getNumerocuenta(), fechaInicio, fechaFin,
+            mov -> escribirSinExcepcion(() -> {
+                writer.write(mov.getFechamovimiento().format(DATE_FORMATTER));
+                writer.write(',');
+                writer.write(mov.getHoramovimiento().format(TIME_FORMATTER));
+                writer.write(',');
+                writer.write(escaparCsv(mov.getMovimientodescripcion()));
+                writer.write(',');
+                writer.write(mov.getTipomovimiento().toString());
+                writer.write(',');
+                writer.write(mov.getMontomovimiento().abs().toPlainString());
+                writer.write(',');
+                writer.write(mov.getSaldodisponible().toPlainString());
+                writer.write(',');
+                writer.write(String.valueOf(mov.getIdmovimiento()));
+                writer.write('\n');
+            }));
+        writer.flush();
+    }
+
+    public void escribirError(ErrorDTO error, OutputStream salida) throws IOException {
+        try (JsonGenerator gen = crearGenerador(salida)) {
+            gen.writeObject(error);
+        }
+    }
+
+    private JsonGenerator crearGenerador(OutputStream salida) throws IOException {
+        // El stream de la respuesta lo cierra el contenedor, no el generador
+        return objectMapper.getFactory().createGenerator(salida, JsonEncoding.UTF8)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private void escribirCuenta(JsonGenerator gen, Cuenta cuenta) throws IOException {
+        gen.writeStringField("Numero", cuenta.getNumerocuenta().toString());
+        gen.writeStringField("TipoCuenta", cuenta.getTipocuenta().toString());
+        gen.writeStringField("SaldoInicial", cuenta.getSaldoinicial().toPlainString());
+        gen.writeStringField("SaldoDisponible", cuenta.getSaldodisponible().toPlainString());
+        gen.writeStringField("Estado", cuenta.getEstado() ? "ACTIVA" : "INACTIVA");
+        gen.writeStringField("FechaCreacion", cuenta.getFechacreacion().toLocalDate().format(DATE_FORMATTER));
+    }
+
+    private void escribirResumen(JsonGenerator gen, ResumenReporteDTO resumen) throws IOException {
+        gen.writeObjectFieldStart("Resumen");
+        gen.writeStringField("SaldoApertura", resumen.getSaldoApertura().toPlainString());
+        gen.writeStringField("SaldoCierre", resumen.getSaldoCierre().toPlainString());
+        gen.writeStringField("TotalDepositos", resumen.getTotalDepositos().toPlainString());
+        gen.writeStringField("TotalRetiros", resumen.getTotalRetiros().toPlainString());
+        gen.writeNumberField("CantidadMovimientos", resumen.getCantidadMovimientos());
+        gen.writeEndObject();
+    }
+
+    private void escribirMovimiento(JsonGenerator gen, Movimiento mov) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("Fecha", mov.getFechamovimiento().format(DATE_FORMATTER));
+        gen.writeStringField("Hora", mov.getHoramovimiento().format(TIME_FORMATTER));
+        gen.writeStringField("Descripcion", mov.getMovimientodescripcion());
+        gen.writeStringField("Tipo", mov.getTipomovimiento().toString());
+        gen.writeStringField("Monto", mov.getMontomovimiento().abs().toPlainString());
+        gen.writeNumberField("Saldo Disponible", mov.getSaldodisponible().doubleValue());
+        gen.writeNumberField("id", mov.getIdmovimiento());
+        gen.writeEndObject();
+    }
+
+    private String escaparCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0 || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0) {
+            return '"' + valor.replace("\"", "\"\"") + '"';
+        }
+        return valor;
+    }
+
+    @FunctionalInterface
+    private interface Escritura {
+        void ejecutar() throws IOException;
+    }
+
+    private void escribirSinExcepcion(Escritura escritura) {
+        try {
+            escritura.ejecutar();
+        } catch (IOException e) {
+            // Corta el recorrido (y la transacción de lectura) si el cliente se desconecta
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.wquimis.demo.cuentasmovimientos.utils;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Segmento inmutable de movimientos archivados, mapeado completo en memoria de solo lectura.
+ * <pre>
+ * bloques : uno por cuenta, registros comprimidos con Deflate
+ * índice  : una entrada por cuenta en orden ascendente (búsqueda binaria):
+ *           numerocuenta int, desplazamiento long, longitud int, longitudOriginal int, cantidad int,
+ *           fechaMinima int, fechaMaxima int (días desde 1970-01-01)
+ * cola    : desplazamientoIndice long, cantidadCuentas int, version int, MAGIA int
+ * </pre>
+ * Registro: idmovimiento long, estado byte (1, 0 o -1 si es null), fecha int, hora long (nanos del día),
+ * tipo byte (ordinal), monto long y saldo long (sin escala, escala 4), descripción int (bytes UTF-8, -1 si
+ * es null) seguida de los bytes.
+ */
+public final class SegmentoMovimientos {
+
+    private static final int MAGIA = 0x4D4F5653;
+    private static final int VERSION = 1;
+    private static final int ESCALA = 4;
+    private static final int TAMANO_ENTRADA = 32;
+    private static final int TAMANO_COLA = 20;
+
+    private final Path ruta;
+    private final MappedByteBuffer datos;
+    private final int desplazamientoIndice;
+    private final int cantidadCuentas;
+
+    private SegmentoMovimientos(Path ruta, MappedByteBuffer datos, int desplazamientoIndice, int cantidadCuentas) {
+        this.ruta = ruta;
+        this.datos = datos;
+        this.desplazamientoIndice = desplazamientoIndice;
+        this.cantidadCuentas = cantidadCuentas;
+    }
+
+    /**
+     * Mapea el archivo y valida la cola. El canal se cierra enseguida: el mapeo sigue vigente.
+     */
+    public static SegmentoMovimientos abrir(Path ruta) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < TAMANO_COLA || tamano > Integer.MAX_VALUE) {
+                throw new IOException("Segmento de movimientos inválido: " + ruta);
+            }
+            MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano);
+            int cola = (int) tamano - TAMANO_COLA;
+            long desplazamientoIndice = datos.getLong(cola);
+            int cantidadCuentas = datos.getInt(cola + 8);
+            if (datos.getInt(cola + 16) != MAGIA || datos.getInt(cola + 12) != VERSION
+                    || desplazamientoIndice + (long) cantidadCuentas * TAMANO_ENTRADA != cola) {
+                throw new IOException("Segmento de movimientos inválido: " + ruta);
+            }
+            return new SegmentoMovimientos(ruta, datos, (int) desplazamientoIndice, cantidadCuentas);
+        }
+    }
+
+    public static Escritor crear(Path destino) throws IOException {
+        return new Escritor(destino);
+    }
+
+    public Path getRuta() {
+        return ruta;
+    }
+
+    /**
+     * Agrega a la lista los movimientos archivados de la cuenta con fecha dentro del rango. Solo se descomprime
+     * el bloque de la cuenta, y solo si su rango de fechas se cruza con el pedido.
+     */
+    public void leer(Cuenta cuenta, LocalDate fechaInicio, LocalDate fechaFin, List<Movimiento> destino) {
+        int entrada = buscarEntrada(cuenta.getNumerocuenta());
+        if (entrada < 0) {
+            return;
+        }
+        int desde = (int) fechaInicio.toEpochDay();
+        int hasta = (int) fechaFin.toEpochDay();
+        if (datos.getInt(entrada + 24) > hasta || datos.getInt(entrada + 28) < desde) {
+            return;
+        }
+
+        ByteBuffer registros = ByteBuffer.wrap(descomprimir(entrada));
+        int cantidad = datos.getInt(entrada + 20);
+        Movimiento.TipoMovimiento[] tipos = Movimiento.TipoMovimiento.values();
+        for (int i = 0; i < cantidad; i++) {
+            long id = registros.getLong();
+            byte estado = registros.get();
+            int fecha = registros.getInt();
+            long hora = registros.getLong();
+            byte tipo = registros.get();
+            long monto = registros.getLong();
+            long saldo = registros.getLong();
+            int longitudDescripcion = registros.getInt();
+            String descripcion = null;
+            if (longitudDescripcion >= 0) {
+                descripcion = new String(registros.array(), registros.position(), longitudDescripcion, StandardCharsets.UTF_8);
+                registros.position(registros.position() + longitudDescripcion);
+            }
+            if (fecha < desde || fecha > hasta) {
+                continue;
+            }
+            Movimiento movimiento = new Movimiento();
+            movimiento.setIdmovimiento(id);
+            movimiento.setCuenta(cuenta);
+            movimiento.setEstado(estado < 0 ? null : estado == 1);
+            movimiento.setFechamovimiento(LocalDate.ofEpochDay(fecha));
+            movimiento.setHoramovimiento(LocalTime.ofNanoOfDay(hora));
+            movimiento.setTipomovimiento(tipos[tipo]);
+            movimiento.setMontomovimiento(BigDecimal.valueOf(monto, ESCALA));
+            movimiento.setSaldodisponible(BigDecimal.valueOf(saldo, ESCALA));
+            movimiento.setMovimientodescripcion(descripcion);
+            destino.add(movimiento);
+        }
+    }
+
+    /**
+     * Último día archivado de la cuenta en este segmento, o null si la cuenta no está en él.
+     */
+    public LocalDate fechaMaxima(Integer numeroCuenta) {
+        int entrada = buscarEntrada(numeroCuenta);
+        return entrada < 0 ? null : LocalDate.ofEpochDay(datos.getInt(entrada + 28));
+    }
+
+    private int buscarEntrada(int numeroCuenta) {
+        int bajo = 0;
+        int alto = cantidadCuentas - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int entrada = desplazamientoIndice + medio * TAMANO_ENTRADA;
+            int actual = datos.getInt(entrada);
+            if (actual < numeroCuenta) {
+                bajo = medio + 1;
+            } else if (actual > numeroCuenta) {
+                alto = medio - 1;
+            } else {
+                return entrada;
+            }
+        }
+        return -1;
+    }
+
+    private byte[] descomprimir(int entrada) {
+        int desplazamiento = (int) datos.getLong(entrada + 4);
+        int longitud = datos.getInt(entrada + 12);
+        byte[] salida = new byte[datos.getInt(entrada + 16)];
+        Inflater inflater = new Inflater();
+        try {
+            // Vista del bloque sobre el mapeo: la entrada comprimida no se copia al heap
+            inflater.setInput(datos.slice(desplazamiento, longitud));
+            int leidos = 0;
+            while (leidos < salida.length && !inflater.finished()) {
+                int n = inflater.inflate(salida, leidos, salida.length - leidos);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                leidos += n;
+            }
+            if (leidos != salida.length) {
+                throw new IllegalStateException("Bloque truncado en " + ruta);
+            }
+            return salida;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Bloque corrupto en " + ruta, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Escribe un segmento en un archivo temporal junto al destino; publicar lo fuerza a disco y lo renombra
+     * de forma atómica, así que un lector nunca ve un segmento a medio escribir. Las cuentas deben agregarse
+     * en orden ascendente.
+     */
+    public static final class Escritor implements Closeable {
+
+        private final Path destino;
+        private final Path temporal;
+        private final FileChannel canal;
+        private final ByteArrayOutputStream indice = new ByteArrayOutputStream();
+        private final DataOutputStream entradas = new DataOutputStream(indice);
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private int cantidadCuentas;
+        private Integer ultimaCuenta;
+        private boolean publicado;
+
+        private Escritor(Path destino) throws IOException {
+            this.destino = destino;
+            this.temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+            this.canal = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        }
+
+        public void agregar(Integer numeroCuenta, List<Movimiento> movimientos) throws IOException {
+            if (movimientos.isEmpty()) {
+                return;
+            }
+            if (ultimaCuenta != null && numeroCuenta <= ultimaCuenta) {
+                throw new IllegalArgumentException("Las cuentas deben agregarse en orden ascendente");
+            }
+            ByteArrayOutputStream original = new ByteArrayOutputStream(movimientos.size() * 64);
+            DataOutputStream registros = new DataOutputStream(original);
+            int fechaMinima = Integer.MAX_VALUE;
+            int fechaMaxima = Integer.MIN_VALUE;
+            for (Movimiento movimiento : movimientos) {
+                int fecha = (int) movimiento.getFechamovimiento().toEpochDay();
+                fechaMinima = Math.min(fechaMinima, fecha);
+                fechaMaxima = Math.max(fechaMaxima, fecha);
+                registros.writeLong(movimiento.getIdmovimiento());
+                registros.writeByte(movimiento.getEstado() == null ? -1 : movimiento.getEstado() ? 1 : 0);
+                registros.writeInt(fecha);
+                registros.writeLong(movimiento.getHoramovimiento().toNanoOfDay());
+                registros.writeByte(movimiento.getTipomovimiento().ordinal());
+                registros.writeLong(movimiento.getMontomovimiento().setScale(ESCALA).unscaledValue().longValueExact());
+                registros.writeLong(movimiento.getSaldodisponible().setScale(ESCALA).unscaledValue().longValueExact());
+                if (movimiento.getMovimientodescripcion() == null) {
+                    registros.writeInt(-1);
+                } else {
+                    byte[] descripcion = movimiento.getMovimientodescripcion().getBytes(StandardCharsets.UTF_8);
+                    registros.writeInt(descripcion.length);
+                    registros.write(descripcion);
+                }
+            }
+
+            byte[] comprimido = comprimir(original.toByteArray());
+            long desplazamiento = canal.position();
+            escribir(ByteBuffer.wrap(comprimido));
+
+            entradas.writeInt(numeroCuenta);
+            entradas.writeLong(desplazamiento);
+            entradas.writeInt(comprimido.length);
+            entradas.writeInt(original.size());
+            entradas.writeInt(movimientos.size());
+            entradas.writeInt(fechaMinima);
+            entradas.writeInt(fechaMaxima);
+            cantidadCuentas++;
+            ultimaCuenta = numeroCuenta;
+        }
+
+        public int getCantidadCuentas() {
+            return cantidadCuentas;
+        }
+
+        public Path publicar() throws IOException {
+            long desplazamientoIndice = canal.position();
+            escribir(ByteBuffer.wrap(indice.toByteArray()));
+            ByteBuffer cola = ByteBuffer.allocate(TAMANO_COLA);
+            cola.putLong(desplazamientoIndice).putInt(cantidadCuentas).putInt(VERSION).putInt(MAGIA).flip();
+            escribir(cola);
+            canal.force(true);
+            canal.close();
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            publicado = true;
+            return destino;
+        }
+
+        private byte[] comprimir(byte[] original) {
+            deflater.reset();
+            deflater.setInput(original);
+            deflater.finish();
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(original.length / 4, 64));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                salida.write(buffer, 0, n);
+            }
+            return salida.toByteArray();
+        }
+
+        private void escribir(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            if (!publicado) {
+                canal.close();
+                Files.deleteIfExists(temporal);
+            }
+        }
+    }
+}
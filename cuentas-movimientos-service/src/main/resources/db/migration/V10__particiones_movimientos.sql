@@ -0,0 +1,46 @@
+-- Particionado mensual de movimientos por fechamovimiento (RANGE COLUMNS). Las consultas por rango de fechas
+-- solo leen las particiones del rango y la retención se aplica quitando particiones completas.
+-- Restricciones de MySQL para tablas particionadas:
+--   * no admiten claves foráneas: se elimina movimientos -> cuentas (la cuenta se valida en el servicio
+--     y el alta de movimientos bloquea o actualiza su fila antes de insertar);
+--   * toda clave única debe incluir la columna de partición: la PK pasa a (idmovimiento, fechamovimiento).
+--     idmovimiento lo sigue asignando el generador por tabla y continúa siendo único.
+
+SET @fk_cuenta := (
+    SELECT CONSTRAINT_NAME
+    FROM information_schema.REFERENTIAL_CONSTRAINTS
+    WHERE CONSTRAINT_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'movimientos'
+      AND REFERENCED_TABLE_NAME = 'cuentas'
+    LIMIT 1);
+SET @sql := IF(@fk_cuenta IS NULL, 'DO 0', CONCAT('ALTER TABLE movimientos DROP FOREIGN KEY ', @fk_cuenta));
+PREPARE sentencia FROM @sql;
+EXECUTE sentencia;
+DEALLOCATE PREPARE sentencia;
+
+ALTER TABLE movimientos DROP PRIMARY KEY, ADD PRIMARY KEY (idmovimiento, fechamovimiento);
+
+-- Una partición por mes desde el primer movimiento hasta tres meses por delante; p_futuro recibe cualquier
+-- fecha posterior hasta que el mantenimiento (ParticionMovimientosService) la divida en meses.
+-- pAAAAMM contiene los movimientos anteriores al primer día del mes siguiente.
+SET SESSION group_concat_max_len = 1048576;
+SET @primer_mes := (
+    SELECT DATE_FORMAT(COALESCE(MIN(fechamovimiento), CURDATE()), '%Y-%m-01') FROM movimientos);
+SET @particiones := (
+    WITH RECURSIVE meses (inicio) AS (
+        SELECT CAST(@primer_mes AS DATE)
+        UNION ALL
+        SELECT inicio + INTERVAL 1 MONTH
+        FROM meses
+        WHERE inicio < CAST(DATE_FORMAT(CURDATE(), '%Y-%m-01') AS DATE) + INTERVAL 3 MONTH
+    )
+    SELECT GROUP_CONCAT(
+               CONCAT('PARTITION p', DATE_FORMAT(inicio, '%Y%m'),
+                      ' VALUES LESS THAN (''', inicio + INTERVAL 1 MONTH, ''')')
+               ORDER BY inicio SEPARATOR ', ')
+    FROM meses);
+SET @sql := CONCAT('ALTER TABLE movimientos PARTITION BY RANGE COLUMNS (fechamovimiento) (',
+                   @particiones, ', PARTITION p_futuro VALUES LESS THAN (MAXVALUE))');
+PREPARE sentencia FROM @sql;
+EXECUTE sentencia;
+DEALLOCATE PREPARE sentencia;
@@ -0,0 +1,25 @@
+-- Conciliación del libro: una fila por ejecución y una por discrepancia encontrada.
+-- idmovimiento solo se informa en las discrepancias de la cadena de saldos (fila concreta).
+CREATE TABLE conciliaciones (
+    idconciliacion BIGINT AUTO_INCREMENT PRIMARY KEY,
+    estado VARCHAR(20) NOT NULL,
+    fechainicio DATETIME(6) NOT NULL,
+    fechafin DATETIME(6),
+    cuentasrevisadas INT NOT NULL DEFAULT 0,
+    movimientosrevisados BIGINT NOT NULL DEFAULT 0,
+    discrepancias INT NOT NULL DEFAULT 0,
+    error VARCHAR(500)
+);
+
+CREATE TABLE conciliacion_discrepancias (
+    iddiscrepancia BIGINT AUTO_INCREMENT PRIMARY KEY,
+    idconciliacion BIGINT NOT NULL,
+    numerocuenta INT NOT NULL,
+    tipo VARCHAR(20) NOT NULL,
+    idmovimiento BIGINT,
+    esperado DECIMAL(14,4),
+    registrado DECIMAL(14,4),
+    detalle VARCHAR(300),
+    FOREIGN KEY (idconciliacion) REFERENCES conciliaciones(idconciliacion),
+    INDEX idx_discrepancias_conciliacion (idconciliacion, numerocuenta)
+);
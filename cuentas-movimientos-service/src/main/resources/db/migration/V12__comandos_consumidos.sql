@@ -0,0 +1,11 @@
+-- Último offset de comandos de movimiento aplicado por (tópico, partición, cuenta). Se actualiza en la misma
+-- transacción que los movimientos: un lote reentregado tras un commit de BD sin commit de offsets
+-- (caída o rebalanceo) omite los comandos con offset menor o igual en lugar de aplicarlos dos veces.
+CREATE TABLE comandos_consumidos (
+    topico VARCHAR(249) NOT NULL,
+    particion INT NOT NULL,
+    numerocuenta INT NOT NULL,
+    ultimooffset BIGINT NOT NULL,
+    fechaactualizacion DATETIME(6) NOT NULL,
+    PRIMARY KEY (topico, particion, numerocuenta)
+);
@@ -0,0 +1,11 @@
+-- Depósitos en cuentas fragmentadas aplicados con bloqueo compartido de la cuenta: su saldodisponible es provisional
+-- (su fragmento más lo confirmado en los demás) porque otros depósitos simultáneos pueden confirmarse antes o después.
+-- Cada operación que toma la cuenta en exclusiva (retiro, lote, unificación, asentamiento programado) los asienta:
+-- reescribe su saldodisponible como saldo acumulado, en orden de fechamovimiento, horamovimiento, idmovimiento,
+-- a partir del saldo total exacto, y elimina sus filas de esta tabla.
+CREATE TABLE movimientos_saldo_provisional (
+    numerocuenta INT NOT NULL,
+    idmovimiento BIGINT NOT NULL,
+    fechamovimiento DATE NOT NULL,
+    PRIMARY KEY (numerocuenta, idmovimiento)
+);
@@ -0,0 +1,9 @@
+-- Resumen por cuenta de los movimientos que la retención de particiones sacó de la tabla (ARCHIVAR o ELIMINAR):
+-- fecha y saldo del último movimiento retirado y cuántos se retiraron. La conciliación toma ese saldo como apertura
+-- y la reconstrucción de saldos diarios conserva los días hasta fechahasta.
+CREATE TABLE movimientos_retirados (
+    numerocuenta INT NOT NULL PRIMARY KEY,
+    fechahasta DATE NOT NULL,
+    saldocierre DECIMAL(10,4) NOT NULL,
+    cantidadmovimientos BIGINT NOT NULL
+);
@@ -0,0 +1,27 @@
+-- Esquema base de cuentas-movimientos-service (equivalente a tools/1_create_schema.sql).
+-- En bases existentes Flyway marca esta versión como baseline y no la ejecuta.
+-- La FK cuentas.idcliente -> clientes no se declara aquí: clientes pertenece a personas-clientes-service.
+
+CREATE TABLE IF NOT EXISTS cuentas (
+    numerocuenta INT PRIMARY KEY,
+    idcliente BIGINT NOT NULL,
+    tipocuenta ENUM('AHORROS', 'CORRIENTE') NOT NULL,
+    saldoinicial DECIMAL(10,4) NOT NULL,
+    saldodisponible DECIMAL(10,4),
+    estado BOOLEAN DEFAULT true,
+    fechacreacion DATETIME NOT NULL,
+    fechacierre DATETIME
+);
+
+CREATE TABLE IF NOT EXISTS movimientos (
+    idmovimiento BIGINT AUTO_INCREMENT PRIMARY KEY,
+    numerocuenta INT NOT NULL,
+    estado BOOLEAN DEFAULT true,
+    fechamovimiento DATE NOT NULL,
+    horamovimiento TIME(3) NOT NULL,
+    tipomovimiento ENUM('RETIRO', 'DEPOSITO') NOT NULL,
+    montomovimiento DECIMAL(10,4) NOT NULL,
+    saldodisponible DECIMAL(10,4) NOT NULL,
+    movimientodescripcion VARCHAR(300),
+    FOREIGN KEY (numerocuenta) REFERENCES cuentas(numerocuenta)
+);
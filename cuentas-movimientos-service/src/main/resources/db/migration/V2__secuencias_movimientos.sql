@@ -0,0 +1,9 @@
+-- Generador de IDs por tabla para Movimiento (permite inserts por lotes en Hibernate).
+CREATE TABLE IF NOT EXISTS secuencias (
+    nombre VARCHAR(64) PRIMARY KEY,
+    valor BIGINT NOT NULL
+);
+
+-- Inicializa por encima de los IDs existentes, con margen de un bloque de asignación (50)
+INSERT IGNORE INTO secuencias (nombre, valor)
+SELECT 'movimientos', COALESCE(MAX(idmovimiento), 0) + 51 FROM movimientos;
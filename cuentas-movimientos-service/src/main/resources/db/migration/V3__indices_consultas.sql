@@ -0,0 +1,15 @@
+-- Índices para las consultas de MovimientoRepository y CuentaRepository.
+
+-- Movimientos por cuenta ordenados por fecha/hora (listados, rango de fechas, reporte en streaming)
+-- y paginación por llave sobre (fechamovimiento, horamovimiento, idmovimiento).
+CREATE INDEX idx_movimientos_cuenta_fecha_hora
+    ON movimientos (numerocuenta, fechamovimiento, horamovimiento, idmovimiento);
+
+-- CuentaRepository.findByIdcliente
+CREATE INDEX idx_cuentas_idcliente ON cuentas (idcliente);
+
+-- CuentaRepository.findByEstado
+CREATE INDEX idx_cuentas_estado ON cuentas (estado);
+
+-- CuentaRepository.findByTipocuenta
+CREATE INDEX idx_cuentas_tipocuenta ON cuentas (tipocuenta);
@@ -0,0 +1,30 @@
+-- Saldos de cierre diarios por cuenta (mantenidos incrementalmente por cada movimiento).
+CREATE TABLE saldos_diarios (
+    numerocuenta INT NOT NULL,
+    fecha DATE NOT NULL,
+    saldoapertura DECIMAL(12,4) NOT NULL,
+    saldocierre DECIMAL(12,4) NOT NULL,
+    totalcreditos DECIMAL(14,4) NOT NULL,
+    totaldebitos DECIMAL(14,4) NOT NULL,
+    cantidadmovimientos INT NOT NULL,
+    PRIMARY KEY (numerocuenta, fecha),
+    FOREIGN KEY (numerocuenta) REFERENCES cuentas(numerocuenta)
+);
+
+-- Carga inicial desde los movimientos existentes (misma lógica que SaldoDiarioRepository.reconstruir)
+INSERT INTO saldos_diarios
+    (numerocuenta, fecha, saldoapertura, saldocierre, totalcreditos, totaldebitos, cantidadmovimientos)
+SELECT t.numerocuenta, t.fechamovimiento,
+       MAX(CASE WHEN t.orden_asc = 1 THEN t.saldodisponible - t.efecto END),
+       MAX(CASE WHEN t.orden_desc = 1 THEN t.saldodisponible END),
+       SUM(CASE WHEN t.efecto > 0 THEN t.efecto ELSE 0 END),
+       SUM(CASE WHEN t.efecto < 0 THEN -t.efecto ELSE 0 END),
+       COUNT(*)
+FROM (SELECT m.numerocuenta, m.fechamovimiento, m.saldodisponible,
+             CASE WHEN m.tipomovimiento = 'DEPOSITO' THEN ABS(m.montomovimiento) ELSE -ABS(m.montomovimiento) END AS efecto,
+             ROW_NUMBER() OVER (PARTITION BY m.numerocuenta, m.fechamovimiento
+                                ORDER BY m.horamovimiento, m.idmovimiento) AS orden_asc,
+             ROW_NUMBER() OVER (PARTITION BY m.numerocuenta, m.fechamovimiento
+                                ORDER BY m.horamovimiento DESC, m.idmovimiento DESC) AS orden_desc
+      FROM movimientos m) t
+GROUP BY t.numerocuenta, t.fechamovimiento;
@@ -0,0 +1,12 @@
+-- Claves de idempotencia para POST de movimientos y anulaciones (Idempotency-Key)
+CREATE TABLE claves_idempotencia (
+    clave VARCHAR(100) PRIMARY KEY,
+    operacion VARCHAR(150) NOT NULL,
+    huella CHAR(64) NOT NULL,
+    estadohttp INT,
+    respuesta MEDIUMTEXT,
+    fechacreacion DATETIME NOT NULL,
+    fechaexpiracion DATETIME NOT NULL
+);
+
+CREATE INDEX idx_claves_idempotencia_expiracion ON claves_idempotencia (fechaexpiracion);
@@ -0,0 +1,9 @@
+-- Outbox transaccional: eventos de dominio escritos en la misma transacción que el cambio de datos
+-- y publicados a Kafka por el relay (las filas se eliminan una vez confirmadas por el broker)
+CREATE TABLE outbox_eventos (
+    idevento BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tipoevento VARCHAR(50) NOT NULL,
+    numerocuenta INT NOT NULL,
+    payload MEDIUMTEXT NOT NULL,
+    fechacreacion DATETIME(6) NOT NULL
+);
@@ -0,0 +1,5 @@
+-- Listado general de movimientos (GET /api/movimientos): sin filtro de cuenta, la página se lee en el orden
+-- (fechamovimiento, horamovimiento, idmovimiento) descendente y el LIMIT se resuelve recorriendo este índice
+-- en lugar de ordenar la tabla completa. Con filtro de cuenta sigue aplicando idx_movimientos_cuenta_fecha_hora.
+CREATE INDEX idx_movimientos_fecha_hora
+    ON movimientos (fechamovimiento, horamovimiento, idmovimiento);
@@ -0,0 +1,26 @@
+-- Cuentas calientes: el saldo se reparte en N filas de fragmento para que los depósitos simultáneos
+-- no se serialicen sobre la fila de la cuenta. fragmentossaldo = 0 indica una cuenta normal.
+ALTER TABLE cuentas ADD COLUMN fragmentossaldo INT NOT NULL DEFAULT 0;
+
+-- Fragmentos de saldo. El saldo visible de una cuenta fragmentada es
+-- COALESCE(saldodisponible, saldoinicial) + SUM(saldo) de sus fragmentos.
+CREATE TABLE cuentas_fragmentos_saldo (
+    numerocuenta INT NOT NULL,
+    fragmento INT NOT NULL,
+    saldo DECIMAL(10,4) NOT NULL,
+    PRIMARY KEY (numerocuenta, fragmento),
+    FOREIGN KEY (numerocuenta) REFERENCES cuentas(numerocuenta)
+);
+
+-- Totales diarios de cuentas fragmentadas pendientes de consolidar en saldos_diarios.
+-- Una fila por (cuenta, día, fragmento) para que la acumulación diaria no vuelva a ser una fila caliente.
+CREATE TABLE saldos_diarios_pendientes (
+    numerocuenta INT NOT NULL,
+    fecha DATE NOT NULL,
+    fragmento INT NOT NULL,
+    totalcreditos DECIMAL(14,4) NOT NULL,
+    totaldebitos DECIMAL(14,4) NOT NULL,
+    cantidadmovimientos INT NOT NULL,
+    PRIMARY KEY (numerocuenta, fecha, fragmento),
+    FOREIGN KEY (numerocuenta) REFERENCES cuentas(numerocuenta)
+);
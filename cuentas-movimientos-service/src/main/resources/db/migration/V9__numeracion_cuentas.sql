@@ -0,0 +1,7 @@
+-- Numeración de cuentas asignada por el servicio. Las cuentas sin número en la solicitud toman uno del
+-- rango reservado (cuentas.numeracion.inicio / fin), que se reparte por bloques en memoria.
+-- valor es el siguiente número libre del rango; se inicializa por encima de las cuentas existentes en él.
+INSERT IGNORE INTO secuencias (nombre, valor)
+SELECT 'cuentas', COALESCE(MAX(numerocuenta) + 1, 500000)
+FROM cuentas
+WHERE numerocuenta BETWEEN 500000 AND 989999;
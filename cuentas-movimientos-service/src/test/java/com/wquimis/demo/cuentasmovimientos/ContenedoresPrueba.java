@@ -0,0 +1,25 @@
+package com.wquimis.demo.cuentasmovimientos;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * MySQL de pruebas con la misma imagen que tools/docker-compose.yml; Flyway aplica las migraciones al iniciar.
+ * Se conecta como root para poder leer performance_schema. La URL no lleva useCursorFetch: con él las consultas
+ * con fetch size pasan a sentencias preparadas en el servidor y performance_schema no registra sus valores.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class ContenedoresPrueba {
+
+    @Bean
+    @ServiceConnection
+    MySQLContainer<?> mysql() {
+        return new MySQLContainer<>(DockerImageName.parse("mysql:8.0.43-bookworm"))
+            .withUsername("root")
+            .withUrlParam("rewriteBatchedStatements", "true")
+            .withCommand("--performance-schema-max-sql-text-length=8192");
+    }
+}
@@ -0,0 +1,194 @@
+package com.wquimis.demo.cuentasmovimientos.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Enrutamiento de lecturas contra dos MySQL locales: una primaria (server_id 1) y una réplica (server_id 2) que
+ * replica de ella. El destino de cada conexión se reconoce por @@server_id. La verificación de retraso se invoca
+ * a mano en lugar de programarse, para controlar cuándo se toma cada muestra.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ReplicasLecturaDataSourceTest {
+
+    private static final String IMAGEN = "mysql:8.0.43-bookworm";
+    private static final Duration RETRASO_MAXIMO = Duration.ofSeconds(1);
+    private static final Duration INTERVALO_VERIFICACION = Duration.ofMillis(100);
+    private static final Network RED = Network.newNetwork();
+
+    @Container
+    private static final MySQLContainer<?> PRIMARIA = new MySQLContainer<>(DockerImageName.parse(IMAGEN))
+        .withUsername("root")
+        .withNetwork(RED)
+        .withNetworkAliases("primaria")
+        .withCommand("--server-id=1", "--log-bin=mysql-bin");
+
+    @Container
+    private static final MySQLContainer<?> REPLICA = new MySQLContainer<>(DockerImageName.parse(IMAGEN))
+        .withUsername("root")
+        .withNetwork(RED)
+        .withCommand("--server-id=2");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HikariDataSource primaria;
+    private ReplicasLecturaDataSource replicas;
+
+    @BeforeAll
+    static void configurarReplicacion() throws SQLException {
+        // Desde la posición actual del binlog: la réplica ya tiene la BD "test" que creó el contenedor de la primaria
+        String archivo;
+        long posicion;
+        try (Connection conexion = PRIMARIA.createConnection("");
+             Statement sentencia = conexion.createStatement();
+             ResultSet estado = sentencia.executeQuery("SHOW MASTER STATUS")) {
+            estado.next();
+            archivo = estado.getString("File");
+            posicion = estado.getLong("Position");
+        }
+        ejecutar(REPLICA, "CHANGE REPLICATION SOURCE TO SOURCE_HOST = 'primaria', SOURCE_PORT = 3306, " +
+            "SOURCE_USER = 'root', SOURCE_PASSWORD = '" + PRIMARIA.getPassword() + "', GET_SOURCE_PUBLIC_KEY = 1, " +
+            "SOURCE_LOG_FILE = '" + archivo + "', SOURCE_LOG_POS = " + posicion);
+        ejecutar(REPLICA, "START REPLICA");
+        ejecutar(PRIMARIA, "CREATE TABLE test.latidos (id INT AUTO_INCREMENT PRIMARY KEY, momento TIMESTAMP(3))");
+    }
+
+    @BeforeEach
+    void crearDataSource() {
+        primaria = pool("primaria", PRIMARIA);
+        replicas = new ReplicasLecturaDataSource("cuentas", primaria, List.of(pool("replica-1", REPLICA)),
+            RETRASO_MAXIMO, INTERVALO_VERIFICACION, meterRegistry);
+    }
+
+    @AfterEach
+    void cerrar() throws SQLException {
+        replicas.close();
+        primaria.close();
+        // Deja la réplica sin demora y al día para la prueba siguiente
+        ejecutar(REPLICA, "STOP REPLICA SQL_THREAD");
+        ejecutar(REPLICA, "CHANGE REPLICATION SOURCE TO SOURCE_DELAY = 0");
+        ejecutar(REPLICA, "START REPLICA SQL_THREAD");
+    }
+
+    @Test
+    void replicaAlDiaRecibeLasLecturas() throws SQLException {
+        assertThat(destino()).as("sin medición todavía").isEqualTo(1);
+
+        replicas.verificarRetraso();
+
+        assertThat(destino()).isEqualTo(2);
+        assertThat(destino()).isEqualTo(2);
+        assertThat(conexiones("replica-1")).isEqualTo(2);
+        assertThat(conexiones("primaria")).isEqualTo(1);
+        assertThat(meterRegistry.get("cuentas.lecturas.replica.retraso").tag("replica", "replica-1").gauge().value())
+            .isZero();
+    }
+
+    @Test
+    void replicaAtrasadaDevuelveLasLecturasALaPrimaria() throws Exception {
+        replicas.verificarRetraso();
+        assertThat(destino()).isEqualTo(2);
+
+        // La réplica recibe el evento pero lo aplica una hora después: Seconds_Behind_Source crece desde cero
+        ejecutar(REPLICA, "STOP REPLICA SQL_THREAD");
+        ejecutar(REPLICA, "CHANGE REPLICATION SOURCE TO SOURCE_DELAY = 3600");
+        ejecutar(REPLICA, "START REPLICA SQL_THREAD");
+        ejecutar(PRIMARIA, "INSERT INTO test.latidos (momento) VALUES (NOW(3))");
+
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        do {
+            Thread.sleep(INTERVALO_VERIFICACION.toMillis());
+            replicas.verificarRetraso();
+        } while (destino() == 2 && System.nanoTime() < limite);
+
+        assertThat(destino()).isEqualTo(1);
+        assertThat(meterRegistry.get("cuentas.lecturas.replica.retraso").tag("replica", "replica-1").gauge().value())
+            .isGreaterThan(RETRASO_MAXIMO.toSeconds());
+
+        // Sin demora la réplica aplica el evento y vuelve a recibir lecturas
+        ejecutar(REPLICA, "STOP REPLICA SQL_THREAD");
+        ejecutar(REPLICA, "CHANGE REPLICATION SOURCE TO SOURCE_DELAY = 0");
+        ejecutar(REPLICA, "START REPLICA SQL_THREAD");
+        limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        do {
+            Thread.sleep(INTERVALO_VERIFICACION.toMillis());
+            replicas.verificarRetraso();
+        } while (destino() == 1 && System.nanoTime() < limite);
+        assertThat(destino()).isEqualTo(2);
+    }
+
+    @Test
+    void replicacionDetenidaDevuelveLasLecturasALaPrimaria() throws SQLException {
+        replicas.verificarRetraso();
+        assertThat(destino()).isEqualTo(2);
+
+        // Hilo SQL detenido: Seconds_Behind_Source es NULL
+        ejecutar(REPLICA, "STOP REPLICA SQL_THREAD");
+        replicas.verificarRetraso();
+
+        assertThat(destino()).isEqualTo(1);
+        assertThat(meterRegistry.get("cuentas.lecturas.replica.retraso").tag("replica", "replica-1").gauge().value())
+            .isNaN();
+    }
+
+    @Test
+    void muestraVencidaDevuelveLasLecturasALaPrimaria() throws Exception {
+        replicas.verificarRetraso();
+        assertThat(destino()).isEqualTo(2);
+
+        // Vigencia de la muestra: el mayor entre el retraso máximo y tres intervalos de verificación
+        Thread.sleep(RETRASO_MAXIMO.toMillis() + 500);
+
+        assertThat(destino()).as("sin nuevas mediciones").isEqualTo(1);
+        replicas.verificarRetraso();
+        assertThat(destino()).isEqualTo(2);
+    }
+
+    private int destino() throws SQLException {
+        try (Connection conexion = replicas.getConnection();
+             Statement sentencia = conexion.createStatement();
+             ResultSet resultado = sentencia.executeQuery("SELECT @@server_id")) {
+            resultado.next();
+            return resultado.getInt(1);
+        }
+    }
+
+    private double conexiones(String destino) {
+        return meterRegistry.get("cuentas.lecturas.conexiones").tag("destino", destino).counter().count();
+    }
+
+    private static HikariDataSource pool(String nombre, MySQLContainer<?> contenedor) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(nombre);
+        pool.setJdbcUrl(contenedor.getJdbcUrl());
+        pool.setUsername(contenedor.getUsername());
+        pool.setPassword(contenedor.getPassword());
+        pool.setMaximumPoolSize(2);
+        return pool;
+    }
+
+    private static void ejecutar(MySQLContainer<?> contenedor, String sql) throws SQLException {
+        try (Connection conexion = contenedor.createConnection("");
+             Statement sentencia = conexion.createStatement()) {
+            sentencia.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.wquimis.demo.cuentasmovimientos.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wquimis.demo.cuentasmovimientos.dto.MovimientoDTO;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.repository.ComandoConsumidoRepository;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatosService;
+import com.wquimis.demo.cuentasmovimientos.services.MovimientoService;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoMovimiento;
+import com.wquimis.demo.cuentasmovimientos.utils.DtoConverter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reentrega, aislamiento de fallas y reintento de fallas transitorias del listener de comandos, invocado
+ * directamente con lotes armados a mano. comandos_consumidos es un mapa en memoria con la misma semántica que
+ * la tabla (fila creada con offset -1, lectura y actualización del último offset aplicado), y solo se escribe
+ * cuando la "transacción" del grupo termina sin excepción.
+ */
+class MovimientoComandoListenerFallasTest {
+
+    private static final String TOPICO = "cuentas-movimientos.comandos";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MovimientoService movimientoService = mock(MovimientoService.class);
+    private final ComandoConsumidoRepository comandoConsumidoRepository = mock(ComandoConsumidoRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final Acknowledgment ack = mock(Acknowledgment.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Último offset confirmado y el pendiente de la transacción en curso, por (partición, cuenta)
+    private final Map<String, Long> ultimosOffsets = new ConcurrentHashMap<>();
+    private final Map<String, Long> offsetsEnTransaccion = new ConcurrentHashMap<>();
+    private final List<String> aplicados = Collections.synchronizedList(new ArrayList<>());
+
+    private MovimientoComandoListener listener;
+
+    @BeforeEach
+    void preparar() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocacion -> {
+            offsetsEnTransaccion.clear();
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(invocacion -> {
+            ultimosOffsets.putAll(offsetsEnTransaccion);
+            offsetsEnTransaccion.clear();
+            return null;
+        }).when(transactionManager).commit(any());
+        doAnswer(invocacion -> {
+            offsetsEnTransaccion.clear();
+            return null;
+        }).when(transactionManager).rollback(any());
+
+        when(comandoConsumidoRepository.findUltimoOffsetParaActualizar(anyString(), anyInt(), anyInt()))
+            .thenAnswer(invocacion -> ultimosOffsets.getOrDefault(clave(invocacion.getArgument(1), invocacion.getArgument(2)), -1L));
+        when(comandoConsumidoRepository.actualizarUltimoOffset(anyString(), anyInt(), anyInt(), anyLong()))
+            .thenAnswer(invocacion -> {
+                offsetsEnTransaccion.put(clave(invocacion.getArgument(1), invocacion.getArgument(2)), invocacion.getArgument(3));
+                return 1;
+            });
+
+        when(movimientoService.realizarMovimientosCuenta(anyInt(), anyList())).thenAnswer(invocacion -> {
+            List<Movimiento> movimientos = invocacion.getArgument(1);
+            for (Movimiento movimiento : movimientos) {
+                switch (movimiento.getMovimientodescripcion()) {
+                    case "desborde" -> throw new DataIntegrityViolationException("Out of range value for column 'saldodisponible'");
+                    case "bloqueo" -> throw new CannotAcquireLockException("Lock wait timeout exceeded");
+                    default -> { }
+                }
+            }
+            // Solo se registran si la tanda completa se aplica
+            movimientos.forEach(movimiento -> aplicados.add(invocacion.getArgument(0) + ":" + movimiento.getMovimientodescripcion()));
+            return movimientos.stream().map(ResultadoMovimiento::exitoso).toList();
+        });
+
+        listener = new MovimientoComandoListener(movimientoService, mock(CuentaMetadatosService.class),
+            comandoConsumidoRepository, new DtoConverter(), objectMapper,
+            Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, meterRegistry, 1_000);
+    }
+
+    @Test
+    void loteReentregadoNoAplicaDosVecesLosComandos() throws Exception {
+        List<ConsumerRecord<String, String>> lote = List.of(
+            registro(0, 10, 100_001, "a1"), registro(0, 11, 100_001, "a2"), registro(1, 20, 100_002, "b1"));
+
+        listener.procesarLote(lote, ack);
+        // Caída tras el commit de BD y antes del commit de offsets: el broker entrega el mismo lote
+        listener.procesarLote(lote, ack);
+
+        assertThat(aplicados).containsExactly("100001:a1", "100001:a2", "100002:b1");
+        assertThat(meterRegistry.get("cuentas.comandos.procesados").tag("resultado", "duplicado").counter().count())
+            .isEqualTo(3);
+        verify(ack, times(2)).acknowledge();
+    }
+
+    @Test
+    void comandoQueFallaSeSenalaSinRevertirOtrasCuentasNiLosAnterioresDeSuCuenta() throws Exception {
+        List<ConsumerRecord<String, String>> lote = List.of(
+            registro(0, 10, 100_001, "a1"), registro(0, 11, 100_001, "desborde"), registro(0, 12, 100_001, "a3"),
+            registro(1, 20, 100_002, "b1"));
+
+        assertThatThrownBy(() -> listener.procesarLote(lote, ack))
+            .isInstanceOfSatisfying(BatchListenerFailedException.class,
+                e -> assertThat(e.getIndex()).isEqualTo(1))
+            .hasCauseInstanceOf(DataIntegrityViolationException.class);
+
+        // a1 queda aplicado y registrado: la reentrega desde el índice 1 no lo repite
+        assertThat(aplicados).containsExactly("100001:a1", "100002:b1");
+        assertThat(ultimosOffsets).containsEntry(clave(0, 100_001), 10L).containsEntry(clave(1, 100_002), 20L);
+        verify(ack, never()).acknowledge();
+
+        // Reentrega tras el error handler (el comando fallido ya fue al tópico .DLT)
+        listener.procesarLote(List.of(registro(0, 12, 100_001, "a3"), registro(1, 20, 100_002, "b1")), ack);
+        assertThat(aplicados).containsExactly("100001:a1", "100002:b1", "100001:a3");
+    }
+
+    @Test
+    void fallaTransitoriaHaceNackDesdeElPrimerComandoSinAplicar() throws Exception {
+        List<ConsumerRecord<String, String>> lote = List.of(
+            registro(0, 10, 100_002, "b1"), registro(1, 20, 100_001, "a1"), registro(0, 11, 100_002, "bloqueo"));
+
+        listener.procesarLote(lote, ack);
+
+        // Las cuentas se aplican en orden ascendente: 100001 quedó aplicada, 100002 no
+        assertThat(aplicados).containsExactly("100001:a1");
+        verify(ack).nack(0, Duration.ofMillis(1_000));
+        verify(ack, never()).acknowledge();
+    }
+
+    private ConsumerRecord<String, String> registro(int particion, long offset, int numeroCuenta, String descripcion)
+            throws Exception {
+        MovimientoDTO dto = new MovimientoDTO();
+        dto.setNumeroCuenta(numeroCuenta);
+        dto.setTipomovimiento("DEPOSITO");
+        dto.setMontomovimiento(BigDecimal.TEN);
+        dto.setMovimientodescripcion(descripcion);
+        return new ConsumerRecord<>(TOPICO, particion, offset, String.valueOf(numeroCuenta), objectMapper.writeValueAsString(dto));
+    }
+
+    private static String clave(Integer particion, Integer numeroCuenta) {
+        return particion + "/" + numeroCuenta;
+    }
+}
@@ -0,0 +1,169 @@
+package com.wquimis.demo.cuentasmovimientos.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wquimis.demo.cuentasmovimientos.config.KafkaConfig;
+import com.wquimis.demo.cuentasmovimientos.dto.MovimientoDTO;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.repository.ComandoConsumidoRepository;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatosService;
+import com.wquimis.demo.cuentasmovimientos.services.MovimientoService;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoMovimiento;
+import com.wquimis.demo.cuentasmovimientos.utils.DtoConverter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rendimiento del consumidor de comandos contra un broker Kafka embebido con la configuración de
+ * application.properties (modo lote, ack manual por lote, concurrencia y particiones del tópico). La aplicación de
+ * movimientos es un doble que registra el orden recibido por cuenta, así que se mide el consumo y no la BD.
+ * La configuración anterior (max.poll.records=1, concurrency=1, ack inmediato) quedaba en decenas de
+ * comandos por segundo.
+ */
+@SpringBootTest(
+    classes = {MovimientoComandoListener.class, KafkaConfig.class, DtoConverter.class,
+        MovimientoComandoListenerTest.Metricas.class},
+    properties = "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}")
+@ImportAutoConfiguration({KafkaAutoConfiguration.class, JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@EmbeddedKafka(partitions = 12, topics = "cuentas-movimientos.comandos")
+class MovimientoComandoListenerTest {
+
+    private static final int CUENTAS = 100;
+    private static final int COMANDOS = 20_000;
+    private static final double COMANDOS_POR_SEGUNDO_MINIMO = 1_000;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private KafkaAdmin kafkaAdmin;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cuentas.comandos.topic}")
+    private String topic;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String grupo;
+
+    @MockitoBean
+    private MovimientoService movimientoService;
+
+    @MockitoBean
+    private CuentaMetadatosService cuentaMetadatosService;
+
+    @MockitoBean
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private ComandoConsumidoRepository comandoConsumidoRepository;
+
+    @Test
+    void consumeEnLotesConservandoElOrdenPorCuenta() throws Exception {
+        Map<Integer, List<Integer>> aplicadosPorCuenta = new ConcurrentHashMap<>();
+        Set<String> hilos = ConcurrentHashMap.newKeySet();
+        AtomicInteger aplicados = new AtomicInteger();
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(comandoConsumidoRepository.findUltimoOffsetParaActualizar(any(), anyInt(), anyInt())).thenReturn(-1L);
+        when(movimientoService.realizarMovimientosCuenta(anyInt(), anyList())).thenAnswer(invocacion -> {
+            Integer numeroCuenta = invocacion.getArgument(0);
+            List<Movimiento> movimientos = invocacion.getArgument(1);
+            hilos.add(Thread.currentThread().getName());
+            List<Integer> secuencia = aplicadosPorCuenta.computeIfAbsent(numeroCuenta,
+                k -> Collections.synchronizedList(new ArrayList<>()));
+            movimientos.forEach(m -> secuencia.add(Integer.valueOf(m.getMovimientodescripcion())));
+            aplicados.addAndGet(movimientos.size());
+            return movimientos.stream().map(ResultadoMovimiento::exitoso).toList();
+        });
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < COMANDOS; i++) {
+            int numeroCuenta = 100_000 + i % CUENTAS;
+            kafkaTemplate.send(topic, String.valueOf(numeroCuenta), comando(numeroCuenta, i / CUENTAS));
+        }
+        kafkaTemplate.flush();
+        await().atMost(Duration.ofSeconds(60)).until(() -> aplicados.get() >= COMANDOS);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        // Todos los comandos, una vez cada uno y en orden de envío dentro de cada cuenta
+        assertThat(aplicados.get()).isEqualTo(COMANDOS);
+        assertThat(aplicadosPorCuenta).hasSize(CUENTAS);
+        aplicadosPorCuenta.values().forEach(secuencia ->
+            assertThat(secuencia).containsExactlyElementsOf(IntStream.range(0, COMANDOS / CUENTAS).boxed().toList()));
+
+        // Lotes de varios registros y particiones atendidas por más de un hilo
+        long lotes = meterRegistry.get("cuentas.comandos.lote").timer().count();
+        assertThat(lotes).isLessThan(COMANDOS / 10);
+        assertThat(hilos).hasSizeGreaterThan(1);
+        assertThat(COMANDOS / segundos).as("comandos por segundo (%d lotes en %.2f s)", lotes, segundos)
+            .isGreaterThanOrEqualTo(COMANDOS_POR_SEGUNDO_MINIMO);
+
+        // Offsets confirmados por lote después de aplicar los movimientos
+        try (AdminClient admin = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            await().atMost(Duration.ofSeconds(10)).until(() -> offsetsConfirmados(admin) == COMANDOS);
+        }
+    }
+
+    private long offsetsConfirmados(AdminClient admin) throws Exception {
+        return admin.listConsumerGroupOffsets(grupo).partitionsToOffsetAndMetadata().get().values().stream()
+            .mapToLong(OffsetAndMetadata::offset)
+            .sum();
+    }
+
+    private String comando(int numeroCuenta, int secuencia) throws Exception {
+        MovimientoDTO dto = new MovimientoDTO();
+        dto.setNumeroCuenta(numeroCuenta);
+        dto.setTipomovimiento("DEPOSITO");
+        dto.setMontomovimiento(BigDecimal.TEN);
+        dto.setMovimientodescripcion(String.valueOf(secuencia));
+        return objectMapper.writeValueAsString(dto);
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Metricas {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
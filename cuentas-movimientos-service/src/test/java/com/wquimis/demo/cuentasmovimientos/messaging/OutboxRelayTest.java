@@ -0,0 +1,162 @@
+package com.wquimis.demo.cuentasmovimientos.messaging;
+
+import com.wquimis.demo.cuentasmovimientos.entities.OutboxEvento;
+import com.wquimis.demo.cuentasmovimientos.repository.OutboxEventoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static com.wquimis.demo.cuentasmovimientos.entities.OutboxEvento.TipoEvento.CUENTA_CREADA;
+import static com.wquimis.demo.cuentasmovimientos.entities.OutboxEvento.TipoEvento.MOVIMIENTO_ANULADO;
+import static com.wquimis.demo.cuentasmovimientos.entities.OutboxEvento.TipoEvento.MOVIMIENTO_CREADO;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Relay del outbox contra un broker Kafka embebido. El repositorio y el gestor de transacciones son dobles;
+ * el productor usa la misma configuración que application.properties (idempotente, acks=all, lz4, linger).
+ */
+@EmbeddedKafka(partitions = 3, topics = OutboxRelayTest.TOPIC)
+class OutboxRelayTest {
+
+    static final String TOPIC = "cuentas-movimientos.eventos";
+    private static final int TAMANO_LOTE = 500;
+
+    private final OutboxEventoRepository outboxEventoRepository = mock(OutboxEventoRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @BeforeEach
+    void configurarTransacciones() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    void publicaElLoteConClaveDeCuentaYBorraLasFilasConfirmadas(EmbeddedKafkaBroker broker) {
+        List<OutboxEvento> lote = List.of(
+            evento(1L, 100001, MOVIMIENTO_CREADO),
+            evento(2L, 100002, CUENTA_CREADA),
+            evento(3L, 100001, MOVIMIENTO_CREADO),
+            evento(4L, 100002, MOVIMIENTO_CREADO),
+            evento(5L, 100001, MOVIMIENTO_ANULADO));
+        when(outboxEventoRepository.findLotePendiente(TAMANO_LOTE)).thenReturn(lote, List.of());
+
+        relay(productor(broker.getBrokersAsString(), Map.of()), 30_000).publicarPendientes();
+
+        // Las filas se borran solo después de la confirmación del broker, en la transacción del lote
+        verify(outboxEventoRepository).deleteByIds(List.of(1L, 2L, 3L, 4L, 5L));
+
+        try (Consumer<String, String> consumidor = consumidor(broker)) {
+            ConsumerRecords<String, String> registros = KafkaTestUtils.getRecords(consumidor, Duration.ofSeconds(10), lote.size());
+            List<ConsumerRecord<String, String>> recibidos = StreamSupport.stream(registros.spliterator(), false).toList();
+            assertThat(recibidos).hasSize(lote.size());
+
+            for (ConsumerRecord<String, String> registro : recibidos) {
+                long idEvento = Long.parseLong(cabecera(registro, OutboxRelay.CABECERA_ID_EVENTO));
+                OutboxEvento evento = lote.get((int) idEvento - 1);
+                assertThat(registro.key()).isEqualTo(evento.getNumerocuenta().toString());
+                assertThat(registro.value()).isEqualTo(evento.getPayload());
+                assertThat(cabecera(registro, OutboxRelay.CABECERA_TIPO_EVENTO)).isEqualTo(evento.getTipoevento().name());
+            }
+
+            // Cada cuenta en una sola partición y en el orden del outbox
+            Map<String, List<ConsumerRecord<String, String>>> porCuenta = recibidos.stream()
+                .collect(Collectors.groupingBy(ConsumerRecord::key));
+            assertThat(porCuenta).containsOnlyKeys("100001", "100002");
+            porCuenta.forEach((cuenta, registrosCuenta) -> {
+                assertThat(registrosCuenta).extracting(ConsumerRecord::partition).containsOnly(registrosCuenta.get(0).partition());
+                List<Long> ids = new ArrayList<>();
+                registrosCuenta.stream()
+                    .sorted((a, b) -> Long.compare(a.offset(), b.offset()))
+                    .forEach(r -> ids.add(Long.parseLong(cabecera(r, OutboxRelay.CABECERA_ID_EVENTO))));
+                assertThat(ids).isSorted();
+            });
+        }
+    }
+
+    @Test
+    void siElBrokerNoConfirmaRevierteYConservaLasFilas() {
+        when(outboxEventoRepository.findLotePendiente(TAMANO_LOTE)).thenReturn(List.of(evento(1L, 100001, MOVIMIENTO_CREADO)));
+        // Sin broker en la dirección: el envío no se confirma dentro del timeout del relay
+        KafkaTemplate<String, String> sinBroker = productor("localhost:1", Map.of(ProducerConfig.MAX_BLOCK_MS_CONFIG, 500));
+
+        assertThatNoException().isThrownBy(() -> relay(sinBroker, 2_000).publicarPendientes());
+
+        verify(outboxEventoRepository, never()).deleteByIds(anyList());
+        verify(transactionManager).rollback(any());
+    }
+
+    private OutboxRelay relay(KafkaTemplate<String, String> kafkaTemplate, long timeoutEnvioMs) {
+        return new OutboxRelay(outboxEventoRepository, kafkaTemplate, transactionManager, new SimpleMeterRegistry(),
+            TOPIC, TAMANO_LOTE, timeoutEnvioMs);
+    }
+
+    private static KafkaTemplate<String, String> productor(String servidores, Map<String, Object> adicionales) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, servidores);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        config.putAll(adicionales);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config));
+    }
+
+    private static Consumer<String, String> consumidor(EmbeddedKafkaBroker broker) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, "outbox-relay-test");
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        Consumer<String, String> consumidor = new DefaultKafkaConsumerFactory<>(config,
+            new StringDeserializer(), new StringDeserializer()).createConsumer();
+        broker.consumeFromAnEmbeddedTopic(consumidor, TOPIC);
+        return consumidor;
+    }
+
+    private static String cabecera(ConsumerRecord<String, String> registro, String nombre) {
+        return new String(registro.headers().lastHeader(nombre).value(), StandardCharsets.UTF_8);
+    }
+
+    private static OutboxEvento evento(Long id, Integer numeroCuenta, OutboxEvento.TipoEvento tipo) {
+        OutboxEvento evento = new OutboxEvento();
+        evento.setIdevento(id);
+        evento.setNumerocuenta(numeroCuenta);
+        evento.setTipoevento(tipo);
+        evento.setPayload("{\"idEvento\":" + id + ",\"numeroCuenta\":" + numeroCuenta + ",\"tipoEvento\":\"" + tipo + "\"}");
+        evento.setFechacreacion(LocalDateTime.now());
+        return evento;
+    }
+}
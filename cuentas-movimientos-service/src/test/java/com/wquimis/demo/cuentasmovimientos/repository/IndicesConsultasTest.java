@@ -0,0 +1,203 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.ContenedoresPrueba;
+import com.wquimis.demo.cuentasmovimientos.dto.FiltroCuentasDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.FiltroMovimientosDTO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ejecuta cada consulta de MovimientoRepository y CuentaRepository contra MySQL con las migraciones aplicadas,
+ * toma de performance_schema las sentencias que envió Hibernate y falla si el EXPLAIN de alguna recorre una
+ * tabla completa (type = ALL). Los datos de carga tienen volumen suficiente para que el optimizador elija
+ * los índices por costo y no por tamaño de tabla.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ContenedoresPrueba.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IndicesConsultasTest {
+
+    private static final int CUENTA = 100_007;
+    private static final long CLIENTE = 3L;
+    private static final long ID_MOVIMIENTO = 1_000_007L;
+    private static final LocalDate HASTA = LocalDate.now();
+    private static final LocalDate DESDE = HASTA.minusDays(30);
+    private static final LocalTime HORA = LocalTime.NOON;
+    private static final Pageable PAGINA = PageRequest.of(0, 50);
+    private static final Sort ORDEN_MOVIMIENTOS = Sort.by(Sort.Direction.DESC, "fechamovimiento", "horamovimiento", "idmovimiento");
+
+    @Autowired
+    private MovimientoRepository movimientoRepository;
+
+    @Autowired
+    private CuentaRepository cuentaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    void cargarDatos() {
+        // 2.000 cuentas de 1.000 clientes; 40.000 movimientos de 400 cuentas repartidos en un año.
+        // Los IDs de movimiento quedan lejos de los que entrega el generador por tabla.
+        jdbcTemplate.update("""
+            INSERT INTO cuentas (numerocuenta, idcliente, tipocuenta, saldoinicial, saldodisponible, estado, fechacreacion)
+            WITH RECURSIVE d (i) AS (SELECT 0 UNION ALL SELECT i + 1 FROM d WHERE i < 199)
+            SELECT 100000 + a.i * 200 + b.i, (a.i * 200 + b.i) DIV 2,
+                   IF(b.i % 2 = 0, 'AHORROS', 'CORRIENTE'), 1000, 1000, true, NOW()
+            FROM d a CROSS JOIN d b
+            WHERE a.i < 10
+            """);
+        jdbcTemplate.update("""
+            INSERT INTO movimientos (idmovimiento, numerocuenta, estado, fechamovimiento, horamovimiento,
+                                     tipomovimiento, montomovimiento, saldodisponible, movimientodescripcion)
+            WITH RECURSIVE d (i) AS (SELECT 0 UNION ALL SELECT i + 1 FROM d WHERE i < 199)
+            SELECT 1000000 + a.i * 200 + b.i, 100000 + (a.i * 200 + b.i) % 400, true,
+                   CURDATE() - INTERVAL ((a.i * 200 + b.i) * 7 % 365) DAY, SEC_TO_TIME((a.i * 200 + b.i) % 86400),
+                   IF(b.i % 2 = 0, 'DEPOSITO', 'RETIRO'), 10, 1000, 'Carga de prueba'
+            FROM d a CROSS JOIN d b
+            """);
+        jdbcTemplate.execute("ANALYZE TABLE cuentas, movimientos");
+    }
+
+    Stream<Arguments> consultas() {
+        FiltroMovimientosDTO movimientosPorCuenta = new FiltroMovimientosDTO();
+        movimientosPorCuenta.setNumeroCuenta(CUENTA);
+        movimientosPorCuenta.setFechaInicio(DESDE);
+        FiltroMovimientosDTO movimientosPorCliente = new FiltroMovimientosDTO();
+        movimientosPorCliente.setIdCliente(CLIENTE);
+        FiltroCuentasDTO cuentasPorCliente = new FiltroCuentasDTO();
+        cuentasPorCliente.setIdCliente(CLIENTE);
+
+        return Stream.of(
+            // MovimientoRepository
+            consulta("findByNumeroCuentaOrderByFechaDesc", () -> movimientoRepository.findByNumeroCuentaOrderByFechaDesc(CUENTA)),
+            consulta("findByNumeroCuentaAndFechaBetweenOrderByFechaDesc",
+                () -> movimientoRepository.findByNumeroCuentaAndFechaBetweenOrderByFechaDesc(CUENTA, DESDE, HASTA)),
+            consulta("findByCuentaNumerocuenta", () -> movimientoRepository.findByCuentaNumerocuenta(CUENTA)),
+            consulta("findByCuentaNumerocuentaAndFechamovimientoBetween",
+                () -> movimientoRepository.findByCuentaNumerocuentaAndFechamovimientoBetween(CUENTA, DESDE, HASTA)),
+            consulta("findByCuentaNumerocuentaOrderByFechamovimientoDescHoramovimientoDesc",
+                () -> movimientoRepository.findByCuentaNumerocuentaOrderByFechamovimientoDescHoramovimientoDesc(CUENTA)),
+            consulta("findByCuentaNumerocuentaAndFechamovimientoBetweenOrderByFechamovimientoDescHoramovimientoDesc",
+                () -> movimientoRepository.findByCuentaNumerocuentaAndFechamovimientoBetweenOrderByFechamovimientoDescHoramovimientoDesc(
+                    CUENTA, DESDE, HASTA)),
+            consulta("findIdsByNumeroCuentaAndFechaBetween",
+                () -> movimientoRepository.findIdsByNumeroCuentaAndFechaBetween(CUENTA, DESDE, HASTA)),
+            consulta("findPrimeraPagina", () -> movimientoRepository.findPrimeraPagina(CUENTA, PAGINA)),
+            consulta("findPaginaDespuesDe",
+                () -> movimientoRepository.findPaginaDespuesDe(CUENTA, HASTA, HORA, ID_MOVIMIENTO, PAGINA)),
+            consulta("findPrimeraPaginaEntreFechas",
+                () -> movimientoRepository.findPrimeraPaginaEntreFechas(CUENTA, DESDE, HASTA, PAGINA)),
+            consulta("findPaginaEntreFechasDespuesDe",
+                () -> movimientoRepository.findPaginaEntreFechasDespuesDe(CUENTA, DESDE, HASTA, HASTA, HORA, ID_MOVIMIENTO, PAGINA)),
+            consulta("streamByNumeroCuentaAndFechaBetween", () -> {
+                try (Stream<?> filas = movimientoRepository.streamByNumeroCuentaAndFechaBetween(CUENTA, DESDE, HASTA)) {
+                    filas.count();
+                }
+            }),
+            consulta("streamReporteCliente", () -> {
+                try (Stream<?> filas = movimientoRepository.streamReporteCliente(CLIENTE, DESDE, HASTA)) {
+                    filas.count();
+                }
+            }),
+            consulta("findResumenByNumeroCuentaAndFechaBetween",
+                () -> movimientoRepository.findResumenByNumeroCuentaAndFechaBetween(CUENTA, DESDE, HASTA)),
+            consulta("findCuentasByIds",
+                () -> movimientoRepository.findCuentasByIds(List.of(ID_MOVIMIENTO, ID_MOVIMIENTO + 400))),
+            consulta("findIdsReversibles",
+                () -> movimientoRepository.findIdsReversibles(CUENTA, DESDE, HORA, HASTA, HORA, "%[REVERSO ID#%", PAGINA)),
+            consulta("findParaReversar",
+                () -> movimientoRepository.findParaReversar(List.of(ID_MOVIMIENTO, ID_MOVIMIENTO + 400))),
+            consulta("findEstadoParaActualizar", () -> movimientoRepository.findEstadoParaActualizar(ID_MOVIMIENTO)),
+            consulta("findAll(MovimientoEspecificaciones) por cuenta",
+                () -> movimientoRepository.findAll(MovimientoEspecificaciones.porFiltro(movimientosPorCuenta),
+                    PageRequest.of(0, 50, ORDEN_MOVIMIENTOS))),
+            consulta("findAll(MovimientoEspecificaciones) por cliente",
+                () -> movimientoRepository.findAll(MovimientoEspecificaciones.porFiltro(movimientosPorCliente),
+                    PageRequest.of(0, 50, ORDEN_MOVIMIENTOS))),
+            // CuentaRepository
+            consulta("findByIdcliente", () -> cuentaRepository.findByIdcliente(CLIENTE)),
+            consulta("findTopByOrderByNumerocuentaDesc", () -> cuentaRepository.findTopByOrderByNumerocuentaDesc()),
+            consulta("findAllNumerosCuenta", () -> cuentaRepository.findAllNumerosCuenta()),
+            consulta("findMaxNumeroCuentaEntre", () -> cuentaRepository.findMaxNumeroCuentaEntre(CUENTA, CUENTA + 1000)),
+            consulta("debitarSiSaldoSuficiente", () -> cuentaRepository.debitarSiSaldoSuficiente(CUENTA, BigDecimal.ONE)),
+            consulta("acreditar", () -> cuentaRepository.acreditar(CUENTA, BigDecimal.ONE)),
+            consulta("findSaldoDisponible", () -> cuentaRepository.findSaldoDisponible(CUENTA)),
+            consulta("findByIdParaActualizar", () -> cuentaRepository.findByIdParaActualizar(CUENTA)),
+            consulta("findByIdCompartido", () -> cuentaRepository.findByIdCompartido(CUENTA)),
+            consulta("findMetadatos", () -> cuentaRepository.findMetadatos(CUENTA)),
+            consulta("findAll(CuentaEspecificaciones) por cliente",
+                () -> cuentaRepository.findAll(CuentaEspecificaciones.porFiltro(cuentasPorCliente),
+                    PageRequest.of(0, 50, Sort.by("numerocuenta")))));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("consultas")
+    void consultaUsaIndices(Runnable consulta) {
+        // Misma transacción (y conexión) para la consulta y la lectura de performance_schema; se revierte siempre
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            Long ultimoEvento = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(EVENT_ID), 0) FROM performance_schema.events_statements_history " +
+                "WHERE THREAD_ID = PS_CURRENT_THREAD_ID()", Long.class);
+
+            consulta.run();
+
+            List<String> sentencias = jdbcTemplate.queryForList(
+                "SELECT SQL_TEXT FROM performance_schema.events_statements_history " +
+                "WHERE THREAD_ID = PS_CURRENT_THREAD_ID() AND EVENT_ID > ? " +
+                "AND (SQL_TEXT LIKE 'select%' OR SQL_TEXT LIKE 'update%') " +
+                "AND SQL_TEXT NOT LIKE '%performance_schema%' ORDER BY EVENT_ID",
+                String.class, ultimoEvento);
+            assertThat(sentencias).as("sentencias registradas para la consulta").isNotEmpty();
+
+            for (String sql : sentencias) {
+                for (Map<String, Object> paso : jdbcTemplate.queryForList("EXPLAIN " + sql)) {
+                    String tabla = (String) paso.get("table");
+                    // Las tablas derivadas (<derivedN>) se leen en memoria; se revisa la tabla base que las alimenta
+                    if (tabla != null && !tabla.startsWith("<")) {
+                        assertThat(paso.get("type"))
+                            .as("tabla %s con key=%s en%n%s", tabla, paso.get("key"), sql)
+                            .isNotEqualTo("ALL");
+                    }
+                }
+            }
+        });
+    }
+
+    private static Arguments consulta(String nombre, Runnable consulta) {
+        return Arguments.of(Named.of(nombre, consulta));
+    }
+}
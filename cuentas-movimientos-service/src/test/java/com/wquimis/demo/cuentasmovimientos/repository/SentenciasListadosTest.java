@@ -0,0 +1,144 @@
+package com.wquimis.demo.cuentasmovimientos.repository;
+
+import com.wquimis.demo.cuentasmovimientos.ContenedoresPrueba;
+import com.wquimis.demo.cuentasmovimientos.dto.FiltroCuentasDTO;
+import com.wquimis.demo.cuentasmovimientos.dto.FiltroMovimientosDTO;
+import com.wquimis.demo.cuentasmovimientos.utils.DtoConverter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sentencias JDBC por solicitud de los listados (GET /api/movimientos y GET /api/cuentas): la misma consulta
+ * de página, el mismo orden y la misma conversión a DTO que el controlador. La cantidad no debe depender
+ * del número de cuentas distintas de la página, que es lo que crecía con la carga EAGER de Movimiento.cuenta.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ContenedoresPrueba.class)
+@Testcontainers(disabledWithoutDocker = true)
+class SentenciasListadosTest {
+
+    private static final long CLIENTE_UNA_CUENTA = 900_001L;
+    private static final long CLIENTE_DIEZ_CUENTAS = 900_002L;
+    private static final Sort ORDEN_MOVIMIENTOS = Sort.by(Sort.Direction.DESC, "fechamovimiento", "horamovimiento", "idmovimiento");
+    private static final Sort ORDEN_CUENTAS = Sort.by("numerocuenta");
+
+    @Autowired
+    private MovimientoRepository movimientoRepository;
+
+    @Autowired
+    private CuentaRepository cuentaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final DtoConverter dtoConverter = new DtoConverter();
+    private long siguienteIdMovimiento = 2_000_000L;
+
+    @BeforeEach
+    void cargarDatos() {
+        // 30 movimientos en ambos clientes: una cuenta con 30, o diez cuentas con 3
+        insertarCuentas(CLIENTE_UNA_CUENTA, 200_000, 1, 30);
+        insertarCuentas(CLIENTE_DIEZ_CUENTAS, 200_100, 10, 3);
+    }
+
+    @Test
+    void listadoDeMovimientosNoDependeDeLasCuentasDeLaPagina() {
+        // Página de 10 sobre 30 filas: consulta de página más consulta de conteo
+        Pageable pagina = PageRequest.of(0, 10, ORDEN_MOVIMIENTOS);
+
+        long unaCuenta = sentencias(() -> listarMovimientos(CLIENTE_UNA_CUENTA, pagina));
+        long diezCuentas = sentencias(() -> listarMovimientos(CLIENTE_DIEZ_CUENTAS, pagina));
+
+        assertThat(unaCuenta).isEqualTo(2);
+        assertThat(diezCuentas).isEqualTo(unaCuenta);
+    }
+
+    @Test
+    void cargaPorEntidadSinFetchCreceConLasCuentas() {
+        // Referencia: los mismos movimientos leídos como entidades sin JOIN FETCH cargan cada cuenta aparte
+        List<Long> ids = jdbcTemplate.queryForList(
+            "SELECT m.idmovimiento FROM movimientos m JOIN cuentas c ON c.numerocuenta = m.numerocuenta " +
+            "WHERE c.idcliente = ?", Long.class, CLIENTE_DIEZ_CUENTAS);
+
+        long porEntidad = sentencias(() -> movimientoRepository.findAllById(ids).forEach(dtoConverter::toDto));
+
+        assertThat(porEntidad).isGreaterThan(sentencias(() ->
+            listarMovimientos(CLIENTE_DIEZ_CUENTAS, PageRequest.of(0, ids.size(), ORDEN_MOVIMIENTOS))));
+    }
+
+    @Test
+    void listadoDeCuentasConFiltroDeSaldoEsUnaSolaSentencia() {
+        // Ambos resultados caben en la página (sin consulta de conteo); el saldo de fragmentos va en subconsulta
+        Pageable pagina = PageRequest.of(0, 50, ORDEN_CUENTAS);
+
+        long unaCuenta = sentencias(() -> listarCuentas(CLIENTE_UNA_CUENTA, pagina));
+        long diezCuentas = sentencias(() -> listarCuentas(CLIENTE_DIEZ_CUENTAS, pagina));
+
+        assertThat(unaCuenta).isEqualTo(1);
+        assertThat(diezCuentas).isEqualTo(unaCuenta);
+    }
+
+    private void listarMovimientos(long idCliente, Pageable pagina) {
+        FiltroMovimientosDTO filtro = new FiltroMovimientosDTO();
+        filtro.setIdCliente(idCliente);
+        movimientoRepository.findAll(MovimientoEspecificaciones.porFiltro(filtro), pagina).map(dtoConverter::toDto);
+    }
+
+    private void listarCuentas(long idCliente, Pageable pagina) {
+        FiltroCuentasDTO filtro = new FiltroCuentasDTO();
+        filtro.setIdCliente(idCliente);
+        filtro.setSaldoMinimo(BigDecimal.ONE);
+        cuentaRepository.findAll(CuentaEspecificaciones.porFiltro(filtro), pagina).map(dtoConverter::toDto);
+    }
+
+    private long sentencias(Runnable solicitud) {
+        // Contexto de persistencia vacío, como al inicio de cada solicitud (open-in-view deshabilitado)
+        entityManager.clear();
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        solicitud.run();
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    private void insertarCuentas(long idCliente, int primeraCuenta, int cuentas, int movimientosPorCuenta) {
+        List<Object[]> movimientos = new ArrayList<>();
+        for (int c = 0; c < cuentas; c++) {
+            int numeroCuenta = primeraCuenta + c;
+            jdbcTemplate.update("INSERT INTO cuentas (numerocuenta, idcliente, tipocuenta, saldoinicial, saldodisponible, " +
+                "estado, fechacreacion) VALUES (?, ?, 'AHORROS', 1000, 1000, true, NOW())", numeroCuenta, idCliente);
+            for (int m = 0; m < movimientosPorCuenta; m++) {
+                movimientos.add(new Object[]{siguienteIdMovimiento++, numeroCuenta, LocalTime.of(8, 0).plusMinutes(m)});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO movimientos (idmovimiento, numerocuenta, estado, fechamovimiento, " +
+            "horamovimiento, tipomovimiento, montomovimiento, saldodisponible, movimientodescripcion) " +
+            "VALUES (?, ?, true, CURDATE(), ?, 'DEPOSITO', 10, 1000, 'Carga de prueba')", movimientos);
+    }
+}
@@ -0,0 +1,197 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.ContenedoresPrueba;
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.repository.MovimientoRepository;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatosService;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaService;
+import com.wquimis.demo.cuentasmovimientos.services.OutboxService;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoDiarioService;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoFragmentadoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Archivado contra MySQL con segmentos en un directorio temporal. Tres movimientos anteriores al corte (A, B, C) y
+ * uno reciente (D); B se reversa en otra conexión justo antes del DELETE del archivado, como un reverso que llega
+ * entre la lectura y el borrado. Sin transacción de prueba: el archivado confirma cada sentencia por separado.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ContenedoresPrueba.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ArchivoMovimientosServiceImplTest {
+
+    private static final int CUENTA = 430_001;
+    private static final LocalDate CORTE = LocalDate.now().withDayOfMonth(1).minusMonths(1);
+    private static final LocalDate DESDE_SIEMPRE = LocalDate.of(1000, 1, 1);
+    private static final long A = 9_300_000_001L;
+    private static final long B = 9_300_000_002L;
+    private static final long C = 9_300_000_003L;
+    private static final long D = 9_300_000_004L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MovimientoRepository movimientoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @TempDir
+    private Path directorio;
+
+    @BeforeEach
+    void crearMovimientos() {
+        jdbcTemplate.update("INSERT INTO cuentas (numerocuenta, idcliente, tipocuenta, saldoinicial, saldodisponible, " +
+            "estado, fechacreacion) VALUES (?, 1, 'AHORROS', 0, 85, true, NOW())", CUENTA);
+        movimiento(A, CORTE.minusDays(10), Movimiento.TipoMovimiento.DEPOSITO, "100", "100");
+        movimiento(B, CORTE.minusDays(5), Movimiento.TipoMovimiento.RETIRO, "30", "70");
+        movimiento(C, CORTE.minusDays(3), Movimiento.TipoMovimiento.DEPOSITO, "10", "80");
+        movimiento(D, LocalDate.now(), Movimiento.TipoMovimiento.DEPOSITO, "5", "85");
+    }
+
+    @AfterEach
+    void eliminarCuenta() {
+        jdbcTemplate.update("DELETE FROM movimientos WHERE numerocuenta = ?", CUENTA);
+        jdbcTemplate.update("DELETE FROM cuentas WHERE numerocuenta = ?", CUENTA);
+    }
+
+    @Test
+    void filaModificadaDuranteElArchivadoQuedaEnLaBdYPrevaleceAlConsultar() {
+        ArchivoMovimientosServiceImpl archivo = archivo(conReversoAntesDelBorrado());
+
+        assertThat(archivo.archivar()).isEqualTo(3);
+
+        // El segmento tiene las tres filas tal como se leyeron; B no se borró porque cambió después
+        assertThat(idsEnBd()).containsExactly(B, D);
+        assertThat(archivo.buscar(cuenta(), DESDE_SIEMPRE, CORTE))
+            .extracting(Movimiento::getIdmovimiento, Movimiento::getEstado)
+            .containsExactlyInAnyOrder(
+                tuple(A, true),
+                tuple(B, true),
+                tuple(C, true));
+
+        // La consulta de la cuenta une archivo y BD sin duplicar B, con la versión reversada de la BD
+        List<Movimiento> movimientos = movimientoService(archivo).findByNumeroCuenta(CUENTA);
+        assertThat(movimientos).extracting(Movimiento::getIdmovimiento).containsExactly(D, C, B, A);
+        assertThat(movimientos.get(2).getEstado()).isFalse();
+    }
+
+    @Test
+    void segmentoMasNuevoPrevaleceAlArchivarDeNuevoLaFilaModificada() {
+        archivo(conReversoAntesDelBorrado()).archivar();
+        ArchivoMovimientosServiceImpl archivo = archivo(jdbcTemplate);
+
+        // Segunda pasada: solo B seguía en la BD antes del corte
+        assertThat(archivo.archivar()).isEqualTo(1);
+
+        assertThat(idsEnBd()).containsExactly(D);
+        List<Movimiento> archivados = archivo.buscar(cuenta(), DESDE_SIEMPRE, CORTE);
+        assertThat(archivados).extracting(Movimiento::getIdmovimiento).containsExactlyInAnyOrder(A, B, C);
+        assertThat(archivados).filteredOn(movimiento -> movimiento.getIdmovimiento() == B)
+            .singleElement().extracting(Movimiento::getEstado).isEqualTo(false);
+        assertThat(archivo.fechaMaximaArchivada(CUENTA)).isEqualTo(CORTE.minusDays(3));
+        assertThat(archivo.ultimoArchivado(CUENTA).getIdmovimiento()).isEqualTo(C);
+
+        // Otra instancia que abre el mismo directorio ve lo mismo
+        assertThat(archivo(jdbcTemplate).buscar(cuenta(), DESDE_SIEMPRE, CORTE))
+            .filteredOn(movimiento -> movimiento.getIdmovimiento() == B)
+            .singleElement().extracting(Movimiento::getEstado).isEqualTo(false);
+    }
+
+    private ArchivoMovimientosServiceImpl archivo(JdbcTemplate plantilla) {
+        return new ArchivoMovimientosServiceImpl(plantilla, false, 1, directorio.toString(), 1_000);
+    }
+
+    private MovimientoServiceImpl movimientoService(ArchivoMovimientosServiceImpl archivo) {
+        MovimientoServiceImpl servicio = new MovimientoServiceImpl(movimientoRepository, mock(CuentaService.class),
+            mock(SaldoDiarioService.class), mock(CuentaMetadatosService.class), mock(SaldoFragmentadoService.class),
+            mock(OutboxService.class), archivo, transactionManager, new SimpleMeterRegistry(), false, 1, 1, 1_000, false);
+        ReflectionTestUtils.setField(servicio, "entityManager", entityManager);
+        return servicio;
+    }
+
+    /**
+     * Plantilla cuya conexión de archivado reversa B en otra conexión (confirmada) justo antes de preparar el
+     * primer DELETE sobre movimientos.
+     */
+    private JdbcTemplate conReversoAntesDelBorrado() {
+        AtomicBoolean reversado = new AtomicBoolean();
+        return new JdbcTemplate(dataSource) {
+            @Override
+            public <T> T execute(ConnectionCallback<T> accion) {
+                return super.execute((ConnectionCallback<T>) conexion -> accion.doInConnection((Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                    (proxy, metodo, argumentos) -> {
+                        if (metodo.getName().equals("prepareStatement")
+                                && ((String) argumentos[0]).startsWith("DELETE FROM movimientos")
+                                && reversado.compareAndSet(false, true)) {
+                            jdbcTemplate.update("UPDATE movimientos SET estado = false WHERE idmovimiento = ?", B);
+                        }
+                        try {
+                            return metodo.invoke(conexion, argumentos);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    })));
+            }
+        };
+    }
+
+    private List<Long> idsEnBd() {
+        return jdbcTemplate.queryForList("SELECT idmovimiento FROM movimientos WHERE numerocuenta = ? ORDER BY idmovimiento",
+            Long.class, CUENTA);
+    }
+
+    private static Cuenta cuenta() {
+        Cuenta cuenta = new Cuenta();
+        cuenta.setNumerocuenta(CUENTA);
+        return cuenta;
+    }
+
+    private void movimiento(long id, LocalDate fecha, Movimiento.TipoMovimiento tipo, String monto, String saldo) {
+        jdbcTemplate.update("INSERT INTO movimientos (idmovimiento, numerocuenta, estado, fechamovimiento, horamovimiento, " +
+            "tipomovimiento, montomovimiento, saldodisponible, movimientodescripcion) VALUES (?, ?, true, ?, ?, ?, ?, ?, ?)",
+            id, CUENTA, fecha, LocalTime.NOON, tipo.name(), new BigDecimal(monto), new BigDecimal(saldo), tipo.name());
+    }
+}
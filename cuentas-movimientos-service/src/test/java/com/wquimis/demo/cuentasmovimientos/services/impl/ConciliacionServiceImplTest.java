@@ -0,0 +1,179 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.ContenedoresPrueba;
+import com.wquimis.demo.cuentasmovimientos.entities.Conciliacion;
+import com.wquimis.demo.cuentasmovimientos.entities.DiscrepanciaConciliacion;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.repository.ConciliacionRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.DiscrepanciaConciliacionRepository;
+import com.wquimis.demo.cuentasmovimientos.services.ArchivoMovimientosService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Conciliación de cuentas armadas a mano, cada una con un caso que no debe informarse como discrepancia: depósito
+ * inicial, movimientos archivados, reverso, depósitos provisionales de una cuenta fragmentada y particiones retiradas.
+ * Una cuenta con la cadena cortada comprueba que la verificación sigue activa.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ContenedoresPrueba.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ConciliacionServiceImplTest {
+
+    private static final int DEPOSITO_INICIAL = 410_001;
+    private static final int ARCHIVADA = 410_002;
+    private static final int REVERSADA = 410_003;
+    private static final int FRAGMENTADA = 410_004;
+    private static final int RETIRADA = 410_005;
+    private static final int CADENA_CORTADA = 410_006;
+    private static final LocalDate HOY = LocalDate.now();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ConciliacionRepository conciliacionRepository;
+
+    @Autowired
+    private DiscrepanciaConciliacionRepository discrepanciaRepository;
+
+    private final ArchivoMovimientosService archivoMovimientosService = mock(ArchivoMovimientosService.class);
+    private long siguienteId = 9_100_000_000L;
+
+    @AfterEach
+    void eliminarCuentas() {
+        for (String tabla : List.of("movimientos", "movimientos_saldo_provisional", "cuentas_fragmentos_saldo",
+                "movimientos_retirados", "cuentas")) {
+            jdbcTemplate.update("DELETE FROM " + tabla + " WHERE numerocuenta BETWEEN ? AND ?",
+                DEPOSITO_INICIAL, CADENA_CORTADA);
+        }
+    }
+
+    @Test
+    void soloSeInformaLaCadenaCortada() {
+        // Depósito inicial: parte de cero y su monto es el saldo inicial
+        cuenta(DEPOSITO_INICIAL, "100", "70", 0);
+        movimiento(DEPOSITO_INICIAL, 2, Movimiento.TipoMovimiento.DEPOSITO, "100", "100");
+        movimiento(DEPOSITO_INICIAL, 1, Movimiento.TipoMovimiento.RETIRO, "30", "70");
+
+        // Movimientos archivados hasta hace diez días con saldo final 250
+        cuenta(ARCHIVADA, "100", "280", 0);
+        Movimiento ultimoArchivado = new Movimiento();
+        ultimoArchivado.setFechamovimiento(HOY.minusDays(10));
+        ultimoArchivado.setSaldodisponible(new BigDecimal("250"));
+        when(archivoMovimientosService.ultimoArchivado(ARCHIVADA)).thenReturn(ultimoArchivado);
+        when(archivoMovimientosService.fechaMaximaArchivada(ARCHIVADA)).thenReturn(HOY.minusDays(10));
+        movimiento(ARCHIVADA, 5, Movimiento.TipoMovimiento.DEPOSITO, "50", "300");
+        movimiento(ARCHIVADA, 4, Movimiento.TipoMovimiento.RETIRO, "20", "280");
+
+        // Depósito anulado y su reverso: ambos cuentan
+        cuenta(REVERSADA, "10", "10", 0);
+        long anulado = movimiento(REVERSADA, 3, Movimiento.TipoMovimiento.DEPOSITO, "50", "60");
+        jdbcTemplate.update("UPDATE movimientos SET estado = false WHERE idmovimiento = ?", anulado);
+        movimiento(REVERSADA, 2, Movimiento.TipoMovimiento.RETIRO, "50", "10");
+
+        // Fragmentada: un depósito asentado y dos simultáneos que todavía no ven al otro
+        cuenta(FRAGMENTADA, "100", "0", 2);
+        jdbcTemplate.update("INSERT INTO cuentas_fragmentos_saldo (numerocuenta, fragmento, saldo) VALUES (?, 0, 125), (?, 1, 7)",
+            FRAGMENTADA, FRAGMENTADA);
+        movimiento(FRAGMENTADA, 2, Movimiento.TipoMovimiento.DEPOSITO, "20", "120");
+        provisional(FRAGMENTADA, movimiento(FRAGMENTADA, 1, Movimiento.TipoMovimiento.DEPOSITO, "5", "125"));
+        provisional(FRAGMENTADA, movimiento(FRAGMENTADA, 1, Movimiento.TipoMovimiento.DEPOSITO, "7", "127"));
+
+        // Particiones retiradas con saldo final 500; en la tabla solo queda un retiro posterior
+        cuenta(RETIRADA, "100", "400", 0);
+        jdbcTemplate.update("INSERT INTO movimientos_retirados (numerocuenta, fechahasta, saldocierre, cantidadmovimientos) " +
+            "VALUES (?, ?, 500, 12)", RETIRADA, HOY.minusDays(40));
+        movimiento(RETIRADA, 3, Movimiento.TipoMovimiento.RETIRO, "100", "400");
+
+        cuenta(CADENA_CORTADA, "0", "15", 0);
+        movimiento(CADENA_CORTADA, 2, Movimiento.TipoMovimiento.DEPOSITO, "10", "10");
+        long cortado = movimiento(CADENA_CORTADA, 1, Movimiento.TipoMovimiento.DEPOSITO, "5", "16");
+
+        Conciliacion conciliacion = conciliacion().ejecutar();
+
+        assertThat(conciliacion.getEstado()).isEqualTo(Conciliacion.EstadoConciliacion.COMPLETADA);
+        List<DiscrepanciaConciliacion> discrepancias = discrepanciaRepository
+            .findByIdconciliacionOrderByNumerocuentaAscIddiscrepanciaAsc(conciliacion.getIdconciliacion(), Pageable.ofSize(100))
+            .stream()
+            .filter(d -> d.getNumerocuenta() >= DEPOSITO_INICIAL && d.getNumerocuenta() <= CADENA_CORTADA)
+            .toList();
+        assertThat(discrepancias).singleElement().satisfies(discrepancia -> {
+            assertThat(discrepancia.getNumerocuenta()).isEqualTo(CADENA_CORTADA);
+            assertThat(discrepancia.getTipo()).isEqualTo(DiscrepanciaConciliacion.TipoDiscrepancia.CADENA);
+            assertThat(discrepancia.getIdmovimiento()).isEqualTo(cortado);
+            assertThat(discrepancia.getEsperado()).isEqualByComparingTo("15");
+        });
+    }
+
+    @Test
+    void saldoDistintoDeLaAperturaRetiradaSeInforma() {
+        cuenta(RETIRADA, "100", "390", 0);
+        jdbcTemplate.update("INSERT INTO movimientos_retirados (numerocuenta, fechahasta, saldocierre, cantidadmovimientos) " +
+            "VALUES (?, ?, 500, 12)", RETIRADA, HOY.minusDays(40));
+        movimiento(RETIRADA, 3, Movimiento.TipoMovimiento.RETIRO, "100", "400");
+
+        Conciliacion conciliacion = conciliacion().ejecutar();
+
+        List<DiscrepanciaConciliacion> discrepancias = discrepanciaRepository
+            .findByIdconciliacionOrderByNumerocuentaAscIddiscrepanciaAsc(conciliacion.getIdconciliacion(), Pageable.ofSize(100))
+            .stream()
+            .filter(d -> d.getNumerocuenta() == RETIRADA)
+            .toList();
+        assertThat(discrepancias).singleElement().satisfies(discrepancia -> {
+            assertThat(discrepancia.getTipo()).isEqualTo(DiscrepanciaConciliacion.TipoDiscrepancia.SALDO);
+            assertThat(discrepancia.getEsperado()).isEqualByComparingTo("400");
+            assertThat(discrepancia.getRegistrado()).isEqualByComparingTo("390");
+        });
+    }
+
+    private ConciliacionServiceImpl conciliacion() {
+        return new ConciliacionServiceImpl(jdbcTemplate, dataSource, conciliacionRepository, discrepanciaRepository,
+            archivoMovimientosService, false, 2, 500, 0, 1.0, 10_000);
+    }
+
+    private void cuenta(int numeroCuenta, String saldoInicial, String saldoDisponible, int fragmentos) {
+        jdbcTemplate.update("INSERT INTO cuentas (numerocuenta, idcliente, tipocuenta, saldoinicial, saldodisponible, " +
+            "estado, fechacreacion, fragmentossaldo) VALUES (?, 1, 'AHORROS', ?, ?, true, NOW(), ?)",
+            numeroCuenta, new BigDecimal(saldoInicial), new BigDecimal(saldoDisponible), fragmentos);
+    }
+
+    // Hace diasAtras días; dentro del mismo día el orden es el de inserción (hora e id crecientes)
+    private long movimiento(int numeroCuenta, int diasAtras, Movimiento.TipoMovimiento tipo, String monto, String saldo) {
+        long id = siguienteId++;
+        jdbcTemplate.update("INSERT INTO movimientos (idmovimiento, numerocuenta, estado, fechamovimiento, horamovimiento, " +
+            "tipomovimiento, montomovimiento, saldodisponible, movimientodescripcion) VALUES (?, ?, true, ?, ?, ?, ?, ?, ?)",
+            id, numeroCuenta, HOY.minusDays(diasAtras), LocalTime.of(10, 0).plusSeconds(id % 1000), tipo.name(),
+            new BigDecimal(monto), new BigDecimal(saldo), tipo.name());
+        return id;
+    }
+
+    private void provisional(int numeroCuenta, long idMovimiento) {
+        jdbcTemplate.update("INSERT INTO movimientos_saldo_provisional (numerocuenta, idmovimiento, fechamovimiento) " +
+            "SELECT numerocuenta, idmovimiento, fechamovimiento FROM movimientos WHERE idmovimiento = ?", idMovimiento);
+    }
+}
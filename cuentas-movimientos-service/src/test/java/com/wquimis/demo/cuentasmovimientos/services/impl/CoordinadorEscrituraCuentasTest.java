@@ -0,0 +1,144 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoMovimiento;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Coordinador con una tanda simulada que se puede retener: las solicitudes que agotan la espera antes de entrar a
+ * una tanda no se aplican, y una cuenta con cola llena no impide que otra cuenta avance con un solo trabajador.
+ */
+class CoordinadorEscrituraCuentasTest {
+
+    private static final long TIMEOUT_MS = 300;
+
+    private final List<String> aplicados = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch primeraTandaIniciada = new CountDownLatch(1);
+    private final CountDownLatch liberarPrimeraTanda = new CountDownLatch(1);
+    private CoordinadorEscrituraCuentas coordinador;
+
+    @AfterEach
+    void detener() {
+        liberarPrimeraTanda.countDown();
+        if (coordinador != null) {
+            coordinador.detener();
+        }
+    }
+
+    @Test
+    void solicitudQueAgotaLaEsperaEnColaNoSeAplica() throws Exception {
+        coordinador = coordinador(10, TIMEOUT_MS);
+        CompletableFuture<ResultadoMovimiento> primera = CompletableFuture.supplyAsync(() -> coordinador.encolar(1, movimiento("A1")));
+        assertThat(primeraTandaIniciada.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // La tanda de A1 sigue abierta: A2 queda en cola hasta agotar su espera
+        assertThatThrownBy(() -> coordinador.encolar(1, movimiento("A2")))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("no se aplicó");
+
+        liberarPrimeraTanda.countDown();
+        assertThat(primera.get(5, TimeUnit.SECONDS).isExitoso()).isTrue();
+        assertThat(coordinador.encolar(1, movimiento("A3")).isExitoso()).isTrue();
+
+        assertThat(aplicados).containsExactly("A1", "A3");
+    }
+
+    @Test
+    void solicitudYaTomadaPorUnaTandaEsperaSuResultado() throws Exception {
+        coordinador = coordinador(10, TIMEOUT_MS);
+        CompletableFuture<ResultadoMovimiento> primera = CompletableFuture.supplyAsync(() -> coordinador.encolar(1, movimiento("A1")));
+        assertThat(primeraTandaIniciada.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Se supera el tiempo de espera con A1 dentro de la tanda: no puede informarse como fallido
+        Thread.sleep(TIMEOUT_MS * 2);
+        liberarPrimeraTanda.countDown();
+
+        assertThat(primera.get(5, TimeUnit.SECONDS).isExitoso()).isTrue();
+        assertThat(aplicados).containsExactly("A1");
+    }
+
+    @Test
+    void cuentaConColaLlenaNoAcaparaElTrabajador() throws Exception {
+        // Espera amplia: aquí ninguna solicitud debe vencer
+        coordinador = coordinador(1, 5_000);
+        Thread primera = llamador(1, "A1");
+        assertThat(primeraTandaIniciada.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<Thread> llamadores = new ArrayList<>();
+        for (int i = 2; i <= 5; i++) {
+            llamadores.add(llamador(1, "A" + i));
+        }
+        llamadores.add(llamador(2, "B1"));
+        esperarEncolados(llamadores);
+        liberarPrimeraTanda.countDown();
+
+        primera.join(5_000);
+        for (Thread llamador : llamadores) {
+            llamador.join(5_000);
+        }
+        // Tras la tanda de A1 la cuenta 1 vuelve al final de la cola del pool, detrás de la cuenta 2
+        assertThat(aplicados).hasSize(6);
+        assertThat(aplicados.indexOf("B1")).isEqualTo(1);
+    }
+
+    private CoordinadorEscrituraCuentas coordinador(int tamanoMaximoTanda, long timeoutMs) {
+        return new CoordinadorEscrituraCuentas(this::aplicarTanda, 1, false, tamanoMaximoTanda, timeoutMs,
+            DistributionSummary.builder("cuentas.escritura.coordinada.tanda").register(new SimpleMeterRegistry()));
+    }
+
+    private List<ResultadoMovimiento> aplicarTanda(Integer numeroCuenta, List<Movimiento> tanda) {
+        if (primeraTandaIniciada.getCount() > 0) {
+            primeraTandaIniciada.countDown();
+            try {
+                liberarPrimeraTanda.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        tanda.forEach(movimiento -> aplicados.add(movimiento.getMovimientodescripcion()));
+        return tanda.stream().map(ResultadoMovimiento::exitoso).toList();
+    }
+
+    private Thread llamador(Integer numeroCuenta, String descripcion) {
+        Thread llamador = new Thread(() -> encolarRegistrandoVencidos(numeroCuenta, descripcion));
+        llamador.start();
+        return llamador;
+    }
+
+    private void encolarRegistrandoVencidos(Integer numeroCuenta, String descripcion) {
+        try {
+            coordinador.encolar(numeroCuenta, movimiento(descripcion));
+        } catch (IllegalStateException e) {
+            aplicados.add("vencido " + descripcion);
+        }
+    }
+
+    private static void esperarEncolados(List<Thread> llamadores) throws InterruptedException {
+        // Un llamador encolado queda esperando su resultado con tiempo límite
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (llamadores.stream().anyMatch(llamador -> llamador.getState() != Thread.State.TIMED_WAITING)) {
+            assertThat(System.nanoTime()).isLessThan(limite);
+            Thread.sleep(5);
+        }
+    }
+
+    private static Movimiento movimiento(String descripcion) {
+        Movimiento movimiento = new Movimiento();
+        movimiento.setTipomovimiento(Movimiento.TipoMovimiento.DEPOSITO);
+        movimiento.setMovimientodescripcion(descripcion);
+        return movimiento;
+    }
+}
@@ -0,0 +1,270 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wquimis.demo.cuentasmovimientos.ContenedoresPrueba;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.repository.CuentaRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.FragmentoSaldoRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.MovimientoRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.MovimientoRetiradoRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.OutboxEventoRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.SaldoDiarioPendienteRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.SaldoDiarioRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.SaldoProvisionalRepository;
+import com.wquimis.demo.cuentasmovimientos.services.ArchivoMovimientosService;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatosService;
+import com.wquimis.demo.cuentasmovimientos.services.NumeracionCuentaService;
+import com.wquimis.demo.cuentasmovimientos.services.ResultadoReverso;
+import com.wquimis.demo.cuentasmovimientos.utils.DtoConverter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Reverso en lote contra MySQL con los servicios reales de cuentas, fragmentos, saldos diarios y outbox. Cada
+ * cuenta parte de tres movimientos (depósito 100, depósito 50, retiro 30; saldo 120) y el lote se pide en el
+ * orden en que debe aplicarse: los rechazos dependen del saldo que dejaron los reversos anteriores del mismo lote.
+ * Sin transacción de prueba: cada lote corre en su propia transacción, como en el endpoint.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ContenedoresPrueba.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MovimientoServiceImplReversoTest {
+
+    private static final int CUENTA = 440_001;
+    private static final int OTRA_CUENTA = 440_002;
+    private static final int CUENTA_FRAGMENTADA = 440_003;
+    private static final LocalDate HOY = LocalDate.now();
+    // Movimientos de cada cuenta: base + 1 depósito 100, base + 2 depósito 50, base + 3 retiro 30
+    private static final long BASE = 9_440_000_000L;
+    private static final long BASE_OTRA = 9_440_100_000L;
+    private static final long BASE_FRAGMENTADA = 9_440_200_000L;
+    private static final long INEXISTENTE = 9_440_999_999L;
+
+    @Autowired
+    private CuentaRepository cuentaRepository;
+
+    @Autowired
+    private MovimientoRepository movimientoRepository;
+
+    @Autowired
+    private FragmentoSaldoRepository fragmentoSaldoRepository;
+
+    @Autowired
+    private SaldoProvisionalRepository saldoProvisionalRepository;
+
+    @Autowired
+    private SaldoDiarioRepository saldoDiarioRepository;
+
+    @Autowired
+    private SaldoDiarioPendienteRepository saldoDiarioPendienteRepository;
+
+    @Autowired
+    private MovimientoRetiradoRepository movimientoRetiradoRepository;
+
+    @Autowired
+    private OutboxEventoRepository outboxEventoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MovimientoServiceImpl servicio;
+    private SaldoFragmentadoServiceImpl saldoFragmentadoService;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void crearCuentas() {
+        for (int numeroCuenta : List.of(CUENTA, OTRA_CUENTA, CUENTA_FRAGMENTADA)) {
+            jdbcTemplate.update("INSERT INTO cuentas (numerocuenta, idcliente, tipocuenta, saldoinicial, saldodisponible, " +
+                "estado, fechacreacion) VALUES (?, 1, 'AHORROS', 0, 120, true, NOW())", numeroCuenta);
+        }
+        movimientos(CUENTA, BASE);
+        movimientos(OTRA_CUENTA, BASE_OTRA);
+        movimientos(CUENTA_FRAGMENTADA, BASE_FRAGMENTADA);
+
+        CuentaMetadatosService cuentaMetadatosService = mock(CuentaMetadatosService.class);
+        ArchivoMovimientosService archivoMovimientosService = mock(ArchivoMovimientosService.class);
+        SaldoDiarioServiceImpl saldoDiarioService = new SaldoDiarioServiceImpl(saldoDiarioRepository,
+            saldoDiarioPendienteRepository, cuentaRepository, archivoMovimientosService, movimientoRetiradoRepository,
+            transactionManager);
+        OutboxServiceImpl outboxService = new OutboxServiceImpl(outboxEventoRepository, new DtoConverter(),
+            new ObjectMapper().findAndRegisterModules());
+        saldoFragmentadoService = new SaldoFragmentadoServiceImpl(cuentaRepository, fragmentoSaldoRepository,
+            cuentaMetadatosService, saldoDiarioService, movimientoRepository, saldoProvisionalRepository,
+            transactionManager, 64);
+        CuentaServiceImpl cuentaService = new CuentaServiceImpl(cuentaRepository, cuentaMetadatosService,
+            movimientoRepository, saldoDiarioService, outboxService, saldoFragmentadoService,
+            mock(NumeracionCuentaService.class));
+        servicio = new MovimientoServiceImpl(movimientoRepository, cuentaService, saldoDiarioService,
+            cuentaMetadatosService, saldoFragmentadoService, outboxService, archivoMovimientosService,
+            transactionManager, new SimpleMeterRegistry(), false, 1, 1, 1_000, false);
+        ReflectionTestUtils.setField(servicio, "entityManager", entityManager);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void eliminarCuentas() {
+        for (int numeroCuenta : List.of(CUENTA, OTRA_CUENTA, CUENTA_FRAGMENTADA)) {
+            for (String tabla : List.of("outbox_eventos", "saldos_diarios", "saldos_diarios_pendientes",
+                    "movimientos_saldo_provisional", "movimientos", "cuentas_fragmentos_saldo", "cuentas")) {
+                jdbcTemplate.update("DELETE FROM " + tabla + " WHERE numerocuenta = ?", numeroCuenta);
+            }
+        }
+    }
+
+    @Test
+    void loteSinFragmentosEscribeSoloElNetoYRechazaPorMovimiento() {
+        List<ResultadoReverso> resultados = reversar(CUENTA,
+            List.of(BASE + 2, BASE + 1, INEXISTENTE, BASE_OTRA + 1, BASE + 3));
+
+        // 120 - 50 = 70; revertir el depósito de 100 ya no alcanza; el retiro de 30 se devuelve: 100
+        assertThat(resultados)
+            .extracting(ResultadoReverso::getIdMovimiento, ResultadoReverso::getCodigo, ResultadoReverso::isYaReversado)
+            .containsExactly(
+                tuple(BASE + 2, null, false),
+                tuple(BASE + 1, "MOV_401_SALDO_INSUFICIENTE", false),
+                tuple(INEXISTENTE, "NOT_202_MOVIMIENTO", false),
+                tuple(BASE_OTRA + 1, "NOT_202_MOVIMIENTO", false),
+                tuple(BASE + 3, null, false));
+        assertThat(resultados.get(0).getReverso().getSaldodisponible()).isEqualByComparingTo("70");
+        assertThat(resultados.get(4).getReverso().getSaldodisponible()).isEqualByComparingTo("100");
+
+        assertThat(saldoCuenta(CUENTA)).isEqualByComparingTo("100");
+        assertThat(reversos(CUENTA))
+            .extracting(fila -> fila.get("tipomovimiento"), fila -> ((BigDecimal) fila.get("saldodisponible")).intValue())
+            .containsExactly(tuple("RETIRO", 70), tuple("DEPOSITO", 100));
+        assertThat(estados(CUENTA)).containsExactly(true, false, false);
+        // El movimiento de la otra cuenta no se toca aunque venga en el lote
+        assertThat(estados(OTRA_CUENTA)).containsExactly(true, true, true);
+        assertThat(eventos(CUENTA, "MOVIMIENTO_ANULADO")).isEqualTo(2);
+        assertThat(eventos(CUENTA, "MOVIMIENTO_CREADO")).isEqualTo(2);
+        assertThat(saldoDiario(CUENTA))
+            .containsEntry("cantidadmovimientos", 2)
+            .hasEntrySatisfying("saldocierre", saldo -> assertThat((BigDecimal) saldo).isEqualByComparingTo("100"));
+    }
+
+    @Test
+    void reintentoDelMismoLoteNoVuelveAReversar() {
+        List<Long> lote = List.of(BASE + 2, BASE + 3);
+        assertThat(reversar(CUENTA, lote)).allMatch(ResultadoReverso::isExitoso);
+
+        List<ResultadoReverso> reintento = reversar(CUENTA, lote);
+
+        assertThat(reintento)
+            .extracting(ResultadoReverso::getIdMovimiento, ResultadoReverso::isYaReversado, ResultadoReverso::getReverso)
+            .containsExactly(
+                tuple(BASE + 2, true, null),
+                tuple(BASE + 3, true, null));
+        assertThat(saldoCuenta(CUENTA)).isEqualByComparingTo("100");
+        assertThat(reversos(CUENTA)).hasSize(2);
+        assertThat(eventos(CUENTA, "MOVIMIENTO_CREADO")).isEqualTo(2);
+        assertThat(saldoDiario(CUENTA)).containsEntry("cantidadmovimientos", 2);
+    }
+
+    @Test
+    void loteFragmentadoAplicaCadaReversoSobreLosFragmentos() {
+        transactionTemplate.executeWithoutResult(status -> saldoFragmentadoService.fragmentar(CUENTA_FRAGMENTADA, 4));
+
+        // 120 - 100 = 20; revertir el depósito de 50 no alcanza; el retiro de 30 se devuelve: 50
+        List<ResultadoReverso> resultados = reversar(CUENTA_FRAGMENTADA,
+            List.of(BASE_FRAGMENTADA + 1, BASE_FRAGMENTADA + 2, BASE_FRAGMENTADA + 3));
+
+        assertThat(resultados).extracting(ResultadoReverso::getCodigo)
+            .containsExactly(null, "MOV_401_SALDO_INSUFICIENTE", null);
+        assertThat(fragmentoSaldoRepository.sumSaldo(CUENTA_FRAGMENTADA)).isEqualByComparingTo("50");
+        // El saldo vive en los fragmentos: el neto no se escribe en la fila de la cuenta
+        assertThat(saldoCuenta(CUENTA_FRAGMENTADA)).isEqualByComparingTo("0");
+        assertThat(estados(CUENTA_FRAGMENTADA)).containsExactly(false, true, false);
+        assertThat(saldoProvisionalRepository.count()).isZero();
+        verificarCadena(CUENTA_FRAGMENTADA, 5);
+        assertThat((BigDecimal) saldoDiario(CUENTA_FRAGMENTADA).get("saldocierre")).isEqualByComparingTo("50");
+    }
+
+    private List<ResultadoReverso> reversar(int numeroCuenta, List<Long> ids) {
+        return transactionTemplate.execute(status -> servicio.reversarMovimientosCuenta(numeroCuenta, ids));
+    }
+
+    private void movimientos(int numeroCuenta, long base) {
+        movimiento(numeroCuenta, base + 1, HOY.minusDays(3), Movimiento.TipoMovimiento.DEPOSITO, "100", "100");
+        movimiento(numeroCuenta, base + 2, HOY.minusDays(2), Movimiento.TipoMovimiento.DEPOSITO, "50", "150");
+        movimiento(numeroCuenta, base + 3, HOY.minusDays(1), Movimiento.TipoMovimiento.RETIRO, "30", "120");
+    }
+
+    private void movimiento(int numeroCuenta, long id, LocalDate fecha, Movimiento.TipoMovimiento tipo, String monto,
+                            String saldo) {
+        jdbcTemplate.update("INSERT INTO movimientos (idmovimiento, numerocuenta, estado, fechamovimiento, horamovimiento, " +
+            "tipomovimiento, montomovimiento, saldodisponible, movimientodescripcion) VALUES (?, ?, true, ?, ?, ?, ?, ?, ?)",
+            id, numeroCuenta, fecha, LocalTime.NOON, tipo.name(), new BigDecimal(monto), new BigDecimal(saldo), tipo.name());
+    }
+
+    private BigDecimal saldoCuenta(int numeroCuenta) {
+        return jdbcTemplate.queryForObject("SELECT saldodisponible FROM cuentas WHERE numerocuenta = ?",
+            BigDecimal.class, numeroCuenta);
+    }
+
+    private List<Boolean> estados(int numeroCuenta) {
+        return jdbcTemplate.queryForList("SELECT estado FROM movimientos WHERE numerocuenta = ? " +
+            "AND movimientodescripcion NOT LIKE '%[REVERSO ID#%' ORDER BY idmovimiento", Boolean.class, numeroCuenta);
+    }
+
+    private List<Map<String, Object>> reversos(int numeroCuenta) {
+        return jdbcTemplate.queryForList("SELECT tipomovimiento, saldodisponible FROM movimientos WHERE numerocuenta = ? " +
+            "AND movimientodescripcion LIKE '%[REVERSO ID#%' ORDER BY horamovimiento, idmovimiento", numeroCuenta);
+    }
+
+    private int eventos(int numeroCuenta, String tipoEvento) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_eventos WHERE numerocuenta = ? AND tipoevento = ?",
+            Integer.class, numeroCuenta, tipoEvento);
+    }
+
+    private Map<String, Object> saldoDiario(int numeroCuenta) {
+        return jdbcTemplate.queryForMap("SELECT saldocierre, cantidadmovimientos FROM saldos_diarios " +
+            "WHERE numerocuenta = ? AND fecha = ?", numeroCuenta, HOY);
+    }
+
+    private void verificarCadena(int numeroCuenta, int cantidad) {
+        List<Map<String, Object>> filas = jdbcTemplate.queryForList(
+            "SELECT tipomovimiento, montomovimiento, saldodisponible FROM movimientos WHERE numerocuenta = ? " +
+            "ORDER BY fechamovimiento, horamovimiento, idmovimiento", numeroCuenta);
+        assertThat(filas).hasSize(cantidad);
+
+        BigDecimal saldo = BigDecimal.ZERO;
+        for (Map<String, Object> fila : filas) {
+            BigDecimal monto = (BigDecimal) fila.get("montomovimiento");
+            saldo = "DEPOSITO".equals(fila.get("tipomovimiento")) ? saldo.add(monto) : saldo.subtract(monto);
+            assertThat((BigDecimal) fila.get("saldodisponible")).isEqualByComparingTo(saldo);
+        }
+        assertThat(fragmentoSaldoRepository.sumSaldo(numeroCuenta)).isEqualByComparingTo(saldo);
+    }
+}
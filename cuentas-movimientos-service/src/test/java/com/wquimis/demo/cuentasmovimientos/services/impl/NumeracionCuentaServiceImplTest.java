@@ -0,0 +1,138 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.ContenedoresPrueba;
+import com.wquimis.demo.cuentasmovimientos.repository.CuentaRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.SecuenciaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Alineación de la secuencia de cuentas con un rango distinto del que sembró la migración V9 (500000-989999).
+ * Sin transacción de prueba: la alineación corre en su propia transacción y debe ver las cuentas confirmadas.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ContenedoresPrueba.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NumeracionCuentaServiceImplTest {
+
+    private static final int INICIO = 300_000;
+    private static final int FIN = 300_999;
+    private static final int CUENTA_EXISTENTE = 300_004;
+
+    @Autowired
+    private SecuenciaRepository secuenciaRepository;
+
+    @Autowired
+    private CuentaRepository cuentaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long valorOriginal;
+
+    @BeforeEach
+    void guardarSecuencia() {
+        valorOriginal = valorSecuencia();
+        jdbcTemplate.update("INSERT INTO cuentas (numerocuenta, idcliente, tipocuenta, saldoinicial, saldodisponible, " +
+            "estado, fechacreacion) VALUES (?, 1, 'AHORROS', 0, 0, true, NOW())", CUENTA_EXISTENTE);
+    }
+
+    @AfterEach
+    void restaurarSecuencia() {
+        jdbcTemplate.update("DELETE FROM cuentas WHERE numerocuenta = ?", CUENTA_EXISTENTE);
+        jdbcTemplate.update("INSERT INTO secuencias (nombre, valor) VALUES (?, ?) ON DUPLICATE KEY UPDATE valor = VALUES(valor)",
+            NumeracionCuentaServiceImpl.SECUENCIA_CUENTAS, valorOriginal);
+    }
+
+    @Test
+    void secuenciaFueraDelRangoSeAlineaSobreLaUltimaCuenta() {
+        // Valor que siembra V9 sin cuentas en su rango
+        jdbcTemplate.update("UPDATE secuencias SET valor = ? WHERE nombre = ?", 500_000,
+            NumeracionCuentaServiceImpl.SECUENCIA_CUENTAS);
+        NumeracionCuentaServiceImpl numeracion = numeracion();
+
+        numeracion.alinearSecuencia();
+
+        assertThat(valorSecuencia()).isEqualTo(CUENTA_EXISTENTE + 1L);
+        assertThat(numeracion.siguiente()).isEqualTo(CUENTA_EXISTENTE + 1);
+    }
+
+    @Test
+    void secuenciaPorDebajoDeCuentasExistentesSeAdelanta() {
+        jdbcTemplate.update("UPDATE secuencias SET valor = ? WHERE nombre = ?", INICIO,
+            NumeracionCuentaServiceImpl.SECUENCIA_CUENTAS);
+
+        numeracion().alinearSecuencia();
+
+        assertThat(valorSecuencia()).isEqualTo(CUENTA_EXISTENTE + 1L);
+    }
+
+    @Test
+    void secuenciaValidaNoSeModifica() {
+        jdbcTemplate.update("UPDATE secuencias SET valor = ? WHERE nombre = ?", 300_500,
+            NumeracionCuentaServiceImpl.SECUENCIA_CUENTAS);
+
+        numeracion().alinearSecuencia();
+
+        assertThat(valorSecuencia()).isEqualTo(300_500L);
+    }
+
+    @Test
+    void instanciasQueInicianALaVezCreanLaFilaFaltanteUnaSolaVez() throws Exception {
+        jdbcTemplate.update("DELETE FROM secuencias WHERE nombre = ?", NumeracionCuentaServiceImpl.SECUENCIA_CUENTAS);
+        int instancias = 4;
+        CyclicBarrier arranque = new CyclicBarrier(instancias);
+        ExecutorService executor = Executors.newFixedThreadPool(instancias);
+        try {
+            List<Future<?>> inicios = new ArrayList<>();
+            for (int i = 0; i < instancias; i++) {
+                inicios.add(executor.submit(() -> {
+                    arranque.await();
+                    numeracion().alinearSecuencia();
+                    return null;
+                }));
+            }
+            for (Future<?> inicio : inicios) {
+                inicio.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(valorSecuencia()).isEqualTo(CUENTA_EXISTENTE + 1L);
+    }
+
+    private NumeracionCuentaServiceImpl numeracion() {
+        return new NumeracionCuentaServiceImpl(secuenciaRepository, cuentaRepository, transactionManager, INICIO, FIN, 10);
+    }
+
+    private Long valorSecuencia() {
+        return jdbcTemplate.queryForObject("SELECT valor FROM secuencias WHERE nombre = ?", Long.class,
+            NumeracionCuentaServiceImpl.SECUENCIA_CUENTAS);
+    }
+}
@@ -0,0 +1,74 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.ContenedoresPrueba;
+import com.wquimis.demo.cuentasmovimientos.dto.ParticionMovimientosDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Poda de particiones sobre el esquema que deja V10 en una BD nueva: un mes por partición desde el mes actual
+ * hasta tres meses por delante, más p_futuro. Solo lectura: ni crea ni retira particiones.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ContenedoresPrueba.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ParticionMovimientosServiceImplTest {
+
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final LocalDate MES_ACTUAL = LocalDate.now().withDayOfMonth(1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void v10CreaUnaParticionPorMesHastaTresMesesAdelante() {
+        assertThat(servicio().listar())
+            .extracting(ParticionMovimientosDTO::getNombre)
+            .containsSubsequence(particion(MES_ACTUAL), particion(MES_ACTUAL.plusMonths(3)), "p_futuro")
+            .last().isEqualTo("p_futuro");
+    }
+
+    @Test
+    void rangoDentroDeUnMesLeeSoloEseMes() {
+        LocalDate siguiente = MES_ACTUAL.plusMonths(1);
+
+        assertThat(servicio().particionesConsultadas(100_001, siguiente, siguiente.plusMonths(1).minusDays(1)))
+            .containsExactly(particion(siguiente));
+    }
+
+    @Test
+    void rangoQueCruzaUnCambioDeMesLeeAmbosMeses() {
+        assertThat(servicio().particionesConsultadas(null, MES_ACTUAL.plusDays(14), MES_ACTUAL.plusMonths(1).plusDays(14)))
+            .containsExactly(particion(MES_ACTUAL), particion(MES_ACTUAL.plusMonths(1)));
+    }
+
+    @Test
+    void rangoPosteriorALasParticionesCreadasLeeSoloPFuturo() {
+        LocalDate lejano = MES_ACTUAL.plusMonths(12);
+
+        assertThat(servicio().particionesConsultadas(100_001, lejano, lejano.plusDays(10)))
+            .containsExactly("p_futuro");
+    }
+
+    private ParticionMovimientosServiceImpl servicio() {
+        return new ParticionMovimientosServiceImpl(jdbcTemplate, 3, 0, "ARCHIVAR");
+    }
+
+    private static String particion(LocalDate mes) {
+        return "p" + mes.format(FORMATO_MES);
+    }
+}
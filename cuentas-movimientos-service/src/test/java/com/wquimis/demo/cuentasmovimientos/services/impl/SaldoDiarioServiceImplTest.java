@@ -0,0 +1,96 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.ContenedoresPrueba;
+import com.wquimis.demo.cuentasmovimientos.repository.CuentaRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.MovimientoRetiradoRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.SaldoDiarioPendienteRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.SaldoDiarioRepository;
+import com.wquimis.demo.cuentasmovimientos.services.ArchivoMovimientosService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Reconstrucción de saldos diarios de una cuenta cuyos primeros meses se retiraron con su partición: los días
+ * retirados ya no tienen movimientos en la tabla y deben conservarse tal como estaban.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ContenedoresPrueba.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SaldoDiarioServiceImplTest {
+
+    private static final int CUENTA = 420_001;
+    private static final LocalDate HOY = LocalDate.now();
+
+    @Autowired
+    private SaldoDiarioRepository saldoDiarioRepository;
+
+    @Autowired
+    private SaldoDiarioPendienteRepository saldoDiarioPendienteRepository;
+
+    @Autowired
+    private CuentaRepository cuentaRepository;
+
+    @Autowired
+    private MovimientoRetiradoRepository movimientoRetiradoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void eliminarCuenta() {
+        for (String tabla : List.of("saldos_diarios", "movimientos", "movimientos_retirados", "cuentas")) {
+            jdbcTemplate.update("DELETE FROM " + tabla + " WHERE numerocuenta = ?", CUENTA);
+        }
+    }
+
+    @Test
+    void reconstruirConservaLosDiasRetirados() {
+        jdbcTemplate.update("INSERT INTO cuentas (numerocuenta, idcliente, tipocuenta, saldoinicial, saldodisponible, " +
+            "estado, fechacreacion) VALUES (?, 1, 'AHORROS', 0, 530, true, NOW())", CUENTA);
+        // Día retirado: su movimiento ya no está en la tabla, solo el resumen y el saldo diario
+        jdbcTemplate.update("INSERT INTO movimientos_retirados (numerocuenta, fechahasta, saldocierre, cantidadmovimientos) " +
+            "VALUES (?, ?, 500, 1)", CUENTA, HOY.minusDays(40));
+        jdbcTemplate.update("INSERT INTO saldos_diarios (numerocuenta, fecha, saldoapertura, saldocierre, totalcreditos, " +
+            "totaldebitos, cantidadmovimientos) VALUES (?, ?, 0, 500, 500, 0, 1)", CUENTA, HOY.minusDays(40));
+        jdbcTemplate.update("INSERT INTO movimientos (idmovimiento, numerocuenta, estado, fechamovimiento, horamovimiento, " +
+            "tipomovimiento, montomovimiento, saldodisponible, movimientodescripcion) " +
+            "VALUES (9200000000, ?, true, ?, ?, 'DEPOSITO', 30, 530, 'DEPOSITO')", CUENTA, HOY.minusDays(2), LocalTime.NOON);
+
+        SaldoDiarioServiceImpl servicio = new SaldoDiarioServiceImpl(saldoDiarioRepository, saldoDiarioPendienteRepository,
+            cuentaRepository, mock(ArchivoMovimientosService.class), movimientoRetiradoRepository, transactionManager);
+        Integer dias = new TransactionTemplate(transactionManager).execute(status -> servicio.reconstruir(CUENTA));
+
+        assertThat(dias).isEqualTo(1);
+        List<Map<String, Object>> saldos = jdbcTemplate.queryForList(
+            "SELECT fecha, saldoapertura, saldocierre FROM saldos_diarios WHERE numerocuenta = ? ORDER BY fecha", CUENTA);
+        assertThat(saldos).hasSize(2);
+        assertThat(saldos.get(0).get("fecha").toString()).isEqualTo(HOY.minusDays(40).toString());
+        assertThat((BigDecimal) saldos.get(0).get("saldocierre")).isEqualByComparingTo("500");
+        assertThat((BigDecimal) saldos.get(1).get("saldoapertura")).isEqualByComparingTo("500");
+        assertThat((BigDecimal) saldos.get(1).get("saldocierre")).isEqualByComparingTo("530");
+    }
+}
@@ -0,0 +1,180 @@
+package com.wquimis.demo.cuentasmovimientos.services.impl;
+
+import com.wquimis.demo.cuentasmovimientos.ContenedoresPrueba;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import com.wquimis.demo.cuentasmovimientos.repository.CuentaRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.FragmentoSaldoRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.MovimientoRepository;
+import com.wquimis.demo.cuentasmovimientos.repository.SaldoProvisionalRepository;
+import com.wquimis.demo.cuentasmovimientos.services.CuentaMetadatosService;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoAplicado;
+import com.wquimis.demo.cuentasmovimientos.services.SaldoDiarioService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Depósitos simultáneos sobre una cuenta fragmentada: cada uno guarda un saldo provisional y, una vez asentados
+ * (por un retiro o por el asentamiento programado), la cadena de saldodisponible en orden de fecha, hora e id
+ * parte del saldo inicial, continúa movimiento a movimiento y termina en la suma de los fragmentos.
+ * Sin transacción de prueba: cada depósito corre en su propia transacción, como en el alta individual.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ContenedoresPrueba.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SaldoFragmentadoServiceImplTest {
+
+    private static final int CUENTA = 400_001;
+    private static final BigDecimal SALDO_INICIAL = new BigDecimal("100.0000");
+    private static final int HILOS = 8;
+    private static final int DEPOSITOS_POR_HILO = 25;
+
+    @Autowired
+    private CuentaRepository cuentaRepository;
+
+    @Autowired
+    private FragmentoSaldoRepository fragmentoSaldoRepository;
+
+    @Autowired
+    private MovimientoRepository movimientoRepository;
+
+    @Autowired
+    private SaldoProvisionalRepository saldoProvisionalRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SaldoFragmentadoServiceImpl servicio;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void crearCuentaFragmentada() {
+        jdbcTemplate.update("INSERT INTO cuentas (numerocuenta, idcliente, tipocuenta, saldoinicial, saldodisponible, " +
+            "estado, fechacreacion) VALUES (?, 1, 'AHORROS', ?, ?, true, NOW())", CUENTA, SALDO_INICIAL, SALDO_INICIAL);
+        servicio = new SaldoFragmentadoServiceImpl(cuentaRepository, fragmentoSaldoRepository,
+            mock(CuentaMetadatosService.class), mock(SaldoDiarioService.class), movimientoRepository,
+            saldoProvisionalRepository, transactionManager, 64);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> servicio.fragmentar(CUENTA, 4));
+    }
+
+    @AfterEach
+    void eliminarCuenta() {
+        jdbcTemplate.update("DELETE FROM movimientos_saldo_provisional WHERE numerocuenta = ?", CUENTA);
+        jdbcTemplate.update("DELETE FROM movimientos WHERE numerocuenta = ?", CUENTA);
+        jdbcTemplate.update("DELETE FROM cuentas_fragmentos_saldo WHERE numerocuenta = ?", CUENTA);
+        jdbcTemplate.update("DELETE FROM cuentas WHERE numerocuenta = ?", CUENTA);
+    }
+
+    @Test
+    void retiroAsientaLosDepositosSimultaneosEnUnaCadenaVerificable() throws Exception {
+        depositarEnParalelo();
+        assertThat(saldoProvisionalRepository.count()).isEqualTo(HILOS * DEPOSITOS_POR_HILO);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            SaldoAplicado aplicado = servicio.debitar(CUENTA, new BigDecimal("7.5000"));
+            assertThat(aplicado.isProvisional()).isFalse();
+            guardar(Movimiento.TipoMovimiento.RETIRO, new BigDecimal("7.5000"), aplicado.getSaldo());
+        });
+
+        assertThat(saldoProvisionalRepository.count()).isZero();
+        verificarCadena(HILOS * DEPOSITOS_POR_HILO + 1);
+    }
+
+    @Test
+    void asentamientoProgramadoCierraLaCadenaSinRetiros() throws Exception {
+        depositarEnParalelo();
+
+        assertThat(servicio.asentarProvisionales()).isEqualTo(1);
+
+        assertThat(saldoProvisionalRepository.count()).isZero();
+        verificarCadena(HILOS * DEPOSITOS_POR_HILO);
+    }
+
+    private void depositarEnParalelo() throws Exception {
+        CyclicBarrier arranque = new CyclicBarrier(HILOS);
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        try {
+            List<Future<?>> hilos = new ArrayList<>();
+            for (int h = 0; h < HILOS; h++) {
+                int hilo = h;
+                hilos.add(executor.submit(() -> {
+                    arranque.await();
+                    for (int i = 0; i < DEPOSITOS_POR_HILO; i++) {
+                        // Montos distintos: un saldo asentado con el monto de otro depósito no pasaría la verificación
+                        BigDecimal monto = BigDecimal.valueOf(1 + hilo * DEPOSITOS_POR_HILO + i, 2).add(BigDecimal.ONE);
+                        transactionTemplate.executeWithoutResult(status -> {
+                            SaldoAplicado aplicado = servicio.acreditar(CUENTA, monto);
+                            assertThat(aplicado.isProvisional()).isTrue();
+                            servicio.registrarProvisional(CUENTA,
+                                guardar(Movimiento.TipoMovimiento.DEPOSITO, monto, aplicado.getSaldo()));
+                        });
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> hilo : hilos) {
+                hilo.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Movimiento guardar(Movimiento.TipoMovimiento tipo, BigDecimal monto, BigDecimal saldo) {
+        Movimiento movimiento = new Movimiento();
+        movimiento.setCuenta(cuentaRepository.getReferenceById(CUENTA));
+        movimiento.setTipomovimiento(tipo);
+        movimiento.setMontomovimiento(monto);
+        movimiento.setMovimientodescripcion(tipo.name());
+        movimiento.setFechamovimiento(LocalDate.now());
+        movimiento.setHoramovimiento(LocalTime.now());
+        movimiento.setSaldodisponible(saldo);
+        return movimientoRepository.save(movimiento);
+    }
+
+    private void verificarCadena(int cantidad) {
+        List<Map<String, Object>> filas = jdbcTemplate.queryForList(
+            "SELECT tipomovimiento, montomovimiento, saldodisponible FROM movimientos WHERE numerocuenta = ? " +
+            "ORDER BY fechamovimiento, horamovimiento, idmovimiento", CUENTA);
+        assertThat(filas).hasSize(cantidad);
+
+        BigDecimal saldo = SALDO_INICIAL;
+        for (Map<String, Object> fila : filas) {
+            BigDecimal monto = (BigDecimal) fila.get("montomovimiento");
+            saldo = "DEPOSITO".equals(fila.get("tipomovimiento")) ? saldo.add(monto) : saldo.subtract(monto);
+            assertThat((BigDecimal) fila.get("saldodisponible")).isEqualByComparingTo(saldo);
+        }
+        assertThat(fragmentoSaldoRepository.sumSaldo(CUENTA)).isEqualByComparingTo(saldo);
+    }
+}
@@ -0,0 +1,165 @@
+package com.wquimis.demo.cuentasmovimientos.utils;
+
+import com.wquimis.demo.cuentasmovimientos.entities.Cuenta;
+import com.wquimis.demo.cuentasmovimientos.entities.Movimiento;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Formato de los segmentos de archivo: ida y vuelta de cada campo, búsqueda en el índice por cuenta, filtro
+ * por fechas y validación de la cola.
+ */
+class SegmentoMovimientosTest {
+
+    private static final LocalDate DIA = LocalDate.of(2023, 3, 15);
+    // Límites de DATE en MySQL, los mismos que usan los rangos abiertos del servicio
+    private static final LocalDate DESDE_SIEMPRE = LocalDate.of(1000, 1, 1);
+    private static final LocalDate HASTA_SIEMPRE = LocalDate.of(9999, 12, 31);
+
+    @TempDir
+    private Path directorio;
+
+    @Test
+    void losCamposSeLeenTalComoSeEscribieron() throws IOException {
+        List<Movimiento> escritos = List.of(
+            movimiento(10, DIA, LocalTime.of(8, 30, 15, 123_000_000), Movimiento.TipoMovimiento.DEPOSITO,
+                "1500.2500", "1500.2500", true, "Depósito inicial en ventanilla Ñ"),
+            movimiento(11, DIA, LocalTime.of(23, 59, 59, 999_000_000), Movimiento.TipoMovimiento.RETIRO,
+                "0.0001", "1500.2499", false, null),
+            movimiento(12, DIA.plusDays(1), LocalTime.MIDNIGHT, Movimiento.TipoMovimiento.RETIRO,
+                "1500", "-0.0001", null, ""));
+        SegmentoMovimientos segmento = publicar("segmento.mov", List.of(7), List.of(escritos));
+
+        List<Movimiento> leidos = leer(segmento, 7, DESDE_SIEMPRE, HASTA_SIEMPRE);
+
+        assertThat(leidos).hasSize(3);
+        for (int i = 0; i < escritos.size(); i++) {
+            Movimiento escrito = escritos.get(i);
+            Movimiento leido = leidos.get(i);
+            assertThat(leido.getIdmovimiento()).isEqualTo(escrito.getIdmovimiento());
+            assertThat(leido.getCuenta().getNumerocuenta()).isEqualTo(7);
+            assertThat(leido.getEstado()).isEqualTo(escrito.getEstado());
+            assertThat(leido.getFechamovimiento()).isEqualTo(escrito.getFechamovimiento());
+            assertThat(leido.getHoramovimiento()).isEqualTo(escrito.getHoramovimiento());
+            assertThat(leido.getTipomovimiento()).isEqualTo(escrito.getTipomovimiento());
+            assertThat(leido.getMontomovimiento()).isEqualByComparingTo(escrito.getMontomovimiento());
+            assertThat(leido.getSaldodisponible()).isEqualByComparingTo(escrito.getSaldodisponible());
+            assertThat(leido.getMovimientodescripcion()).isEqualTo(escrito.getMovimientodescripcion());
+        }
+        assertThat(segmento.fechaMaxima(7)).isEqualTo(DIA.plusDays(1));
+    }
+
+    @Test
+    void elIndiceEncuentraCadaCuentaYSoloSusMovimientos() throws IOException {
+        // Cuentas impares: las pares caen entre dos entradas del índice
+        List<Integer> cuentas = new ArrayList<>();
+        List<List<Movimiento>> movimientos = new ArrayList<>();
+        for (int i = 0; i < 301; i++) {
+            int numeroCuenta = 2 * i + 1;
+            cuentas.add(numeroCuenta);
+            movimientos.add(List.of(
+                movimiento(numeroCuenta * 10L, DIA, LocalTime.NOON, Movimiento.TipoMovimiento.DEPOSITO, "5", "5", true, "a"),
+                movimiento(numeroCuenta * 10L + 1, DIA, LocalTime.NOON, Movimiento.TipoMovimiento.RETIRO, "1", "4", true, "b")));
+        }
+        SegmentoMovimientos segmento = publicar("segmento.mov", cuentas, movimientos);
+
+        for (int numeroCuenta : List.of(1, 3, 299, 301, 599, 601)) {
+            assertThat(leer(segmento, numeroCuenta, DIA, DIA))
+                .extracting(Movimiento::getIdmovimiento)
+                .containsExactly(numeroCuenta * 10L, numeroCuenta * 10L + 1);
+        }
+        for (int ausente : List.of(0, 2, 300, 602, Integer.MAX_VALUE)) {
+            assertThat(leer(segmento, ausente, DESDE_SIEMPRE, HASTA_SIEMPRE)).isEmpty();
+            assertThat(segmento.fechaMaxima(ausente)).isNull();
+        }
+    }
+
+    @Test
+    void soloSeDevuelvenLosMovimientosDelRango() throws IOException {
+        List<Movimiento> escritos = List.of(
+            movimiento(1, DIA.minusDays(1), LocalTime.NOON, Movimiento.TipoMovimiento.DEPOSITO, "10", "10", true, "x"),
+            movimiento(2, DIA, LocalTime.NOON, Movimiento.TipoMovimiento.DEPOSITO, "10", "20", true, "x"),
+            movimiento(3, DIA.plusDays(1), LocalTime.NOON, Movimiento.TipoMovimiento.DEPOSITO, "10", "30", true, "x"));
+        SegmentoMovimientos segmento = publicar("segmento.mov", List.of(5), List.of(escritos));
+
+        assertThat(leer(segmento, 5, DIA, DIA)).extracting(Movimiento::getIdmovimiento).containsExactly(2L);
+        assertThat(leer(segmento, 5, DIA, DIA.plusDays(30))).extracting(Movimiento::getIdmovimiento).containsExactly(2L, 3L);
+        // Fuera del rango del bloque: no se descomprime
+        assertThat(leer(segmento, 5, DIA.plusDays(2), DIA.plusDays(30))).isEmpty();
+    }
+
+    @Test
+    void cuentasFueraDeOrdenSeRechazan() throws IOException {
+        Path destino = directorio.resolve("segmento.mov");
+        try (SegmentoMovimientos.Escritor escritor = SegmentoMovimientos.crear(destino)) {
+            escritor.agregar(20, List.of(movimiento(1, DIA, LocalTime.NOON, Movimiento.TipoMovimiento.DEPOSITO, "1", "1", true, "x")));
+
+            assertThatThrownBy(() -> escritor.agregar(20,
+                List.of(movimiento(2, DIA, LocalTime.NOON, Movimiento.TipoMovimiento.DEPOSITO, "1", "2", true, "x"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+        // Sin publicar no queda ni el segmento ni el temporal
+        assertThat(directorio).isEmptyDirectory();
+    }
+
+    @Test
+    void segmentoConLaColaDanadaNoSeAbre() throws IOException {
+        Path ruta;
+        try (SegmentoMovimientos.Escritor escritor = SegmentoMovimientos.crear(directorio.resolve("segmento.mov"))) {
+            escritor.agregar(1, List.of(movimiento(1, DIA, LocalTime.NOON, Movimiento.TipoMovimiento.DEPOSITO, "1", "1", true, "x")));
+            ruta = escritor.publicar();
+        }
+        try (RandomAccessFile archivo = new RandomAccessFile(ruta.toFile(), "rw")) {
+            archivo.setLength(Files.size(ruta) - 1);
+        }
+
+        assertThatThrownBy(() -> SegmentoMovimientos.abrir(ruta)).isInstanceOf(IOException.class);
+    }
+
+    private SegmentoMovimientos publicar(String nombre, List<Integer> cuentas, List<List<Movimiento>> movimientos)
+            throws IOException {
+        Path destino = directorio.resolve(nombre);
+        try (SegmentoMovimientos.Escritor escritor = SegmentoMovimientos.crear(destino)) {
+            for (int i = 0; i < cuentas.size(); i++) {
+                escritor.agregar(cuentas.get(i), movimientos.get(i));
+            }
+            escritor.publicar();
+        }
+        return SegmentoMovimientos.abrir(destino);
+    }
+
+    private static List<Movimiento> leer(SegmentoMovimientos segmento, int numeroCuenta, LocalDate desde, LocalDate hasta) {
+        Cuenta cuenta = new Cuenta();
+        cuenta.setNumerocuenta(numeroCuenta);
+        List<Movimiento> leidos = new ArrayList<>();
+        segmento.leer(cuenta, desde, hasta, leidos);
+        return leidos;
+    }
+
+    private static Movimiento movimiento(long id, LocalDate fecha, LocalTime hora, Movimiento.TipoMovimiento tipo,
+                                         String monto, String saldo, Boolean estado, String descripcion) {
+        Movimiento movimiento = new Movimiento();
+        movimiento.setIdmovimiento(id);
+        movimiento.setFechamovimiento(fecha);
+        movimiento.setHoramovimiento(hora);
+        movimiento.setTipomovimiento(tipo);
+        movimiento.setMontomovimiento(new BigDecimal(monto));
+        movimiento.setSaldodisponible(new BigDecimal(saldo));
+        movimiento.setEstado(estado);
+        movimiento.setMovimientodescripcion(descripcion);
+        return movimiento;
+    }
+}
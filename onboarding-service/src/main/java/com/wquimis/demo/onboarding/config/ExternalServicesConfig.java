@@ -4,6 +4,8 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "external.services")
 @Data
@@ -11,6 +13,7 @@ public class ExternalServicesConfig {
     
     private PersonasClientes personasClientes = new PersonasClientes();
     private CuentasMovimientos cuentasMovimientos = new CuentasMovimientos();
+    private Http http = new Http();
     
     @Data
     public static class PersonasClientes {
@@ -37,4 +40,12 @@ public class ExternalServicesConfig {
             return baseUrl + "/api/movimientos";
         }
     }
+
+    @Data
+    public static class Http {
+        private int maxConexiones = 500;
+        private int maxPendientes = 2000;
+        private Duration timeoutAdquisicion = Duration.ofSeconds(10);
+        private Duration timeoutConexion = Duration.ofSeconds(5);
+    }
 }
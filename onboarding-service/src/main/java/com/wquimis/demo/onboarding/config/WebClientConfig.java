@@ -1,15 +1,38 @@
 package com.wquimis.demo.onboarding.config;
 
+import io.netty.channel.ChannelOption;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class WebClientConfig {
 
+    /**
+     * Pool de conexiones dimensionado explícitamente: el pool por defecto de Reactor Netty admite pocas conexiones
+     * y una cola corta, que se desborda cuando muchos hilos (virtuales) bloquean a la vez esperando respuesta.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider serviciosExternosConnectionProvider(ExternalServicesConfig externalServicesConfig) {
+        ExternalServicesConfig.Http http = externalServicesConfig.getHttp();
+        return ConnectionProvider.builder("servicios-externos")
+                .maxConnections(http.getMaxConexiones())
+                .pendingAcquireMaxCount(http.getMaxPendientes())
+                .pendingAcquireTimeout(http.getTimeoutAdquisicion())
+                .build();
+    }
+
     @Bean
-    public WebClient.Builder webClientBuilder() {
+    public WebClient.Builder webClientBuilder(ConnectionProvider serviciosExternosConnectionProvider,
+                                              ExternalServicesConfig externalServicesConfig) {
+        HttpClient httpClient = HttpClient.create(serviciosExternosConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                        (int) externalServicesConfig.getHttp().getTimeoutConexion().toMillis());
         return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .codecs(configurer -> configurer
                         .defaultCodecs()
                         .maxInMemorySize(1024 * 1024)); // 1MB
@@ -37,8 +37,7 @@ public class OnboardingController {
         description = "Orquesta la creación completa de un cliente: " +
                      "1. Crea la persona en personas-clientes-service, " +
                      "2. Crea el cliente asociado a la persona, " +
-                     "3. Crea la cuenta con número especial (prefijo 99) y saldo inicial automático. " +
-                     "Las cuentas creadas por onboarding tendrán números con prefijo 99 (rango: 990001-999999). " +
+                     "3. Crea la cuenta con saldo inicial; el número lo asigna el servicio de cuentas. " +
                      "El depósito inicial se crea automáticamente por el servicio de cuentas."
     )
     @ApiResponses(value = {
@@ -16,7 +16,6 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
 
 import java.math.BigDecimal;
 import java.time.Duration;
-import java.util.Random;
 
 @Service
 @Slf4j
@@ -25,7 +24,6 @@ public class OnboardingServiceImpl implements OnboardingService {
 
     private final WebClient.Builder webClientBuilder;
     private final ExternalServicesConfig externalServicesConfig;
-    private final Random random = new Random();
 
     @Override
     public OnboardingResponseDTO procesarOnboarding(OnboardingRequestDTO request) {
@@ -47,15 +45,7 @@ public class OnboardingServiceImpl implements OnboardingService {
             CuentaDTO cuentaCreada = obtenerOCrearCuenta(request.getCuenta(), clienteCreado.getId());
             log.info("Cuenta procesada con número: {}", cuentaCreada.getNumeroCuenta());
 
-            // Paso 4: Crear movimiento de depósito inicial si el saldo es mayor a 0
-            if (cuentaCreada.getSaldoInicial() != null && cuentaCreada.getSaldoInicial().compareTo(BigDecimal.ZERO) > 0) {
-                crearMovimientoInicialDeposito(cuentaCreada.getNumeroCuenta(), cuentaCreada.getSaldoInicial());
-                log.info("Movimiento de depósito inicial creado para cuenta: {} por monto: {}", 
-                        cuentaCreada.getNumeroCuenta(), cuentaCreada.getSaldoInicial());
-            } else {
-                log.info("No se creó movimiento inicial - saldo inicial es 0 o no definido para cuenta: {}", 
-                        cuentaCreada.getNumeroCuenta());
-            }
+            // El movimiento de depósito inicial lo registra el servicio de cuentas al crear la cuenta
 
             // Construir respuesta
             OnboardingResponseDTO response = construirRespuesta(personaCreada, clienteCreado, cuentaCreada);
@@ -309,9 +299,8 @@ public class OnboardingServiceImpl implements OnboardingService {
                 }
             }
             
-            // Si no tiene cuenta del tipo solicitado, crear una nueva
-            Integer numeroCuenta = generarNumeroCuentaOnboarding();
-            return crearCuenta(cuentaRequest, clienteId, numeroCuenta);
+            // Si no tiene cuenta del tipo solicitado, crear una nueva (el número lo asigna el servicio de cuentas)
+            return crearCuenta(cuentaRequest, clienteId);
             
         } catch (EntityAlreadyExistsException | ValidationException e) {
             throw e;
@@ -475,16 +464,15 @@ public class OnboardingServiceImpl implements OnboardingService {
         }
     }
 
-    private CuentaDTO crearCuenta(CuentaRequestDTO cuentaRequest, Long idCliente, Integer numeroCuenta) {
+    private CuentaDTO crearCuenta(CuentaRequestDTO cuentaRequest, Long idCliente) {
         try {
-            // Crear el DTO para enviar al servicio
+            // Crear el DTO para enviar al servicio; sin numeroCuenta el servicio de cuentas asigna uno
             CuentaDTO cuentaDto = new CuentaDTO();
-            cuentaDto.setNumeroCuenta(numeroCuenta);
             cuentaDto.setIdCliente(idCliente);
             cuentaDto.setTipoCuenta(cuentaRequest.getTipoCuenta());
             cuentaDto.setSaldoInicial(cuentaRequest.getSaldoInicial());
             
-            log.info("Creando nueva cuenta para cliente ID: {} con número: {}", idCliente, numeroCuenta);
+            log.info("Creando nueva cuenta {} para cliente ID: {}", cuentaRequest.getTipoCuenta(), idCliente);
             log.debug("Cuenta request: {}", cuentaDto);
             
             CuentaDTO response = webClientBuilder.build()
@@ -504,15 +492,10 @@ public class OnboardingServiceImpl implements OnboardingService {
                      e.getStatusCode(), e.getResponseBodyAsString());
             
             if (e.getStatusCode() == HttpStatus.CONFLICT) {
-                throw new EntityAlreadyExistsException("cuenta", numeroCuenta.toString(),
-                    "La cuenta con este número ya existe");
-            } else if (e.getStatusCode() == HttpStatus.INTERNAL_SERVER_ERROR && 
-                      e.getResponseBodyAsString().contains("Duplicate entry")) {
-                // Manejo específico para errores de MySQL de clave duplicada
-                throw new EntityAlreadyExistsException("cuenta", numeroCuenta.toString(),
-                    "La cuenta con este número ya existe en el sistema");
+                throw new EntityAlreadyExistsException("cuenta", idCliente.toString(),
+                    "El servicio de cuentas reportó una cuenta duplicada para el cliente");
             } else if (e.getStatusCode().is5xxServerError()) {
-                throw new ExternalServiceException("Servicio cuentas respondió 5xx al crear cuenta número " + numeroCuenta + ": " + parseErrorMessage(e), e);
+                throw new ExternalServiceException("Servicio cuentas respondió 5xx al crear cuenta del cliente " + idCliente + ": " + parseErrorMessage(e), e);
             }
             
             throw new ExternalServiceException("Error al crear cuenta: " + parseErrorMessage(e), e);
@@ -521,62 +504,4 @@ public class OnboardingServiceImpl implements OnboardingService {
             throw new OnboardingException("Error al crear cuenta: " + e.getMessage(), e);
         }
     }
-
-    private void crearMovimientoInicialDeposito(Integer numeroCuenta, BigDecimal montoDeposito) {
-        // Validaciones previas
-        if (montoDeposito == null) {
-            log.debug("[ONBOARDING][MOVIMIENTO_INICIAL] Monto nulo, no se crea movimiento inicial para cuenta {}", numeroCuenta);
-            return;
-        }
-        if (montoDeposito.compareTo(BigDecimal.ZERO) <= 0) {
-            log.info("[ONBOARDING][MOVIMIENTO_INICIAL] Saldo inicial <= 0 ({}), no se crea movimiento para cuenta {}", montoDeposito, numeroCuenta);
-            return;
-        }
-
-        try {
-            MovimientoDTO movimiento = new MovimientoDTO();
-            movimiento.setTipomovimiento("DEPOSITO");
-            movimiento.setMovimientodescripcion("Depósito inicial por onboarding");
-            movimiento.setMontomovimiento(montoDeposito);
-            movimiento.setEsReverso(false);
-
-            String baseMovimientosUrl = externalServicesConfig.getCuentasMovimientos().getMovimientosUrl(); // termina en /api/movimientos
-            String endpoint = baseMovimientosUrl + "/cuenta/" + numeroCuenta; // /api/movimientos/cuenta/{numeroCuenta}
-
-            log.info("[ONBOARDING][MOVIMIENTO_INICIAL] Creando depósito inicial cuenta {} monto {} endpoint {}", numeroCuenta, montoDeposito, endpoint);
-            log.debug("[ONBOARDING][MOVIMIENTO_INICIAL] Payload: {}", movimiento);
-
-            MovimientoDTO response = webClientBuilder.build()
-                .post()
-                .uri(endpoint)
-                .bodyValue(movimiento)
-                .retrieve()
-                .bodyToMono(MovimientoDTO.class)
-                .timeout(Duration.ofSeconds(30))
-                .block();
-
-            if (response != null && response.getId() != null) {
-                log.info("[ONBOARDING][MOVIMIENTO_INICIAL] Movimiento inicial creado ID {} para cuenta {}", response.getId(), numeroCuenta);
-            } else {
-                log.warn("[ONBOARDING][MOVIMIENTO_INICIAL] Respuesta sin ID al crear movimiento inicial para cuenta {}", numeroCuenta);
-            }
-        } catch (WebClientResponseException e) {
-            log.error("[ONBOARDING][MOVIMIENTO_INICIAL] Error HTTP Status {} Body {}", e.getStatusCode(), e.getResponseBodyAsString());
-            log.warn("[ONBOARDING][MOVIMIENTO_INICIAL] Falló creación de movimiento inicial (cuenta {}), proceso onboarding continúa", numeroCuenta);
-        } catch (Exception e) {
-            log.error("[ONBOARDING][MOVIMIENTO_INICIAL] Error inesperado {}", e.getMessage(), e);
-            log.warn("[ONBOARDING][MOVIMIENTO_INICIAL] Falló creación de movimiento inicial (cuenta {}), proceso onboarding continúa", numeroCuenta);
-        }
-    }
-
-    /**
-     * Genera un número de cuenta para onboarding con prefijo 99
-     * y máximo 6 dígitos (99XXXX)
-     */
-    private Integer generarNumeroCuentaOnboarding() {
-        // Generar número aleatorio de 4 dígitos (1000-9999)
-        int sufijo = random.nextInt(9000) + 1000;
-        // Concatenar con prefijo 99
-        return Integer.parseInt("99" + sufijo);
-    }
 }
@@ -0,0 +1,95 @@
+package com.wquimis.demo.personasclientes.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enrutamiento de lecturas a réplicas. Las transacciones @Transactional(readOnly = true) marcan la conexión
+ * como de solo lectura antes de la primera sentencia; el proxy perezoso recién entonces elige el destino:
+ * réplicas para solo lectura y primaria para el resto (escrituras, Flyway).
+ * Una lectura dentro de una transacción de escritura reutiliza la conexión de la primaria.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "personas.lecturas.replicas.enabled", havingValue = "true")
+public class ReplicasLecturaConfig {
+
+    private static final String PREFIJO_METRICAS = "personas";
+
+    private final ObjectProvider<ReplicasLecturaDataSource> dataSourceReplicas;
+
+    public ReplicasLecturaConfig(ObjectProvider<ReplicasLecturaDataSource> dataSourceReplicas) {
+        this.dataSourceReplicas = dataSourceReplicas;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimaria(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicasLecturaDataSource dataSourceReplicas(
+            HikariDataSource dataSourcePrimaria, DataSourceProperties properties, MeterRegistry meterRegistry,
+            @Value("${personas.lecturas.replicas.urls}") List<String> urls,
+            @Value("${personas.lecturas.replicas.username}") String usuario,
+            @Value("${personas.lecturas.replicas.password}") String contrasena,
+            @Value("${personas.lecturas.replicas.pool-maximo:10}") int poolMaximo,
+            @Value("${personas.lecturas.replicas.retraso-maximo:PT5S}") Duration retrasoMaximo,
+            @Value("${personas.lecturas.replicas.verificacion-ms:1000}") long verificacionMs) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (pools.size() + 1));
+            pool.setJdbcUrl(url.trim());
+            pool.setUsername(usuario);
+            pool.setPassword(contrasena);
+            pool.setDriverClassName(properties.getDriverClassName());
+            pool.setMaximumPoolSize(poolMaximo);
+            pool.setConnectionTimeout(dataSourcePrimaria.getConnectionTimeout());
+            pool.setMaxLifetime(dataSourcePrimaria.getMaxLifetime());
+            pool.setReadOnly(true);
+            // Métricas hikaricp.* con tag pool=replica-N junto a las del pool de la primaria
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(pool);
+        }
+        if (pools.isEmpty()) {
+            throw new IllegalStateException("personas.lecturas.replicas.urls no define ninguna réplica");
+        }
+        return new ReplicasLecturaDataSource(PREFIJO_METRICAS, dataSourcePrimaria, pools, retrasoMaximo,
+            Duration.ofMillis(verificacionMs), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource dataSourcePrimaria, ReplicasLecturaDataSource dataSourceReplicas) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(dataSourcePrimaria);
+        proxy.setReadOnlyDataSource(dataSourceReplicas);
+        return proxy;
+    }
+
+    @Scheduled(fixedDelayString = "${personas.lecturas.replicas.verificacion-ms:1000}")
+    public void verificarRetrasoReplicas() {
+        dataSourceReplicas.getObject().verificarRetraso();
+    }
+}
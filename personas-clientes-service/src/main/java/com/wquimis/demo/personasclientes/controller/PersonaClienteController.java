@@ -12,6 +12,7 @@ import com.wquimis.demo.personasclientes.entities.Persona;
 import com.wquimis.demo.personasclientes.entities.Cliente;
 import com.wquimis.demo.personasclientes.services.PersonaService;
 import com.wquimis.demo.personasclientes.services.ClienteService;
+import com.wquimis.demo.personasclientes.services.ClienteVista;
 import com.wquimis.demo.personasclientes.utils.DtoConverter;
 import org.springframework.http.HttpStatus;
 
@@ -45,9 +46,8 @@ public class PersonaClienteController {
     @Operation(summary = "Obtener todas las personas activas")
     @GetMapping("/personas")
     public ResponseEntity<List<PersonaDTO>> getAllPersonas() {
-        List<Persona> personas = personaService.findAll();
-        List<PersonaDTO> personasDTO = personas.stream()
-                .filter(p -> Boolean.TRUE.equals(p.getEstado()))
+        // Proyección filtrada en la consulta: una sola sentencia sin importar la cantidad de personas
+        List<PersonaDTO> personasDTO = personaService.findVistasActivas().stream()
                 .map(dtoConverter::toPersonaDTO)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(personasDTO);
@@ -122,9 +122,7 @@ public class PersonaClienteController {
     @Operation(summary = "Obtener todos los clientes activos")
     @GetMapping("/clientes")
     public ResponseEntity<List<ClienteDTO>> getAllClientes() {
-        List<Cliente> clientes = clienteService.findAll();
-        List<ClienteDTO> clientesDTO = clientes.stream()
-                .filter(c -> Boolean.TRUE.equals(c.getEstado()))
+        List<ClienteDTO> clientesDTO = clienteService.findVistasActivas().stream()
                 .map(dtoConverter::toClienteDTO)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(clientesDTO);
@@ -145,12 +143,7 @@ public class PersonaClienteController {
     @GetMapping("/clientes/persona/{personaId}")
     public ResponseEntity<ClienteDTO> getClienteByPersonaId(
         @Parameter(description = "ID de la persona") @PathVariable("personaId") Long personaId) {
-        List<Cliente> clientes = clienteService.findAll();
-        Cliente cliente = clientes.stream()
-                .filter(c -> c.getPersona().getIdpersona().equals(personaId) && Boolean.TRUE.equals(c.getEstado()))
-                .findFirst()
-                .orElse(null);
-        
+        ClienteVista cliente = clienteService.findVistaActivaByPersonaId(personaId);
         if (cliente != null) {
             return ResponseEntity.ok(dtoConverter.toClienteDTO(cliente));
         }
@@ -161,12 +154,7 @@ public class PersonaClienteController {
     @GetMapping("/clientes/nombre-usuario/{nombreUsuario}")
     public ResponseEntity<ClienteDTO> getClienteByNombreUsuario(
         @Parameter(description = "Nombre de usuario del cliente") @PathVariable("nombreUsuario") String nombreUsuario) {
-        List<Cliente> clientes = clienteService.findAll();
-        Cliente cliente = clientes.stream()
-                .filter(c -> c.getNombreusuario().equals(nombreUsuario) && Boolean.TRUE.equals(c.getEstado()))
-                .findFirst()
-                .orElse(null);
-        
+        ClienteVista cliente = clienteService.findVistaActivaByNombreUsuario(nombreUsuario);
         if (cliente != null) {
             return ResponseEntity.ok(dtoConverter.toClienteDTO(cliente));
         }
@@ -1,8 +1,12 @@
 package com.wquimis.demo.personasclientes.repository;
 
 import com.wquimis.demo.personasclientes.entities.Cliente;
+import com.wquimis.demo.personasclientes.services.ClienteVista;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -10,4 +14,19 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     Optional<Cliente> findByNombreusuario(String nombreusuario);
     Optional<Cliente> findByPersonaIdentificacionpersona(String identificacionPersona);
     Optional<Cliente> findByPersonaIdpersona(Long personaId);
+
+    // ===== Proyecciones de lectura (una sola sentencia, sin cargar entidades) =====
+
+    String SELECT_VISTA = "SELECT c.idcliente AS id, p.idpersona AS personaId, " +
+        "p.identificacionpersona AS identificacionPersona, c.nombreusuario AS nombreUsuario, " +
+        "c.contrasena AS contrasena, c.estado AS estado FROM Cliente c JOIN c.persona p ";
+
+    @Query(SELECT_VISTA + "WHERE c.estado = true ORDER BY c.idcliente")
+    List<ClienteVista> findVistasActivas();
+
+    @Query(SELECT_VISTA + "WHERE c.estado = true AND p.idpersona = :personaId")
+    Optional<ClienteVista> findVistaActivaByPersonaId(@Param("personaId") Long personaId);
+
+    @Query(SELECT_VISTA + "WHERE c.estado = true AND c.nombreusuario = :nombreUsuario")
+    Optional<ClienteVista> findVistaActivaByNombreUsuario(@Param("nombreUsuario") String nombreUsuario);
 }
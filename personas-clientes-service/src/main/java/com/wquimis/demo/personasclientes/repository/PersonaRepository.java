@@ -1,11 +1,19 @@
 package com.wquimis.demo.personasclientes.repository;
 
 import com.wquimis.demo.personasclientes.entities.Persona;
+import com.wquimis.demo.personasclientes.services.PersonaVista;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PersonaRepository extends JpaRepository<Persona, Long> {
     Optional<Persona> findByIdentificacionpersona(String identificacionpersona);
+
+    @Query("SELECT p.idpersona AS id, p.identificacionpersona AS identificacionpersona, p.nombres AS nombres, " +
+           "p.genero AS genero, p.estado AS estado, p.edad AS edad, p.direccion AS direccion, p.telefono AS telefono " +
+           "FROM Persona p WHERE p.estado = true ORDER BY p.idpersona")
+    List<PersonaVista> findVistasActivas();
 }
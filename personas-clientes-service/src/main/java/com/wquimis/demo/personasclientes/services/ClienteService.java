@@ -5,6 +5,9 @@ import java.util.List;
 
 public interface ClienteService {
     List<Cliente> findAll();
+    List<ClienteVista> findVistasActivas();
+    ClienteVista findVistaActivaByPersonaId(Long personaId);
+    ClienteVista findVistaActivaByNombreUsuario(String nombreUsuario);
     Cliente findById(Long id);
     Cliente findByIdentificacionPersona(String identificacionPersona);
     Cliente save(Cliente cliente);
@@ -0,0 +1,14 @@
+package com.wquimis.demo.personasclientes.services;
+
+/**
+ * Proyección de solo lectura con las columnas de ClienteDTO, resuelta con un único JOIN a personas
+ * en lugar de cargar Cliente.persona y Persona.cliente por cada fila.
+ */
+public interface ClienteVista {
+    Long getId();
+    Long getPersonaId();
+    String getIdentificacionPersona();
+    String getNombreUsuario();
+    String getContrasena();
+    Boolean getEstado();
+}
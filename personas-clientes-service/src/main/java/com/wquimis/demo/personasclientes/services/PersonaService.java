@@ -5,6 +5,7 @@ import java.util.List;
 
 public interface PersonaService {
     List<Persona> findAll();
+    List<PersonaVista> findVistasActivas();
     Persona findById(Long id);
     Persona findByIdentificacion(String identificacion);
     Persona findByIdentificacionOptional(String identificacion);
@@ -0,0 +1,16 @@
+package com.wquimis.demo.personasclientes.services;
+
+/**
+ * Proyección de solo lectura con las columnas de PersonaDTO. Se consulta sin cargar la entidad,
+ * evitando la carga EAGER de Persona.cliente (una consulta adicional por persona).
+ */
+public interface PersonaVista {
+    Long getId();
+    String getIdentificacionpersona();
+    String getNombres();
+    String getGenero();
+    Boolean getEstado();
+    Integer getEdad();
+    String getDireccion();
+    String getTelefono();
+}
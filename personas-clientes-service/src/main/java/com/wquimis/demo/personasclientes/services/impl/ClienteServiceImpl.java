@@ -4,6 +4,7 @@ import com.wquimis.demo.personasclientes.entities.Cliente;
 import com.wquimis.demo.personasclientes.exceptions.ClienteExistenteException;
 import com.wquimis.demo.personasclientes.repository.ClienteRepository;
 import com.wquimis.demo.personasclientes.services.ClienteService;
+import com.wquimis.demo.personasclientes.services.ClienteVista;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityNotFoundException;
@@ -24,6 +25,24 @@ public class ClienteServiceImpl implements ClienteService {
         return clienteRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ClienteVista> findVistasActivas() {
+        return clienteRepository.findVistasActivas();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ClienteVista findVistaActivaByPersonaId(Long personaId) {
+        return clienteRepository.findVistaActivaByPersonaId(personaId).orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ClienteVista findVistaActivaByNombreUsuario(String nombreUsuario) {
+        return clienteRepository.findVistaActivaByNombreUsuario(nombreUsuario).orElse(null);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Cliente findById(Long id) {
@@ -4,6 +4,7 @@ import com.wquimis.demo.personasclientes.entities.Persona;
 import com.wquimis.demo.personasclientes.exceptions.PersonaExistenteException;
 import com.wquimis.demo.personasclientes.repository.PersonaRepository;
 import com.wquimis.demo.personasclientes.services.PersonaService;
+import com.wquimis.demo.personasclientes.services.PersonaVista;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityNotFoundException;
@@ -26,6 +27,12 @@ public class PersonaServiceImpl implements PersonaService {
         return personaRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<PersonaVista> findVistasActivas() {
+        return personaRepository.findVistasActivas();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Persona findById(Long id) {
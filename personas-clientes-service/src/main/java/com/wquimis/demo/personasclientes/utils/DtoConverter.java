@@ -2,105 +2,67 @@ package com.wquimis.demo.personasclientes.utils;
 
 import com.wquimis.demo.personasclientes.dto.*;
 import com.wquimis.demo.personasclientes.entities.*;
-import org.modelmapper.ModelMapper;
+import com.wquimis.demo.personasclientes.services.ClienteVista;
+import com.wquimis.demo.personasclientes.services.PersonaVista;
 import org.springframework.stereotype.Component;
 
 @Component
 public class DtoConverter {
 
-    private final ModelMapper modelMapper;
+    private final PersonaClienteMapper mapper;
 
-    public DtoConverter(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
+    public DtoConverter(PersonaClienteMapper mapper) {
+        this.mapper = mapper;
     }
 
     public Cliente createClienteFromDTO(CreateClienteDTO dto) {
-        Cliente cliente = modelMapper.map(dto, Cliente.class);
-        cliente.setNombreusuario(dto.getNombreUsuario());
-        cliente.setContrasena(dto.getContrasena());
-        cliente.setEstado(true);
-        return cliente;
+        return mapper.toCliente(dto);
     }
 
     public Persona updatePersonaFromDTO(PersonaUpdateDTO dto, Persona persona) {
-        modelMapper.map(dto, persona);
+        mapper.actualizarPersona(dto, persona);
         return persona;
     }
 
     public PersonaDTO toPersonaDTO(Persona persona) {
-        PersonaDTO dto = modelMapper.map(persona, PersonaDTO.class);
-        dto.setId(persona.getIdpersona());
-        dto.setIdentificacionpersona(persona.getIdentificacionpersona());
-        return dto;
+        return mapper.toPersonaDTO(persona);
     }
 
     public ClienteDTO toClienteDTO(Cliente cliente) {
-        ClienteDTO dto = modelMapper.map(cliente, ClienteDTO.class);
-        dto.setId(cliente.getIdcliente());
-        dto.setNombreUsuario(cliente.getNombreusuario());
-        dto.setContrasena(cliente.getContrasena());
-        dto.setEstado(cliente.getEstado());
-        if (cliente.getPersona() != null) {
-            dto.setPersonaId(cliente.getPersona().getIdpersona());
-            dto.setIdentificacionPersona(cliente.getPersona().getIdentificacionpersona());
-        }
-        return dto;
+        return mapper.toClienteDTO(cliente);
+    }
+
+    public PersonaDTO toPersonaDTO(PersonaVista vista) {
+        return mapper.toPersonaDTO(vista);
+    }
+
+    public ClienteDTO toClienteDTO(ClienteVista vista) {
+        return mapper.toClienteDTO(vista);
     }
 
     public Persona toPersona(PersonaDTO dto) {
-        Persona persona = modelMapper.map(dto, Persona.class);
-        if (dto.getId() != null) {
-            persona.setIdpersona(dto.getId());
-        }
-        persona.setIdentificacionpersona(dto.getIdentificacionpersona());
-        persona.setEstado(dto.getEstado() != null ? dto.getEstado() : true);
-        return persona;
+        return mapper.toPersona(dto);
     }
 
     public Cliente toCliente(ClienteDTO dto) {
-        Cliente cliente = modelMapper.map(dto, Cliente.class);
-        if (dto.getId() != null) {
-            cliente.setIdcliente(dto.getId());
-        }
-        cliente.setNombreusuario(dto.getNombreUsuario());
-        cliente.setContrasena(dto.getContrasena());
-        cliente.setEstado(true);
-        return cliente;
+        return mapper.toCliente(dto);
     }
 
     public Persona toEntity(PersonaDTO dto) {
-        Persona persona = modelMapper.map(dto, Persona.class);
-        persona.setIdentificacionpersona(dto.getIdentificacionpersona());
-        persona.setEstado(dto.getEstado() != null ? dto.getEstado() : true);
-        return persona;
+        return mapper.toPersonaNueva(dto);
     }
 
     public Cliente toEntity(ClienteDTO dto, Persona persona) {
-        Cliente cliente = modelMapper.map(dto, Cliente.class);
+        Cliente cliente = mapper.toClienteNuevo(dto);
         cliente.setPersona(persona);
-        cliente.setNombreusuario(dto.getNombreUsuario());
-        cliente.setContrasena(dto.getContrasena());
-        cliente.setEstado(true);
         return cliente;
     }
 
     public PersonaDTO toDto(Persona persona) {
-        PersonaDTO dto = modelMapper.map(persona, PersonaDTO.class);
-        dto.setId(persona.getIdpersona());
-        dto.setIdentificacionpersona(persona.getIdentificacionpersona());
-        return dto;
+        return mapper.toPersonaDTO(persona);
     }
 
     public ClienteDTO toDto(Cliente cliente) {
-        ClienteDTO dto = modelMapper.map(cliente, ClienteDTO.class);
-        dto.setId(cliente.getIdcliente());
-        if (cliente.getPersona() != null) {
-            dto.setPersonaId(cliente.getPersona().getIdpersona());
-            dto.setIdentificacionPersona(cliente.getPersona().getIdentificacionpersona());
-        }
-        dto.setNombreUsuario(cliente.getNombreusuario());
-        dto.setContrasena(cliente.getContrasena());
-        dto.setEstado(cliente.getEstado());
-        return dto;
+        return mapper.toClienteDTO(cliente);
     }
 }
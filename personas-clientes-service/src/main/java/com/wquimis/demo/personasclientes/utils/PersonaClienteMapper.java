@@ -0,0 +1,71 @@
+package com.wquimis.demo.personasclientes.utils;
+
+import com.wquimis.demo.personasclientes.dto.ClienteDTO;
+import com.wquimis.demo.personasclientes.dto.CreateClienteDTO;
+import com.wquimis.demo.personasclientes.dto.PersonaDTO;
+import com.wquimis.demo.personasclientes.dto.PersonaUpdateDTO;
+import com.wquimis.demo.personasclientes.entities.Cliente;
+import com.wquimis.demo.personasclientes.entities.Persona;
+import com.wquimis.demo.personasclientes.services.ClienteVista;
+import com.wquimis.demo.personasclientes.services.PersonaVista;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Mapeos entidad ↔ DTO generados en compilación por MapStruct (getters y setters directos, sin reflexión).
+ * Todo campo destino debe estar mapeado o ignorado explícitamente: un campo nuevo sin mapeo no compila.
+ * Reproduce la salida que tenía ModelMapper con coincidencia STRICT: solo se copian los campos de igual nombre,
+ * los nulos del origen sobrescriben al destino y los campos con nombre distinto se mapean aquí de forma explícita.
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface PersonaClienteMapper {
+
+    @Mapping(target = "id", source = "idpersona")
+    PersonaDTO toPersonaDTO(Persona persona);
+
+    @Mapping(target = "id", source = "idcliente")
+    @Mapping(target = "personaId", source = "persona.idpersona")
+    @Mapping(target = "identificacionPersona", source = "persona.identificacionpersona")
+    @Mapping(target = "nombreUsuario", source = "nombreusuario")
+    ClienteDTO toClienteDTO(Cliente cliente);
+
+    PersonaDTO toPersonaDTO(PersonaVista vista);
+
+    ClienteDTO toClienteDTO(ClienteVista vista);
+
+    @Mapping(target = "idpersona", source = "id")
+    @Mapping(target = "estado", defaultValue = "true")
+    @Mapping(target = "cliente", ignore = true)
+    Persona toPersona(PersonaDTO dto);
+
+    @Mapping(target = "idpersona", ignore = true)
+    @Mapping(target = "estado", defaultValue = "true")
+    @Mapping(target = "cliente", ignore = true)
+    Persona toPersonaNueva(PersonaDTO dto);
+
+    @Mapping(target = "idcliente", source = "id")
+    @Mapping(target = "persona", ignore = true)
+    @Mapping(target = "nombreusuario", source = "nombreUsuario")
+    @Mapping(target = "estado", constant = "true")
+    Cliente toCliente(ClienteDTO dto);
+
+    @Mapping(target = "idcliente", ignore = true)
+    @Mapping(target = "persona", ignore = true)
+    @Mapping(target = "nombreusuario", source = "nombreUsuario")
+    @Mapping(target = "estado", constant = "true")
+    Cliente toClienteNuevo(ClienteDTO dto);
+
+    @Mapping(target = "idcliente", ignore = true)
+    @Mapping(target = "persona", ignore = true)
+    @Mapping(target = "nombreusuario", source = "nombreUsuario")
+    @Mapping(target = "estado", constant = "true")
+    Cliente toCliente(CreateClienteDTO dto);
+
+    @Mapping(target = "idpersona", ignore = true)
+    @Mapping(target = "identificacionpersona", ignore = true)
+    @Mapping(target = "cliente", ignore = true)
+    void actualizarPersona(PersonaUpdateDTO dto, @MappingTarget Persona persona);
+}
@@ -0,0 +1,24 @@
+-- Esquema base de personas-clientes-service (equivalente a tools/1_create_schema.sql).
+-- En bases existentes Flyway marca esta versión como baseline y no la ejecuta.
+-- Las búsquedas por identificacionpersona y nombreusuario ya están cubiertas por sus índices UNIQUE
+-- y ClienteRepository.findByPersonaIdpersona por el índice de la FK idpersona.
+
+CREATE TABLE IF NOT EXISTS personas (
+    idpersona BIGINT AUTO_INCREMENT PRIMARY KEY,
+    identificacionpersona VARCHAR(10) NOT NULL UNIQUE,
+    nombres VARCHAR(150) NOT NULL,
+    genero CHAR(1) NOT NULL,
+    edad INT NOT NULL,
+    direccion VARCHAR(300),
+    telefono VARCHAR(15),
+    estado BOOLEAN DEFAULT true
+);
+
+CREATE TABLE IF NOT EXISTS clientes (
+    idcliente BIGINT AUTO_INCREMENT PRIMARY KEY,
+    idpersona BIGINT NOT NULL,
+    nombreusuario VARCHAR(50) NOT NULL UNIQUE,
+    contrasena VARCHAR(100) NOT NULL,
+    estado BOOLEAN DEFAULT true,
+    FOREIGN KEY (idpersona) REFERENCES personas(idpersona)
+);
@@ -0,0 +1,20 @@
+package com.wquimis.demo.personasclientes;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * MySQL de pruebas con la misma imagen que tools/docker-compose.yml; Flyway aplica las migraciones al iniciar.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class ContenedoresPrueba {
+
+    @Bean
+    @ServiceConnection
+    MySQLContainer<?> mysql() {
+        return new MySQLContainer<>(DockerImageName.parse("mysql:8.0.43-bookworm"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.wquimis.demo.personasclientes.repository;
+
+import com.wquimis.demo.personasclientes.ContenedoresPrueba;
+import com.wquimis.demo.personasclientes.utils.DtoConverter;
+import com.wquimis.demo.personasclientes.utils.PersonaClienteMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sentencias JDBC por solicitud de los listados (GET /api/personas, GET /api/clientes y las búsquedas de
+ * cliente): la misma consulta y la misma conversión a DTO que el controlador. Con una persona o con veinte
+ * debe ser una sola sentencia; por entidad, Persona.cliente (EAGER) suma una consulta por persona.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ContenedoresPrueba.class)
+@Testcontainers(disabledWithoutDocker = true)
+class SentenciasListadosTest {
+
+    @Autowired
+    private PersonaRepository personaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final DtoConverter dtoConverter = new DtoConverter(Mappers.getMapper(PersonaClienteMapper.class));
+
+    @Test
+    void listadosSonUnaSolaSentenciaConCualquierCantidadDeFilas() {
+        insertarPersonasConCliente(1, 1);
+        long personasUna = sentencias(this::listarPersonas);
+        long clientesUno = sentencias(this::listarClientes);
+
+        insertarPersonasConCliente(2, 20);
+        long personasVeinte = sentencias(this::listarPersonas);
+        long clientesVeinte = sentencias(this::listarClientes);
+
+        assertThat(personasUna).isEqualTo(1);
+        assertThat(personasVeinte).isEqualTo(personasUna);
+        assertThat(clientesUno).isEqualTo(1);
+        assertThat(clientesVeinte).isEqualTo(clientesUno);
+    }
+
+    @Test
+    void busquedasDeClienteSonUnaSolaSentencia() {
+        insertarPersonasConCliente(1, 3);
+
+        assertThat(sentencias(() -> clienteRepository.findVistaActivaByPersonaId(idPersona(2))
+            .map(dtoConverter::toClienteDTO))).isEqualTo(1);
+        assertThat(sentencias(() -> clienteRepository.findVistaActivaByNombreUsuario("usuario2")
+            .map(dtoConverter::toClienteDTO))).isEqualTo(1);
+    }
+
+    @Test
+    void cargaPorEntidadCreceConLasPersonas() {
+        // Referencia: leer las personas como entidades carga el cliente de cada una por separado
+        insertarPersonasConCliente(1, 20);
+
+        long porEntidad = sentencias(() -> personaRepository.findAll().forEach(dtoConverter::toPersonaDTO));
+
+        assertThat(porEntidad).isGreaterThan(20);
+    }
+
+    private void listarPersonas() {
+        personaRepository.findVistasActivas().forEach(dtoConverter::toPersonaDTO);
+    }
+
+    private void listarClientes() {
+        clienteRepository.findVistasActivas().forEach(dtoConverter::toClienteDTO);
+    }
+
+    private long sentencias(Runnable solicitud) {
+        // Contexto de persistencia vacío, como al inicio de cada solicitud (open-in-view deshabilitado)
+        entityManager.clear();
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        solicitud.run();
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    private void insertarPersonasConCliente(int desde, int hasta) {
+        for (int i = desde; i <= hasta; i++) {
+            jdbcTemplate.update("INSERT INTO personas (identificacionpersona, nombres, genero, edad, estado) " +
+                "VALUES (?, ?, 'F', 30, true)", String.format("%010d", i), "Persona " + i);
+            jdbcTemplate.update("INSERT INTO clientes (idpersona, nombreusuario, contrasena, estado) " +
+                "VALUES (?, ?, '1234', true)", idPersona(i), "usuario" + i);
+        }
+    }
+
+    private Long idPersona(int i) {
+        return jdbcTemplate.queryForObject("SELECT idpersona FROM personas WHERE identificacionpersona = ?",
+            Long.class, String.format("%010d", i));
+    }
+}
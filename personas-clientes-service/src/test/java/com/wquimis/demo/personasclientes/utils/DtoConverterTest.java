@@ -0,0 +1,244 @@
+package com.wquimis.demo.personasclientes.utils;
+
+import com.wquimis.demo.personasclientes.dto.ClienteDTO;
+import com.wquimis.demo.personasclientes.dto.CreateClienteDTO;
+import com.wquimis.demo.personasclientes.dto.PersonaDTO;
+import com.wquimis.demo.personasclientes.dto.PersonaUpdateDTO;
+import com.wquimis.demo.personasclientes.entities.Cliente;
+import com.wquimis.demo.personasclientes.entities.Persona;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mapstruct.factory.Mappers;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Equivalencia del DtoConverter basado en MapStruct con el conversor anterior (ModelMapper con coincidencia STRICT
+ * más los ajustes manuales). ModelMapper ya no es dependencia, así que {@link ConversorAnterior} reproduce a mano
+ * lo que producía: solo campos de igual nombre, nulos copiados y los campos con nombre distinto asignados aparte.
+ */
+class DtoConverterTest {
+
+    private final DtoConverter dtoConverter = new DtoConverter(Mappers.getMapper(PersonaClienteMapper.class));
+
+    static Stream<Persona> personas() {
+        return Stream.of(
+            persona(7L, "0912345678", "Jose Lema", "M", 35, "Otavalo sn y principal", "098254785", true),
+            persona(8L, "1712345678", "Marianela Montalvo", "F", 28, null, null, false),
+            persona(null, "0102030405", "Sin Estado", "F", 40, "Amazonas y NNUU", "097548965", null));
+    }
+
+    static Stream<Cliente> clientes() {
+        Cliente completo = cliente(3L, persona(7L, "0912345678", "Jose Lema", "M", 35, null, null, true),
+            "jlema", "1234", true);
+        Cliente sinPersona = cliente(4L, null, "mmontalvo", "5678", false);
+        Cliente sinEstado = cliente(null, persona(9L, "0102030405", "Sin Estado", "F", 40, null, null, null),
+            "sestado", "2468", null);
+        return Stream.of(completo, sinPersona, sinEstado);
+    }
+
+    static Stream<PersonaDTO> personasDto() {
+        return personas().map(ConversorAnterior::toPersonaDTO);
+    }
+
+    static Stream<ClienteDTO> clientesDto() {
+        return clientes().map(ConversorAnterior::toClienteDTO);
+    }
+
+    // ===== Entidad → DTO =====
+
+    @ParameterizedTest
+    @MethodSource("personas")
+    void toPersonaDTOEquivaleAlConversorAnterior(Persona persona) {
+        assertThat(dtoConverter.toPersonaDTO(persona)).isEqualTo(ConversorAnterior.toPersonaDTO(persona));
+        assertThat(dtoConverter.toDto(persona)).isEqualTo(ConversorAnterior.toPersonaDTO(persona));
+    }
+
+    @ParameterizedTest
+    @MethodSource("clientes")
+    void toClienteDTOEquivaleAlConversorAnterior(Cliente cliente) {
+        assertThat(dtoConverter.toClienteDTO(cliente)).isEqualTo(ConversorAnterior.toClienteDTO(cliente));
+        assertThat(dtoConverter.toDto(cliente)).isEqualTo(ConversorAnterior.toClienteDTO(cliente));
+    }
+
+    // ===== DTO → entidad =====
+
+    @ParameterizedTest
+    @MethodSource("personasDto")
+    void toPersonaEquivaleAlConversorAnterior(PersonaDTO dto) {
+        assertThat(dtoConverter.toPersona(dto)).isEqualTo(ConversorAnterior.toPersona(dto));
+        assertThat(dtoConverter.toEntity(dto)).isEqualTo(ConversorAnterior.toEntity(dto));
+    }
+
+    @ParameterizedTest
+    @MethodSource("clientesDto")
+    void toClienteEquivaleAlConversorAnterior(ClienteDTO dto) {
+        Persona persona = persona(11L, "0911111111", "Persona Asociada", "M", 50, null, null, true);
+        assertThat(dtoConverter.toCliente(dto)).isEqualTo(ConversorAnterior.toCliente(dto));
+        assertThat(dtoConverter.toEntity(dto, persona)).isEqualTo(ConversorAnterior.toEntity(dto, persona));
+    }
+
+    @Test
+    void createClienteFromDTOEquivaleAlConversorAnterior() {
+        CreateClienteDTO dto = new CreateClienteDTO();
+        dto.setPersonaId(7L);
+        dto.setNombreUsuario("jlema");
+        dto.setContrasena("1234");
+
+        assertThat(dtoConverter.createClienteFromDTO(dto)).isEqualTo(ConversorAnterior.createClienteFromDTO(dto));
+    }
+
+    @Test
+    void updatePersonaFromDTOEquivaleAlConversorAnteriorIncluyendoNulos() {
+        PersonaUpdateDTO dto = new PersonaUpdateDTO();
+        dto.setNombres("Jose Lema Actualizado");
+        dto.setGenero("M");
+        dto.setEdad(36);
+        dto.setEstado(false);
+        // direccion y telefono en null: el conversor anterior también los sobrescribía
+
+        Persona actualizada = dtoConverter.updatePersonaFromDTO(dto,
+            persona(7L, "0912345678", "Jose Lema", "M", 35, "Otavalo sn y principal", "098254785", true));
+        Persona esperada = ConversorAnterior.updatePersonaFromDTO(dto,
+            persona(7L, "0912345678", "Jose Lema", "M", 35, "Otavalo sn y principal", "098254785", true));
+
+        assertThat(actualizada).isEqualTo(esperada);
+        assertThat(actualizada.getIdpersona()).isEqualTo(7L);
+        assertThat(actualizada.getIdentificacionpersona()).isEqualTo("0912345678");
+        assertThat(actualizada.getDireccion()).isNull();
+    }
+
+    // ===== Ida y vuelta =====
+
+    @ParameterizedTest
+    @MethodSource("personas")
+    void personaIdaYVueltaConservaLosCampos(Persona persona) {
+        Persona vuelta = dtoConverter.toPersona(dtoConverter.toPersonaDTO(persona));
+
+        assertThat(vuelta).usingRecursiveComparison().ignoringFields("estado").isEqualTo(persona);
+        // Un estado nulo vuelve como activo, igual que con el conversor anterior
+        assertThat(vuelta.getEstado()).isEqualTo(persona.getEstado() != null ? persona.getEstado() : Boolean.TRUE);
+    }
+
+    @ParameterizedTest
+    @MethodSource("clientes")
+    void clienteIdaYVueltaConservaLosCampos(Cliente cliente) {
+        Cliente vuelta = dtoConverter.toCliente(dtoConverter.toClienteDTO(cliente));
+
+        // La persona no viaja en el DTO (solo su id) y el estado se fija en activo al convertir a entidad
+        assertThat(vuelta).usingRecursiveComparison().ignoringFields("persona", "estado").isEqualTo(cliente);
+        assertThat(vuelta.getPersona()).isNull();
+        assertThat(vuelta.getEstado()).isTrue();
+    }
+
+    private static Persona persona(Long id, String identificacion, String nombres, String genero, Integer edad,
+                                   String direccion, String telefono, Boolean estado) {
+        Persona persona = new Persona();
+        persona.setIdpersona(id);
+        persona.setIdentificacionpersona(identificacion);
+        persona.setNombres(nombres);
+        persona.setGenero(genero);
+        persona.setEdad(edad);
+        persona.setDireccion(direccion);
+        persona.setTelefono(telefono);
+        persona.setEstado(estado);
+        return persona;
+    }
+
+    private static Cliente cliente(Long id, Persona persona, String nombreUsuario, String contrasena, Boolean estado) {
+        Cliente cliente = new Cliente();
+        cliente.setIdcliente(id);
+        cliente.setPersona(persona);
+        cliente.setNombreusuario(nombreUsuario);
+        cliente.setContrasena(contrasena);
+        cliente.setEstado(estado);
+        return cliente;
+    }
+
+    /**
+     * Salida del DtoConverter anterior a MapStruct, campo por campo.
+     */
+    private static final class ConversorAnterior {
+
+        static PersonaDTO toPersonaDTO(Persona persona) {
+            PersonaDTO dto = new PersonaDTO();
+            dto.setId(persona.getIdpersona());
+            dto.setIdentificacionpersona(persona.getIdentificacionpersona());
+            dto.setNombres(persona.getNombres());
+            dto.setGenero(persona.getGenero());
+            dto.setEstado(persona.getEstado());
+            dto.setEdad(persona.getEdad());
+            dto.setDireccion(persona.getDireccion());
+            dto.setTelefono(persona.getTelefono());
+            return dto;
+        }
+
+        static ClienteDTO toClienteDTO(Cliente cliente) {
+            ClienteDTO dto = new ClienteDTO();
+            dto.setId(cliente.getIdcliente());
+            dto.setNombreUsuario(cliente.getNombreusuario());
+            dto.setContrasena(cliente.getContrasena());
+            dto.setEstado(cliente.getEstado());
+            if (cliente.getPersona() != null) {
+                dto.setPersonaId(cliente.getPersona().getIdpersona());
+                dto.setIdentificacionPersona(cliente.getPersona().getIdentificacionpersona());
+            }
+            return dto;
+        }
+
+        static Persona toPersona(PersonaDTO dto) {
+            Persona persona = toEntity(dto);
+            persona.setIdpersona(dto.getId());
+            return persona;
+        }
+
+        // Sin id: STRICT no relaciona id con idpersona
+        static Persona toEntity(PersonaDTO dto) {
+            Persona persona = new Persona();
+            persona.setIdentificacionpersona(dto.getIdentificacionpersona());
+            persona.setNombres(dto.getNombres());
+            persona.setGenero(dto.getGenero());
+            persona.setEdad(dto.getEdad());
+            persona.setDireccion(dto.getDireccion());
+            persona.setTelefono(dto.getTelefono());
+            persona.setEstado(dto.getEstado() != null ? dto.getEstado() : true);
+            return persona;
+        }
+
+        static Cliente toCliente(ClienteDTO dto) {
+            Cliente cliente = toEntity(dto, null);
+            cliente.setIdcliente(dto.getId());
+            return cliente;
+        }
+
+        static Cliente toEntity(ClienteDTO dto, Persona persona) {
+            Cliente cliente = new Cliente();
+            cliente.setPersona(persona);
+            cliente.setNombreusuario(dto.getNombreUsuario());
+            cliente.setContrasena(dto.getContrasena());
+            cliente.setEstado(true);
+            return cliente;
+        }
+
+        static Cliente createClienteFromDTO(CreateClienteDTO dto) {
+            Cliente cliente = new Cliente();
+            cliente.setNombreusuario(dto.getNombreUsuario());
+            cliente.setContrasena(dto.getContrasena());
+            cliente.setEstado(true);
+            return cliente;
+        }
+
+        static Persona updatePersonaFromDTO(PersonaUpdateDTO dto, Persona persona) {
+            persona.setNombres(dto.getNombres());
+            persona.setGenero(dto.getGenero());
+            persona.setEdad(dto.getEdad());
+            persona.setDireccion(dto.getDireccion());
+            persona.setTelefono(dto.getTelefono());
+            persona.setEstado(dto.getEstado());
+            return persona;
+        }
+    }
+}